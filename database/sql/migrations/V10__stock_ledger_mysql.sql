@@ -0,0 +1,33 @@
+-- V10: stock movement ledger (see StockLedger)
+-- inventory_stock_history becomes the append-only ledger of every stock change;
+-- inventory.stock_quantity is kept as its projection. stock_snapshots records
+-- each item's quantity up to a ledger ID, so stock at an earlier time replays
+-- only the movements after the nearest snapshot.
+
+CREATE TABLE IF NOT EXISTS inventory_stock_history (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    item_name VARCHAR(255) NOT NULL,
+    old_quantity INT NOT NULL,
+    new_quantity INT NOT NULL,
+    change_amount INT NOT NULL,
+    change_type ENUM('SALE', 'RESTOCK', 'ADJUSTMENT', 'EXPIRED', 'DAMAGED') NOT NULL,
+    notes TEXT,
+    changed_by VARCHAR(100),
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (item_name) REFERENCES inventory(name) ON DELETE CASCADE,
+    INDEX idx_item_name (item_name),
+    INDEX idx_change_date (changed_at),
+    INDEX idx_change_type (change_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    item_name VARCHAR(255) NOT NULL,
+    quantity INT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    taken_at TIMESTAMP NOT NULL,
+    INDEX idx_stock_snapshots_item (item_name, taken_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- The ledger records every change itself; this trigger would log each one again
+DROP TRIGGER IF EXISTS trg_inventory_stock_update;
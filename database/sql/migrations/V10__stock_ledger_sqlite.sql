@@ -0,0 +1,17 @@
+-- V10: stock movement ledger (see StockLedger)
+-- inventory_stock_history (baseline schema) becomes the append-only ledger of
+-- every stock change; inventory.stock_quantity is kept as its projection.
+-- stock_snapshots records each item's quantity up to a ledger ID, so stock at
+-- an earlier time replays only the movements after the nearest snapshot.
+-- changed_at and taken_at hold epoch milliseconds written by the application.
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    item_name TEXT NOT NULL,
+    quantity INTEGER NOT NULL,
+    last_movement_id INTEGER NOT NULL,
+    taken_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_snapshots_item ON stock_snapshots(item_name, taken_at);
+CREATE INDEX IF NOT EXISTS idx_stock_history_item_id ON inventory_stock_history(item_name, id);
@@ -0,0 +1,12 @@
+-- V11: one row per sale ever recorded, keyed by transaction_id
+-- Partitioning sales_transactions (V9) replaces its UNIQUE(transaction_id) with
+-- UNIQUE(transaction_id, transaction_date), and archived months live in other
+-- tables, so neither catches a repeated ID. SalesDAO.insert adds the ID here
+-- first, in the same transaction as the sale.
+
+CREATE TABLE IF NOT EXISTS sales_transaction_ids (
+    transaction_id VARCHAR(50) PRIMARY KEY
+);
+
+INSERT IGNORE INTO sales_transaction_ids (transaction_id)
+    SELECT DISTINCT transaction_id FROM sales_history;
@@ -0,0 +1,13 @@
+-- V11: one row per sale ever recorded, keyed by transaction_id
+-- On MySQL, partitioning sales_transactions replaces its UNIQUE(transaction_id)
+-- with UNIQUE(transaction_id, transaction_date), and archived months live in
+-- other tables, so neither catches a repeated ID. SalesDAO.insert adds the ID
+-- here first, in the same transaction as the sale. Kept on SQLite too so the
+-- outbox and replica replay the same statements.
+
+CREATE TABLE IF NOT EXISTS sales_transaction_ids (
+    transaction_id VARCHAR(50) PRIMARY KEY
+);
+
+INSERT OR IGNORE INTO sales_transaction_ids (transaction_id)
+    SELECT DISTINCT transaction_id FROM sales_history;
@@ -0,0 +1,38 @@
+-- V2: rule-based promotions and per-customer redemption history
+
+CREATE TABLE IF NOT EXISTS promotions (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    promo_code VARCHAR(50) UNIQUE,              -- NULL = applied automatically
+    promo_name VARCHAR(255) NOT NULL,
+    promo_type ENUM('PERCENT_OFF', 'AMOUNT_OFF', 'BUY_X_GET_Y') NOT NULL,
+    scope ENUM('ORDER', 'CATEGORY', 'ITEM') NOT NULL DEFAULT 'ORDER',
+    scope_value VARCHAR(255),                   -- category or item name for CATEGORY/ITEM scope
+    discount_value DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    buy_quantity INT NOT NULL DEFAULT 1,
+    get_quantity INT NOT NULL DEFAULT 1,
+    min_subtotal DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    starts_at DATETIME NULL,
+    ends_at DATETIME NULL,
+    per_customer_limit INT NULL,                -- NULL = unlimited
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_promotions_active (is_active)
+);
+
+CREATE TABLE IF NOT EXISTS promotion_redemptions (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    promotion_id INT NOT NULL,
+    customer_id VARCHAR(50),
+    transaction_id VARCHAR(50) NOT NULL,
+    discount_amount DECIMAL(10, 2) NOT NULL,
+    redeemed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (promotion_id) REFERENCES promotions(id) ON DELETE CASCADE,
+    INDEX idx_redemptions_customer (customer_id, promotion_id)
+);
+
+-- Codes previously hard-coded in the cart page
+INSERT IGNORE INTO promotions (promo_code, promo_name, promo_type, scope, discount_value) VALUES
+    ('SWEET10', 'Sweet 10% off', 'PERCENT_OFF', 'ORDER', 10),
+    ('BAKERY15', 'Bakery 15% off', 'PERCENT_OFF', 'ORDER', 15),
+    ('TASTY5', 'Tasty 5% off', 'PERCENT_OFF', 'ORDER', 5),
+    ('PASTRY20', 'Pastry 20% off', 'PERCENT_OFF', 'ORDER', 20);
@@ -0,0 +1,40 @@
+-- V2: rule-based promotions and per-customer redemption history
+
+CREATE TABLE IF NOT EXISTS promotions (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    promo_code VARCHAR(50) UNIQUE,              -- NULL = applied automatically
+    promo_name VARCHAR(255) NOT NULL,
+    promo_type VARCHAR(20) NOT NULL CHECK(promo_type IN ('PERCENT_OFF', 'AMOUNT_OFF', 'BUY_X_GET_Y')),
+    scope VARCHAR(20) NOT NULL DEFAULT 'ORDER' CHECK(scope IN ('ORDER', 'CATEGORY', 'ITEM')),
+    scope_value VARCHAR(255),                   -- category or item name for CATEGORY/ITEM scope
+    discount_value DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    buy_quantity INTEGER NOT NULL DEFAULT 1,
+    get_quantity INTEGER NOT NULL DEFAULT 1,
+    min_subtotal DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    starts_at DATETIME,
+    ends_at DATETIME,
+    per_customer_limit INTEGER,                 -- NULL = unlimited
+    is_active INTEGER DEFAULT 1,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_promotions_active ON promotions(is_active);
+
+CREATE TABLE IF NOT EXISTS promotion_redemptions (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    promotion_id INTEGER NOT NULL,
+    customer_id TEXT,
+    transaction_id VARCHAR(50) NOT NULL,
+    discount_amount DECIMAL(10, 2) NOT NULL,
+    redeemed_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (promotion_id) REFERENCES promotions(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_redemptions_customer ON promotion_redemptions(customer_id, promotion_id);
+
+-- Codes previously hard-coded in the cart page
+INSERT OR IGNORE INTO promotions (promo_code, promo_name, promo_type, scope, discount_value) VALUES
+    ('SWEET10', 'Sweet 10% off', 'PERCENT_OFF', 'ORDER', 10),
+    ('BAKERY15', 'Bakery 15% off', 'PERCENT_OFF', 'ORDER', 15),
+    ('TASTY5', 'Tasty 5% off', 'PERCENT_OFF', 'ORDER', 5),
+    ('PASTRY20', 'Pastry 20% off', 'PERCENT_OFF', 'ORDER', 20);
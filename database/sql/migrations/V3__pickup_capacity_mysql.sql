@@ -0,0 +1,22 @@
+-- V3: pickup slot capacity for custom orders
+-- A row limits orders per pickup slot and/or per day. category_code NULL covers
+-- every category; a row with baker_name counts that baker's orders (any category).
+
+CREATE TABLE IF NOT EXISTS pickup_capacity (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    category_code VARCHAR(50),
+    baker_name VARCHAR(100),
+    max_per_slot INT NULL,                      -- NULL = no slot limit
+    max_per_day INT NULL,                       -- NULL = no daily limit
+    is_active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO pickup_capacity (category_code, baker_name, max_per_slot, max_per_day) VALUES
+    (NULL, NULL, 4, 24),
+    ('CUSTOM_CAKE', NULL, 2, 12),
+    ('BULK_PASTRIES', NULL, 2, 8);
+
+INSERT INTO system_settings (setting_key, setting_value, setting_type, description) VALUES
+    ('PICKUP_SLOT_MINUTES', '60', 'INTEGER', 'Length of a custom order pickup slot in minutes')
+ON DUPLICATE KEY UPDATE setting_key = setting_key;
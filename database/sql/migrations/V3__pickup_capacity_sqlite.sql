@@ -0,0 +1,21 @@
+-- V3: pickup slot capacity for custom orders
+-- A row limits orders per pickup slot and/or per day. category_code NULL covers
+-- every category; a row with baker_name counts that baker's orders (any category).
+
+CREATE TABLE IF NOT EXISTS pickup_capacity (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    category_code TEXT,
+    baker_name TEXT,
+    max_per_slot INTEGER,                       -- NULL = no slot limit
+    max_per_day INTEGER,                        -- NULL = no daily limit
+    is_active INTEGER DEFAULT 1,
+    created_at TEXT DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO pickup_capacity (category_code, baker_name, max_per_slot, max_per_day) VALUES
+    (NULL, NULL, 4, 24),
+    ('CUSTOM_CAKE', NULL, 2, 12),
+    ('BULK_PASTRIES', NULL, 2, 8);
+
+INSERT OR IGNORE INTO system_settings (setting_key, setting_value, setting_type, description) VALUES
+    ('PICKUP_SLOT_MINUTES', '60', 'INTEGER', 'Length of a custom order pickup slot in minutes');
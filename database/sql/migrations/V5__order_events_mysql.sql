@@ -0,0 +1,21 @@
+-- V5: append-only lifecycle log for custom orders
+-- custom_orders.order_status stays as the current-state projection and is
+-- updated in the same transaction as each STATUS_CHANGED event.
+
+CREATE TABLE IF NOT EXISTS custom_order_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_number VARCHAR(50) NOT NULL,
+    event_type VARCHAR(30) NOT NULL,            -- BASELINE, CREATED, STATUS_CHANGED, DEPOSIT_PAID, BAKER_ASSIGNED
+    from_status VARCHAR(30) NULL,
+    to_status VARCHAR(30) NULL,                 -- set for events that change order_status
+    detail VARCHAR(500) NULL,                   -- cancellation reason, baker, payment status
+    amount DECIMAL(10, 2) NULL,                 -- deposit amount for DEPOSIT_PAID
+    actor VARCHAR(100) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_order_events_order (order_number, id)
+);
+
+-- Orders that predate the log start from their current status
+INSERT INTO custom_order_events (order_number, event_type, to_status, actor, created_at)
+SELECT order_number, 'BASELINE', order_status, 'migration', COALESCE(updated_at, created_at, CURRENT_TIMESTAMP)
+FROM custom_orders;
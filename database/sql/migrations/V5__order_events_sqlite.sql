@@ -0,0 +1,22 @@
+-- V5: append-only lifecycle log for custom orders
+-- custom_orders.order_status stays as the current-state projection and is
+-- updated in the same transaction as each STATUS_CHANGED event.
+
+CREATE TABLE IF NOT EXISTS custom_order_events (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    order_number TEXT NOT NULL,
+    event_type TEXT NOT NULL,                   -- BASELINE, CREATED, STATUS_CHANGED, DEPOSIT_PAID, BAKER_ASSIGNED
+    from_status TEXT,
+    to_status TEXT,                             -- set for events that change order_status
+    detail TEXT,                                -- cancellation reason, baker, payment status
+    amount DECIMAL(10, 2),                      -- deposit amount for DEPOSIT_PAID
+    actor TEXT,
+    created_at TEXT DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_events_order ON custom_order_events(order_number, id);
+
+-- Orders that predate the log start from their current status
+INSERT INTO custom_order_events (order_number, event_type, to_status, actor, created_at)
+SELECT order_number, 'BASELINE', order_status, 'migration', COALESCE(updated_at, created_at, CURRENT_TIMESTAMP)
+FROM custom_orders;
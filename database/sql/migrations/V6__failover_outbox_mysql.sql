@@ -0,0 +1,9 @@
+-- V6: idempotency keys of outbox transactions replayed from a station's SQLite store
+-- A key is inserted in the same transaction as the statements it covers, so a
+-- replay interrupted after commit is skipped instead of applied twice.
+
+CREATE TABLE IF NOT EXISTS sync_applied (
+    idempotency_key VARCHAR(64) PRIMARY KEY,
+    statement_count INT NOT NULL,
+    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,15 @@
+-- V6: outbox for writes made on SQLite while MySQL is unreachable
+-- Statements are replayed to MySQL in id order when it recovers; all statements
+-- of one local transaction share an idempotency_key and are applied together.
+
+CREATE TABLE IF NOT EXISTS sync_outbox (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    idempotency_key TEXT NOT NULL,
+    statement_sql TEXT NOT NULL,
+    parameters TEXT,                            -- encoded bind values, see WriteOutbox
+    status TEXT NOT NULL DEFAULT 'PENDING',     -- PENDING, FAILED (rejected by MySQL, kept for review)
+    last_error TEXT,
+    created_at TEXT DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_outbox_key ON sync_outbox (idempotency_key);
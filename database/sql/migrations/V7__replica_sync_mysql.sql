@@ -0,0 +1,5 @@
+-- V7: indexes for the kiosks' catalog delta pulls (WHERE updated_at >= watermark)
+
+CREATE INDEX idx_inventory_updated_at ON inventory(updated_at);
+CREATE INDEX idx_base_products_updated_at ON custom_order_base_products(updated_at);
+CREATE INDEX idx_addons_updated_at ON addons(updated_at);
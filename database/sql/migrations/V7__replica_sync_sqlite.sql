@@ -0,0 +1,43 @@
+-- V7: offline-first replica support (see ReplicaSync)
+-- replica_state holds the sync watermarks of this kiosk's local store.
+-- The triggers stamp updated_at on catalog edits (MySQL does this with
+-- ON UPDATE CURRENT_TIMESTAMP) so a SQLite file can also serve as the
+-- central database that kiosks pull catalog deltas from; sync_applied is
+-- there for the same reason.
+
+CREATE TABLE IF NOT EXISTS replica_state (
+    name TEXT PRIMARY KEY,                      -- e.g. pull:inventory, push:sales_transactions
+    watermark TEXT,
+    synced_at TEXT DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS sync_applied (
+    idempotency_key TEXT PRIMARY KEY,
+    statement_count INTEGER NOT NULL,
+    applied_at TEXT DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TRIGGER IF NOT EXISTS trg_inventory_updated_at
+AFTER UPDATE ON inventory
+FOR EACH ROW WHEN NEW.updated_at IS OLD.updated_at
+BEGIN
+    UPDATE inventory SET updated_at = CURRENT_TIMESTAMP WHERE id = NEW.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_base_products_updated_at
+AFTER UPDATE ON custom_order_base_products
+FOR EACH ROW WHEN NEW.updated_at IS OLD.updated_at
+BEGIN
+    UPDATE custom_order_base_products SET updated_at = CURRENT_TIMESTAMP WHERE id = NEW.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_addons_updated_at
+AFTER UPDATE ON addons
+FOR EACH ROW WHEN NEW.updated_at IS OLD.updated_at
+BEGIN
+    UPDATE addons SET updated_at = CURRENT_TIMESTAMP WHERE id = NEW.id;
+END;
+
+CREATE INDEX IF NOT EXISTS idx_inventory_updated_at ON inventory(updated_at);
+CREATE INDEX IF NOT EXISTS idx_base_products_updated_at ON custom_order_base_products(updated_at);
+CREATE INDEX IF NOT EXISTS idx_addons_updated_at ON addons(updated_at);
@@ -0,0 +1,10 @@
+-- V8: replication heartbeat for read/write routing (see ReadRouter)
+-- The primary stamps beat_millis every few seconds; on a reporting replica the
+-- age of that stamp is how far replication lags behind.
+
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+);
+
+INSERT IGNORE INTO replication_heartbeat (id, beat_millis) VALUES (1, 0);
@@ -0,0 +1,36 @@
+-- V9: summaries and history views for archived sales months (see SalesArchive)
+-- sales_transactions is also partitioned by month (a Java step, since the
+-- foreign key and unique index names differ between installs); cold months
+-- move into per-month tables and their partitions are dropped.
+
+CREATE TABLE IF NOT EXISTS sales_monthly_summary (
+    sales_month CHAR(7) PRIMARY KEY,
+    transaction_count INT NOT NULL DEFAULT 0,
+    item_count INT NOT NULL DEFAULT 0,
+    subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    discount_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    total DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS sales_daily_summary (
+    sales_day DATE PRIMARY KEY,
+    transaction_count INT NOT NULL DEFAULT 0,
+    total DECIMAL(12, 2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS sales_item_monthly_summary (
+    sales_month CHAR(7) NOT NULL,
+    item_name VARCHAR(255) NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_month, item_name)
+);
+
+CREATE OR REPLACE VIEW sales_history AS
+    SELECT id, transaction_id, transaction_date, subtotal, discount_amount, total, discount_applied, created_at
+    FROM sales_transactions;
+
+CREATE OR REPLACE VIEW sales_items_history AS
+    SELECT id, transaction_id, item_name, price, quantity, subtotal
+    FROM sales_items;
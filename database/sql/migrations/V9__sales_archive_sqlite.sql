@@ -0,0 +1,39 @@
+-- V9: summaries and history views for archived sales months (see SalesArchive)
+-- Cold months move out of sales_transactions/sales_items into per-month tables
+-- (sales_transactions_YYYY_MM, sales_items_YYYY_MM); these summaries keep the
+-- all-time reports from reading them. The history views are recreated over the
+-- live and per-month tables after each archival run.
+
+CREATE TABLE IF NOT EXISTS sales_monthly_summary (
+    sales_month TEXT PRIMARY KEY,               -- YYYY-MM
+    transaction_count INTEGER NOT NULL DEFAULT 0,
+    item_count INTEGER NOT NULL DEFAULT 0,
+    subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    discount_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    total DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    archived_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS sales_daily_summary (
+    sales_day TEXT PRIMARY KEY,                 -- YYYY-MM-DD
+    transaction_count INTEGER NOT NULL DEFAULT 0,
+    total DECIMAL(12, 2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS sales_item_monthly_summary (
+    sales_month TEXT NOT NULL,
+    item_name VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    revenue DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_month, item_name)
+);
+
+DROP VIEW IF EXISTS sales_history;
+CREATE VIEW sales_history AS
+    SELECT id, transaction_id, transaction_date, subtotal, discount_amount, total, discount_applied, created_at
+    FROM sales_transactions;
+
+DROP VIEW IF EXISTS sales_items_history;
+CREATE VIEW sales_items_history AS
+    SELECT id, transaction_id, item_name, price, quantity, subtotal
+    FROM sales_items;
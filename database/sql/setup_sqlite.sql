@@ -3,8 +3,7 @@
 -- SQLite Version - Complete Schema
 -- ========================================
 
--- Enable foreign keys support in SQLite
-PRAGMA foreign_keys = ON;
+-- Foreign keys are enabled per connection by SqliteProfile.apply
 
 -- ========================================
 -- INVENTORY MANAGEMENT TABLES
@@ -6,6 +6,8 @@ import com.formdev.flatlaf.FlatLightLaf;
 import kiosk.controller.CartController;
 import kiosk.controller.InventoryController;
 import kiosk.controller.SalesController;
+import kiosk.util.ProductCatalogSearch;
+import kiosk.util.StartupOrchestrator;
 import kiosk.view.KioskMainPage;
 import kiosk.view.ModernBakeryTheme;
 import kiosk.view.SplashScreen;
@@ -13,141 +15,144 @@ import kiosk.view.SplashScreen;
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Main application class for SweetBatter Bakeshop Kiosk
  * Uses MVC architecture with serialization and generics
  * Features modern FlatLaf UI with bakery-themed colors
+ * Startup runs as a timed dependency graph (see StartupOrchestrator)
  */
 public class BakeryPastriesKiosk {
     public static void main(String[] args) {
-        // Initialize database first
-        System.out.println("Initializing database connection and schema...");
-        kiosk.database.DatabaseInitializer.initialize();
-        
-        // Show splash screen
+        // Show splash screen right away; database setup runs as a startup phase
         SplashScreen splash = new SplashScreen();
         
         // Initialize in background thread
         new Thread(() -> {
-            try {
-                // Step 1: Initialize controllers
-                splash.updateProgress(20, "Loading data...");
-                initializeControllers();
-                Thread.sleep(500);
-                
-                // Step 2: Initialize UI theme
-                splash.updateProgress(40, "Setting up theme...");
-                SwingUtilities.invokeAndWait(() -> {
-                    try {
-                        // Initialize modern bakery theme with FlatLaf
-                        System.setProperty("flatlaf.useWindowDecorations", "false");
-                        System.setProperty("flatlaf.animation", "true");
-                        System.setProperty("flatlaf.animatedLafChange", "true");
-                        
-                        ModernBakeryTheme.setup();
-                        FlatLightLaf.setup();
-                        UIManager.setLookAndFeel(new FlatLightLaf());
-                        FlatLaf.updateUI();
-                        
-                        System.out.println("✓ Modern Bakery Theme initialized successfully");
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                });
-                Thread.sleep(500);
-                
-                // Step 3: Create main window
-                splash.updateProgress(60, "Creating interface...");
-                Thread.sleep(500);
-                
-                // Step 4: Initialize components
-                splash.updateProgress(80, "Initializing kiosk...");
-                Thread.sleep(500);
-                
-                // Step 5: Finalize
-                splash.updateProgress(100, "Ready!");
-                Thread.sleep(300);
-                
-                // Launch main application
-                SwingUtilities.invokeLater(() -> {
-                    try {
-                        // Create the main window (without showing it yet)
-                        KioskMainPage mainPage = new KioskMainPage(false);
-                        
-                        // Configure for fullscreen
-                        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-                        GraphicsDevice gd = ge.getDefaultScreenDevice();
-                        
-                        // Set to fullscreen
-                        if (gd.isFullScreenSupported()) {
-                            gd.setFullScreenWindow(mainPage);
-                        } else {
-                            // Fallback to maximized if fullscreen not supported
-                            mainPage.setExtendedState(JFrame.MAXIMIZED_BOTH);
-                            mainPage.setVisible(true);
-                        }
-                        
-                        // Close splash screen after a brief delay
-                        new Thread(() -> {
-                            try {
-                                Thread.sleep(200);
-                                splash.closeSplash();
-                            } catch (InterruptedException e) {
-                                splash.closeSplash();
-                            }
-                        }).start();
-                        
-                        // Print debugging information
-                        System.out.println("=".repeat(60));
-                        System.out.println("  SweetBatter Bakeshop Kiosk - Initialized Successfully");
-                        System.out.println("=".repeat(60));
-                        System.out.println("Mode: Full-Screen Kiosk");
-                        System.out.println("MVC Architecture: Enabled");
-                        System.out.println("Inventory items loaded: " + InventoryController.getInstance().getAllItems().size());
-                        System.out.println("Cart items: " + CartController.getInstance().getTotalItems());
-                        System.out.println("Sales transactions: " + SalesController.getInstance().getAllTransactions().size());
-                        System.out.println("=".repeat(60));
-                        
-                        // Add shutdown hook to save data on exit
-                        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                            saveAllData();
-                        }));
-                        
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        splash.closeSplash();
-                    }
-                });
-                
-            } catch (Exception e) {
-                e.printStackTrace();
+            AtomicReference<KioskMainPage> mainPageRef = new AtomicReference<>();
+            
+            // Startup dependency graph: independent phases run concurrently
+            StartupOrchestrator startup = new StartupOrchestrator()
+                .addPhase("database", () -> {
+                    System.out.println("Initializing database connection and schema...");
+                    kiosk.database.DatabaseInitializer.initialize();
+                })
+                .addEdtPhase("theme", BakeryPastriesKiosk::initializeTheme)
+                .addPhase("cart", BakeryPastriesKiosk::loadCart)
+                // inventory and sales share the one JDBC connection, so they run in turn
+                .addPhase("inventory", BakeryPastriesKiosk::loadInventory, "database")
+                .addPhase("sales", BakeryPastriesKiosk::loadSales, "inventory")
+                .addEdtPhase("main-window", () -> mainPageRef.set(createMainWindow()),
+                             "theme", "cart", "inventory", "sales");
+            
+            boolean success = startup.run((phase, completed, total) ->
+                splash.updateProgress(completed * 100 / total,
+                                      completed == total ? "Ready!" : "Loaded " + phase + "..."));
+            startup.printTimings();
+            
+            if (!success || mainPageRef.get() == null) {
+                System.err.println("Kiosk startup failed, see timings above for the failing phase");
                 splash.closeSplash();
+                return;
+            }
+            
+            try {
+                // Close splash screen after a brief delay
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        }).start();
+            splash.closeSplash();
+            
+            // Print debugging information
+            System.out.println("=".repeat(60));
+            System.out.println("  SweetBatter Bakeshop Kiosk - Initialized Successfully");
+            System.out.println("=".repeat(60));
+            System.out.println("Mode: Full-Screen Kiosk");
+            System.out.println("MVC Architecture: Enabled");
+            System.out.println("Inventory items loaded: " + InventoryController.getInstance().getAllItems().size());
+            System.out.println("Cart items: " + CartController.getInstance().getTotalItems());
+            System.out.println("Sales transactions: " + SalesController.getInstance().getAllTimeTransactionCount());
+            System.out.println("=".repeat(60));
+            
+            // Add shutdown hook to save data and close the database on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                saveAllData();
+                kiosk.database.ReadRouter.getInstance().close();
+                kiosk.database.DatabaseConnection.getInstance().closeConnection();
+            }));
+        }, "kiosk-startup").start();
     }
     
     /**
-     * Initialize controllers and load persisted data
+     * Initialize modern bakery theme with FlatLaf (runs on the EDT)
      */
-    private static void initializeControllers() {
-        System.out.println("Initializing MVC controllers...");
+    private static void initializeTheme() throws Exception {
+        System.setProperty("flatlaf.useWindowDecorations", "false");
+        System.setProperty("flatlaf.animation", "true");
+        System.setProperty("flatlaf.animatedLafChange", "true");
         
+        ModernBakeryTheme.setup();
+        FlatLightLaf.setup();
+        UIManager.setLookAndFeel(new FlatLightLaf());
+        FlatLaf.updateUI();
+        
+        System.out.println("✓ Modern Bakery Theme initialized successfully");
+    }
+    
+    /**
+     * Create the main window and show it fullscreen (runs on the EDT)
+     */
+    private static KioskMainPage createMainWindow() {
+        // Create the main window (without showing it yet)
+        KioskMainPage mainPage = new KioskMainPage(false);
+        
+        // Configure for fullscreen
+        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        GraphicsDevice gd = ge.getDefaultScreenDevice();
+        
+        // Set to fullscreen
+        if (gd.isFullScreenSupported()) {
+            gd.setFullScreenWindow(mainPage);
+        } else {
+            // Fallback to maximized if fullscreen not supported
+            mainPage.setExtendedState(JFrame.MAXIMIZED_BOTH);
+            mainPage.setVisible(true);
+        }
+        return mainPage;
+    }
+    
+    /**
+     * Initialize the inventory controller (seeds sample data on an empty database)
+     */
+    private static void loadInventory() {
         try {
             // Try to load existing data
             InventoryController.getInstance().load();
+            ProductCatalogSearch.prewarm();
             System.out.println("Inventory data loaded successfully");
         } catch (IOException | ClassNotFoundException e) {
             System.out.println("No existing inventory data found, using sample data");
         }
-        
+    }
+    
+    /**
+     * Load the persisted cart (file based, independent of the database)
+     */
+    private static void loadCart() {
         try {
             CartController.getInstance().load();
             System.out.println("Cart data loaded successfully");
         } catch (IOException | ClassNotFoundException e) {
             System.out.println("No existing cart data found, starting with empty cart");
         }
-        
+    }
+    
+    /**
+     * Initialize the sales controller and its tables
+     */
+    private static void loadSales() {
         try {
             SalesController.getInstance().load();
             System.out.println("Sales data loaded successfully");
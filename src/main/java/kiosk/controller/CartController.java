@@ -1,14 +1,21 @@
 package kiosk.controller;
 
 import java.io.IOException;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import kiosk.database.dao.CustomerDAO;
+import kiosk.database.dao.PromotionDAO;
 import kiosk.model.CartItem;
+import kiosk.model.Customer;
+import kiosk.model.InventoryItem;
+import kiosk.model.Promotion;
 import kiosk.model.SaleTransaction;
 import kiosk.util.DataPersistence;
+import kiosk.util.Money;
 import kiosk.util.Repository;
 
 /**
@@ -20,7 +27,25 @@ public class CartController implements DataPersistence<CartItem> {
     private static final String CART_DATA_FILE = "data/cart.dat";
     
     private boolean discountApplied = false;
-    private static final double DISCOUNT_RATE = 0.20; // 20% discount
+    private static final long DISCOUNT_RATE_BP = 2000; // 20% discount
+    private static final long VAT_RATE_BP = 1200; // 12% VAT
+    
+    private static final long PROMOTIONS_TTL_MS = 5 * 60 * 1000; // picks up promotions edited in the database
+    
+    private PromotionEngine.Evaluation promotions;
+    private long promotionsLoadedAt;
+    
+    /**
+     * Outcome of entering a promo code
+     */
+    public enum PromoResult {
+        APPLIED,
+        ALREADY_APPLIED,
+        INVALID,
+        NOT_RUNNING,
+        LIMIT_REACHED,
+        CUSTOMER_REQUIRED
+    }
     
     private CartController() {
         cartRepository = new Repository<>(CART_DATA_FILE);
@@ -30,6 +55,61 @@ public class CartController implements DataPersistence<CartItem> {
         return instance;
     }
     
+    /**
+     * Promotion state for the cart, compiled from the database on first use
+     */
+    private PromotionEngine.Evaluation promotions() {
+        if (promotions == null) {
+            reloadPromotions();
+        }
+        return promotions;
+    }
+    
+    /**
+     * Recompile promotions from the database, keeping entered codes and the customer
+     */
+    public void reloadPromotions() {
+        PromotionEngine engine = PromotionEngine.compile(new PromotionDAO().getActivePromotions());
+        promotionsLoadedAt = System.currentTimeMillis();
+        PromotionEngine.Evaluation previous = promotions;
+        promotions = engine.newEvaluation(itemName -> {
+            InventoryItem item = InventoryController.getInstance().getItem(itemName);
+            return item != null ? item.getCategory() : null;
+        });
+        if (previous != null) {
+            if (previous.getCustomerId() != null) {
+                promotions.setCustomer(previous.getCustomerId(),
+                                       new PromotionDAO().getRedemptionCounts(previous.getCustomerId()));
+            }
+            for (String code : previous.getEnteredCodes()) {
+                Promotion promotion = engine.findByCode(code);
+                if (promotion != null) {
+                    promotions.enterCode(promotion);
+                }
+            }
+        }
+        for (CartItem item : cartRepository.getAll()) {
+            promotions.update(item.getItemName(), item.getPriceCents(), item.getQuantity());
+        }
+        System.out.println("✓ Promotions loaded: " + engine.size() + " active");
+    }
+    
+    /**
+     * Re-evaluate one line's promotions after its quantity changed
+     */
+    private void promotionsChanged(String itemName) {
+        if (promotions == null) {
+            return; // compiled lazily with the whole cart
+        }
+        for (CartItem item : cartRepository.getAll()) {
+            if (item.getItemName().equals(itemName)) {
+                promotions.update(itemName, item.getPriceCents(), item.getQuantity());
+                return;
+            }
+        }
+        promotions.update(itemName, 0, 0);
+    }
+    
     /**
      * Add an item to cart or increase quantity if exists
      */
@@ -40,12 +120,14 @@ public class CartController implements DataPersistence<CartItem> {
             if (item.getItemName().equals(itemName)) {
                 item.incrementQuantity();
                 cartRepository.setAll(items);
+                promotionsChanged(itemName);
                 return;
             }
         }
         
         // Item not in cart, add new
         cartRepository.add(new CartItem(itemName, price, 1));
+        promotionsChanged(itemName);
     }
     
     /**
@@ -61,6 +143,7 @@ public class CartController implements DataPersistence<CartItem> {
                     items.remove(item);
                 }
                 cartRepository.setAll(items);
+                promotionsChanged(itemName);
                 return;
             }
         }
@@ -101,9 +184,18 @@ public class CartController implements DataPersistence<CartItem> {
      * Calculate total price before discount
      */
     public double getTotalPrice() {
-        return cartRepository.getAll().stream()
-                .mapToDouble(CartItem::getSubtotal)
-                .sum();
+        return Money.toPesos(getTotalPriceCents());
+    }
+    
+    /**
+     * Total price before discount, in centavos
+     */
+    public long getTotalPriceCents() {
+        long total = 0;
+        for (CartItem item : cartRepository.getAll()) {
+            total += item.getSubtotalCents();
+        }
+        return total;
     }
     
     /**
@@ -175,6 +267,7 @@ public class CartController implements DataPersistence<CartItem> {
         }
         
         cartRepository.setAll(items);
+        promotionsChanged(itemName);
     }
     
     /**
@@ -192,20 +285,140 @@ public class CartController implements DataPersistence<CartItem> {
     }
     
     /**
-     * Get discount amount
+     * Enter a promo code for the current cart
+     */
+    public PromoResult applyPromoCode(String code) {
+        PromotionEngine.Evaluation promos = promotions();
+        Promotion promotion = promos.getEngine().findByCode(code);
+        if (promotion == null) {
+            return PromoResult.INVALID;
+        }
+        if (promos.isCodeEntered(code)) {
+            return PromoResult.ALREADY_APPLIED;
+        }
+        if (!promotion.isRunningAt(LocalDateTime.now())) {
+            return PromoResult.NOT_RUNNING;
+        }
+        if (promotion.getPerCustomerLimit() != null && promos.getCustomerId() == null) {
+            return PromoResult.CUSTOMER_REQUIRED;
+        }
+        if (!promos.isWithinLimit(promotion)) {
+            return PromoResult.LIMIT_REACHED;
+        }
+        promos.enterCode(promotion);
+        return PromoResult.APPLIED;
+    }
+    
+    /**
+     * Remove an entered promo code
+     */
+    public void removePromoCode(String code) {
+        PromotionEngine.Evaluation promos = promotions();
+        Promotion promotion = promos.getEngine().findByCode(code);
+        if (promotion != null) {
+            promos.removeCode(promotion);
+        }
+    }
+    
+    /**
+     * Promo codes entered for the current cart
+     */
+    public Set<String> getAppliedPromoCodes() {
+        return promotions().getEnteredCodes();
+    }
+    
+    /**
+     * Promotions currently discounting the cart, with their discount in centavos
+     */
+    public Map<Promotion, Long> getAppliedPromotions() {
+        return promotions().getAppliedDiscounts();
+    }
+    
+    /**
+     * Attach a customer (null for walk-ins) so per-customer promotion limits can be enforced
+     */
+    public void setCustomerId(String customerId) {
+        Map<Integer, Integer> uses = customerId != null
+            ? new PromotionDAO().getRedemptionCounts(customerId)
+            : Collections.emptyMap();
+        promotions().setCustomer(customerId, uses);
+    }
+    
+    /**
+     * Attach the registered customer with this email to the cart
+     * @return false if there is no active customer with that email
+     */
+    public boolean attachCustomer(String email) {
+        Customer customer = new CustomerDAO().findByEmail(email.trim());
+        if (customer == null || !customer.isActive()) {
+            return false;
+        }
+        setCustomerId(customer.getCustomerId());
+        return true;
+    }
+    
+    /**
+     * Re-check promotion time windows (e.g. when the cart page is shown), reloading
+     * the promotions themselves once they are older than PROMOTIONS_TTL_MS
+     */
+    public void refreshPromotions() {
+        if (promotions != null && System.currentTimeMillis() - promotionsLoadedAt >= PROMOTIONS_TTL_MS) {
+            reloadPromotions();
+        } else {
+            promotions().refresh();
+        }
+    }
+    
+    /**
+     * Get discount amount (PWD/Senior plus promotions)
      */
     public double getDiscountAmount() {
+        return Money.toPesos(getDiscountAmountCents());
+    }
+    
+    /**
+     * Total discount in centavos: PWD/Senior plus promotions, never more than the subtotal
+     */
+    public long getDiscountAmountCents() {
+        return Math.min(getTotalPriceCents(), getSeniorDiscountCents() + getPromotionDiscountCents());
+    }
+    
+    /**
+     * PWD/Senior discount in centavos, rounded half up
+     */
+    public long getSeniorDiscountCents() {
         if (!discountApplied) {
-            return 0.0;
+            return 0;
         }
-        return getTotalPrice() * DISCOUNT_RATE;
+        return Money.percent(getTotalPriceCents(), DISCOUNT_RATE_BP, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Promotion discount in centavos
+     */
+    public long getPromotionDiscountCents() {
+        return promotions().getDiscountCents();
+    }
+    
+    /**
+     * 12% VAT on the discounted subtotal, in centavos, rounded half up
+     */
+    public long getVatCents() {
+        return Money.percent(getTotalCents(), VAT_RATE_BP, RoundingMode.HALF_UP);
     }
     
     /**
      * Get total after discount
      */
     public double getTotal() {
-        return getTotalPrice() - getDiscountAmount();
+        return Money.toPesos(getTotalCents());
+    }
+    
+    /**
+     * Total after discount, in centavos
+     */
+    public long getTotalCents() {
+        return getTotalPriceCents() - getDiscountAmountCents();
     }
     
     /**
@@ -240,35 +453,41 @@ public class CartController implements DataPersistence<CartItem> {
             if (itemName.length() > 22) {
                 itemName = itemName.substring(0, 19) + "...";
             }
-            receipt.append(String.format("%-22s %3d %7.2f %8.2f\n",
+            receipt.append(String.format("%-22s %3d %7s %8s\n",
                     itemName, 
                     item.getQuantity(), 
-                    item.getPrice(), 
-                    item.getSubtotal()));
+                    Money.plain(item.getPriceCents()), 
+                    Money.plain(item.getSubtotalCents())));
         }
         
         receipt.append("========================================\n\n");
         
         // Totals section
-        double subtotal = getTotalPrice();
-        receipt.append(String.format("Subtotal:                    ₱%8.2f\n", subtotal));
+        long subtotal = getTotalPriceCents();
+        receipt.append(String.format("Subtotal:                    ₱%8s\n", Money.plain(subtotal)));
+        
+        for (Map.Entry<Promotion, Long> promo : getAppliedPromotions().entrySet()) {
+            String name = promo.getKey().toString();
+            if (name.length() > 26) {
+                name = name.substring(0, 23) + "...";
+            }
+            receipt.append(String.format("%-28s-₱%8s\n", name + ":", Money.plain(promo.getValue())));
+        }
         
+        long discount = getDiscountAmountCents();
         if (discountApplied) {
-            double discount = getDiscountAmount();
-            receipt.append(String.format("Discount (PWD/Senior 20%%):  -₱%8.2f\n", discount));
-            double afterDiscount = subtotal - discount;
-            receipt.append(String.format("Taxable Amount:              ₱%8.2f\n", afterDiscount));
+            receipt.append(String.format("Discount (PWD/Senior 20%%):  -₱%8s\n", Money.plain(getSeniorDiscountCents())));
+        }
+        if (discount > 0) {
+            receipt.append(String.format("Taxable Amount:              ₱%8s\n", Money.plain(subtotal - discount)));
         }
         
         // Calculate VAT (12%)
-        double taxableAmount = discountApplied ? (subtotal - getDiscountAmount()) : subtotal;
-        double vat = taxableAmount * 0.12;
-        receipt.append(String.format("VAT (12%%):                      ₱%8.2f\n", vat));
+        receipt.append(String.format("VAT (12%%):                      ₱%8s\n", Money.plain(getVatCents())));
         
         receipt.append("----------------------------------------\n");
         
-        double total = getTotal();
-        receipt.append(String.format("TOTAL AMOUNT DUE:            ₱%8.2f\n", total));
+        receipt.append(String.format("TOTAL AMOUNT DUE:            ₱%8s\n", Money.plain(getTotalCents())));
         
         receipt.append("========================================\n");
         
@@ -291,15 +510,21 @@ public class CartController implements DataPersistence<CartItem> {
                 receiptId,
                 now,
                 getAllItems(),
-                getTotalPrice(),
-                getDiscountAmount(),
-                getTotal(),
+                getTotalPriceCents(),
+                getDiscountAmountCents(),
+                getTotalCents(),
                 discountApplied
         );
         
         // Record in sales controller
         SalesController.getInstance().recordTransaction(transaction);
         
+        // Count promotion uses (per-customer limits read these back)
+        Map<Promotion, Long> applied = getAppliedPromotions();
+        if (!applied.isEmpty()) {
+            new PromotionDAO().insertRedemptions(receiptId, promotions().getCustomerId(), applied);
+        }
+        
         return receiptId;
     }
     
@@ -309,6 +534,10 @@ public class CartController implements DataPersistence<CartItem> {
     public void clearCart() {
         cartRepository.clear();
         discountApplied = false;
+        if (promotions != null) {
+            promotions.clear();
+            promotions.setCustomer(null, Collections.emptyMap()); // the next cart starts as a walk-in
+        }
     }
     
     @Override
@@ -319,6 +548,7 @@ public class CartController implements DataPersistence<CartItem> {
     @Override
     public void load() throws IOException, ClassNotFoundException {
         cartRepository.loadFromFile();
+        promotions = null; // re-evaluated against the loaded cart on next use
     }
 }
 
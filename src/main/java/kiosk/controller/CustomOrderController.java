@@ -1,11 +1,18 @@
 package kiosk.controller;
 
+import kiosk.database.PickupSlotIndex;
 import kiosk.database.dao.CustomOrderDAO;
 import kiosk.database.dao.CustomProductDAO;
+import kiosk.database.dao.KeysetCursor;
+import kiosk.database.dao.KeysetPage;
+import kiosk.database.dao.OrderEventDAO;
+import kiosk.database.dao.OrderLifecycle;
 import kiosk.model.CustomOrder;
 import kiosk.model.CustomOrder.*;
 import kiosk.model.CustomProduct;
 import kiosk.model.OrderAddOn;
+import kiosk.model.OrderEvent;
+import kiosk.model.OrderSummary;
 import kiosk.model.AddonCategory;
 
 import java.time.LocalDateTime;
@@ -19,15 +26,20 @@ import java.util.Map;
 public class CustomOrderController {
     private CustomOrderDAO orderDAO;
     private CustomProductDAO productDAO;
+    private OrderEventDAO orderEventDAO;
     private CustomOrder currentOrder;
     
-    private static final double TAX_RATE = 0.12; // 12% VAT
-    private static final double DEPOSIT_PERCENTAGE = 0.50; // 50% deposit
-    private static final double DELIVERY_FEE = 200.00; // Fixed delivery fee
-    
     public CustomOrderController() {
         this.orderDAO = new CustomOrderDAO();
         this.productDAO = new CustomProductDAO();
+        this.orderEventDAO = new OrderEventDAO();
+    }
+    
+    /**
+     * Pricing engine for the current catalog snapshot
+     */
+    public PricingEngine getPricingEngine() {
+        return PricingEngine.forCatalog(productDAO.getCatalog());
     }
     
     /**
@@ -54,8 +66,7 @@ public class CustomOrderController {
         currentOrder.setOrderType(product.getCategoryCode());
         
         // Calculate base price
-        double basePrice = product.calculatePrice(servings);
-        currentOrder.setBasePrice(basePrice);
+        currentOrder.setBasePriceCents(getPricingEngine().quote(productCode, servings).getBaseCents());
         
         return true;
     }
@@ -75,13 +86,8 @@ public class CustomOrderController {
             return false;
         }
         
-        // Calculate addon price
-        addon.calculatePrice(currentOrder.getBasePrice(), currentOrder.getServings());
-        
-        // Add to order
+        // Add to order; the addon's line price is set when the order is repriced
         currentOrder.addAddon(addon);
-        
-        // Recalculate total
         calculateOrderTotal();
         
         return true;
@@ -134,7 +140,7 @@ public class CustomOrderController {
                     currentOrder.setDeliveryAddressId(deliveryAddressId);
                 }
                 currentOrder.setDeliveryDatetime(pickupDateTime);
-                currentOrder.setDeliveryFee(DELIVERY_FEE);
+                currentOrder.setDeliveryFeeCents(getPricingEngine().getFees().getDeliveryFeeCents());
             } else {
                 // For PICKUP, ensure delivery fields are null
                 currentOrder.setDeliveryAddressId(null);
@@ -154,27 +160,11 @@ public class CustomOrderController {
             return;
         }
         
-        // Calculate addons total
-        double addonsTotal = 0;
-        for (OrderAddOn addon : currentOrder.getAddons()) {
-            addonsTotal += addon.getTotalAddonPrice();
+        try {
+            getPricingEngine().quote(currentOrder).applyTo(currentOrder);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error pricing order: " + e.getMessage());
         }
-        currentOrder.setAddonsTotal(addonsTotal);
-        
-        // Calculate subtotal
-        double subtotal = currentOrder.getBasePrice() + addonsTotal;
-        currentOrder.setSubtotal(subtotal);
-        
-        // Calculate tax
-        double taxAmount = (subtotal - currentOrder.getDiscountAmount()) * TAX_RATE;
-        currentOrder.setTaxAmount(taxAmount);
-        
-        // Calculate deposit required
-        double depositRequired = (subtotal + taxAmount + currentOrder.getDeliveryFee()) * DEPOSIT_PERCENTAGE;
-        currentOrder.setDepositRequired(depositRequired);
-        
-        // Calculate final total
-        currentOrder.calculateTotal();
     }
     
     /**
@@ -200,18 +190,53 @@ public class CustomOrderController {
             }
         }
         
+        // Hold the pickup slot while saving so two kiosks can't both take the last place
+        PickupSlotIndex.Reservation reservation = null;
+        PickupSlotIndex slots = orderDAO.getPickupSlots();
+        if (slots != null) {
+            reservation = slots.reserve(currentOrder.getOrderType(), currentOrder.getPickupDatetime());
+            if (reservation == null) {
+                return new SubmitResult(false, slots.isWithinHours(currentOrder.getPickupDatetime())
+                    ? "That pickup slot is fully booked, please choose another time"
+                    : "Pickup time is outside business hours");
+            }
+        }
+        
         // Save order
         boolean success = orderDAO.insert(currentOrder);
         
+        if (reservation != null) {
+            if (success) {
+                reservation.confirm(currentOrder.getOrderNumber());
+            } else {
+                reservation.release();
+            }
+        }
+        
         if (success) {
             String orderNumber = currentOrder.getOrderNumber();
             currentOrder = null; // Clear current order
             return new SubmitResult(true, "Order submitted successfully!", orderNumber);
+        } else if (slots != null && !orderDAO.hasPickupCapacity(currentOrder.getOrderType(), currentOrder.getPickupDatetime())) {
+            // another station took the last place
+            return new SubmitResult(false, "That pickup slot is fully booked, please choose another time");
         } else {
             return new SubmitResult(false, "Failed to submit order");
         }
     }
     
+    /**
+     * First pickup slots with room for a product, starting at the given time
+     */
+    public List<LocalDateTime> getAvailablePickupSlots(String productCode, LocalDateTime notBefore, int count) {
+        PickupSlotIndex slots = orderDAO.getPickupSlots();
+        CustomProduct product = productDAO.findByProductCode(productCode);
+        if (slots == null || product == null) {
+            return new ArrayList<>();
+        }
+        return slots.firstAvailable(product.getCategoryCode(), notBefore, count);
+    }
+    
     /**
      * Get current order
      */
@@ -247,6 +272,27 @@ public class CustomOrderController {
         return orderDAO.getAllOrders();
     }
     
+    /**
+     * List orders newest first, one page at a time (admin)
+     */
+    public KeysetPage<CustomOrder> listOrders(KeysetCursor after, int pageSize, String... columns) {
+        return orderDAO.listOrders(after, pageSize, columns);
+    }
+    
+    /**
+     * List order summaries newest first, one page at a time (admin)
+     */
+    public KeysetPage<OrderSummary> listOrderSummaries(KeysetCursor after, int pageSize) {
+        return orderDAO.listOrderSummaries(after, pageSize);
+    }
+    
+    /**
+     * Order summaries for a customer's history; status null for all orders
+     */
+    public List<OrderSummary> getCustomerOrderSummaries(String customerId, OrderStatus status) {
+        return orderDAO.findOrderSummariesByCustomer(customerId, status != null ? status.name() : null);
+    }
+    
     /**
      * Get orders by status (admin)
      */
@@ -268,6 +314,31 @@ public class CustomOrderController {
         return orderDAO.updateStatus(orderNumber, newStatus);
     }
     
+    /**
+     * Move several orders to a new status at once, skipping any that can't make the transition (admin)
+     */
+    public CustomOrderDAO.BulkStatusResult updateOrderStatuses(List<String> orderNumbers, OrderStatus newStatus) {
+        return orderDAO.updateStatuses(orderNumbers, newStatus);
+    }
+    
+    /**
+     * Full lifecycle history of an order, oldest first
+     */
+    public List<OrderEvent> getOrderHistory(String orderNumber) {
+        return OrderLifecycle.getInstance().history(orderNumber);
+    }
+    
+    /**
+     * Order events logged by any station after the given event ID
+     */
+    public List<OrderEvent> getOrderEventsAfter(long afterId, int limit) {
+        return orderEventDAO.findAfter(afterId, limit);
+    }
+    
+    public long getLatestOrderEventId() {
+        return orderEventDAO.getLatestId();
+    }
+    
     /**
      * Process deposit payment
      */
@@ -310,6 +381,20 @@ public class CustomOrderController {
         return orderDAO.cancelOrder(orderNumber, reason, cancelledBy);
     }
     
+    /**
+     * Cancel several orders at once; rejected ones are listed with the reason
+     */
+    public CustomOrderDAO.BulkStatusResult cancelOrders(List<String> orderNumbers, String reason, String cancelledBy) {
+        return orderDAO.cancelOrders(orderNumbers, reason, cancelledBy);
+    }
+    
+    /**
+     * Pending, ready and overdue orders for the admin alerts
+     */
+    public List<OrderSummary> getAlertOrders() {
+        return orderDAO.findAlertOrders(LocalDateTime.now());
+    }
+    
     /**
      * Get available products
      */
@@ -1,7 +1,10 @@
 package kiosk.controller;
 
 import kiosk.database.dao.CustomerDAO;
+import kiosk.database.dao.KeysetCursor;
+import kiosk.database.dao.KeysetPage;
 import kiosk.model.Customer;
+import kiosk.model.CustomerSummary;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -165,10 +168,17 @@ public class CustomerController {
     }
     
     /**
-     * Get all customers (admin function)
+     * List customers newest first, one page at a time (admin function)
      */
-    public List<Customer> getAllCustomers() {
-        return customerDAO.getAllCustomers();
+    public KeysetPage<Customer> listCustomers(KeysetCursor after, int pageSize, String... columns) {
+        return customerDAO.listCustomers(after, pageSize, columns);
+    }
+    
+    /**
+     * List customer summaries newest first, one page at a time (admin function)
+     */
+    public KeysetPage<CustomerSummary> listCustomerSummaries(KeysetCursor after, int pageSize) {
+        return customerDAO.listCustomerSummaries(after, pageSize);
     }
     
     /**
@@ -178,6 +188,20 @@ public class CustomerController {
         return customerDAO.searchCustomers(searchTerm);
     }
     
+    /**
+     * Search customers one page at a time (admin function)
+     */
+    public List<Customer> searchCustomers(String searchTerm, int offset, int limit) {
+        return customerDAO.searchCustomers(searchTerm, offset, limit);
+    }
+    
+    /**
+     * Number of customers matching a search (admin function)
+     */
+    public int countSearchResults(String searchTerm) {
+        return customerDAO.countSearchResults(searchTerm);
+    }
+    
     /**
      * Deactivate customer account (admin function)
      */
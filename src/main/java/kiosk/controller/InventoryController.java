@@ -2,14 +2,20 @@ package kiosk.controller;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import kiosk.database.StockLedger;
 import kiosk.database.dao.InventoryDAO;
+import kiosk.database.dao.StockMovementDAO;
+import kiosk.database.dao.VersionedUpdate;
 import kiosk.model.InventoryItem;
+import kiosk.model.StockMovement;
 import kiosk.util.DataPersistence;
+import kiosk.util.ProductCatalogSearch;
 
 /**
  * Controller for managing inventory operations with MySQL database
@@ -17,9 +23,11 @@ import kiosk.util.DataPersistence;
 public class InventoryController implements DataPersistence<InventoryItem> {
     private static final InventoryController instance = new InventoryController();
     private InventoryDAO inventoryDAO;
+    private StockMovementDAO stockMovementDAO;
     
     private InventoryController() {
         inventoryDAO = new InventoryDAO();
+        stockMovementDAO = new StockMovementDAO();
         inventoryDAO.createTable();
         
         // Initialize sample inventory if database is empty
@@ -102,22 +110,73 @@ public class InventoryController implements DataPersistence<InventoryItem> {
     public void addItem(InventoryItem item) {
         InventoryItem existing = inventoryDAO.getByName(item.getName());
         if (existing != null) {
+            item.setVersion(existing.getVersion());
             inventoryDAO.update(item);
         } else {
             inventoryDAO.insert(item);
         }
+        ProductCatalogSearch.invalidate();
     }
     
     public boolean removeItem(String itemName) {
-        return inventoryDAO.delete(itemName);
+        boolean removed = inventoryDAO.delete(itemName);
+        ProductCatalogSearch.invalidate();
+        return removed;
     }
     
     public InventoryItem getItem(String itemName) {
         return inventoryDAO.getByName(itemName);
     }
     
-    public void updateItem(InventoryItem updatedItem) {
-        inventoryDAO.update(updatedItem);
+    public boolean updateItem(InventoryItem updatedItem) {
+        return updateItem(updatedItem, null) == VersionedUpdate.Result.UPDATED;
+    }
+    
+    /**
+     * Update an item; if another station changed it first, merge decides what to write
+     */
+    public VersionedUpdate.Result updateItem(InventoryItem updatedItem, VersionedUpdate.Merge<InventoryItem> merge) {
+        VersionedUpdate.Result result = inventoryDAO.update(updatedItem, merge);
+        ProductCatalogSearch.invalidate();
+        return result;
+    }
+    
+    /**
+     * Take sold units off an item's stock; false if there is no such item
+     */
+    public boolean recordSale(String itemName, int quantity) {
+        return StockLedger.getInstance().record(itemName, -quantity, StockMovement.Type.SALE, null);
+    }
+    
+    /**
+     * Add delivered or baked units to an item's stock
+     */
+    public boolean restock(String itemName, int quantity, String notes) {
+        return StockLedger.getInstance().record(itemName, quantity, StockMovement.Type.RESTOCK, notes);
+    }
+    
+    /**
+     * Take thrown-away units off an item's stock (type EXPIRED or DAMAGED)
+     */
+    public boolean recordWaste(String itemName, int quantity, StockMovement.Type type, String notes) {
+        if (!type.isWaste()) {
+            throw new IllegalArgumentException("Not a waste movement: " + type);
+        }
+        return StockLedger.getInstance().record(itemName, -quantity, type, notes);
+    }
+    
+    /**
+     * Stock an item had at the given time
+     */
+    public int getStockAsOf(String itemName, LocalDateTime time) {
+        return stockMovementDAO.getStockAsOf(itemName, time);
+    }
+    
+    /**
+     * Units lost per item (waste and downward count corrections) between start and end
+     */
+    public Map<String, Map<StockMovement.Type, Integer>> getShrinkage(LocalDateTime start, LocalDateTime end) {
+        return stockMovementDAO.getShrinkage(start, end);
     }
     
     public List<InventoryItem> getExpiredItems() {
@@ -0,0 +1,418 @@
+package kiosk.controller;
+
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import kiosk.database.dao.CustomCatalog;
+import kiosk.model.CustomOrder;
+import kiosk.model.CustomOrder.FulfillmentType;
+import kiosk.model.CustomProduct;
+import kiosk.model.OrderAddOn;
+import kiosk.model.OrderAddOn.PriceType;
+import kiosk.util.Money;
+
+/**
+ * Prices custom orders from a catalog snapshot.
+ * Product and add-on prices are compiled once per catalog version into
+ * centavo/basis-point rules, so quoting is pure arithmetic with no database
+ * access. A {@link Quote} is immutable and can be adjusted one input at a
+ * time (servings, an add-on, delivery) without repricing everything else.
+ */
+public final class PricingEngine {
+
+    /**
+     * Tax, deposit and delivery settings
+     */
+    public static final class Fees {
+        public static final Fees DEFAULT = new Fees(1200, 5000, 200_00);
+
+        private final long taxRateBp;
+        private final long depositRateBp;
+        private final long deliveryFeeCents;
+
+        /**
+         * @param taxRateBp VAT in basis points (1200 = 12%)
+         * @param depositRateBp required deposit in basis points of the order total
+         * @param deliveryFeeCents flat delivery fee in centavos
+         */
+        public Fees(long taxRateBp, long depositRateBp, long deliveryFeeCents) {
+            this.taxRateBp = taxRateBp;
+            this.depositRateBp = depositRateBp;
+            this.deliveryFeeCents = deliveryFeeCents;
+        }
+
+        public long getTaxRateBp() {
+            return taxRateBp;
+        }
+
+        public long getDepositRateBp() {
+            return depositRateBp;
+        }
+
+        public long getDeliveryFeeCents() {
+            return deliveryFeeCents;
+        }
+    }
+
+    private static final class ProductRule {
+        final long baseCents;
+        final long perServingCents;
+        final int minServings;
+        final int maxServings;
+
+        ProductRule(CustomProduct product) {
+            this.baseCents = Money.ofPesos(product.getBasePrice());
+            this.perServingCents = Money.ofPesos(product.getPricePerServing());
+            this.minServings = product.getMinServings();
+            this.maxServings = product.getMaxServings();
+        }
+
+        long price(int servings) {
+            if (servings < minServings || servings > maxServings) {
+                throw new IllegalArgumentException(
+                    String.format("Servings must be between %d and %d", minServings, maxServings));
+            }
+            return baseCents + Money.times(perServingCents, servings);
+        }
+    }
+
+    private static final class AddonRule {
+        final PriceType type;
+        // Centavos for FLAT and PER_SERVING, basis points for PERCENTAGE
+        final long amount;
+
+        AddonRule(OrderAddOn addon) {
+            this.type = addon.getPriceType() != null ? addon.getPriceType() : PriceType.FLAT;
+            this.amount = type == PriceType.PERCENTAGE
+                ? Money.basisPoints(addon.getPriceModifier())
+                : Money.ofPesos(addon.getPriceModifier());
+        }
+
+        /**
+         * Whether the line price changes with servings (and therefore the base price)
+         */
+        boolean dependsOnServings() {
+            return type != PriceType.FLAT;
+        }
+
+        long price(long baseCents, int servings, int quantity) {
+            switch (type) {
+                case FLAT:
+                    return Money.times(amount, quantity);
+                case PERCENTAGE:
+                    return Money.times(Money.percent(baseCents, amount, RoundingMode.HALF_UP), quantity);
+                case PER_SERVING:
+                    return Money.times(amount, (long) servings * quantity);
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private static volatile PricingEngine current;
+
+    private final long catalogVersion;
+    private final Fees fees;
+    private final Map<String, ProductRule> products;
+    private final Map<String, AddonRule> addons;
+
+    private PricingEngine(long catalogVersion, Fees fees,
+                          Map<String, ProductRule> products, Map<String, AddonRule> addons) {
+        this.catalogVersion = catalogVersion;
+        this.fees = fees;
+        this.products = products;
+        this.addons = addons;
+    }
+
+    /**
+     * Engine for a catalog snapshot with the default fees, recompiled only when the catalog changes
+     */
+    public static PricingEngine forCatalog(CustomCatalog catalog) {
+        PricingEngine engine = current;
+        if (engine == null || engine.catalogVersion != catalog.getVersion()) {
+            engine = compile(catalog, Fees.DEFAULT);
+            current = engine;
+        }
+        return engine;
+    }
+
+    /**
+     * Compile every product and add-on in a catalog into pricing rules
+     */
+    public static PricingEngine compile(CustomCatalog catalog, Fees fees) {
+        Map<String, ProductRule> products = new HashMap<>();
+        for (CustomProduct product : catalog.getAllProducts()) {
+            products.put(product.getProductCode(), new ProductRule(product));
+        }
+        Map<String, AddonRule> addons = new HashMap<>();
+        for (OrderAddOn addon : catalog.getAllAddons()) {
+            addons.put(addon.getAddonCode(), new AddonRule(addon));
+        }
+        return new PricingEngine(catalog.getVersion(), fees, products, addons);
+    }
+
+    /**
+     * Same rules under different fees (for what-if repricing)
+     */
+    public PricingEngine withFees(Fees fees) {
+        return new PricingEngine(catalogVersion, fees, products, addons);
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public Fees getFees() {
+        return fees;
+    }
+
+    /**
+     * Quote for a product and servings, with no add-ons, discount or delivery
+     */
+    public Quote quote(String productCode, int servings) {
+        ProductRule product = products.get(productCode);
+        if (product == null) {
+            throw new IllegalArgumentException("Unknown product: " + productCode);
+        }
+        return new Quote(this, productCode, product, servings, product.price(servings),
+                         Collections.emptyMap(), 0, 0, false);
+    }
+
+    /**
+     * Quote an order as it stands: product, servings, add-ons, discount and fulfillment.
+     * Add-ons no longer in the catalog are priced from the order's own modifier.
+     */
+    public Quote quote(CustomOrder order) {
+        Quote quote = quote(order.getProductCode(), order.getServings())
+            .withDiscount(order.getDiscountAmountCents())
+            .withDelivery(order.getFulfillmentType() == FulfillmentType.DELIVERY);
+        for (OrderAddOn addon : order.getAddons()) {
+            AddonRule rule = addons.get(addon.getAddonCode());
+            quote = quote.withAddon(addon.getAddonCode(), rule != null ? rule : new AddonRule(addon),
+                                    addon.getQuantity());
+        }
+        return quote;
+    }
+
+    /**
+     * Quote many orders at once, keyed by order number in input order.
+     * Orders whose product is unknown or whose servings are out of range are skipped.
+     */
+    public Map<String, Quote> quoteAll(Collection<CustomOrder> orders) {
+        Map<String, Quote> quotes = new LinkedHashMap<>();
+        int skipped = 0;
+        for (CustomOrder order : orders) {
+            try {
+                quotes.put(order.getOrderNumber(), quote(order));
+            } catch (IllegalArgumentException e) {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            System.err.println("Repricing skipped " + skipped + " order(s) with unknown products or servings");
+        }
+        return quotes;
+    }
+
+    /**
+     * Price of one add-on line, in centavos
+     */
+    public long addonPrice(String addonCode, long baseCents, int servings, int quantity) {
+        AddonRule rule = addons.get(addonCode);
+        if (rule == null) {
+            throw new IllegalArgumentException("Unknown add-on: " + addonCode);
+        }
+        return rule.price(baseCents, servings, quantity);
+    }
+
+    /**
+     * Immutable price breakdown; every amount is in centavos
+     */
+    public static final class Quote {
+        private final PricingEngine engine;
+        private final String productCode;
+        private final ProductRule product;
+        private final int servings;
+        private final long base;
+        private final Map<String, AddonLine> lines;
+        private final long addonsTotal;
+        private final long discount;
+        private final boolean delivery;
+
+        private final long subtotal;
+        private final long tax;
+        private final long deliveryFee;
+        private final long total;
+        private final long deposit;
+
+        private static final class AddonLine {
+            final AddonRule rule;
+            final int quantity;
+            final long price;
+
+            AddonLine(AddonRule rule, int quantity, long price) {
+                this.rule = rule;
+                this.quantity = quantity;
+                this.price = price;
+            }
+        }
+
+        private Quote(PricingEngine engine, String productCode, ProductRule product, int servings, long base,
+                      Map<String, AddonLine> lines, long addonsTotal, long discount, boolean delivery) {
+            this.engine = engine;
+            this.productCode = productCode;
+            this.product = product;
+            this.servings = servings;
+            this.base = base;
+            this.lines = lines;
+            this.addonsTotal = addonsTotal;
+            this.discount = discount;
+            this.delivery = delivery;
+
+            Fees fees = engine.fees;
+            this.subtotal = base + addonsTotal;
+            this.tax = Money.percent(subtotal - discount, fees.taxRateBp, RoundingMode.HALF_UP);
+            this.deliveryFee = delivery ? fees.deliveryFeeCents : 0;
+            this.total = subtotal - discount + tax + deliveryFee;
+            // Rounded up so the deposit is never a centavo short
+            this.deposit = Money.percent(subtotal + tax + deliveryFee, fees.depositRateBp, RoundingMode.CEILING);
+        }
+
+        /**
+         * Change servings; only add-ons priced by base or servings are repriced
+         */
+        public Quote withServings(int newServings) {
+            if (newServings == servings) {
+                return this;
+            }
+            long newBase = product.price(newServings);
+            Map<String, AddonLine> newLines = new LinkedHashMap<>(lines);
+            long newAddonsTotal = addonsTotal;
+            for (Map.Entry<String, AddonLine> entry : newLines.entrySet()) {
+                AddonLine line = entry.getValue();
+                if (line.rule.dependsOnServings()) {
+                    long price = line.rule.price(newBase, newServings, line.quantity);
+                    newAddonsTotal += price - line.price;
+                    entry.setValue(new AddonLine(line.rule, line.quantity, price));
+                }
+            }
+            return new Quote(engine, productCode, product, newServings, newBase, newLines,
+                             newAddonsTotal, discount, delivery);
+        }
+
+        /**
+         * Add one of an add-on from the catalog (or change its quantity)
+         */
+        public Quote withAddon(String addonCode) {
+            return withAddon(addonCode, 1);
+        }
+
+        public Quote withAddon(String addonCode, int quantity) {
+            AddonRule rule = engine.addons.get(addonCode);
+            if (rule == null) {
+                throw new IllegalArgumentException("Unknown add-on: " + addonCode);
+            }
+            return withAddon(addonCode, rule, quantity);
+        }
+
+        private Quote withAddon(String addonCode, AddonRule rule, int quantity) {
+            Map<String, AddonLine> newLines = new LinkedHashMap<>(lines);
+            long price = rule.price(base, servings, quantity);
+            AddonLine previous = newLines.put(addonCode, new AddonLine(rule, quantity, price));
+            long newAddonsTotal = addonsTotal + price - (previous != null ? previous.price : 0);
+            return new Quote(engine, productCode, product, servings, base, newLines,
+                             newAddonsTotal, discount, delivery);
+        }
+
+        public Quote withoutAddon(String addonCode) {
+            if (!lines.containsKey(addonCode)) {
+                return this;
+            }
+            Map<String, AddonLine> newLines = new LinkedHashMap<>(lines);
+            AddonLine removed = newLines.remove(addonCode);
+            return new Quote(engine, productCode, product, servings, base, newLines,
+                             addonsTotal - removed.price, discount, delivery);
+        }
+
+        public Quote withDelivery(boolean newDelivery) {
+            return newDelivery == delivery ? this
+                : new Quote(engine, productCode, product, servings, base, lines, addonsTotal, discount, newDelivery);
+        }
+
+        public Quote withDiscount(long newDiscount) {
+            return newDiscount == discount ? this
+                : new Quote(engine, productCode, product, servings, base, lines, addonsTotal, newDiscount, delivery);
+        }
+
+        /**
+         * Copy the prices onto an order (including each add-on's line price) and total it
+         */
+        public void applyTo(CustomOrder order) {
+            for (OrderAddOn addon : order.getAddons()) {
+                AddonLine line = lines.get(addon.getAddonCode());
+                if (line != null) {
+                    addon.setTotalAddonPriceCents(line.price);
+                }
+            }
+            order.setBasePriceCents(base);
+            order.setAddonsTotalCents(addonsTotal);
+            order.setDiscountAmountCents(discount);
+            order.setTaxAmountCents(tax);
+            order.setDeliveryFeeCents(deliveryFee);
+            order.setDepositRequiredCents(deposit);
+            order.calculateTotal();
+        }
+
+        public String getProductCode() {
+            return productCode;
+        }
+
+        public int getServings() {
+            return servings;
+        }
+
+        public long getBaseCents() {
+            return base;
+        }
+
+        /**
+         * Line price of an add-on in this quote (0 if not included)
+         */
+        public long getAddonCents(String addonCode) {
+            AddonLine line = lines.get(addonCode);
+            return line != null ? line.price : 0;
+        }
+
+        public long getAddonsCents() {
+            return addonsTotal;
+        }
+
+        public long getSubtotalCents() {
+            return subtotal;
+        }
+
+        public long getDiscountCents() {
+            return discount;
+        }
+
+        public long getTaxCents() {
+            return tax;
+        }
+
+        public long getDeliveryFeeCents() {
+            return deliveryFee;
+        }
+
+        public long getTotalCents() {
+            return total;
+        }
+
+        public long getDepositCents() {
+            return deposit;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package kiosk.controller;
+
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import kiosk.model.Promotion;
+import kiosk.util.Money;
+
+/**
+ * Promotion rules compiled into lookup tables keyed by item name and category,
+ * so a cart change only re-evaluates the rules that can touch the changed line.
+ *
+ * Stacking: on each line the best item promotion applies; lines without one
+ * share the best promotion of their category; the best order promotion then
+ * applies to whatever remains. Promotions with a code only count once the
+ * code is entered; the rest apply automatically.
+ */
+public final class PromotionEngine {
+    private final Map<String, List<Promotion>> itemRules = new HashMap<>();
+    private final Map<String, List<Promotion>> categoryRules = new HashMap<>();
+    private final List<Promotion> orderRules = new ArrayList<>();
+    private final Map<String, Promotion> byCode = new HashMap<>();
+    private final int size;
+
+    private PromotionEngine(Collection<Promotion> promotions) {
+        int count = 0;
+        for (Promotion promotion : promotions) {
+            if (!promotion.isActive()) {
+                continue;
+            }
+            switch (promotion.getScope()) {
+                case ITEM:
+                    itemRules.computeIfAbsent(promotion.getScopeValue(), k -> new ArrayList<>()).add(promotion);
+                    break;
+                case CATEGORY:
+                    categoryRules.computeIfAbsent(promotion.getScopeValue(), k -> new ArrayList<>()).add(promotion);
+                    break;
+                default:
+                    orderRules.add(promotion);
+            }
+            if (!promotion.isAutomatic()) {
+                byCode.put(normalizeCode(promotion.getPromoCode()), promotion);
+            }
+            count++;
+        }
+        this.size = count;
+    }
+
+    /**
+     * Build the lookup tables for a set of promotions (inactive ones are dropped)
+     */
+    public static PromotionEngine compile(Collection<Promotion> promotions) {
+        return new PromotionEngine(promotions);
+    }
+
+    /**
+     * Promotion for an entered code (case-insensitive), or null
+     */
+    public Promotion findByCode(String code) {
+        return code == null ? null : byCode.get(normalizeCode(code));
+    }
+
+    /**
+     * Number of compiled promotions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Start evaluating a cart; categoryOf maps an item name to its category (or null)
+     */
+    public Evaluation newEvaluation(Function<String, String> categoryOf) {
+        return new Evaluation(categoryOf);
+    }
+
+    static String normalizeCode(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Line {
+        final String itemName;
+        final String category;
+        final long unitCents;
+        final int quantity;
+
+        Line(String itemName, String category, long unitCents, int quantity) {
+            this.itemName = itemName;
+            this.category = category;
+            this.unitCents = unitCents;
+            this.quantity = quantity;
+        }
+
+        long subtotal() {
+            return Money.times(unitCents, quantity);
+        }
+    }
+
+    private static final class Applied {
+        final Promotion promotion;
+        final long cents;
+
+        Applied(Promotion promotion, long cents) {
+            this.promotion = promotion;
+            this.cents = cents;
+        }
+    }
+
+    /**
+     * Discount a promotion gives on a set of lines, in centavos (0 if it doesn't qualify)
+     */
+    private static long discount(Promotion promotion, Collection<Line> lines, long subtotal) {
+        if (subtotal <= 0 || subtotal < promotion.getMinSubtotalCents()) {
+            return 0;
+        }
+        long value = promotion.getDiscountValueCents();
+        long cents;
+        switch (promotion.getPromoType()) {
+            case PERCENT_OFF:
+                // discount_value is a percent with two decimals, i.e. already basis points
+                cents = Money.percent(subtotal, value, RoundingMode.HALF_UP);
+                break;
+            case AMOUNT_OFF:
+                if (promotion.getScope() == Promotion.Scope.ITEM) {
+                    int quantity = 0;
+                    for (Line line : lines) {
+                        quantity += line.quantity;
+                    }
+                    cents = Money.times(value, quantity);
+                } else {
+                    cents = value;
+                }
+                break;
+            case BUY_X_GET_Y:
+                cents = Money.percent(cheapestUnits(lines, promotion), value, RoundingMode.HALF_UP);
+                break;
+            default:
+                cents = 0;
+        }
+        return Math.min(cents, subtotal);
+    }
+
+    /**
+     * Total price of the cheapest units given away: get units for every buy + get units
+     */
+    private static long cheapestUnits(Collection<Line> lines, Promotion promotion) {
+        int units = 0;
+        for (Line line : lines) {
+            units += line.quantity;
+        }
+        int free = units / (promotion.getBuyQuantity() + promotion.getGetQuantity()) * promotion.getGetQuantity();
+        if (free == 0) {
+            return 0;
+        }
+        List<Line> byPrice = new ArrayList<>(lines);
+        byPrice.sort((a, b) -> Long.compare(a.unitCents, b.unitCents));
+        long total = 0;
+        for (Line line : byPrice) {
+            int take = Math.min(free, line.quantity);
+            total += Money.times(line.unitCents, take);
+            free -= take;
+            if (free == 0) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Promotion state for one cart. Not thread-safe; used from the UI thread.
+     */
+    public final class Evaluation {
+        private final Function<String, String> categoryOf;
+        private final Map<String, Line> lines = new LinkedHashMap<>();
+        private final Map<String, Set<String>> itemsByCategory = new HashMap<>();
+        private final Map<String, Applied> itemDiscounts = new HashMap<>();
+        private final Map<String, Applied> categoryDiscounts = new HashMap<>();
+        private final Set<String> enteredCodes = new HashSet<>();
+        private final Map<String, String> knownCategories = new HashMap<>();
+        private Map<Integer, Integer> customerUses = Collections.emptyMap();
+        private String customerId;
+        private LocalDateTime now = LocalDateTime.now();
+        private long subtotal;
+        private Applied orderDiscount;
+        private boolean orderDirty;
+
+        private Evaluation(Function<String, String> categoryOf) {
+            this.categoryOf = categoryOf;
+        }
+
+        public PromotionEngine getEngine() {
+            return PromotionEngine.this;
+        }
+
+        /**
+         * Set a line's unit price and quantity (0 removes it) and re-evaluate the
+         * rules for that item and its category only
+         */
+        public void update(String itemName, long unitCents, int quantity) {
+            Line old = lines.get(itemName);
+            String category = old != null ? old.category
+                : knownCategories.computeIfAbsent(itemName, name -> {
+                    String found = categoryOf.apply(name);
+                    return found != null ? found : "";
+                });
+            if (old != null) {
+                subtotal -= old.subtotal();
+            }
+
+            if (quantity <= 0) {
+                lines.remove(itemName);
+                Set<String> items = itemsByCategory.get(category);
+                if (items != null) {
+                    items.remove(itemName);
+                }
+            } else {
+                Line line = new Line(itemName, category, unitCents, quantity);
+                lines.put(itemName, line);
+                subtotal += line.subtotal();
+                itemsByCategory.computeIfAbsent(category, k -> new HashSet<>()).add(itemName);
+            }
+
+            // Item first: whether the line has its own promotion decides if it joins the category pool
+            evaluateItem(itemName);
+            evaluateCategory(category);
+            orderDirty = true;
+        }
+
+        /**
+         * Drop every line and entered code
+         */
+        public void clear() {
+            lines.clear();
+            itemsByCategory.clear();
+            itemDiscounts.clear();
+            categoryDiscounts.clear();
+            enteredCodes.clear();
+            subtotal = 0;
+            orderDiscount = null;
+            orderDirty = false;
+        }
+
+        /**
+         * Enter a promotion code; only rules in that promotion's scope are re-evaluated
+         */
+        public void enterCode(Promotion promotion) {
+            enteredCodes.add(normalizeCode(promotion.getPromoCode()));
+            reevaluateScope(promotion);
+        }
+
+        public void removeCode(Promotion promotion) {
+            enteredCodes.remove(normalizeCode(promotion.getPromoCode()));
+            reevaluateScope(promotion);
+        }
+
+        public boolean isCodeEntered(String code) {
+            return enteredCodes.contains(normalizeCode(code));
+        }
+
+        public Set<String> getEnteredCodes() {
+            return Collections.unmodifiableSet(enteredCodes);
+        }
+
+        /**
+         * Attach a customer (null for walk-ins) and their past redemption counts,
+         * which per-customer limits are checked against
+         */
+        public void setCustomer(String customerId, Map<Integer, Integer> uses) {
+            this.customerId = customerId;
+            this.customerUses = uses != null ? uses : Collections.emptyMap();
+            refresh();
+        }
+
+        public String getCustomerId() {
+            return customerId;
+        }
+
+        /**
+         * Whether the current customer may still redeem a promotion.
+         * Walk-ins (no customer attached) never get a promotion that has a
+         * per-customer limit, since their uses cannot be counted.
+         */
+        public boolean isWithinLimit(Promotion promotion) {
+            Integer limit = promotion.getPerCustomerLimit();
+            if (limit == null) {
+                return true;
+            }
+            return customerId != null && customerUses.getOrDefault(promotion.getId(), 0) < limit;
+        }
+
+        /**
+         * Re-evaluate every line, e.g. when a promotion's time window may have opened or closed
+         */
+        public void refresh() {
+            now = LocalDateTime.now();
+            itemDiscounts.clear();
+            categoryDiscounts.clear();
+            for (String itemName : lines.keySet()) {
+                evaluateItem(itemName);
+            }
+            for (String category : itemsByCategory.keySet()) {
+                evaluateCategory(category);
+            }
+            orderDirty = true;
+        }
+
+        /**
+         * Total promotion discount, in centavos
+         */
+        public long getDiscountCents() {
+            long total = 0;
+            for (Applied applied : itemDiscounts.values()) {
+                total += applied.cents;
+            }
+            for (Applied applied : categoryDiscounts.values()) {
+                total += applied.cents;
+            }
+            Applied order = orderDiscount();
+            return order != null ? total + order.cents : total;
+        }
+
+        /**
+         * Each applied promotion with the discount it gives, in centavos
+         */
+        public Map<Promotion, Long> getAppliedDiscounts() {
+            Map<Promotion, Long> applied = new LinkedHashMap<>();
+            for (Applied a : itemDiscounts.values()) {
+                applied.merge(a.promotion, a.cents, Long::sum);
+            }
+            for (Applied a : categoryDiscounts.values()) {
+                applied.merge(a.promotion, a.cents, Long::sum);
+            }
+            Applied order = orderDiscount();
+            if (order != null) {
+                applied.merge(order.promotion, order.cents, Long::sum);
+            }
+            return applied;
+        }
+
+        private boolean eligible(Promotion promotion) {
+            return promotion.isRunningAt(now)
+                && (promotion.isAutomatic() || enteredCodes.contains(normalizeCode(promotion.getPromoCode())))
+                && isWithinLimit(promotion);
+        }
+
+        private Applied best(List<Promotion> rules, Collection<Line> scope, long scopeSubtotal) {
+            Applied best = null;
+            if (rules == null) {
+                return null;
+            }
+            for (Promotion promotion : rules) {
+                if (!eligible(promotion)) {
+                    continue;
+                }
+                long cents = discount(promotion, scope, scopeSubtotal);
+                if (cents > 0 && (best == null || cents > best.cents)) {
+                    best = new Applied(promotion, cents);
+                }
+            }
+            return best;
+        }
+
+        private void evaluateItem(String itemName) {
+            Line line = lines.get(itemName);
+            Applied applied = line == null ? null
+                : best(itemRules.get(itemName), Collections.singletonList(line), line.subtotal());
+            if (applied != null) {
+                itemDiscounts.put(itemName, applied);
+            } else {
+                itemDiscounts.remove(itemName);
+            }
+        }
+
+        private void evaluateCategory(String category) {
+            List<Promotion> rules = categoryRules.get(category);
+            Set<String> items = itemsByCategory.get(category);
+            if (rules == null || items == null || items.isEmpty()) {
+                categoryDiscounts.remove(category);
+                return;
+            }
+            // Lines with their own item promotion don't also take the category one
+            List<Line> pool = new ArrayList<>();
+            long poolSubtotal = 0;
+            for (String itemName : items) {
+                if (!itemDiscounts.containsKey(itemName)) {
+                    Line line = lines.get(itemName);
+                    pool.add(line);
+                    poolSubtotal += line.subtotal();
+                }
+            }
+            Applied applied = best(rules, pool, poolSubtotal);
+            if (applied != null) {
+                categoryDiscounts.put(category, applied);
+            } else {
+                categoryDiscounts.remove(category);
+            }
+            orderDirty = true;
+        }
+
+        private void reevaluateScope(Promotion promotion) {
+            switch (promotion.getScope()) {
+                case ITEM:
+                    if (lines.containsKey(promotion.getScopeValue())) {
+                        evaluateItem(promotion.getScopeValue());
+                        evaluateCategory(lines.get(promotion.getScopeValue()).category);
+                    }
+                    break;
+                case CATEGORY:
+                    evaluateCategory(promotion.getScopeValue());
+                    break;
+                default:
+                    break;
+            }
+            orderDirty = true;
+        }
+
+        private Applied orderDiscount() {
+            if (orderDirty) {
+                long remaining = subtotal;
+                for (Applied applied : itemDiscounts.values()) {
+                    remaining -= applied.cents;
+                }
+                for (Applied applied : categoryDiscounts.values()) {
+                    remaining -= applied.cents;
+                }
+                orderDiscount = orderRules.isEmpty() ? null : best(orderRules, lines.values(), remaining);
+                orderDirty = false;
+            }
+            return orderDiscount;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package kiosk.controller;
 
 import java.io.IOException;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -8,7 +9,10 @@ import java.util.stream.Collectors;
 
 import kiosk.database.dao.SalesDAO;
 import kiosk.model.SaleTransaction;
+import kiosk.model.SalesSummary;
+import kiosk.model.TransactionHeader;
 import kiosk.util.DataPersistence;
+import kiosk.util.Money;
 
 /**
  * Controller for managing sales transactions with MySQL database
@@ -47,6 +51,34 @@ public class SalesController implements DataPersistence<SaleTransaction> {
         return salesDAO.getByDateRange(startDate, endDate);
     }
     
+    /**
+     * Transaction headers (no line items) within a date range
+     */
+    public List<TransactionHeader> getTransactionHeadersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return salesDAO.getHeadersByDateRange(startDate, endDate);
+    }
+    
+    /**
+     * Total of all recorded sales, in centavos
+     */
+    public long getAllTimeTotalSalesCents() {
+        return salesDAO.getAllTimeTotalSalesCents();
+    }
+    
+    /**
+     * All-time totals, daily totals and per-item sales without loading every transaction
+     */
+    public SalesSummary getAllTimeSummary() {
+        return salesDAO.getAllTimeSummary();
+    }
+    
+    /**
+     * Number of sales ever recorded
+     */
+    public int getAllTimeTransactionCount() {
+        return salesDAO.getAllTimeTransactionCount();
+    }
+    
     /**
      * Get transactions for today
      */
@@ -69,16 +101,30 @@ public class SalesController implements DataPersistence<SaleTransaction> {
      * Calculate total sales for a date range
      */
     public double getTotalSales(LocalDateTime startDate, LocalDateTime endDate) {
-        return salesDAO.getTotalSales(startDate, endDate);
+        return Money.toPesos(getTotalSalesCents(startDate, endDate));
+    }
+    
+    /**
+     * Total sales for a date range, in centavos
+     */
+    public long getTotalSalesCents(LocalDateTime startDate, LocalDateTime endDate) {
+        return salesDAO.getTotalSalesCents(startDate, endDate);
     }
     
     /**
      * Calculate total sales for today
      */
     public double getTodayTotalSales() {
+        return Money.toPesos(getTodayTotalSalesCents());
+    }
+    
+    /**
+     * Total sales for today, in centavos
+     */
+    public long getTodayTotalSalesCents() {
         LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
         LocalDateTime endOfDay = LocalDate.now().atTime(23, 59, 59);
-        return getTotalSales(startOfDay, endOfDay);
+        return getTotalSalesCents(startOfDay, endOfDay);
     }
     
     /**
@@ -127,20 +173,23 @@ public class SalesController implements DataPersistence<SaleTransaction> {
             return 0.0;
         }
         
-        double total = transactions.stream()
-                .mapToDouble(SaleTransaction::getTotal)
-                .sum();
+        long total = 0;
+        for (SaleTransaction transaction : transactions) {
+            total += transaction.getTotalCents();
+        }
         
-        return total / transactions.size();
+        return Money.toPesos(Money.divide(total, transactions.size(), RoundingMode.HALF_UP));
     }
     
     /**
      * Get total discount given
      */
     public double getTotalDiscountGiven(LocalDateTime startDate, LocalDateTime endDate) {
-        return getTransactionsByDateRange(startDate, endDate).stream()
-                .mapToDouble(SaleTransaction::getDiscountAmount)
-                .sum();
+        long total = 0;
+        for (SaleTransaction transaction : getTransactionsByDateRange(startDate, endDate)) {
+            total += transaction.getDiscountAmountCents();
+        }
+        return Money.toPesos(total);
     }
     
     /**
@@ -0,0 +1,484 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import kiosk.model.Customer;
+import kiosk.util.ProductSearchIndex;
+
+/**
+ * In-memory search index over customers (name, email and phone).
+ * Tokens are kept in a sorted map for exact/prefix lookups and every token is
+ * also split into trigrams for substring lookups, so a search never scans the
+ * customers table. The index is loaded from the database and kept in step by
+ * CustomerDAO on register, update and delete. Other stations share the
+ * customers table, so refresh() also picks up rows added elsewhere (by id) on
+ * every search and, every few minutes, rebuilds the whole index to catch their
+ * edits and deletions. The rebuild runs in the background on a connection of
+ * its own into a fresh index that is swapped in when complete (replaying any
+ * local changes made meanwhile); searches keep using the old index until then.
+ *
+ * Ranking per query term: exact token 3, token prefix 2, substring 1. All
+ * terms must match; ties go to the most recently created customer. Document
+ * numbers are assigned in created_at order, so walking a match set from the
+ * highest number down already yields that tie-break without sorting.
+ */
+public class CustomerSearchIndex {
+    private static final int GRAM = 3;
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int SUBSTRING_SCORE = 1;
+    private static final long RELOAD_MS = 5 * 60 * 1000;
+
+    private static CustomerSearchIndex instance;
+
+    /**
+     * One page of ranked results
+     */
+    public static class Page {
+        private final List<String> customerIds;
+        private final int totalMatches;
+
+        Page(List<String> customerIds, int totalMatches) {
+            this.customerIds = customerIds;
+            this.totalMatches = totalMatches;
+        }
+
+        /**
+         * Customer IDs on this page, best match first
+         */
+        public List<String> getCustomerIds() {
+            return customerIds;
+        }
+
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+    }
+
+    /**
+     * Sorted list of document numbers
+     */
+    private static class Postings {
+        int[] docs = new int[2];
+        int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] < doc) {
+                append(doc);
+                return;
+            }
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            docs[pos] = doc;
+            size++;
+        }
+
+        void append(int doc) {
+            ensureCapacity();
+            docs[size++] = doc;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(docs[i]);
+            }
+        }
+
+        private void ensureCapacity() {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+        }
+    }
+
+    /**
+     * The index proper. The live one is only touched under the outer monitor; a
+     * rebuild fills a new one on its own thread before swapping it in.
+     */
+    private static class Data {
+        final Map<String, Integer> docByCustomerId = new HashMap<>();
+        final List<String> customerIds = new ArrayList<>();
+        final List<String[]> docTokens = new ArrayList<>();
+        final TreeMap<String, Postings> tokenPostings = new TreeMap<>();
+        final Map<String, Postings> gramPostings = new HashMap<>();
+        long maxRowId;
+
+        void load(Connection connection) throws SQLException {
+            String sql = "SELECT id, customer_id, first_name, last_name, email, phone FROM customers " +
+                        "ORDER BY created_at, id";
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                putRows(rs);
+            }
+        }
+
+        void putRows(ResultSet rs) throws SQLException {
+            while (rs.next()) {
+                put(rs.getString("customer_id"), rs.getString("first_name"), rs.getString("last_name"),
+                    rs.getString("email"), rs.getString("phone"));
+                maxRowId = Math.max(maxRowId, rs.getLong("id"));
+            }
+        }
+
+        void put(Customer customer) {
+            put(customer.getCustomerId(), customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getPhone());
+        }
+
+        void put(String customerId, String firstName, String lastName, String email, String phone) {
+            Set<String> tokens = new LinkedHashSet<>();
+            tokens.addAll(tokenize(firstName));
+            tokens.addAll(tokenize(lastName));
+            tokens.addAll(tokenize(email));
+            if (phone != null) {
+                String digits = phone.replaceAll("\\D", "");
+                if (!digits.isEmpty()) {
+                    tokens.add(digits);
+                }
+            }
+
+            Integer existing = docByCustomerId.get(customerId);
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                unpost(doc);
+            } else {
+                doc = customerIds.size();
+                customerIds.add(customerId);
+                docTokens.add(null);
+                docByCustomerId.put(customerId, doc);
+            }
+
+            String[] tokenArray = tokens.toArray(new String[0]);
+            docTokens.set(doc, tokenArray);
+            for (String token : tokenArray) {
+                tokenPostings.computeIfAbsent(token, k -> new Postings()).add(doc);
+                for (String gram : grams(token)) {
+                    gramPostings.computeIfAbsent(gram, k -> new Postings()).add(doc);
+                }
+            }
+        }
+
+        void remove(String customerId) {
+            Integer doc = docByCustomerId.remove(customerId);
+            if (doc != null) {
+                unpost(doc);
+                customerIds.set(doc, null);
+                docTokens.set(doc, null);
+            }
+        }
+
+        private void unpost(int doc) {
+            String[] tokens = docTokens.get(doc);
+            if (tokens == null) {
+                return;
+            }
+            for (String token : tokens) {
+                CustomerSearchIndex.unpost(tokenPostings, token, doc);
+                for (String gram : grams(token)) {
+                    CustomerSearchIndex.unpost(gramPostings, gram, doc);
+                }
+            }
+        }
+    }
+
+    private Data data = new Data();
+    private boolean loaded;
+    private long loadedAt;
+    private Map<String, Customer> changedDuringRebuild; // non-null while rebuilding; null value = removed
+
+    private CustomerSearchIndex() {
+    }
+
+    public static synchronized CustomerSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new CustomerSearchIndex();
+        }
+        return instance;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Build the index from the customers table (no-op once loaded)
+     */
+    public synchronized void load(Connection connection) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Data loading = new Data();
+        loading.load(connection);
+        data = loading;
+        loaded = true;
+        loadedAt = start;
+        System.out.println("✓ Customer search index loaded: " + data.docByCustomerId.size() + " customers (" +
+                         (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Catch up with other stations: customers added since the last call are indexed
+     * as newest, and once RELOAD_MS has passed a background rebuild is started
+     */
+    public synchronized void refresh(Connection connection) throws SQLException {
+        if (!loaded) {
+            load(connection);
+            return;
+        }
+        if (changedDuringRebuild == null && System.currentTimeMillis() - loadedAt > RELOAD_MS) {
+            changedDuringRebuild = new HashMap<>();
+            Thread rebuild = new Thread(this::rebuild, "customer-index-rebuild");
+            rebuild.setDaemon(true);
+            rebuild.start();
+        }
+        String sql = "SELECT id, customer_id, first_name, last_name, email, phone FROM customers " +
+                    "WHERE id > ? ORDER BY id";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, data.maxRowId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                data.putRows(rs);
+            }
+        }
+    }
+
+    /**
+     * Build a fresh index outside the monitor and swap it in. Local changes made
+     * while it was loading are replayed onto it; rows other stations add meanwhile
+     * have higher ids and are picked up by the next refresh.
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        Data rebuilt = new Data();
+        try (Connection connection = DatabaseConnection.getInstance().openDedicated()) {
+            rebuilt.load(connection);
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding customer search index: " + e.getMessage());
+            synchronized (this) {
+                changedDuringRebuild = null;
+                loadedAt = System.currentTimeMillis(); // try again after another RELOAD_MS
+            }
+            return;
+        }
+
+        synchronized (this) {
+            changedDuringRebuild.forEach((customerId, customer) -> {
+                if (customer != null) {
+                    rebuilt.put(customer);
+                } else {
+                    rebuilt.remove(customerId);
+                }
+            });
+            changedDuringRebuild = null;
+            data = rebuilt;
+            loadedAt = start;
+        }
+        System.out.println("✓ Customer search index rebuilt: " + rebuilt.docByCustomerId.size() + " customers (" +
+                         (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Add a new customer (ranked as newest) or re-index an existing one in place
+     */
+    public synchronized void index(Customer customer) {
+        if (customer.getCustomerId() != null) {
+            data.put(customer);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(customer.getCustomerId(), customer);
+            }
+        }
+    }
+
+    public synchronized void remove(String customerId) {
+        data.remove(customerId);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(customerId, null);
+        }
+    }
+
+    /**
+     * Ranked search, returning one page of customer IDs; a blank query matches
+     * every customer, newest first
+     */
+    public synchronized Page search(String query, int offset, int limit) {
+        List<String> terms = tokenize(query);
+        Data d = data;
+
+        // Per term: docs matching the token exactly, by prefix, and anywhere
+        List<BitSet> exact = new ArrayList<>();
+        List<BitSet> prefix = new ArrayList<>();
+        BitSet matches = null;
+        if (terms.isEmpty()) {
+            matches = new BitSet();
+            for (int doc : d.docByCustomerId.values()) {
+                matches.set(doc);
+            }
+        }
+        for (String term : terms) {
+            BitSet termExact = new BitSet();
+            BitSet termPrefix = new BitSet();
+            for (Map.Entry<String, Postings> e
+                    : d.tokenPostings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                e.getValue().addTo(e.getKey().equals(term) ? termExact : termPrefix);
+            }
+            termPrefix.or(termExact);
+
+            BitSet termAny = (BitSet) termPrefix.clone();
+            if (term.length() >= GRAM) {
+                termAny.or(substringMatches(d, term, matches, termPrefix));
+            }
+
+            if (matches == null) {
+                matches = termAny;
+            } else {
+                matches.and(termAny);
+            }
+            if (matches.isEmpty()) {
+                return new Page(Collections.emptyList(), 0);
+            }
+            exact.add(termExact);
+            prefix.add(termPrefix);
+        }
+
+        // Bucket by score, newest first within a bucket
+        int maxScore = EXACT_SCORE * terms.size();
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int i = 0; i <= maxScore; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int doc = matches.previousSetBit(matches.length()); doc >= 0; doc = matches.previousSetBit(doc - 1)) {
+            int score = 0;
+            for (int t = 0; t < terms.size(); t++) {
+                score += exact.get(t).get(doc) ? EXACT_SCORE
+                       : prefix.get(t).get(doc) ? PREFIX_SCORE
+                       : SUBSTRING_SCORE;
+            }
+            buckets.get(score).add(doc);
+        }
+
+        int total = matches.cardinality();
+        int from = Math.min(Math.max(offset, 0), total);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), total);
+        List<String> ids = new ArrayList<>(to - from);
+        int position = 0;
+        for (int score = maxScore; score >= 0 && position < to; score--) {
+            List<Integer> bucket = buckets.get(score);
+            if (position + bucket.size() <= from) {
+                position += bucket.size();
+                continue;
+            }
+            for (Integer doc : bucket) {
+                if (position >= from && position < to) {
+                    ids.add(d.customerIds.get(doc));
+                }
+                position++;
+            }
+        }
+        return new Page(ids, total);
+    }
+
+    /**
+     * Docs with a token containing the term, found through the rarest trigram and
+     * confirmed against the other trigrams and the tokens themselves. Docs outside
+     * restrictTo (when given) or already in known are skipped.
+     */
+    private static BitSet substringMatches(Data d, String term, BitSet restrictTo, BitSet known) {
+        BitSet result = new BitSet();
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : grams(term)) {
+            Postings postings = d.gramPostings.get(gram);
+            if (postings == null) {
+                return result;
+            }
+            lists.add(postings);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        Postings rarest = lists.get(0);
+        candidates:
+        for (int i = 0; i < rarest.size; i++) {
+            int doc = rarest.docs[i];
+            if ((restrictTo != null && !restrictTo.get(doc)) || known.get(doc)) {
+                continue;
+            }
+            for (int l = 1; l < lists.size(); l++) {
+                if (!lists.get(l).contains(doc)) {
+                    continue candidates;
+                }
+            }
+            for (String token : d.docTokens.get(doc)) {
+                if (token.contains(term)) {
+                    result.set(doc);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void unpost(Map<String, Postings> postings, String key, int doc) {
+        Postings docs = postings.get(key);
+        if (docs != null) {
+            docs.remove(doc);
+            if (docs.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static List<String> grams(String token) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Folded word tokens (letters and digits)
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : ProductSearchIndex.fold(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
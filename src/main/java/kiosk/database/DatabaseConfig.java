@@ -2,6 +2,9 @@ package kiosk.database;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
 import java.util.Properties;
 
 /**
@@ -16,6 +19,7 @@ public class DatabaseConfig {
     private static final String SQLITE_DRIVER = "org.sqlite.JDBC";
     
     private static DatabaseType currentDatabaseType = DatabaseType.MYSQL;
+    private static String stationId;
     
     public enum DatabaseType {
         MYSQL,
@@ -45,28 +49,232 @@ public class DatabaseConfig {
         if (currentDatabaseType == DatabaseType.SQLITE) {
             return getSqliteUrl();
         }
-        return properties.getProperty("db.url");
+        return getMysqlUrl();
     }
     
     public static String getUsername() {
         if (currentDatabaseType == DatabaseType.SQLITE) {
             return ""; // SQLite doesn't use username
         }
-        return properties.getProperty("db.username");
+        return getMysqlUsername();
     }
     
     public static String getPassword() {
         if (currentDatabaseType == DatabaseType.SQLITE) {
             return ""; // SQLite doesn't use password
         }
-        return properties.getProperty("db.password");
+        return getMysqlPassword();
     }
     
     public static String getDriver() {
         if (currentDatabaseType == DatabaseType.SQLITE) {
             return getSqliteDriver();
         }
-        return properties.getProperty("db.driver");
+        return getMysqlDriver();
+    }
+    
+    public static String getMysqlUrl() {
+        return properties.getProperty("db.url");
+    }
+    
+    public static String getMysqlUsername() {
+        return properties.getProperty("db.username");
+    }
+    
+    public static String getMysqlPassword() {
+        return properties.getProperty("db.password");
+    }
+    
+    public static String getMysqlDriver() {
+        return properties.getProperty("db.driver", "com.mysql.cj.jdbc.Driver");
+    }
+    
+    /**
+     * Whether to switch between MySQL and SQLite while running (db.failover.enabled, default true).
+     * Only takes effect once MySQL has been the station's primary, so stations that run
+     * on SQLite alone never capture writes or probe MySQL.
+     */
+    public static boolean isFailoverEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.failover.enabled", "true").trim());
+    }
+    
+    /**
+     * Seconds between MySQL health checks (db.failover.check_seconds, default 10)
+     */
+    public static int getFailoverCheckSeconds() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty("db.failover.check_seconds", "10").trim()));
+        } catch (NumberFormatException e) {
+            return 10;
+        }
+    }
+    
+    /**
+     * How old the SQLite store's catalog may be for a running kiosk to fail over onto it
+     * (db.failover.max_catalog_age_minutes, default 60; 0 means no limit)
+     */
+    public static int getFailoverMaxCatalogAgeMinutes() {
+        try {
+            return Math.max(0, Integer.parseInt(properties.getProperty("db.failover.max_catalog_age_minutes", "60").trim()));
+        } catch (NumberFormatException e) {
+            return 60;
+        }
+    }
+    
+    /**
+     * Short name of this station in the IDs it creates (db.station.id, default
+     * the host name), upper-case letters and digits only, at most 12
+     */
+    public static synchronized String getStationId() {
+        if (stationId != null) {
+            return stationId;
+        }
+        String id = properties.getProperty("db.station.id");
+        if (id == null || id.trim().isEmpty()) {
+            try {
+                id = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                id = "KIOSK";
+            }
+        }
+        id = id.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
+        if (id.isEmpty()) {
+            id = "KIOSK";
+        }
+        stationId = id.length() > 12 ? id.substring(0, 12) : id;
+        return stationId;
+    }
+    
+    /**
+     * Whether this kiosk runs from its local SQLite replica and syncs with the
+     * central database in the background (db.replica.enabled, default false)
+     */
+    public static boolean isReplicaEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.replica.enabled", "false").trim());
+    }
+    
+    /**
+     * Central database the replica syncs with (db.replica.central.url, default db.url).
+     * May be a jdbc:sqlite: file for testing without MySQL.
+     */
+    public static String getReplicaCentralUrl() {
+        return properties.getProperty("db.replica.central.url", getMysqlUrl());
+    }
+    
+    public static String getReplicaCentralUsername() {
+        return properties.getProperty("db.replica.central.username", getMysqlUsername());
+    }
+    
+    public static String getReplicaCentralPassword() {
+        return properties.getProperty("db.replica.central.password", getMysqlPassword());
+    }
+    
+    /**
+     * Seconds between replica sync cycles (db.replica.sync_seconds, default 30)
+     */
+    public static int getReplicaSyncSeconds() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty("db.replica.sync_seconds", "30").trim()));
+        } catch (NumberFormatException e) {
+            return 30;
+        }
+    }
+    
+    /**
+     * Replica that reporting queries are sent to (db.reporting.url); null when reports use the primary
+     */
+    public static String getReportingUrl() {
+        String url = properties.getProperty("db.reporting.url");
+        return url == null || url.trim().isEmpty() ? null : url.trim();
+    }
+    
+    public static String getReportingUsername() {
+        return properties.getProperty("db.reporting.username", getMysqlUsername());
+    }
+    
+    public static String getReportingPassword() {
+        return properties.getProperty("db.reporting.password", getMysqlPassword());
+    }
+    
+    /**
+     * How far the reporting replica may lag before reports go to the primary
+     * (db.reporting.max_lag_seconds, default 30)
+     */
+    public static int getReportingMaxLagSeconds() {
+        try {
+            return Math.max(0, Integer.parseInt(properties.getProperty("db.reporting.max_lag_seconds", "30").trim()));
+        } catch (NumberFormatException e) {
+            return 30;
+        }
+    }
+    
+    /**
+     * Seconds between heartbeat stamps on the primary (db.reporting.heartbeat_seconds, default 5)
+     */
+    public static int getReportingHeartbeatSeconds() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty("db.reporting.heartbeat_seconds", "5").trim()));
+        } catch (NumberFormatException e) {
+            return 5;
+        }
+    }
+    
+    /**
+     * Months of sales kept in the live tables, counting the current one
+     * (db.sales.hot_months, default 6); older months are archived. 0 disables archival.
+     */
+    public static int getSalesHotMonths() {
+        try {
+            return Math.max(0, Integer.parseInt(properties.getProperty("db.sales.hot_months", "6").trim()));
+        } catch (NumberFormatException e) {
+            return 6;
+        }
+    }
+    
+    /**
+     * Milliseconds between writes of queued stock movements (db.stock.flush_millis, default 500)
+     */
+    public static int getStockFlushMillis() {
+        try {
+            return Math.max(50, Integer.parseInt(properties.getProperty("db.stock.flush_millis", "500").trim()));
+        } catch (NumberFormatException e) {
+            return 500;
+        }
+    }
+    
+    /**
+     * Seconds between polls of the order event log by OrderEventFollower
+     * (db.orders.event_poll_seconds, default 5)
+     */
+    public static int getOrderEventPollSeconds() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty("db.orders.event_poll_seconds", "5").trim()));
+        } catch (NumberFormatException e) {
+            return 5;
+        }
+    }
+    
+    /**
+     * Seconds a custom order catalog snapshot is served before the tables are
+     * checked for changes by other stations (db.catalog.check_seconds, default 30)
+     */
+    public static int getCatalogCheckSeconds() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty("db.catalog.check_seconds", "30").trim()));
+        } catch (NumberFormatException e) {
+            return 30;
+        }
+    }
+    
+    /**
+     * Hours between stock snapshots (db.stock.snapshot_hours, default 24)
+     */
+    public static int getStockSnapshotHours() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty("db.stock.snapshot_hours", "24").trim()));
+        } catch (NumberFormatException e) {
+            return 24;
+        }
     }
     
     public static String getSqliteUrl() {
@@ -77,6 +285,13 @@ public class DatabaseConfig {
         return properties.getProperty("db.sqlite.driver", SQLITE_DRIVER);
     }
     
+    /**
+     * SQLite tuning setting db.sqlite.<name> (see SqliteProfile)
+     */
+    public static String getSqliteSetting(String name, String defaultValue) {
+        return properties.getProperty("db.sqlite." + name, defaultValue);
+    }
+    
     public static DatabaseType getCurrentDatabaseType() {
         return currentDatabaseType;
     }
@@ -3,54 +3,154 @@ package kiosk.database;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Database connection manager using Singleton pattern with SQLite fallback
+ * Database connection manager using Singleton pattern with SQLite fallback.
+ *
+ * With failover enabled (db.failover.enabled, the default) a station whose
+ * primary database is MySQL keeps selling through MySQL outages:
+ * getConnection() returns one long-lived FailoverConnection that routes to MySQL
+ * while it is healthy and to the local SQLite store otherwise. A background
+ * check probes MySQL every few seconds; a failing statement also triggers the
+ * switch. Writes made on SQLite are captured in the WriteOutbox and replayed to
+ * MySQL before switching back. Failover is only armed once MySQL has been this
+ * station's primary; stations that run on SQLite from the start (no MySQL
+ * server) stay plain SQLite: nothing is captured and MySQL is not probed.
+ *
+ * While on MySQL, a pull-only ReplicaSync keeps the SQLite store's catalog
+ * current. A running kiosk does not fail over onto a store whose catalog is
+ * older than db.failover.max_catalog_age_minutes; it keeps retrying MySQL
+ * instead. A kiosk started during an outage uses the store if MySQL has ever
+ * been synced into it, and warns when its catalog is old.
+ *
+ * In replica mode (db.replica.enabled) the kiosk never talks to the central
+ * database from the UI thread: it runs from the local SQLite store, captures
+ * every write in the outbox, and ReplicaSync pushes and pulls in the background.
  */
 public class DatabaseConnection {
     private static DatabaseConnection instance;
-    private Connection connection;
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final int RETRY_DELAY_MS = 1000;
-    
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+
+    private final boolean failoverConfigured = DatabaseConfig.isFailoverEnabled();
+    private volatile boolean failoverEnabled;
+    private final boolean replicaEnabled = DatabaseConfig.isReplicaEnabled();
+    private final FailoverConnection connection = new FailoverConnection(this);
+    private final WriteOutbox outbox = new WriteOutbox();
+    private Connection mysql;
+    private Connection sqlite;
+    private Connection outboxReader;
+    private volatile DatabaseConfig.DatabaseType active;
+    private volatile boolean failoverPending;
+    private ScheduledExecutorService healthCheck;
+    private ReplicaSync replicaSync;
+    private ReplicaSync catalogSync;
+    private boolean syncStarted;
+    private boolean staleStoreReported;
+
     private DatabaseConnection() {
         establishConnection();
+        if (replicaEnabled) {
+            replicaSync = new ReplicaSync(outbox, DatabaseConfig.getSqliteUrl(), DatabaseConfig.getReplicaCentralUrl());
+        }
     }
-    
+
     /**
      * Establishes database connection, attempting MySQL first, then falling back to SQLite
      */
     private void establishConnection() {
-        // Try MySQL first
-        if (tryMySqlConnection()) {
-            DatabaseConfig.setDatabaseType(DatabaseConfig.DatabaseType.MYSQL);
+        if (replicaEnabled) {
+            if (trySqliteConnection()) {
+                activate(DatabaseConfig.DatabaseType.SQLITE);
+                System.out.println("✓ Local replica opened: " + DatabaseConfig.getSqliteUrl().replace("jdbc:sqlite:", ""));
+            } else {
+                System.err.println("✗ Failed to open the local replica!");
+            }
+            return;
+        }
+
+        // Try MySQL first; with failover the health check keeps retrying, so one quick attempt is enough
+        if (failoverEnabled ? tryMySqlOnce() : tryMySqlConnection()) {
+            activate(DatabaseConfig.DatabaseType.MYSQL);
             System.out.println("✓ MySQL database connection established successfully!");
+            if (failoverConfigured) {
+                armFailover();
+            }
             return;
         }
-        
+
         // Fall back to SQLite
         System.out.println("MySQL connection failed. Falling back to SQLite...");
         if (trySqliteConnection()) {
-            DatabaseConfig.setDatabaseType(DatabaseConfig.DatabaseType.SQLITE);
+            activate(DatabaseConfig.DatabaseType.SQLITE);
             System.out.println("✓ SQLite database connection established successfully!");
-            System.out.println("  Database file: bakery_kiosk.db");
+            System.out.println("  Database file: " + DatabaseConfig.getSqliteUrl().replace("jdbc:sqlite:", ""));
+            if (failoverConfigured && !failoverEnabled) {
+                armIfSyncedFromMysql();
+            }
         } else {
             System.err.println("✗ Failed to establish any database connection!");
         }
     }
-    
+
+    /**
+     * MySQL is this station's primary: from now on an outage fails over to SQLite,
+     * whose catalog is kept current meanwhile
+     */
+    private synchronized void armFailover() {
+        if (failoverEnabled) {
+            return;
+        }
+        failoverEnabled = true;
+        startHealthCheck();
+        catalogSync = new ReplicaSync(outbox, DatabaseConfig.getSqliteUrl(), DatabaseConfig.getMysqlUrl(), true);
+        if (syncStarted) {
+            catalogSync.start();
+        }
+    }
+
+    /**
+     * Started on SQLite during a MySQL outage: a store MySQL was synced into belongs to
+     * a MySQL station, so capture its writes and watch for MySQL
+     */
+    private void armIfSyncedFromMysql() {
+        long age = ReplicaSync.catalogAgeSeconds(sqlite);
+        if (age < 0) {
+            System.out.println("  MySQL has never been synced into this store; running on SQLite without failover");
+            return;
+        }
+        if (isStale(age)) {
+            System.err.println("⚠ Local catalog was last synced from MySQL " + age / 60 +
+                             " minute(s) ago; prices and stock may be out of date");
+        }
+        armFailover();
+        System.out.println("  Writes are kept in the outbox until MySQL is back");
+    }
+
+    private static boolean isStale(long catalogAgeSeconds) {
+        int limitMinutes = DatabaseConfig.getFailoverMaxCatalogAgeMinutes();
+        return catalogAgeSeconds < 0 || (limitMinutes > 0 && catalogAgeSeconds > limitMinutes * 60L);
+    }
+
+    private void activate(DatabaseConfig.DatabaseType type) {
+        active = type;
+        DatabaseConfig.setDatabaseType(type);
+    }
+
     /**
      * Attempts to connect to MySQL database
      */
     private boolean tryMySqlConnection() {
         for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
             try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                String url = DatabaseConfig.getUrl();
-                String username = DatabaseConfig.getUsername();
-                String password = DatabaseConfig.getPassword();
-                
-                this.connection = DriverManager.getConnection(url, username, password);
+                Class.forName(DatabaseConfig.getMysqlDriver());
+                this.mysql = DriverManager.getConnection(DatabaseConfig.getMysqlUrl(), mysqlProperties());
                 return true;
             } catch (ClassNotFoundException e) {
                 System.err.println("MySQL JDBC Driver not found: " + e.getMessage());
@@ -70,14 +170,37 @@ public class DatabaseConnection {
         }
         return false;
     }
-    
+
+    private boolean tryMySqlOnce() {
+        try {
+            Class.forName(DatabaseConfig.getMysqlDriver());
+            this.mysql = DriverManager.getConnection(DatabaseConfig.getMysqlUrl(), mysqlProperties());
+            return true;
+        } catch (ClassNotFoundException e) {
+            System.err.println("MySQL JDBC Driver not found: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("MySQL connection failed: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static Properties mysqlProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("user", DatabaseConfig.getMysqlUsername());
+        properties.setProperty("password", DatabaseConfig.getMysqlPassword());
+        properties.setProperty("connectTimeout", String.valueOf(CONNECT_TIMEOUT_MS));
+        return properties;
+    }
+
     /**
      * Attempts to connect to SQLite database
      */
     private boolean trySqliteConnection() {
         try {
             Class.forName(DatabaseConfig.getSqliteDriver());
-            this.connection = DriverManager.getConnection(DatabaseConfig.getSqliteUrl());
+            this.sqlite = DriverManager.getConnection(DatabaseConfig.getSqliteUrl());
+            SqliteProfile.apply(sqlite);
+            SqliteProfile.startMaintenance();
             return true;
         } catch (ClassNotFoundException e) {
             System.err.println("SQLite JDBC Driver not found: " + e.getMessage());
@@ -88,62 +211,335 @@ public class DatabaseConnection {
             return false;
         }
     }
-    
+
     public static DatabaseConnection getInstance() {
-        if (instance == null || instance.connection == null) {
+        if (instance == null) {
             synchronized (DatabaseConnection.class) {
-                if (instance == null || instance.connection == null) {
+                if (instance == null) {
                     instance = new DatabaseConnection();
                 }
             }
         }
         return instance;
     }
-    
+
     public Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
+        if (current() == null) {
+            connection.lock.lock();
+            try {
+                route();
+            } finally {
+                connection.lock.unlock();
+            }
+        }
+        return current() != null ? connection.proxy() : null;
+    }
+
+    /**
+     * The active physical connection, or null if there is none (or it was closed)
+     */
+    Connection current() {
+        Connection physical = active == DatabaseConfig.DatabaseType.MYSQL ? mysql : sqlite;
+        return isOpen(physical) ? physical : null;
+    }
+
+    /**
+     * Connection the next call should use; performs a pending failover first.
+     * Called by FailoverConnection with its lock held and no transaction open.
+     */
+    Connection route() {
+        if (failoverPending || (failoverEnabled && active == DatabaseConfig.DatabaseType.MYSQL && current() == null)) {
+            failOverToSqlite();
+        }
+        if (current() == null) {
+            if (!failoverEnabled) {
                 establishConnection();
+            } else if (active == DatabaseConfig.DatabaseType.SQLITE) {
+                // Once on SQLite only the health check goes back to MySQL, after replaying the outbox
+                trySqliteConnection();
+            } else {
+                // failover was refused (stale store): keep to MySQL
+                tryMySqlOnce();
+            }
+        }
+        return current();
+    }
+
+    /**
+     * A call on a physical connection failed; if MySQL is gone, switch before the next call
+     */
+    void connectionFailed(Connection physical, SQLException e) {
+        if (failoverEnabled && physical == mysql && active == DatabaseConfig.DatabaseType.MYSQL &&
+            FailoverConnection.isConnectionFailure(e) && !failoverPending) {
+            System.err.println("MySQL connection lost (" + e.getMessage() + "); switching to SQLite");
+            failoverPending = true;
+        }
+    }
+
+    /**
+     * Whether a write on this physical connection must be recorded for MySQL
+     */
+    boolean isCapturing(Connection physical) {
+        return (failoverEnabled || replicaEnabled) && physical == sqlite && active == DatabaseConfig.DatabaseType.SQLITE;
+    }
+
+    WriteOutbox getOutbox() {
+        return outbox;
+    }
+
+    /**
+     * Switch to SQLite (lock held, between transactions), bringing its schema up to date
+     */
+    private void failOverToSqlite() {
+        if (!isOpen(sqlite) && !trySqliteConnection()) {
+            System.err.println("✗ SQLite unavailable; staying on MySQL");
+            failoverPending = false;
+            return;
+        }
+        long age = ReplicaSync.catalogAgeSeconds(sqlite);
+        if (isStale(age)) {
+            if (!staleStoreReported) {
+                System.err.println("✗ Local catalog " + (age < 0 ? "was never synced from MySQL"
+                                 : "was last synced " + age / 60 + " minute(s) ago") +
+                                 " (limit " + DatabaseConfig.getFailoverMaxCatalogAgeMinutes() +
+                                 "); staying on MySQL");
+                staleStoreReported = true;
             }
+            // drop the dead connection so route() reconnects to MySQL
+            closeQuietly(mysql);
+            mysql = null;
+            failoverPending = false;
+            return;
+        }
+        staleStoreReported = false;
+        closeQuietly(mysql);
+        mysql = null;
+        activate(DatabaseConfig.DatabaseType.SQLITE);
+        failoverPending = false;
+
+        if (!isSchemaCurrent(sqlite, DatabaseConfig.DatabaseType.SQLITE)) {
+            DatabaseInitializer.initialize();
+        }
+        System.out.println("✓ Switched to SQLite; writes are kept in the outbox until MySQL is back");
+    }
+
+    private void startHealthCheck() {
+        int seconds = DatabaseConfig.getFailoverCheckSeconds();
+        healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-health-check");
+            t.setDaemon(true);
+            return t;
+        });
+        healthCheck.scheduleWithFixedDelay(() -> {
+            try {
+                checkHealth();
+            } catch (RuntimeException e) {
+                System.err.println("Error checking database health: " + e.getMessage());
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * On MySQL: fail over if it stops answering. On SQLite: reconnect to MySQL,
+     * replay the outbox and switch back.
+     */
+    private void checkHealth() {
+        if (active == DatabaseConfig.DatabaseType.MYSQL) {
+            if (!isValid(mysql) && !failoverPending) {
+                System.err.println("MySQL health check failed; switching to SQLite");
+                failoverPending = true;
+                // a thread inside a transaction holds the lock; the next call after it ends fails over
+                if (connection.lock.tryLock()) {
+                    try {
+                        if (!connection.inTransaction()) {
+                            route();
+                        }
+                    } finally {
+                        connection.lock.unlock();
+                    }
+                }
+            }
+            return;
+        }
+
+        if (!isValid(mysql)) {
+            closeQuietly(mysql);
+            mysql = null;
+            if (!tryMySqlOnce()) {
+                return;
+            }
+        }
+        recoverToMysql();
+    }
+
+    /**
+     * Replay the outbox while still selling on SQLite, then switch between transactions
+     * after replaying whatever was written meanwhile
+     */
+    private void recoverToMysql() {
+        Connection reader = getOutboxReader();
+        if (reader == null) {
+            return;
+        }
+        boolean schemaCurrent = isSchemaCurrent(mysql, DatabaseConfig.DatabaseType.MYSQL);
+        if (schemaCurrent && !outbox.drain(reader, mysql)) {
+            return;
+        }
+
+        if (!connection.lock.tryLock()) {
+            return; // a transaction is open; try again on the next check
+        }
+        try {
+            if (connection.inTransaction()) {
+                return; // try again on the next check
+            }
+            activate(DatabaseConfig.DatabaseType.MYSQL);
+            if (!schemaCurrent) {
+                DatabaseInitializer.initialize();
+            }
+            if (!outbox.drain(reader, mysql)) {
+                activate(DatabaseConfig.DatabaseType.SQLITE);
+                return;
+            }
+            System.out.println("✓ MySQL is back; switched from SQLite");
+        } finally {
+            connection.lock.unlock();
+        }
+    }
+
+    /**
+     * Separate SQLite connection for reading and trimming the outbox, so replay never
+     * joins a transaction open on the shared connection
+     */
+    private Connection getOutboxReader() {
+        try {
+            if (outboxReader == null || outboxReader.isClosed()) {
+                outboxReader = DriverManager.getConnection(DatabaseConfig.getSqliteUrl());
+                SqliteProfile.apply(outboxReader);
+            }
+            return outboxReader;
         } catch (SQLException e) {
-            System.err.println("Error checking connection status: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Error opening SQLite outbox: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Start syncing the local replica with the central database (replica mode), or
+     * the store's catalog from MySQL (failover mode). Called once the schema is
+     * initialized, since sync needs replica_state.
+     */
+    public synchronized void startReplicaSync() {
+        syncStarted = true;
+        if (replicaSync != null) {
+            replicaSync.start();
+        }
+        if (catalogSync != null) {
+            catalogSync.start();
+        }
+    }
+
+    /**
+     * A new physical connection to the active database, for background jobs that run
+     * their own transactions; the caller closes it
+     */
+    Connection openDedicated() throws SQLException {
+        if (active == DatabaseConfig.DatabaseType.MYSQL) {
+            return DriverManager.getConnection(DatabaseConfig.getMysqlUrl(), mysqlProperties());
+        }
+        Connection conn = DriverManager.getConnection(DatabaseConfig.getSqliteUrl());
+        SqliteProfile.apply(conn);
+        return conn;
+    }
+
+    /**
+     * Statements waiting in the outbox for MySQL (0 when none or not on SQLite)
+     */
+    public int getPendingOutboxCount() {
+        Connection reader = sqlite != null ? getOutboxReader() : null;
+        return reader != null ? outbox.pending(reader) : 0;
+    }
+
+    private static boolean isSchemaCurrent(Connection conn, DatabaseConfig.DatabaseType type) {
+        try {
+            SchemaMigrator migrator = new SchemaMigrator(conn, type, DatabaseInitializer.migrations());
+            return migrator.getCurrentVersion() >= migrator.getLatestVersion();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static boolean isOpen(Connection conn) {
+        try {
+            return conn != null && !conn.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static boolean isValid(Connection conn) {
+        try {
+            return conn != null && conn.isValid(VALID_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
         }
-        return connection;
     }
-    
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                // already broken
+            }
+        }
+    }
+
     /**
      * Returns the current database type
      */
     public DatabaseConfig.DatabaseType getDatabaseType() {
         return DatabaseConfig.getCurrentDatabaseType();
     }
-    
+
     /**
      * Checks if currently using SQLite
      */
     public boolean isSqlite() {
         return DatabaseConfig.isSqlite();
     }
-    
+
     /**
      * Checks if currently using MySQL
      */
     public boolean isMysql() {
         return DatabaseConfig.isMysql();
     }
-    
+
     public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                System.out.println("Database connection closed.");
-            } catch (SQLException e) {
-                System.err.println("Error closing connection: " + e.getMessage());
-                e.printStackTrace();
+        // write queued stock movements while the connection is still open
+        StockLedger.getInstance().close();
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        if (replicaSync != null) {
+            replicaSync.stop();
+        }
+        if (catalogSync != null) {
+            catalogSync.stop();
+        }
+        SqliteProfile.runMaintenance(true);
+        closeQuietly(outboxReader);
+        for (Connection physical : new Connection[] {mysql, sqlite}) {
+            if (physical != null) {
+                try {
+                    physical.close();
+                } catch (SQLException e) {
+                    System.err.println("Error closing connection: " + e.getMessage());
+                    e.printStackTrace();
+                }
             }
         }
+        System.out.println("Database connection closed.");
     }
 }
-
-
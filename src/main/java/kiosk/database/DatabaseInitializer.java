@@ -1,117 +1,140 @@
 package kiosk.database;
 
 import kiosk.database.dao.InventoryDAO;
+import kiosk.database.dao.OrderEventFollower;
 import kiosk.database.dao.SalesDAO;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Database initializer to create tables and setup the database
  * Supports both MySQL and SQLite with full schema compatibility
+ * Schema changes are applied as versioned migrations (see SchemaMigrator)
  */
 public class DatabaseInitializer {
+    private static final String SQLITE_SCHEMA_FILE = "database/sql/setup_sqlite.sql";
+    private static final String MIGRATIONS_DIR = "database/sql/migrations/";
     
     /**
-     * Initialize database with full schema
+     * Initialize database by applying any pending schema migrations
      */
     public static void initialize() {
         System.out.println("Initializing database...");
         
         // Test database connection
         DatabaseConnection dbConn = DatabaseConnection.getInstance();
-        if (dbConn.getConnection() == null) {
+        Connection conn = dbConn.getConnection();
+        if (conn == null) {
             System.err.println("Failed to establish database connection!");
             return;
         }
         
-        // Check which database type is being used
-        if (dbConn.isSqlite()) {
-            System.out.println("Using SQLite database - loading full schema...");
-            initializeSqliteSchema();
-        } else {
-            System.out.println("Using MySQL database - basic table creation...");
-            // For MySQL, assume schema is already created via setup.sql
-            // But we can still create basic tables if needed
+        System.out.println("Using " + dbConn.getDatabaseType() + " database - checking schema version...");
+        try {
+            // Migrate on the physical connection: schema changes and seed rows must not
+            // be captured in the outbox and replayed to another database
+            SchemaMigrator migrator = new SchemaMigrator(dbConn.current(), dbConn.getDatabaseType(), migrations());
+            migrator.migrate();
+        } catch (SQLException e) {
+            System.err.println("Error migrating database schema: " + e.getMessage());
+            System.out.println("Falling back to basic table creation...");
             createBasicTables();
         }
+        dbConn.startReplicaSync();
+        SalesArchive.start();
+        StockLedger.getInstance().start();
+        OrderEventFollower.start();
         
         System.out.println("Database initialization completed!");
     }
     
     /**
-     * Initialize SQLite database with full schema from SQL file
+     * All schema migrations, in version order. Never edit an applied migration;
+     * add a new version instead.
      */
-    private static void initializeSqliteSchema() {
-        String sqlFile = "database/sql/setup_sqlite.sql";
-        Connection conn = DatabaseConnection.getInstance().getConnection();
+    static List<Migration> migrations() {
+        List<Migration> migrations = new ArrayList<>();
         
-        try {
-            // Read and execute SQL file
-            String sql = readSqlFile(sqlFile);
-            if (sql != null && !sql.trim().isEmpty()) {
-                executeSqlScript(conn, sql);
-                System.out.println("✓ SQLite schema loaded successfully from " + sqlFile);
-            } else {
-                System.out.println("⚠ SQL file not found or empty. Creating basic tables...");
-                createBasicTables();
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading SQLite schema: " + e.getMessage());
-            System.out.println("Falling back to basic table creation...");
-            createBasicTables();
-        }
+        // V1: full SQLite schema; for MySQL the schema comes from setup.sql,
+        // so only make sure the core tables exist
+        migrations.add(new Migration(1, "Baseline schema").baseline()
+            .file(DatabaseConfig.DatabaseType.SQLITE, SQLITE_SCHEMA_FILE)
+            .step(DatabaseConfig.DatabaseType.MYSQL, conn -> createBasicTables()));
+        
+        migrations.add(new Migration(2, "Promotions and redemptions")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V2__promotions_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V2__promotions_mysql.sql"));
+        
+        migrations.add(new Migration(3, "Pickup slot capacity")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V3__pickup_capacity_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V3__pickup_capacity_mysql.sql"));
+        
+        // V4: row versions for optimistic locking; InventoryDAO.createTable may already have added one
+        migrations.add(new Migration(4, "Row version columns")
+            .step(DatabaseConfig.DatabaseType.SQLITE, DatabaseInitializer::addVersionColumns)
+            .step(DatabaseConfig.DatabaseType.MYSQL, DatabaseInitializer::addVersionColumns));
+        
+        migrations.add(new Migration(5, "Custom order event log")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V5__order_events_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V5__order_events_mysql.sql"));
+        
+        // V6: sync_outbox on SQLite, sync_applied (replayed idempotency keys) on MySQL
+        migrations.add(new Migration(6, "Failover outbox")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V6__failover_outbox_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V6__failover_outbox_mysql.sql"));
+        
+        migrations.add(new Migration(7, "Replica sync")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V7__replica_sync_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V7__replica_sync_mysql.sql"));
+        
+        migrations.add(new Migration(8, "Replication heartbeat")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V8__replication_heartbeat_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V8__replication_heartbeat_mysql.sql"));
+        
+        migrations.add(new Migration(9, "Monthly sales partitions and archive")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V9__sales_archive_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V9__sales_archive_mysql.sql")
+            .step(DatabaseConfig.DatabaseType.MYSQL, SalesArchive::partitionSalesTable));
+        
+        // V10: the first snapshot gives stock that predates the ledger a starting point
+        migrations.add(new Migration(10, "Stock movement ledger")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V10__stock_ledger_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V10__stock_ledger_mysql.sql")
+            .step(DatabaseConfig.DatabaseType.SQLITE, StockLedger::snapshot)
+            .step(DatabaseConfig.DatabaseType.MYSQL, StockLedger::snapshot));
+        
+        // V11: transaction_id uniqueness that survives partitioning and archival
+        migrations.add(new Migration(11, "Sales transaction ID registry")
+            .file(DatabaseConfig.DatabaseType.SQLITE, MIGRATIONS_DIR + "V11__sales_transaction_ids_sqlite.sql")
+            .file(DatabaseConfig.DatabaseType.MYSQL, MIGRATIONS_DIR + "V11__sales_transaction_ids_mysql.sql"));
+        
+        return migrations;
     }
     
-    /**
-     * Read SQL file content
-     */
-    private static String readSqlFile(String filePath) {
-        StringBuilder sql = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Skip comments and empty lines
-                line = line.trim();
-                if (!line.startsWith("--") && !line.isEmpty()) {
-                    sql.append(line).append(" ");
+    private static void addVersionColumns(Connection conn) throws SQLException {
+        for (String table : new String[] {"inventory", "custom_orders", "customers"}) {
+            if (tableExists(conn, table) && !columnExists(conn, table, "version")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN version " + SqlDialect.integer() +
+                                 " NOT NULL DEFAULT 0");
                 }
             }
-            return sql.toString();
-        } catch (IOException e) {
-            System.err.println("Could not read SQL file: " + e.getMessage());
-            return null;
         }
     }
     
-    /**
-     * Execute SQL script (split by semicolon for SQLite)
-     */
-    private static void executeSqlScript(Connection conn, String sql) throws SQLException {
-        // Split SQL into individual statements
-        String[] statements = sql.split(";");
-        
-        try (Statement stmt = conn.createStatement()) {
-            int executedCount = 0;
-            for (String statement : statements) {
-                statement = statement.trim();
-                if (!statement.isEmpty() && !statement.startsWith("--")) {
-                    try {
-                        stmt.execute(statement);
-                        executedCount++;
-                    } catch (SQLException e) {
-                        // Continue on errors for idempotent statements
-                        if (!e.getMessage().contains("already exists") && 
-                            !e.getMessage().contains("duplicate")) {
-                            System.err.println("Warning executing SQL: " + e.getMessage());
-                        }
-                    }
-                }
-            }
-            System.out.println("✓ Executed " + executedCount + " SQL statements");
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+    
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            return rs.next();
         }
     }
     
@@ -0,0 +1,319 @@
+package kiosk.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Connection handed out by DatabaseConnection. DAOs keep it for their whole
+ * lifetime; each call is routed to whichever physical connection (MySQL or the
+ * SQLite fallback) is active, so a failover needs no DAO to be recreated.
+ *
+ * A transaction (setAutoCommit(false) until setAutoCommit(true)) stays pinned to
+ * the connection it started on, and switches only happen between transactions.
+ * The transaction also belongs to the thread that opened it: that thread holds
+ * the lock until it ends the transaction, and calls from other threads wait, so
+ * a background job's statements never run inside (or commit) another thread's
+ * transaction.
+ * Statements are wrapped so connection failures on MySQL are reported to
+ * DatabaseConnection, and so writes made on SQLite can be captured in the
+ * outbox for replay.
+ */
+class FailoverConnection implements InvocationHandler {
+    private final DatabaseConnection owner;
+    private final Connection proxy;
+    final ReentrantLock lock = new ReentrantLock();
+
+    private Connection pinned;
+    private String transactionKey;
+
+    FailoverConnection(DatabaseConnection owner) {
+        this.owner = owner;
+        this.proxy = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, this);
+    }
+
+    Connection proxy() {
+        return proxy;
+    }
+
+    /**
+     * Whether a transaction is open (switching has to wait for it). Call with the lock held.
+     */
+    boolean inTransaction() {
+        return pinned != null;
+    }
+
+    /**
+     * Whether an exception means the connection itself is unusable, as opposed to a bad statement
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLNonTransientConnectionException || t instanceof SQLTransientConnectionException ||
+                t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                String state = ((SQLException) t).getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Connection target() throws SQLException {
+        lock.lock();
+        try {
+            Connection target = pinned != null ? pinned : owner.route();
+            if (target == null) {
+                throw new SQLNonTransientConnectionException("No database connection available", "08003");
+            }
+            return target;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "FailoverConnection[" + owner.getDatabaseType() + "]";
+            case "close":
+                // shared connection; DatabaseConnection.closeConnection() closes the physical ones
+                return null;
+            case "isClosed":
+                return owner.current() == null;
+            default:
+                break;
+        }
+
+        if (name.equals("setAutoCommit")) {
+            return setAutoCommit((Boolean) args[0]);
+        }
+
+        Connection target;
+        Object result;
+        lock.lock();
+        try {
+            target = target();
+            result = call(target, method, target, args);
+        } finally {
+            lock.unlock();
+        }
+        if (result instanceof Statement && !(result instanceof java.sql.CallableStatement)) {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            Class<?> type = result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {type},
+                                          new StatementHandler((Statement) result, target, sql));
+        }
+        return result;
+    }
+
+    /**
+     * setAutoCommit(false) takes a hold on the lock that setAutoCommit(true) gives
+     * back, so the transaction is the calling thread's until it ends. Another
+     * setAutoCommit(false) inside it takes no second hold.
+     */
+    private Object setAutoCommit(boolean autoCommit) throws Throwable {
+        Method method = Connection.class.getMethod("setAutoCommit", boolean.class);
+        if (!autoCommit) {
+            lock.lock();
+            boolean opened = false;
+            try {
+                if (pinned != null) {
+                    call(pinned, method, pinned, new Object[] {false});
+                    return null;
+                }
+                Connection target = target();
+                call(target, method, target, new Object[] {false});
+                pinned = target;
+                transactionKey = UUID.randomUUID().toString();
+                opened = true;
+            } finally {
+                if (!opened) {
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+
+        lock.lock();
+        boolean open = pinned != null;
+        try {
+            Connection target = target();
+            call(target, method, target, new Object[] {true});
+        } finally {
+            pinned = null;
+            transactionKey = null;
+            lock.unlock();
+            if (open) {
+                lock.unlock(); // the hold taken when the transaction began
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Invoke on the physical connection or statement, reporting connection failures
+     */
+    private Object call(Connection physical, Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                owner.connectionFailed(physical, (SQLException) cause);
+            }
+            throw cause;
+        }
+    }
+
+    /**
+     * Wraps a statement from a physical connection; captures its writes while on SQLite
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Connection physical;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private final List<Map<Integer, Object>> batch = new ArrayList<>();
+        private final List<String> sqlBatch = new ArrayList<>();
+
+        StatementHandler(Statement statement, Connection physical, String sql) {
+            this.statement = statement;
+            this.physical = physical;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return FailoverConnection.this.proxy;
+                default:
+                    break;
+            }
+
+            if (sql != null && name.startsWith("set") && args != null && args.length >= 2 &&
+                args[0] instanceof Integer && method.getDeclaringClass() == PreparedStatement.class) {
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                if (args == null) {
+                    batch.add(new TreeMap<>(parameters));
+                } else {
+                    sqlBatch.add((String) args[0]);
+                }
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+                sqlBatch.clear();
+            }
+
+            if (!name.startsWith("execute")) {
+                return call(physical, method, statement, args);
+            }
+
+            // wait out another thread's transaction; capture joins the running one
+            lock.lock();
+            try {
+                Object result = call(physical, method, statement, args);
+                if (!name.equals("executeQuery") && owner.isCapturing(physical)) {
+                    capture(name, args, result);
+                }
+                if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                    batch.clear();
+                    sqlBatch.clear();
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Log the statement(s) just run; ones that changed no rows are left out, so
+         * the replay can treat an UPDATE matching nothing on MySQL as a conflict
+         */
+        private void capture(String name, Object[] args, Object result) throws SQLException {
+            String key = transactionKey != null ? transactionKey : UUID.randomUUID().toString();
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                int index = 0;
+                for (Map<Integer, Object> values : batch) {
+                    if (changed(result, index++)) {
+                        record(key, sql, values);
+                    }
+                }
+                for (String batchSql : sqlBatch) {
+                    if (changed(result, index++)) {
+                        record(key, batchSql, new TreeMap<>());
+                    }
+                }
+            } else if (!changed(result, 0)) {
+                return;
+            } else if (args == null || args.length == 0) {
+                record(key, sql, parameters);
+            } else if (args[0] instanceof String) {
+                record(key, (String) args[0], new TreeMap<>());
+            }
+        }
+
+        /**
+         * Whether the update count at index of an execute result is not 0 (unknown counts count as changed)
+         */
+        private boolean changed(Object result, int index) {
+            if (result instanceof Number) {
+                return ((Number) result).longValue() != 0;
+            }
+            if (result instanceof int[]) {
+                int[] counts = (int[]) result;
+                return index >= counts.length || counts[index] != 0;
+            }
+            if (result instanceof long[]) {
+                long[] counts = (long[]) result;
+                return index >= counts.length || counts[index] != 0;
+            }
+            if (Boolean.FALSE.equals(result)) {
+                try {
+                    return statement.getUpdateCount() != 0;
+                } catch (SQLException e) {
+                    return true;
+                }
+            }
+            return true;
+        }
+
+        private void record(String key, String statementSql, Map<Integer, Object> values) throws SQLException {
+            if (statementSql != null && WriteOutbox.isWrite(statementSql)) {
+                owner.getOutbox().record(physical, key, statementSql, values);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package kiosk.database;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single versioned schema change.
+ * Each migration can supply a SQL script (inline or from a file) or a Java step
+ * per database type; a type with nothing registered is recorded as a no-op.
+ */
+public class Migration {
+
+    /**
+     * Schema change implemented in code rather than SQL
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final Map<DatabaseConfig.DatabaseType, String> scripts = new EnumMap<>(DatabaseConfig.DatabaseType.class);
+    private final Map<DatabaseConfig.DatabaseType, String> scriptFiles = new EnumMap<>(DatabaseConfig.DatabaseType.class);
+    private final Map<DatabaseConfig.DatabaseType, Step> steps = new EnumMap<>(DatabaseConfig.DatabaseType.class);
+    private boolean baseline;
+
+    public Migration(int version, String description) {
+        if (version <= 0) {
+            throw new IllegalArgumentException("Migration version must be positive: " + version);
+        }
+        this.version = version;
+        this.description = description;
+    }
+
+    /**
+     * Register an inline SQL script for the given database type
+     */
+    public Migration sql(DatabaseConfig.DatabaseType type, String script) {
+        scripts.put(type, script);
+        return this;
+    }
+
+    /**
+     * Register a SQL script file (relative to the working directory) for the given database type
+     */
+    public Migration file(DatabaseConfig.DatabaseType type, String path) {
+        scriptFiles.put(type, path);
+        return this;
+    }
+
+    /**
+     * Register a Java step for the given database type
+     */
+    public Migration step(DatabaseConfig.DatabaseType type, Step step) {
+        steps.put(type, step);
+        return this;
+    }
+
+    /**
+     * Mark this as a baseline migration. Databases created before migrations existed
+     * may already hold (older versions of) these objects, so failing statements are
+     * logged and skipped instead of aborting the migration.
+     */
+    public Migration baseline() {
+        this.baseline = true;
+        return this;
+    }
+
+    public boolean isBaseline() {
+        return baseline;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the statements this migration runs for the given database type
+     */
+    public List<String> statements(DatabaseConfig.DatabaseType type) throws SQLException {
+        return SqlScriptTokenizer.tokenize(script(type), type);
+    }
+
+    /**
+     * Apply the migration on the given connection (the caller owns the transaction)
+     */
+    public void apply(Connection connection, DatabaseConfig.DatabaseType type) throws SQLException {
+        List<String> statements = statements(type);
+        if (!statements.isEmpty()) {
+            try (Statement stmt = connection.createStatement()) {
+                for (String statement : statements) {
+                    try {
+                        stmt.execute(statement);
+                    } catch (SQLException e) {
+                        if (!baseline) {
+                            throw e;
+                        }
+                        System.err.println("Warning (baseline " + this + "): " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        Step step = steps.get(type);
+        if (step != null) {
+            step.apply(connection);
+        }
+    }
+
+    /**
+     * SHA-256 over the normalized statements (whitespace and comments do not count),
+     * so cosmetic edits to a script don't trip validation
+     */
+    public String checksum(DatabaseConfig.DatabaseType type) throws SQLException {
+        StringBuilder source = new StringBuilder();
+        for (String statement : statements(type)) {
+            source.append(statement.replaceAll("\\s+", " ")).append(';');
+        }
+        if (steps.containsKey(type)) {
+            source.append("step:").append(description);
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(source.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String script(DatabaseConfig.DatabaseType type) throws SQLException {
+        if (scripts.containsKey(type)) {
+            return scripts.get(type);
+        }
+
+        String file = scriptFiles.get(type);
+        if (file == null) {
+            return "";
+        }
+
+        Path path = Paths.get(file);
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration script " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " - " + description;
+    }
+}
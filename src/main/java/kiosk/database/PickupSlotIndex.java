@@ -0,0 +1,527 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import kiosk.database.dao.OrderLifecycle;
+import kiosk.model.CustomOrder;
+import kiosk.model.OrderEvent;
+
+/**
+ * In-memory pickup slot bookings for custom orders.
+ * Business hours are cut into fixed-length slots; every open (not cancelled)
+ * order from today on is counted in a per-day bucket by slot, category and
+ * baker, so checking a slot against the pickup_capacity limits is a handful of
+ * array lookups and "first N available slots" never touches the database.
+ * The index is loaded once and then kept in step by CustomOrderController
+ * (reserve on submit), CustomOrderDAO (rescheduling, deletes) and
+ * OrderLifecycle events (cancellation, baker assignment); orders created and
+ * cancelled at other stations arrive through the order event log, which
+ * OrderEventFollower polls (applyLogged).
+ *
+ * The index only knows this process, so it is a fast first check. The limit
+ * itself is enforced by fitsStored() inside the order insert transaction,
+ * which counts every station's orders in the database.
+ */
+public class PickupSlotIndex {
+    private static final int SEARCH_DAYS = 90;
+    private static final LocalTime DEFAULT_OPEN = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_CLOSE = LocalTime.of(20, 0);
+    private static final int DEFAULT_SLOT_MINUTES = 60;
+
+    private static PickupSlotIndex instance;
+
+    /**
+     * One row of pickup_capacity
+     */
+    private static class Limit {
+        final String category;  // null = every category
+        final String baker;     // null = not baker-specific
+        final Integer perSlot;
+        final Integer perDay;
+
+        Limit(String category, String baker, Integer perSlot, Integer perDay) {
+            this.category = category;
+            this.baker = baker;
+            this.perSlot = perSlot;
+            this.perDay = perDay;
+        }
+    }
+
+    /**
+     * Counts for one day
+     */
+    private class Day {
+        final int[] slotTotal = new int[slotsPerDay];
+        final Map<String, int[]> slotByCategory = new HashMap<>();
+        final Map<String, int[]> slotByBaker = new HashMap<>();
+        final Map<String, Integer> dayByCategory = new HashMap<>();
+        final Map<String, Integer> dayByBaker = new HashMap<>();
+        int dayTotal;
+
+        void add(Booking booking, int delta) {
+            dayTotal += delta;
+            slotTotal[booking.slot] += delta;
+            slotByCategory.computeIfAbsent(booking.category, k -> new int[slotsPerDay])[booking.slot] += delta;
+            dayByCategory.merge(booking.category, delta, Integer::sum);
+            if (booking.baker != null) {
+                slotByBaker.computeIfAbsent(booking.baker, k -> new int[slotsPerDay])[booking.slot] += delta;
+                dayByBaker.merge(booking.baker, delta, Integer::sum);
+            }
+        }
+
+        boolean fits(String category, String baker, int slot) {
+            for (Limit limit : limits) {
+                int inSlot;
+                int inDay;
+                if (limit.baker != null) {
+                    if (!limit.baker.equals(baker)) {
+                        continue;
+                    }
+                    int[] slots = slotByBaker.get(baker);
+                    inSlot = slots != null ? slots[slot] : 0;
+                    inDay = dayByBaker.getOrDefault(baker, 0);
+                } else if (limit.category != null) {
+                    if (!limit.category.equals(category)) {
+                        continue;
+                    }
+                    int[] slots = slotByCategory.get(category);
+                    inSlot = slots != null ? slots[slot] : 0;
+                    inDay = dayByCategory.getOrDefault(category, 0);
+                } else {
+                    inSlot = slotTotal[slot];
+                    inDay = dayTotal;
+                }
+                if ((limit.perSlot != null && inSlot >= limit.perSlot)
+                        || (limit.perDay != null && inDay >= limit.perDay)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Where one order is counted
+     */
+    private static class Booking {
+        final LocalDate date;
+        final int slot;
+        final String category;
+        final String baker;
+
+        Booking(LocalDate date, int slot, String category, String baker) {
+            this.date = date;
+            this.slot = slot;
+            this.category = category != null ? category : "";
+            this.baker = baker;
+        }
+    }
+
+    /**
+     * Capacity held for an order that is being saved; confirm or release it
+     */
+    public class Reservation {
+        private final Booking booking;
+        private boolean open = true;
+
+        private Reservation(Booking booking) {
+            this.booking = booking;
+        }
+
+        /**
+         * The order was saved under this number
+         */
+        public void confirm(String orderNumber) {
+            synchronized (PickupSlotIndex.this) {
+                if (open) {
+                    open = false;
+                    Booking previous = bookings.put(orderNumber, booking);
+                    if (previous != null) {
+                        unbook(previous);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The order was not saved; give the capacity back
+         */
+        public void release() {
+            synchronized (PickupSlotIndex.this) {
+                if (open) {
+                    open = false;
+                    unbook(booking);
+                }
+            }
+        }
+    }
+
+    private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+    private final Map<String, Booking> bookings = new HashMap<>();
+    private final List<Limit> limits = new ArrayList<>();
+    private LocalTime open = DEFAULT_OPEN;
+    private LocalTime close = DEFAULT_CLOSE;
+    private int slotMinutes = DEFAULT_SLOT_MINUTES;
+    private int slotsPerDay;
+    private boolean loaded;
+
+    private PickupSlotIndex() {
+        OrderLifecycle.getInstance().subscribe(this::onOrderEvent);
+    }
+
+    public static synchronized PickupSlotIndex getInstance() {
+        if (instance == null) {
+            instance = new PickupSlotIndex();
+        }
+        return instance;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Read hours, slot length, limits and open orders from the database (no-op once loaded)
+     */
+    public synchronized void load(Connection connection) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        days.clear();
+        bookings.clear();
+        limits.clear();
+
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT setting_key, setting_value FROM system_settings WHERE setting_key IN " +
+                    "('BUSINESS_HOURS_OPEN', 'BUSINESS_HOURS_CLOSE', 'PICKUP_SLOT_MINUTES')")) {
+                while (rs.next()) {
+                    applySetting(rs.getString("setting_key"), rs.getString("setting_value"));
+                }
+            } catch (SQLException e) {
+                System.err.println("Error reading pickup settings, using defaults: " + e.getMessage());
+            }
+            if (!close.isAfter(open) || slotMinutes <= 0) {
+                open = DEFAULT_OPEN;
+                close = DEFAULT_CLOSE;
+                slotMinutes = DEFAULT_SLOT_MINUTES;
+            }
+            slotsPerDay = (int) Math.max(1, Duration.between(open, close).toMinutes() / slotMinutes);
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT category_code, baker_name, max_per_slot, max_per_day FROM pickup_capacity " +
+                    "WHERE is_active = 1")) {
+                while (rs.next()) {
+                    limits.add(new Limit(rs.getString("category_code"), rs.getString("baker_name"),
+                                         nullableInt(rs, "max_per_slot"), nullableInt(rs, "max_per_day")));
+                }
+            }
+        }
+
+        String sql = "SELECT order_number, order_type, assigned_baker, pickup_datetime FROM custom_orders " +
+                    "WHERE pickup_datetime >= ? AND order_status <> 'CANCELLED'";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(LocalDate.now().atStartOfDay()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp pickup = rs.getTimestamp("pickup_datetime");
+                    if (pickup != null) {
+                        Booking booking = booking(pickup.toLocalDateTime(), rs.getString("order_type"),
+                                                  rs.getString("assigned_baker"), true);
+                        bookings.put(rs.getString("order_number"), booking);
+                        book(booking);
+                    }
+                }
+            }
+        }
+
+        loaded = true;
+        System.out.println("✓ Pickup slot index loaded: " + bookings.size() + " open orders, " + limits.size() +
+                         " limits (" + (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Whether a pickup time falls inside business hours
+     */
+    public synchronized boolean isWithinHours(LocalDateTime time) {
+        LocalTime t = time.toLocalTime();
+        return !t.isBefore(open) && t.isBefore(slotStart(slotsPerDay));
+    }
+
+    /**
+     * Whether one more order of a category fits in the slot containing the given time
+     */
+    public synchronized boolean isAvailable(String category, LocalDateTime time) {
+        if (!isWithinHours(time)) {
+            return false;
+        }
+        Day day = days.get(time.toLocalDate());
+        return day == null || day.fits(category != null ? category : "", null, slotOf(time.toLocalTime()));
+    }
+
+    /**
+     * Start times of the first available slots for a category at or after the given time
+     */
+    public synchronized List<LocalDateTime> firstAvailable(String category, LocalDateTime notBefore, int count) {
+        List<LocalDateTime> result = new ArrayList<>(count);
+        String key = category != null ? category : "";
+        LocalDate date = notBefore.toLocalDate();
+        LocalDate last = date.plusDays(SEARCH_DAYS);
+        for (; !date.isAfter(last) && result.size() < count; date = date.plusDays(1)) {
+            Day day = days.get(date);
+            for (int slot = 0; slot < slotsPerDay && result.size() < count; slot++) {
+                LocalDateTime start = date.atTime(slotStart(slot));
+                if (start.isBefore(notBefore)) {
+                    continue;
+                }
+                if (day == null || day.fits(key, null, slot)) {
+                    result.add(start);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check and hold capacity in one step; null if the slot is full or outside business hours
+     */
+    public synchronized Reservation reserve(String category, LocalDateTime time) {
+        if (!isAvailable(category, time)) {
+            return null;
+        }
+        Booking booking = booking(time, category, null, false);
+        book(booking);
+        return new Reservation(booking);
+    }
+
+    /**
+     * Whether every station's stored orders leave room for extra more orders of a
+     * category in the slot containing the given time. CustomOrderDAO.insert calls
+     * it with extra = 0 after writing the order row, in the same transaction: on
+     * MySQL the active pickup_capacity rows are locked first, which serializes
+     * competing inserts and makes the counts read the latest committed orders; on
+     * SQLite the order row already holds the database write lock.
+     */
+    public boolean fitsStored(Connection connection, String category, LocalDateTime time, int extra)
+            throws SQLException {
+        List<Limit> active;
+        LocalDateTime slotFrom;
+        LocalDateTime slotTo;
+        synchronized (this) {
+            int slot = slotOf(time.toLocalTime());
+            if (slot < 0 || slot >= slotsPerDay) {
+                return false;
+            }
+            active = new ArrayList<>();
+            String key = category != null ? category : "";
+            for (Limit limit : limits) {
+                // bakers are assigned later, so baker limits don't apply to a new order
+                if (limit.baker == null && (limit.category == null || limit.category.equals(key))) {
+                    active.add(limit);
+                }
+            }
+            slotFrom = time.toLocalDate().atTime(slotStart(slot));
+            slotTo = slotFrom.plusMinutes(slotMinutes);
+        }
+        if (active.isEmpty()) {
+            return true;
+        }
+
+        boolean mysql = DatabaseConfig.isMysql();
+        if (mysql) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM pickup_capacity WHERE is_active = 1 FOR UPDATE")) {
+                while (rs.next()) {
+                    // rows are locked until the caller commits or rolls back
+                }
+            }
+        }
+
+        LocalDateTime dayFrom = time.toLocalDate().atStartOfDay();
+        LocalDateTime dayTo = dayFrom.plusDays(1);
+        for (Limit limit : active) {
+            if ((limit.perSlot != null
+                    && countStored(connection, limit.category, slotFrom, slotTo, mysql) + extra > limit.perSlot)
+                || (limit.perDay != null
+                    && countStored(connection, limit.category, dayFrom, dayTo, mysql) + extra > limit.perDay)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int countStored(Connection connection, String category, LocalDateTime from, LocalDateTime to,
+                                   boolean mysql) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM custom_orders WHERE pickup_datetime >= ? AND pickup_datetime < ? " +
+                    "AND order_status <> 'CANCELLED'" + (category != null ? " AND order_type = ?" : "") +
+                    (mysql ? " LOCK IN SHARE MODE" : "");
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(from));
+            pstmt.setTimestamp(2, Timestamp.valueOf(to));
+            if (category != null) {
+                pstmt.setString(3, category);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Events read from the order event log, oldest first, including those written
+     * by other stations: orders created elsewhere are read and booked, cancellations
+     * and baker assignments are applied as they are for local events
+     */
+    public void applyLogged(Connection connection, List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.CREATED) {
+                synchronized (this) {
+                    if (!loaded || bookings.containsKey(event.getOrderNumber())) {
+                        continue;
+                    }
+                }
+                bookStored(connection, event.getOrderNumber());
+            } else {
+                onOrderEvent(event);
+            }
+        }
+    }
+
+    private void bookStored(Connection connection, String orderNumber) {
+        String sql = "SELECT order_type, assigned_baker, pickup_datetime, order_status FROM custom_orders " +
+                    "WHERE order_number = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, orderNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Timestamp pickup = rs.next() ? rs.getTimestamp("pickup_datetime") : null;
+                if (pickup != null && !"CANCELLED".equals(rs.getString("order_status"))
+                        && !pickup.toLocalDateTime().toLocalDate().isBefore(LocalDate.now())) {
+                    rebook(orderNumber, rs.getString("order_type"), rs.getString("assigned_baker"),
+                           pickup.toLocalDateTime());
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading pickup booking: " + e.getMessage());
+        }
+    }
+
+    private void onOrderEvent(OrderEvent event) {
+        if (event.getType() == OrderEvent.Type.BAKER_ASSIGNED) {
+            assignBaker(event.getOrderNumber(), event.getDetail());
+        } else if (event.getToStatus() == CustomOrder.OrderStatus.CANCELLED) {
+            release(event.getOrderNumber());
+        }
+    }
+
+    /**
+     * An order was cancelled or deleted
+     */
+    public synchronized void release(String orderNumber) {
+        Booking booking = bookings.remove(orderNumber);
+        if (booking != null) {
+            unbook(booking);
+        }
+    }
+
+    /**
+     * An order was rescheduled or reassigned (counted even if it overfills the slot)
+     */
+    public synchronized void rebook(String orderNumber, String category, String baker, LocalDateTime time) {
+        if (!loaded || time == null) {
+            return;
+        }
+        release(orderNumber);
+        Booking booking = booking(time, category, baker, true);
+        bookings.put(orderNumber, booking);
+        book(booking);
+    }
+
+    /**
+     * A baker was assigned to an order
+     */
+    public synchronized void assignBaker(String orderNumber, String baker) {
+        Booking old = bookings.get(orderNumber);
+        if (old != null) {
+            unbook(old);
+            Booking booking = new Booking(old.date, old.slot, old.category, baker);
+            bookings.put(orderNumber, booking);
+            book(booking);
+        }
+    }
+
+    private Booking booking(LocalDateTime time, String category, String baker, boolean clamp) {
+        int slot = slotOf(time.toLocalTime());
+        if (clamp) {
+            // Orders taken before hours were enforced still count, in the nearest slot
+            slot = Math.max(0, Math.min(slotsPerDay - 1, slot));
+        }
+        return new Booking(time.toLocalDate(), slot, category, baker);
+    }
+
+    private void book(Booking booking) {
+        days.computeIfAbsent(booking.date, d -> new Day()).add(booking, 1);
+    }
+
+    private void unbook(Booking booking) {
+        Day day = days.get(booking.date);
+        if (day != null) {
+            day.add(booking, -1);
+            if (day.dayTotal <= 0) {
+                days.remove(booking.date);
+            }
+        }
+    }
+
+    private int slotOf(LocalTime time) {
+        long minutes = Duration.between(open, time).toMinutes();
+        return minutes < 0 ? -1 : (int) (minutes / slotMinutes);
+    }
+
+    private LocalTime slotStart(int slot) {
+        return open.plusMinutes((long) slot * slotMinutes);
+    }
+
+    private void applySetting(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            switch (key) {
+                case "BUSINESS_HOURS_OPEN":
+                    open = LocalTime.parse(value.trim());
+                    break;
+                case "BUSINESS_HOURS_CLOSE":
+                    close = LocalTime.parse(value.trim());
+                    break;
+                case "PICKUP_SLOT_MINUTES":
+                    slotMinutes = Integer.parseInt(value.trim());
+                    break;
+                default:
+                    break;
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            System.err.println("Ignoring invalid setting " + key + ": " + value);
+        }
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
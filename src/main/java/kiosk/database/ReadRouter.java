@@ -0,0 +1,311 @@
+package kiosk.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only reporting queries to a replica so month-end reports don't
+ * compete with checkouts on the primary. Writes and checkout reads always use
+ * DatabaseConnection.
+ *
+ * Staleness is measured with a heartbeat: the primary stamps
+ * replication_heartbeat every db.reporting.heartbeat_seconds, and the age of the
+ * stamp as seen on the replica is its lag. Reports go to the primary while the
+ * replica lags more than db.reporting.max_lag_seconds or can't be reached.
+ * Without db.reporting.url everything uses the primary. The replica may be
+ * another SQLite file, which is how routing is tested without MySQL replication.
+ *
+ * Reporting connections are leases: callers close them when the query is done
+ * (try-with-resources), which never closes the underlying connection. A replica
+ * connection that fails its freshness check while leased is closed when its
+ * last lease is returned, not under a running report.
+ */
+public class ReadRouter {
+    private static ReadRouter instance;
+    private static final long CHECK_INTERVAL_MS = 1000;
+    private static final long RETRY_INTERVAL_MS = 30000;
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+
+    private final String replicaUrl;
+    private final long maxLagMillis;
+    private final Supplier<Connection> primary;
+    private Connection replica;
+    private boolean replicaFresh;
+    private Boolean reportedFresh;
+    private long lastCheck;
+    private long retryAfter;
+    private ScheduledExecutorService heartbeat;
+    private Connection heartbeatConnection;
+    private DatabaseConfig.DatabaseType heartbeatType;
+    private final Map<Connection, Integer> leases = new IdentityHashMap<>();
+    private final Set<Connection> retired = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ReadRouter() {
+        this(DatabaseConfig.getReportingUrl(), DatabaseConfig.getReportingMaxLagSeconds() * 1000L,
+             () -> DatabaseConnection.getInstance().getConnection());
+        if (replicaUrl != null) {
+            startHeartbeat();
+        }
+    }
+
+    /**
+     * Router between the given replica and primary, without a heartbeat writer
+     * (the caller stamps the heartbeat)
+     */
+    ReadRouter(String replicaUrl, long maxLagMillis, Supplier<Connection> primary) {
+        this.replicaUrl = replicaUrl;
+        this.maxLagMillis = maxLagMillis;
+        this.primary = primary;
+    }
+
+    public static synchronized ReadRouter getInstance() {
+        if (instance == null) {
+            instance = new ReadRouter();
+        }
+        return instance;
+    }
+
+    /**
+     * Connection for a read-only reporting query: the replica when it is configured,
+     * reachable and within the staleness bound, otherwise the primary. Close it when
+     * the query is done; that returns the lease and leaves the connection open.
+     */
+    public synchronized Connection getReportingConnection() {
+        if (replicaUrl != null && isReplicaFresh()) {
+            leases.merge(replica, 1, Integer::sum);
+            return lease(replica, replica);
+        }
+        return lease(primary.get(), null);
+    }
+
+    /**
+     * Wraps a connection so close() only ends the lease on the leased replica connection (if any)
+     */
+    private Connection lease(Connection target, Connection leased) {
+        boolean[] closed = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        synchronized (closed) {
+                            if (!closed[0] && leased != null) {
+                                release(leased);
+                            }
+                            closed[0] = true;
+                        }
+                        return null;
+                    case "isClosed":
+                        synchronized (closed) {
+                            if (closed[0]) {
+                                return true;
+                            }
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private synchronized void release(Connection leased) {
+        Integer count = leases.get(leased);
+        if (count == null || count <= 1) {
+            leases.remove(leased);
+            if (retired.remove(leased)) {
+                closeQuietly(leased);
+            }
+        } else {
+            leases.put(leased, count - 1);
+        }
+    }
+
+    /**
+     * Close a replica connection now, or when its last lease is returned
+     */
+    private void retire(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        if (leases.containsKey(conn)) {
+            retired.add(conn);
+        } else {
+            closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Whether reports are currently served by the replica
+     */
+    public synchronized boolean isUsingReplica() {
+        return replicaUrl != null && isReplicaFresh();
+    }
+
+    /**
+     * Checks the replica's heartbeat at most once per CHECK_INTERVAL_MS, and retries
+     * an unreachable replica only every RETRY_INTERVAL_MS so reports never wait on
+     * repeated connect timeouts
+     */
+    private boolean isReplicaFresh() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck < CHECK_INTERVAL_MS) {
+            return replicaFresh;
+        }
+        lastCheck = now;
+        replicaFresh = false;
+
+        if (replica == null) {
+            if (now < retryAfter) {
+                return false;
+            }
+            replica = connect();
+            if (replica == null) {
+                retryAfter = now + RETRY_INTERVAL_MS;
+                return false;
+            }
+        }
+
+        long lag;
+        try {
+            lag = now - readHeartbeat(replica);
+        } catch (SQLException e) {
+            System.err.println("Reporting replica unavailable, using primary: " + e.getMessage());
+            retire(replica);
+            replica = null;
+            retryAfter = now + RETRY_INTERVAL_MS;
+            reportedFresh = null;
+            return false;
+        }
+
+        replicaFresh = lag <= maxLagMillis;
+        if (reportedFresh == null || reportedFresh != replicaFresh) {
+            System.out.println(replicaFresh
+                ? "✓ Reports routed to replica (lag " + lag / 1000 + "s)"
+                : "Reporting replica lags " + lag / 1000 + "s (limit " + maxLagMillis / 1000 + "s); reports use primary");
+            reportedFresh = replicaFresh;
+        }
+        return replicaFresh;
+    }
+
+    private static long readHeartbeat(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT beat_millis FROM replication_heartbeat WHERE id = 1");
+             ResultSet rs = pstmt.executeQuery()) {
+            // no stamp yet: treat as infinitely stale
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private Connection connect() {
+        try {
+            boolean sqlite = replicaUrl.startsWith("jdbc:sqlite:");
+            Class.forName(sqlite ? DatabaseConfig.getSqliteDriver() : DatabaseConfig.getMysqlDriver());
+            Properties properties = new Properties();
+            if (!sqlite) {
+                properties.setProperty("user", DatabaseConfig.getReportingUsername());
+                properties.setProperty("password", DatabaseConfig.getReportingPassword());
+                properties.setProperty("connectTimeout", String.valueOf(CONNECT_TIMEOUT_MS));
+            }
+            Connection conn = DriverManager.getConnection(replicaUrl, properties);
+            if (!sqlite) {
+                conn.setReadOnly(true);
+            }
+            return conn;
+        } catch (ClassNotFoundException e) {
+            System.err.println("Reporting replica driver not found: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Reporting replica unreachable, using primary: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void startHeartbeat() {
+        int seconds = DatabaseConfig.getReportingHeartbeatSeconds();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replication-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::beat, 0, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stamp the heartbeat on the primary. Runs on the heartbeat thread's own
+     * connection, so it never shares a transaction with the kiosk's connection and
+     * the stamp is never captured in the failover outbox. The connection is
+     * reopened after an error and when the kiosk fails over or back.
+     */
+    private void beat() {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        try {
+            if (heartbeatConnection != null && heartbeatType != db.getDatabaseType()) {
+                closeQuietly(heartbeatConnection);
+                heartbeatConnection = null;
+            }
+            if (heartbeatConnection == null) {
+                heartbeatType = db.getDatabaseType();
+                heartbeatConnection = db.openDedicated();
+            }
+            try (PreparedStatement pstmt = heartbeatConnection.prepareStatement(
+                    "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1")) {
+                pstmt.setLong(1, System.currentTimeMillis());
+                pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error writing replication heartbeat: " + e.getMessage());
+            closeQuietly(heartbeatConnection);
+            heartbeatConnection = null;
+        }
+    }
+
+    /**
+     * Stop the heartbeat and close the replica connection (once reports using it are done)
+     */
+    public synchronized void close() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            try {
+                heartbeat.awaitTermination(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            heartbeat = null;
+            closeQuietly(heartbeatConnection);
+            heartbeatConnection = null;
+        }
+        retire(replica);
+        replica = null;
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                // already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import kiosk.database.dao.CustomProductDAO;
+import kiosk.util.ProductCatalogSearch;
+
+/**
+ * Background sync between a kiosk's local SQLite replica and the central database.
+ *
+ * In replica mode (db.replica.enabled) the kiosk reads and sells from SQLite only,
+ * and every local write is captured in the WriteOutbox. Each cycle:
+ * 1. push: the outbox is replayed to the central database, one local transaction
+ *    per central transaction, idempotent through sync_applied;
+ * 2. pull: once nothing is left to push, catalog rows (inventory, base products,
+ *    add-ons) changed centrally since the last watermark are upserted locally, and
+ *    rows deleted centrally are removed.
+ *
+ * Conflicts resolve the same way on every kiosk: writes reach the central database
+ * in the order they are pushed, and the central row always wins on pull. Pulling
+ * waits for an empty outbox, so a local edit is never overwritten before it has
+ * been pushed.
+ *
+ * In failover mode (MySQL primary, db.failover.enabled) the same class runs
+ * pull-only: while the kiosk is on MySQL it keeps the SQLite store's catalog
+ * current, so a failover sells at today's prices and stock updates find their
+ * rows. It migrates the local store itself, and pushing is left to
+ * DatabaseConnection, which replays the outbox on recovery.
+ *
+ * The central database may be MySQL (connected with protocol compression and
+ * batched statements) or another SQLite file, which is how the sync is tested
+ * without a server. A kiosk never migrates the central schema: while central is
+ * behind this kiosk's migrations, sync is skipped until an administrator
+ * migrates it.
+ */
+public class ReplicaSync {
+    private static final String EPOCH = "1970-01-01 00:00:00";
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    /**
+     * A replicated catalog table and its natural key (ids differ between databases)
+     */
+    private static class CatalogTable {
+        final String name;
+        final String key;
+
+        CatalogTable(String name, String key) {
+            this.name = name;
+            this.key = key;
+        }
+    }
+
+    private static final List<CatalogTable> CATALOG = List.of(
+        new CatalogTable("inventory", "name"),
+        new CatalogTable("custom_order_base_products", "product_code"),
+        new CatalogTable("addons", "addon_code"));
+
+    private final WriteOutbox outbox;
+    private final String localUrl;
+    private final String centralUrl;
+    private final boolean pullOnly;
+    private Connection local;
+    private Connection central;
+    private ScheduledExecutorService scheduler;
+    private int reportedCentralVersion = -1;
+
+    ReplicaSync(WriteOutbox outbox, String localUrl, String centralUrl) {
+        this(outbox, localUrl, centralUrl, false);
+    }
+
+    /**
+     * @param pullOnly keep the local catalog current without pushing (failover mode)
+     */
+    ReplicaSync(WriteOutbox outbox, String localUrl, String centralUrl, boolean pullOnly) {
+        this.outbox = outbox;
+        this.localUrl = localUrl;
+        this.centralUrl = centralUrl;
+        this.pullOnly = pullOnly;
+    }
+
+    /**
+     * Seconds since every catalog table was last pulled into a SQLite store, or -1
+     * if one never was (MySQL has never been synced into it)
+     */
+    static long catalogAgeSeconds(Connection sqlite) {
+        String sql = "SELECT COUNT(*), CAST((julianday('now') - julianday(MIN(synced_at))) * 86400 AS INTEGER) " +
+                    "FROM replica_state WHERE name IN (?, ?, ?)";
+        try (PreparedStatement pstmt = sqlite.prepareStatement(sql)) {
+            for (int i = 0; i < CATALOG.size(); i++) {
+                pstmt.setString(i + 1, "pull:" + CATALOG.get(i).name);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == CATALOG.size() ? Math.max(0, rs.getLong(2)) : -1;
+            }
+        } catch (SQLException e) {
+            return -1; // no replica_state yet
+        }
+    }
+
+    /**
+     * Run a sync cycle every db.replica.sync_seconds, starting now
+     */
+    synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        int seconds = DatabaseConfig.getReplicaSyncSeconds();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                syncOnce();
+            } catch (RuntimeException e) {
+                System.err.println("Error syncing replica: " + e.getMessage());
+            }
+        }, 0, seconds, TimeUnit.SECONDS);
+    }
+
+    synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        closeQuietly(local);
+        closeQuietly(central);
+        local = null;
+        central = null;
+    }
+
+    /**
+     * One push/pull cycle
+     * @return false if the central database could not be reached or the push is incomplete
+     */
+    synchronized boolean syncOnce() {
+        if (pullOnly && !DatabaseConfig.isMysql()) {
+            return false; // failed over: the store is the live database until MySQL is back
+        }
+        if (!connect()) {
+            return false;
+        }
+        if (!pullOnly && !outbox.drain(local, central)) {
+            if (!isValid(central)) {
+                closeQuietly(central);
+                central = null;
+            }
+            return false;
+        }
+        if (outbox.pending(local) > 0) {
+            return false; // only rejected entries remain or new writes arrived; pull next cycle
+        }
+
+        boolean catalogChanged = false;
+        for (CatalogTable table : CATALOG) {
+            try {
+                int changed = pull(table);
+                if (changed > 0 && table.name.equals("inventory")) {
+                    ProductCatalogSearch.invalidate();
+                } else if (changed > 0) {
+                    catalogChanged = true;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error pulling " + table.name + " from central database: " + e.getMessage());
+                if (FailoverConnection.isConnectionFailure(e)) {
+                    closeQuietly(central);
+                    central = null;
+                    return false;
+                }
+            }
+        }
+        if (catalogChanged) {
+            new CustomProductDAO().refreshCatalog();
+        }
+        return true;
+    }
+
+    /**
+     * Upsert the rows of one table changed centrally since its watermark, then drop
+     * local rows deleted centrally
+     * @return number of local rows inserted, updated or deleted
+     */
+    private int pull(CatalogTable table) throws SQLException {
+        String state = "pull:" + table.name;
+        String watermark = readWatermark(state);
+        Set<String> localColumns = columns(table.name);
+
+        // >= so rows stamped in the same second as the last pull are not missed; reapplying is harmless
+        String select = "SELECT * FROM " + table.name + " WHERE updated_at >= ? ORDER BY updated_at";
+        int changed = 0;
+        String newWatermark = watermark;
+        boolean autoCommit = local.getAutoCommit();
+        try (PreparedStatement pstmt = central.prepareStatement(select)) {
+            pstmt.setString(1, watermark);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    String column = meta.getColumnLabel(i).toLowerCase(Locale.ROOT);
+                    if (!column.equals("id") && localColumns.contains(column)) {
+                        columns.add(column);
+                    }
+                }
+
+                local.setAutoCommit(false);
+                try (PreparedStatement upsert = local.prepareStatement(upsertSql(table, columns))) {
+                    while (rs.next()) {
+                        for (int i = 0; i < columns.size(); i++) {
+                            upsert.setObject(i + 1, localValue(rs.getObject(columns.get(i))));
+                        }
+                        changed += upsert.executeUpdate();
+
+                        String stamp = timestamp(rs.getObject("updated_at"));
+                        if (stamp != null && stamp.compareTo(newWatermark) > 0) {
+                            newWatermark = stamp;
+                        }
+                    }
+                }
+                changed += deleteRemoved(table);
+                writeWatermark(state, newWatermark);
+                local.commit();
+            }
+        } catch (SQLException e) {
+            if (!local.getAutoCommit()) {
+                local.rollback();
+            }
+            throw e;
+        } finally {
+            local.setAutoCommit(autoCommit);
+        }
+
+        if (changed > 0) {
+            System.out.println("✓ Replica: " + table.name + " synced from central database (" + changed + " row(s))");
+        }
+        return changed;
+    }
+
+    private static String upsertSql(CatalogTable table, List<String> columns) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        StringBuilder differs = new StringBuilder();
+        for (String column : columns) {
+            if (names.length() > 0) {
+                names.append(", ");
+                placeholders.append(", ");
+            }
+            names.append(column);
+            placeholders.append('?');
+            if (!column.equals(table.key)) {
+                if (updates.length() > 0) {
+                    updates.append(", ");
+                    differs.append(" OR ");
+                }
+                updates.append(column).append(" = excluded.").append(column);
+                differs.append(column).append(" IS NOT excluded.").append(column);
+            }
+        }
+        // the WHERE leaves identical rows alone, so re-pulled rows don't count as changes
+        return "INSERT INTO " + table.name + " (" + names + ") VALUES (" + placeholders + ") " +
+               "ON CONFLICT(" + table.key + ") DO UPDATE SET " + updates + " WHERE " + differs;
+    }
+
+    /**
+     * Remove local rows whose key no longer exists centrally. After a pull every
+     * central row is present locally, so equal counts mean nothing was deleted and
+     * the key lists only need comparing when the counts differ.
+     */
+    private int deleteRemoved(CatalogTable table) throws SQLException {
+        String count = "SELECT COUNT(*) FROM " + table.name;
+        if (countRows(central, count) == countRows(local, count)) {
+            return 0;
+        }
+
+        Set<String> centralKeys = new HashSet<>();
+        try (Statement stmt = central.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT " + table.key + " FROM " + table.name)) {
+            while (rs.next()) {
+                centralKeys.add(rs.getString(1));
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        try (Statement stmt = local.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT " + table.key + " FROM " + table.name)) {
+            while (rs.next()) {
+                if (!centralKeys.contains(rs.getString(1))) {
+                    removed.add(rs.getString(1));
+                }
+            }
+        }
+
+        try (PreparedStatement pstmt = local.prepareStatement(
+                "DELETE FROM " + table.name + " WHERE " + table.key + " = ?")) {
+            for (String key : removed) {
+                pstmt.setString(1, key);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        return removed.size();
+    }
+
+    private static int countRows(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private Set<String> columns(String table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (Statement stmt = local.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
+    }
+
+    private String readWatermark(String name) throws SQLException {
+        try (PreparedStatement pstmt = local.prepareStatement("SELECT watermark FROM replica_state WHERE name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                String watermark = rs.next() ? rs.getString(1) : null;
+                return watermark != null ? watermark : EPOCH;
+            }
+        }
+    }
+
+    private void writeWatermark(String name, String watermark) throws SQLException {
+        String sql = "INSERT INTO replica_state (name, watermark, synced_at) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+                    "ON CONFLICT(name) DO UPDATE SET watermark = excluded.watermark, synced_at = excluded.synced_at";
+        try (PreparedStatement pstmt = local.prepareStatement(sql)) {
+            pstmt.setString(1, name);
+            pstmt.setString(2, watermark);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * A central value as SQLite stores it: date/times as text (the driver would bind
+     * them as epoch millis), booleans as 0/1
+     */
+    private static Object localValue(Object value) {
+        if (value instanceof Timestamp) {
+            return timestamp(value);
+        } else if (value instanceof Date || value instanceof Time) {
+            return value.toString();
+        } else if (value instanceof java.time.temporal.TemporalAccessor) {
+            return value.toString().replace('T', ' ');
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return value;
+    }
+
+    private static String timestamp(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().replace('T', ' ');
+        return text.length() > 19 ? text.substring(0, 19) : text;
+    }
+
+    private boolean connect() {
+        try {
+            if (local == null || local.isClosed()) {
+                local = DriverManager.getConnection(localUrl);
+                SqliteProfile.apply(local);
+                if (pullOnly) {
+                    // nothing else migrates the store while MySQL is the primary
+                    SchemaMigrator migrator = new SchemaMigrator(local, DatabaseConfig.DatabaseType.SQLITE,
+                                                                 DatabaseInitializer.migrations());
+                    if (migrator.readCurrentVersion() < migrator.getLatestVersion()) {
+                        migrator.migrate();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error opening local replica: " + e.getMessage());
+            closeQuietly(local);
+            local = null;
+            return false;
+        }
+
+        if (central != null) {
+            return true;
+        }
+        try {
+            boolean sqlite = centralUrl.startsWith("jdbc:sqlite:");
+            Class.forName(sqlite ? DatabaseConfig.getSqliteDriver() : DatabaseConfig.getMysqlDriver());
+            central = DriverManager.getConnection(centralUrl, sqlite ? new Properties() : centralProperties());
+            if (centralIsCurrent(sqlite ? DatabaseConfig.DatabaseType.SQLITE : DatabaseConfig.DatabaseType.MYSQL)) {
+                return true;
+            }
+            closeQuietly(central);
+        } catch (ClassNotFoundException e) {
+            System.err.println("Central database driver not found: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Central database unreachable: " + e.getMessage());
+            closeQuietly(central);
+        }
+        central = null;
+        return false;
+    }
+
+    /**
+     * One compressed connection per kiosk; batched statements go out as multi-row inserts
+     */
+    private static Properties centralProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("user", DatabaseConfig.getReplicaCentralUsername());
+        properties.setProperty("password", DatabaseConfig.getReplicaCentralPassword());
+        properties.setProperty("connectTimeout", String.valueOf(CONNECT_TIMEOUT_MS));
+        properties.setProperty("useCompression", "true");
+        properties.setProperty("rewriteBatchedStatements", "true");
+        return properties;
+    }
+
+    /**
+     * Whether the central schema has every migration this kiosk has; logged once
+     * per central version when it hasn't
+     */
+    private boolean centralIsCurrent(DatabaseConfig.DatabaseType type) {
+        SchemaMigrator migrator = new SchemaMigrator(central, type, DatabaseInitializer.migrations());
+        int current = migrator.readCurrentVersion();
+        if (current >= migrator.getLatestVersion()) {
+            reportedCentralVersion = -1;
+            return true;
+        }
+        if (current != reportedCentralVersion) {
+            reportedCentralVersion = current;
+            System.err.println("Replica sync paused: central database schema is at version " + current +
+                             ", this kiosk needs " + migrator.getLatestVersion() + "; migrate central first");
+        }
+        return false;
+    }
+
+    private static boolean isValid(Connection conn) {
+        try {
+            return conn != null && conn.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                // already broken
+            }
+        }
+    }
+}
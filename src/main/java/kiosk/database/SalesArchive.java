@@ -0,0 +1,540 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import kiosk.util.Money;
+
+/**
+ * Month-based storage for sales history.
+ *
+ * The live tables (sales_transactions, sales_items) hold the last
+ * db.sales.hot_months months. A daily job moves each older month into its own
+ * pair of tables (sales_transactions_YYYY_MM, sales_items_YYYY_MM) and records
+ * monthly, daily and per-item totals in the summary tables, so all-time reports
+ * read a few summary rows instead of every sale. The views sales_history and
+ * sales_items_history union the live and archived tables.
+ *
+ * On MySQL sales_transactions is also partitioned by month: recent-range queries
+ * only touch their partitions, the job adds next month's partition ahead of time,
+ * and an archived month's partition is dropped once empty. SQLite has no
+ * partitions, so there the live table relies on its transaction_date index.
+ *
+ * Month boundaries are computed in Java and bound as parameters, since SQLite
+ * stores the dates as epoch milliseconds.
+ */
+public class SalesArchive {
+    public static final String TRANSACTION_COLUMNS =
+        "id, transaction_id, transaction_date, subtotal, discount_amount, total, discount_applied, created_at";
+    public static final String ITEM_COLUMNS = "id, transaction_id, item_name, price, quantity, subtotal";
+
+    private static final DateTimeFormatter TABLE_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final long ARCHIVE_INTERVAL_MINUTES = 24 * 60;
+    private static final long MONTHS_CACHE_MS = 10 * 60 * 1000;
+
+    private static volatile NavigableSet<YearMonth> archivedMonths;
+    private static volatile long monthsLoadedAt;
+    private static ScheduledExecutorService scheduler;
+
+    private SalesArchive() {
+    }
+
+    public static String transactionsTable(YearMonth month) {
+        return "sales_transactions_" + month.format(TABLE_SUFFIX);
+    }
+
+    public static String itemsTable(YearMonth month) {
+        return "sales_items_" + month.format(TABLE_SUFFIX);
+    }
+
+    /**
+     * Months already moved to their own tables (cached; other stations may archive too,
+     * so the list is reloaded every few minutes)
+     */
+    public static NavigableSet<YearMonth> getArchivedMonths() {
+        NavigableSet<YearMonth> months = archivedMonths;
+        if (months == null || System.currentTimeMillis() - monthsLoadedAt > MONTHS_CACHE_MS) {
+            Connection conn = DatabaseConnection.getInstance().getConnection();
+            try {
+                months = conn != null ? loadArchivedMonths(conn) : new TreeSet<>();
+            } catch (SQLException e) {
+                System.err.println("Error loading archived sales months: " + e.getMessage());
+                months = new TreeSet<>();
+            }
+            archivedMonths = Collections.unmodifiableNavigableSet(months);
+            monthsLoadedAt = System.currentTimeMillis();
+        }
+        return archivedMonths;
+    }
+
+    private static NavigableSet<YearMonth> loadArchivedMonths(Connection conn) throws SQLException {
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT sales_month FROM sales_monthly_summary")) {
+            while (rs.next()) {
+                months.add(YearMonth.parse(rs.getString(1).trim()));
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Archive cold months once a day (not on replica kiosks: the central database archives)
+     */
+    public static synchronized void start() {
+        if (scheduler != null || DatabaseConfig.getSalesHotMonths() <= 0 || DatabaseConfig.isReplicaEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sales-archive");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runArchival();
+            } catch (RuntimeException e) {
+                System.err.println("Error archiving sales: " + e.getMessage());
+            }
+        }, 1, ARCHIVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Move every month before the hot window into its archive tables, oldest first.
+     * Skipped while failed over to SQLite, where the moves would be replayed to MySQL.
+     */
+    public static void runArchival() {
+        int hotMonths = DatabaseConfig.getSalesHotMonths();
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        Connection physical = db.current();
+        if (hotMonths <= 0 || physical == null || db.isCapturing(physical)) {
+            return;
+        }
+
+        DatabaseConfig.DatabaseType type = db.getDatabaseType();
+        YearMonth cutoff = YearMonth.now().minusMonths(hotMonths - 1);
+        try (Connection conn = db.openDedicated()) {
+            if (type == DatabaseConfig.DatabaseType.MYSQL) {
+                ensurePartitions(conn, cutoff);
+            }
+
+            List<YearMonth> archived = new ArrayList<>();
+            YearMonth month = oldestLiveMonth(conn);
+            while (month != null && month.isBefore(cutoff)) {
+                if (archiveMonth(conn, type, month) == 0) {
+                    break; // dates the range can't match (e.g. stored as text); don't loop on them
+                }
+                archived.add(month);
+                month = oldestLiveMonth(conn);
+            }
+
+            if (!archived.isEmpty()) {
+                rebuildHistoryViews(conn, type);
+                archivedMonths = null;
+                System.out.println("✓ Archived sales for " + archived.size() + " month(s): " + archived);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error archiving sales: " + e.getMessage());
+        }
+    }
+
+    private static YearMonth oldestLiveMonth(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(transaction_date) FROM sales_transactions")) {
+            Timestamp oldest = rs.next() ? rs.getTimestamp(1) : null;
+            return oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : null;
+        }
+    }
+
+    /**
+     * Summarize one month and move its rows to the month's tables in one transaction
+     * @return number of transactions moved
+     */
+    private static int archiveMonth(Connection conn, DatabaseConfig.DatabaseType type, YearMonth month)
+            throws SQLException {
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String range = "transaction_date >= ? AND transaction_date < ?";
+
+        if (type == DatabaseConfig.DatabaseType.MYSQL) {
+            createMonthTables(conn, type, month); // DDL commits implicitly on MySQL
+        }
+        boolean autoCommit = conn.getAutoCommit();
+        int moved;
+        try {
+            conn.setAutoCommit(false);
+            if (type == DatabaseConfig.DatabaseType.SQLITE) {
+                createMonthTables(conn, type, month);
+            }
+            summarize(conn, month, from, to);
+
+            String transactionIds = "SELECT transaction_id FROM sales_transactions WHERE " + range;
+            update(conn, "INSERT INTO " + itemsTable(month) + " SELECT * FROM sales_items " +
+                        "WHERE transaction_id IN (" + transactionIds + ")", from, to);
+            update(conn, "INSERT INTO " + transactionsTable(month) + " SELECT * FROM sales_transactions " +
+                        "WHERE " + range, from, to);
+            update(conn, "DELETE FROM sales_items WHERE transaction_id IN (" + transactionIds + ")", from, to);
+            moved = update(conn, "DELETE FROM sales_transactions WHERE " + range, from, to);
+            if (moved == 0) {
+                conn.rollback(); // no summary row for a month that had nothing to move
+                return 0;
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        if (type == DatabaseConfig.DatabaseType.MYSQL) {
+            dropPartition(conn, month);
+        }
+        return moved;
+    }
+
+    private static void createMonthTables(Connection conn, DatabaseConfig.DatabaseType type, YearMonth month)
+            throws SQLException {
+        String transactions = transactionsTable(month);
+        String items = itemsTable(month);
+        try (Statement stmt = conn.createStatement()) {
+            if (type == DatabaseConfig.DatabaseType.MYSQL) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + transactions + " LIKE sales_transactions");
+                if (isPartitioned(conn, transactions)) {
+                    stmt.execute("ALTER TABLE " + transactions + " REMOVE PARTITIONING");
+                }
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + items + " LIKE sales_items");
+            } else {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + transactions + " AS SELECT * FROM sales_transactions WHERE 0");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + transactions + "_id ON " + transactions + "(transaction_id)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + transactions + "_date ON " + transactions + "(transaction_date)");
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + items + " AS SELECT * FROM sales_items WHERE 0");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + items + "_transaction ON " + items + "(transaction_id)");
+            }
+        }
+    }
+
+    /**
+     * Add the month's totals to the summary tables (added, not replaced, in case
+     * late rows for an archived month are archived in a later run)
+     */
+    private static void summarize(Connection conn, YearMonth month, Timestamp from, Timestamp to)
+            throws SQLException {
+        int transactionCount = 0;
+        long subtotal = 0;
+        long discount = 0;
+        long total = 0;
+        Map<String, long[]> days = new TreeMap<>(); // day -> {count, total}
+        String sql = "SELECT transaction_date, subtotal, discount_amount, total FROM sales_transactions " +
+                    "WHERE transaction_date >= ? AND transaction_date < ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, from);
+            pstmt.setTimestamp(2, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long saleTotal = Money.read(rs, "total");
+                    transactionCount++;
+                    subtotal += Money.read(rs, "subtotal");
+                    discount += Money.read(rs, "discount_amount");
+                    total += saleTotal;
+                    String day = rs.getTimestamp("transaction_date").toLocalDateTime().toLocalDate().toString();
+                    long[] dayTotals = days.computeIfAbsent(day, d -> new long[2]);
+                    dayTotals[0]++;
+                    dayTotals[1] += saleTotal;
+                }
+            }
+        }
+
+        long itemCount = 0;
+        Map<String, long[]> items = new TreeMap<>(); // item -> {quantity, revenue}
+        sql = "SELECT i.item_name, SUM(i.quantity) AS quantity, SUM(i.subtotal) AS revenue " +
+             "FROM sales_items i JOIN sales_transactions t ON t.transaction_id = i.transaction_id " +
+             "WHERE t.transaction_date >= ? AND t.transaction_date < ? GROUP BY i.item_name";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, from);
+            pstmt.setTimestamp(2, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long quantity = rs.getLong("quantity");
+                    itemCount += quantity;
+                    items.put(rs.getString("item_name"), new long[] {quantity, Money.read(rs, "revenue")});
+                }
+            }
+        }
+
+        String key = month.toString();
+        accumulate(conn, "sales_monthly_summary", new String[] {"sales_month"}, new Object[] {key},
+                   new String[] {"transaction_count", "item_count", "subtotal", "discount_amount", "total"},
+                   new Object[] {(long) transactionCount, itemCount, Money.toDecimal(subtotal),
+                                 Money.toDecimal(discount), Money.toDecimal(total)});
+        for (Map.Entry<String, long[]> day : days.entrySet()) {
+            accumulate(conn, "sales_daily_summary", new String[] {"sales_day"}, new Object[] {day.getKey()},
+                       new String[] {"transaction_count", "total"},
+                       new Object[] {day.getValue()[0], Money.toDecimal(day.getValue()[1])});
+        }
+        for (Map.Entry<String, long[]> item : items.entrySet()) {
+            accumulate(conn, "sales_item_monthly_summary", new String[] {"sales_month", "item_name"},
+                       new Object[] {key, item.getKey()}, new String[] {"quantity", "revenue"},
+                       new Object[] {item.getValue()[0], Money.toDecimal(item.getValue()[1])});
+        }
+    }
+
+    /**
+     * Add values to a summary row, inserting it if missing (portable UPDATE-then-INSERT)
+     */
+    private static void accumulate(Connection conn, String table, String[] keyColumns, Object[] keys,
+                                   String[] columns, Object[] values) throws SQLException {
+        StringBuilder update = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        StringBuilder insertColumns = new StringBuilder(String.join(", ", keyColumns));
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < keyColumns.length; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        for (int i = 0; i < columns.length; i++) {
+            update.append(i == 0 ? "" : ", ").append(columns[i]).append(" = ").append(columns[i]).append(" + ?");
+            insertColumns.append(", ").append(columns[i]);
+            placeholders.append(", ?");
+        }
+        update.append(" WHERE ");
+        for (int i = 0; i < keyColumns.length; i++) {
+            update.append(i == 0 ? "" : " AND ").append(keyColumns[i]).append(" = ?");
+        }
+
+        Object[] updateParameters = new Object[values.length + keys.length];
+        System.arraycopy(values, 0, updateParameters, 0, values.length);
+        System.arraycopy(keys, 0, updateParameters, values.length, keys.length);
+        if (update(conn, update.toString(), updateParameters) == 0) {
+            Object[] insertParameters = new Object[keys.length + values.length];
+            System.arraycopy(keys, 0, insertParameters, 0, keys.length);
+            System.arraycopy(values, 0, insertParameters, keys.length, values.length);
+            update(conn, "INSERT INTO " + table + " (" + insertColumns + ") VALUES (" + placeholders + ")",
+                   insertParameters);
+        }
+    }
+
+    private static int update(Connection conn, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                pstmt.setObject(i + 1, parameters[i]);
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Point the history views at the live tables plus every archived month
+     */
+    private static void rebuildHistoryViews(Connection conn, DatabaseConfig.DatabaseType type) throws SQLException {
+        NavigableSet<YearMonth> months = loadArchivedMonths(conn);
+        StringBuilder transactions = new StringBuilder("SELECT " + TRANSACTION_COLUMNS + " FROM sales_transactions");
+        StringBuilder items = new StringBuilder("SELECT " + ITEM_COLUMNS + " FROM sales_items");
+        for (YearMonth month : months) {
+            transactions.append(" UNION ALL SELECT ").append(TRANSACTION_COLUMNS).append(" FROM ").append(transactionsTable(month));
+            items.append(" UNION ALL SELECT ").append(ITEM_COLUMNS).append(" FROM ").append(itemsTable(month));
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            if (type == DatabaseConfig.DatabaseType.MYSQL) {
+                stmt.execute("CREATE OR REPLACE VIEW sales_history AS " + transactions);
+                stmt.execute("CREATE OR REPLACE VIEW sales_items_history AS " + items);
+            } else {
+                stmt.execute("DROP VIEW IF EXISTS sales_history");
+                stmt.execute("CREATE VIEW sales_history AS " + transactions);
+                stmt.execute("DROP VIEW IF EXISTS sales_items_history");
+                stmt.execute("CREATE VIEW sales_items_history AS " + items);
+            }
+        }
+    }
+
+    /**
+     * Migration step (MySQL): partition sales_transactions by month. InnoDB allows no
+     * foreign keys on partitioned tables and needs the partitioning column in every
+     * unique key, so those are adjusted first.
+     *
+     * Two guarantees are lost here and kept by the application instead:
+     * - transaction_id is only unique per transaction_date, so a repeated ID is
+     *   caught by sales_transaction_ids (V11), which SalesDAO.insert writes first;
+     * - sales_items loses its foreign key and ON DELETE CASCADE, so SalesDAO writes
+     *   items only in the same transaction as their sale and deletes them explicitly.
+     */
+    static void partitionSalesTable(Connection conn) throws SQLException {
+        if (isPartitioned(conn, "sales_transactions")) {
+            return;
+        }
+
+        List<String[]> foreignKeys = new ArrayList<>();
+        String sql = "SELECT TABLE_NAME, CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS " +
+                    "WHERE CONSTRAINT_SCHEMA = DATABASE() " +
+                    "AND (TABLE_NAME = 'sales_transactions' OR REFERENCED_TABLE_NAME = 'sales_transactions')";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                foreignKeys.add(new String[] {rs.getString(1), rs.getString(2)});
+            }
+        }
+
+        StringBuilder keys = new StringBuilder("ALTER TABLE sales_transactions DROP PRIMARY KEY, " +
+                                               "ADD PRIMARY KEY (id, transaction_date)");
+        sql = "SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS " +
+             "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sales_transactions' " +
+             "AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY'";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                keys.append(", DROP INDEX `").append(rs.getString(1)).append('`');
+            }
+        }
+        keys.append(", ADD UNIQUE KEY uk_sales_transaction_date (transaction_id, transaction_date)");
+
+        boolean rangeColumns = !"timestamp".equalsIgnoreCase(columnType(conn, "sales_transactions", "transaction_date"));
+        try (Statement stmt = conn.createStatement()) {
+            for (String[] foreignKey : foreignKeys) {
+                stmt.execute("ALTER TABLE `" + foreignKey[0] + "` DROP FOREIGN KEY `" + foreignKey[1] + "`");
+            }
+            stmt.execute(keys.toString());
+            // TIMESTAMP needs UNIX_TIMESTAMP() to partition on; DATETIME can use RANGE COLUMNS
+            stmt.execute("ALTER TABLE sales_transactions PARTITION BY " +
+                         (rangeColumns ? "RANGE COLUMNS(transaction_date)" : "RANGE (UNIX_TIMESTAMP(transaction_date))") +
+                         " (PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN " + (rangeColumns ? "(MAXVALUE)" : "MAXVALUE") + ")");
+        }
+
+        int hotMonths = DatabaseConfig.getSalesHotMonths();
+        ensurePartitions(conn, YearMonth.now().minusMonths(Math.max(hotMonths, 1) - 1));
+    }
+
+    /**
+     * Split monthly partitions off p_future up to next month, so inserts never land
+     * in the catch-all partition. The first new partition also holds anything older.
+     */
+    static void ensurePartitions(Connection conn, YearMonth firstMonth) throws SQLException {
+        String sql = "SELECT PARTITION_NAME, PARTITION_METHOD FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sales_transactions' " +
+                    "ORDER BY PARTITION_ORDINAL_POSITION";
+        YearMonth lastExisting = null;
+        String method = null;
+        boolean hasFuture = false;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (name == null) {
+                    return; // not partitioned
+                }
+                method = rs.getString(2);
+                if (name.equals(FUTURE_PARTITION)) {
+                    hasFuture = true;
+                } else {
+                    lastExisting = YearMonth.parse(name.substring(1), PARTITION_SUFFIX);
+                }
+            }
+        }
+        if (!hasFuture) {
+            return;
+        }
+
+        boolean rangeColumns = "RANGE COLUMNS".equalsIgnoreCase(method);
+        YearMonth first = lastExisting != null ? lastExisting.plusMonths(1) : firstMonth;
+        YearMonth last = YearMonth.now().plusMonths(1);
+        if (first.isAfter(last)) {
+            return;
+        }
+
+        StringBuilder partitions = new StringBuilder();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            String bound = "'" + month.plusMonths(1).atDay(1) + " 00:00:00'";
+            partitions.append("PARTITION p").append(month.format(PARTITION_SUFFIX))
+                      .append(" VALUES LESS THAN (")
+                      .append(rangeColumns ? bound : "UNIX_TIMESTAMP(" + bound + ")").append("), ");
+        }
+        partitions.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN ")
+                  .append(rangeColumns ? "(MAXVALUE)" : "MAXVALUE");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE sales_transactions REORGANIZE PARTITION " + FUTURE_PARTITION +
+                         " INTO (" + partitions + ")");
+        }
+    }
+
+    /**
+     * Drop an archived month's partition; only if empty, since dropping deletes its rows
+     */
+    private static void dropPartition(Connection conn, YearMonth month) throws SQLException {
+        String partition = "p" + month.format(PARTITION_SUFFIX);
+        String sql = "SELECT TABLE_ROWS FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sales_transactions' AND PARTITION_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, partition);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sales_transactions PARTITION (" + partition + ")")) {
+                if (!rs.next() || rs.getLong(1) > 0) {
+                    return;
+                }
+            }
+            stmt.execute("ALTER TABLE sales_transactions DROP PARTITION " + partition);
+        }
+    }
+
+    private static boolean isPartitioned(Connection conn, String table) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static String columnType(Connection conn, String table, String column) throws SQLException {
+        String sql = "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Empty the archive and the transaction ID registry along with the live tables (SalesDAO.deleteAll)
+     */
+    public static void clear(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (YearMonth month : loadArchivedMonths(conn)) {
+                stmt.executeUpdate("DELETE FROM " + itemsTable(month));
+                stmt.executeUpdate("DELETE FROM " + transactionsTable(month));
+            }
+            stmt.executeUpdate("DELETE FROM sales_item_monthly_summary");
+            stmt.executeUpdate("DELETE FROM sales_daily_summary");
+            stmt.executeUpdate("DELETE FROM sales_monthly_summary");
+            stmt.executeUpdate("DELETE FROM sales_transaction_ids");
+        }
+        archivedMonths = null;
+    }
+}
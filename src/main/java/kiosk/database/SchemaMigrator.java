@@ -0,0 +1,182 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned schema migration engine.
+ * Applied migrations are recorded in the schema_version table together with a
+ * checksum; each pending migration runs exactly once inside its own transaction.
+ * When the database is already at the latest version, startup costs one query.
+ *
+ * Note: MySQL commits DDL implicitly, so there only the version bookkeeping
+ * is truly transactional.
+ */
+public class SchemaMigrator {
+    private static final String VERSION_TABLE = "schema_version";
+
+    private final Connection connection;
+    private final DatabaseConfig.DatabaseType databaseType;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(Connection connection, DatabaseConfig.DatabaseType databaseType, List<Migration> migrations) {
+        this.connection = connection;
+        this.databaseType = databaseType;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i).getVersion() == this.migrations.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Duplicate migration version: " + this.migrations.get(i));
+            }
+        }
+    }
+
+    /**
+     * Latest version known to this build
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    /**
+     * Current version recorded in the database (0 if nothing applied yet)
+     */
+    public int getCurrentVersion() throws SQLException {
+        int current = 0;
+        for (int version : loadAppliedChecksums().keySet()) {
+            current = Math.max(current, version);
+        }
+        return current;
+    }
+
+    /**
+     * Current version without creating the version table (0 if there is none),
+     * for databases this process must not change
+     */
+    public int readCurrentVersion() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Apply all pending migrations in version order
+     * @return number of migrations applied
+     */
+    public int migrate() throws SQLException {
+        Map<Integer, String> applied = loadAppliedChecksums();
+        int current = 0;
+        for (int version : applied.keySet()) {
+            current = Math.max(current, version);
+        }
+
+        if (current >= getLatestVersion() && applied.size() >= migrations.size()) {
+            System.out.println("✓ Database schema is up to date (version " + current + ")");
+            return 0;
+        }
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            String storedChecksum = applied.get(migration.getVersion());
+            if (storedChecksum != null) {
+                validateChecksum(migration, storedChecksum);
+                continue;
+            }
+            applyMigration(migration);
+            count++;
+        }
+
+        System.out.println("✓ Applied " + count + " migration(s), schema now at version " + getLatestVersion());
+        return count;
+    }
+
+    /**
+     * Run one migration and record it, all in a single transaction
+     */
+    private void applyMigration(Migration migration) throws SQLException {
+        String checksum = migration.checksum(databaseType);
+        boolean autoCommit = connection.getAutoCommit();
+        long start = System.currentTimeMillis();
+
+        try {
+            connection.setAutoCommit(false);
+            migration.apply(connection, databaseType);
+
+            String sql = "INSERT INTO " + VERSION_TABLE +
+                        " (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setInt(1, migration.getVersion());
+                pstmt.setString(2, migration.getDescription());
+                pstmt.setString(3, checksum);
+                pstmt.setLong(4, System.currentTimeMillis() - start);
+                pstmt.executeUpdate();
+            }
+
+            connection.commit();
+            System.out.println("  ✓ Migration " + migration + " (" + (System.currentTimeMillis() - start) + " ms)");
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                System.err.println("Error rolling back migration: " + ex.getMessage());
+            }
+            throw new SQLException("Migration " + migration + " failed: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void validateChecksum(Migration migration, String storedChecksum) {
+        try {
+            String checksum = migration.checksum(databaseType);
+            if (storedChecksum != null && !storedChecksum.equals(checksum)) {
+                System.err.println("⚠ Migration " + migration + " was modified after it was applied " +
+                                 "(checksum " + storedChecksum + " != " + checksum + ")");
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not verify checksum of migration " + migration + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads version -> checksum, creating the version table on first use
+     */
+    private Map<Integer, String> loadAppliedChecksums() throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM " + VERSION_TABLE)) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+            return applied;
+        } catch (SQLException e) {
+            createVersionTable();
+            return applied;
+        }
+    }
+
+    private void createVersionTable() throws SQLException {
+        String sql = SqlDialect.createTableIfNotExists(VERSION_TABLE,
+                    "version " + SqlDialect.integer() + " PRIMARY KEY, " +
+                    "description VARCHAR(255) NOT NULL, " +
+                    "checksum VARCHAR(64) NOT NULL, " +
+                    "execution_ms " + SqlDialect.integer() + " DEFAULT 0, " +
+                    "applied_at " + SqlDialect.timestamp() + " DEFAULT CURRENT_TIMESTAMP");
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
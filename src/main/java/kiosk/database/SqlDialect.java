@@ -1,9 +1,110 @@
 package kiosk.database;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import kiosk.database.DatabaseConfig.DatabaseType;
+
 /**
  * SQL Dialect helper to translate MySQL-specific syntax to SQLite when needed
  */
 public class SqlDialect {
+    private static final String SQLITE_NOW = "datetime('now', 'localtime')";
+    private static final DateTimeFormatter TIMESTAMP_LITERAL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    /**
+     * A query written once with dialect tokens, rendered for the database in use.
+     * Tokens: {now} for the current local date and time, and
+     * {concat(a, b, ...)} for string concatenation. Each dialect's text is
+     * rendered on first use and cached, so switching between MySQL and the
+     * SQLite fallback costs one render per query. Date ranges are better bound
+     * as parameters computed in Java than written with date functions, which
+     * keeps the column comparison index-friendly on both databases.
+     */
+    public static final class Template {
+        private final String source;
+        private final Map<DatabaseType, String> rendered = new ConcurrentHashMap<>();
+        
+        private Template(String source) {
+            this.source = source;
+        }
+        
+        /**
+         * SQL for the current database type
+         */
+        public String sql() {
+            return rendered.computeIfAbsent(DatabaseConfig.getCurrentDatabaseType(), type -> render(source, type));
+        }
+        
+        @Override
+        public String toString() {
+            return sql();
+        }
+    }
+    
+    public static Template template(String source) {
+        return new Template(source);
+    }
+    
+    /**
+     * Replace a rendered {now} with a fixed timestamp literal, so a statement captured
+     * on SQLite means the same thing when it is replayed later on MySQL
+     */
+    public static String freezeNow(String sql, LocalDateTime now) {
+        return sql.replace(SQLITE_NOW, "'" + now.format(TIMESTAMP_LITERAL) + "'");
+    }
+    
+    static String render(String source, DatabaseType type) {
+        StringBuilder sql = new StringBuilder(source.length());
+        int start = 0;
+        int open;
+        while ((open = source.indexOf('{', start)) >= 0) {
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed token in SQL: " + source);
+            }
+            sql.append(source, start, open).append(renderToken(source.substring(open + 1, close).trim(), type));
+            start = close + 1;
+        }
+        return sql.append(source, start, source.length()).toString();
+    }
+    
+    private static String renderToken(String token, DatabaseType type) {
+        boolean sqlite = type == DatabaseType.SQLITE;
+        if (token.equals("now")) {
+            // CURRENT_TIMESTAMP is UTC on SQLite; NOW() is session (local) time on MySQL
+            return sqlite ? SQLITE_NOW : "NOW()";
+        }
+        if (token.startsWith("concat(") && token.endsWith(")")) {
+            List<String> parts = splitArguments(token.substring("concat(".length(), token.length() - 1));
+            return sqlite ? String.join(" || ", parts) : "CONCAT(" + String.join(", ", parts) + ")";
+        }
+        throw new IllegalArgumentException("Unknown SQL token {" + token + "}");
+    }
+    
+    /**
+     * Split on commas outside quoted literals
+     */
+    private static List<String> splitArguments(String arguments) {
+        List<String> parts = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < arguments.length(); i++) {
+            char c = arguments.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                parts.add(arguments.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        parts.add(arguments.substring(start).trim());
+        return parts;
+    }
     
     /**
      * Converts MySQL AUTO_INCREMENT to SQLite AUTOINCREMENT
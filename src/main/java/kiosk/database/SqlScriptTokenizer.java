@@ -0,0 +1,171 @@
+package kiosk.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits a SQL script into individual statements.
+ * Unlike a plain split on ';' it understands quoted strings and identifiers,
+ * line and block comments, trigger bodies (BEGIN ... END) and the MySQL
+ * client DELIMITER directive, so semicolons inside any of those are kept.
+ * Backslash escapes inside string literals are a MySQL extension; SQLite
+ * treats a backslash as an ordinary character (e.g. 'C:\').
+ */
+public final class SqlScriptTokenizer {
+
+    private SqlScriptTokenizer() {
+    }
+
+    /**
+     * Tokenize a script into executable statements (comments removed, trimmed)
+     * using the quoting rules of the given database type
+     */
+    public static List<String> tokenize(String script, DatabaseConfig.DatabaseType type) {
+        List<String> statements = new ArrayList<>();
+        if (script == null || script.isEmpty()) {
+            return statements;
+        }
+
+        StringBuilder current = new StringBuilder();
+        String delimiter = ";";
+        int blockDepth = 0;
+        boolean inTrigger = false;
+        boolean backslashEscapes = type == DatabaseConfig.DatabaseType.MYSQL;
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+
+            // DELIMITER directive (only valid at the start of a line)
+            if (isLineStart(script, i) && current.toString().trim().isEmpty()
+                    && script.regionMatches(true, i, "DELIMITER ", 0, 10)) {
+                int end = lineEnd(script, i);
+                delimiter = script.substring(i + 10, end).trim();
+                if (delimiter.isEmpty()) {
+                    delimiter = ";";
+                }
+                i = end;
+                continue;
+            }
+
+            // Line comment
+            if (c == '-' && i + 1 < length && script.charAt(i + 1) == '-') {
+                i = lineEnd(script, i);
+                current.append(' ');
+                continue;
+            }
+
+            // Block comment
+            if (c == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                current.append(' ');
+                continue;
+            }
+
+            // Quoted string or identifier
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = quoteEnd(script, i, c, backslashEscapes);
+                current.append(script, i, end);
+                i = end;
+                continue;
+            }
+
+            // Keywords that open/close trigger bodies
+            if (Character.isLetter(c) && (i == 0 || !isWordChar(script.charAt(i - 1)))) {
+                int end = i;
+                while (end < length && isWordChar(script.charAt(end))) {
+                    end++;
+                }
+                String word = script.substring(i, end).toUpperCase(Locale.ROOT);
+                if (word.equals("TRIGGER") && !inTrigger) {
+                    inTrigger = isTriggerStatement(current);
+                } else if (inTrigger) {
+                    if (word.equals("BEGIN") || word.equals("CASE")) {
+                        blockDepth++;
+                    } else if (word.equals("END") && blockDepth > 0) {
+                        blockDepth--;
+                    }
+                }
+                current.append(script, i, end);
+                i = end;
+                continue;
+            }
+
+            // Statement delimiter
+            if (blockDepth == 0 && script.startsWith(delimiter, i)) {
+                addStatement(statements, current);
+                inTrigger = false;
+                i += delimiter.length();
+                continue;
+            }
+
+            current.append(c);
+            i++;
+        }
+
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * Checks whether the words seen so far, followed by TRIGGER, open a trigger definition
+     */
+    private static boolean isTriggerStatement(StringBuilder current) {
+        String head = current.toString().trim().toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        return head.equals("CREATE")
+            || head.equals("CREATE TEMP")
+            || head.equals("CREATE TEMPORARY");
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static boolean isLineStart(String script, int index) {
+        int i = index - 1;
+        while (i >= 0 && (script.charAt(i) == ' ' || script.charAt(i) == '\t')) {
+            i--;
+        }
+        return i < 0 || script.charAt(i) == '\n' || script.charAt(i) == '\r';
+    }
+
+    private static int lineEnd(String script, int index) {
+        int end = script.indexOf('\n', index);
+        return end < 0 ? script.length() : end;
+    }
+
+    /**
+     * Returns the index just past the closing quote, honouring doubled quotes
+     * and (when enabled) backslash escapes
+     */
+    private static int quoteEnd(String script, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (backslashEscapes && c == '\\' && quote != '`') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return script.length();
+    }
+}
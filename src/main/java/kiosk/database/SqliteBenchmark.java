@@ -0,0 +1,115 @@
+package kiosk.database;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import kiosk.database.dao.SalesDAO;
+import kiosk.model.CartItem;
+import kiosk.model.SaleTransaction;
+
+/**
+ * Times the kiosk's sale commit (SalesDAO.insert: one transaction with the sale
+ * row and its items) on SQLite with and without SqliteProfile.
+ *
+ * Each run works on its own copy of a kiosk database, made in the same
+ * directory so both runs hit the same disk and commits pay its real fsync
+ * cost. The copy is taken with VACUUM INTO, so it includes changes still in
+ * the source's WAL. "default" switches the copy back to SQLite's own settings
+ * (rollback journal, synchronous=FULL; a kiosk database is already in WAL
+ * mode, which persists in the file); "profile" opens it through
+ * SqliteProfile.apply, so the db.sqlite.* overrides in
+ * config/database.properties are honoured.
+ *
+ * Usage (after the kiosk has created and migrated its database once):
+ *   mvn -q compile exec:java -Dexec.mainClass=kiosk.database.SqliteBenchmark \
+ *       -Dexec.args="[database file] [commits]"
+ * The database file defaults to the one in db.sqlite.url, commits to 500.
+ */
+public class SqliteBenchmark {
+    private static final int WARMUP_COMMITS = 50;
+
+    public static void main(String[] args) throws Exception {
+        Path source = Paths.get(args.length > 0 ? args[0]
+            : DatabaseConfig.getSqliteUrl().substring("jdbc:sqlite:".length()));
+        int commits = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        if (!Files.exists(source)) {
+            System.err.println("No database at " + source + "; start the kiosk once to create it");
+            System.exit(1);
+        }
+
+        // SalesDAO binds booleans the SQLite way only when SQLite is the active type
+        DatabaseConfig.setDatabaseType(DatabaseConfig.DatabaseType.SQLITE);
+        System.out.println("Sale commits on copies of " + source.toAbsolutePath() + " (" + commits + " timed)");
+        run("default", source, commits, false);
+        run("profile", source, commits, true);
+    }
+
+    private static void run(String label, Path source, int commits, boolean profile) throws Exception {
+        Path copy = source.toAbsolutePath().resolveSibling("benchmark-" + label + "-" + UUID.randomUUID() + ".db");
+        try (Connection original = DriverManager.getConnection("jdbc:sqlite:" + source);
+             Statement stmt = original.createStatement()) {
+            stmt.execute("VACUUM INTO '" + copy.toString().replace("'", "''") + "'");
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy)) {
+            if (profile) {
+                SqliteProfile.apply(connection);
+            } else {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA journal_mode = DELETE");
+                    stmt.execute("PRAGMA synchronous = FULL");
+                }
+            }
+            SalesDAO sales = new SalesDAO(connection);
+            for (int i = 0; i < WARMUP_COMMITS; i++) {
+                commit(sales);
+            }
+
+            long[] nanos = new long[commits];
+            for (int i = 0; i < commits; i++) {
+                long start = System.nanoTime();
+                commit(sales);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("  %-8s median %.3f ms, p95 %.3f ms, p99 %.3f ms, max %.3f ms%n", label,
+                              millis(nanos, 0.50), millis(nanos, 0.95), millis(nanos, 0.99),
+                              nanos[nanos.length - 1] / 1e6);
+        } finally {
+            for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(Paths.get(copy + suffix));
+            }
+        }
+    }
+
+    /**
+     * One sale of three items, as the cart would save it
+     */
+    private static void commit(SalesDAO sales) throws SQLException {
+        List<CartItem> items = new ArrayList<>();
+        items.add(CartItem.ofCents("Ensaymada", 4500, 2));
+        items.add(CartItem.ofCents("Pandesal", 500, 10));
+        items.add(CartItem.ofCents("Ube Cake", 65000, 1));
+        long subtotal = 0;
+        for (CartItem item : items) {
+            subtotal += item.getSubtotalCents();
+        }
+        String id = "BENCH-" + UUID.randomUUID();
+        if (!sales.insert(new SaleTransaction(id, LocalDateTime.now(), items, subtotal, 0, subtotal, false))) {
+            throw new SQLException("Sale commit " + id + " failed; was the database migrated by the kiosk?");
+        }
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,132 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performance settings for the SQLite database, applied to each connection.
+ * Defaults suit a kiosk that commits many small sales: WAL journaling with
+ * synchronous=NORMAL (a commit appends to the WAL without a full fsync, and
+ * a power cut can lose at most the last commits, never corrupt the file),
+ * memory-mapped reads, a larger page cache, in-memory temp tables and a busy
+ * timeout so the maintenance task never fails a sale with SQLITE_BUSY.
+ * Foreign key enforcement is per connection in SQLite (and ignored inside a
+ * transaction), so it is switched on here rather than in a migration script.
+ * Every setting can be overridden in config/database.properties as
+ * db.sqlite.&lt;name&gt; (e.g. db.sqlite.synchronous=FULL).
+ *
+ * While SQLite is in use a background task checkpoints the WAL and runs
+ * PRAGMA optimize every db.sqlite.maintenance_minutes, on a connection of its
+ * own so it never runs inside a sale's transaction on the shared one.
+ *
+ * SqliteBenchmark measures what the profile buys on a given disk.
+ */
+public class SqliteProfile {
+    private static final List<String> JOURNAL_MODES = Arrays.asList("WAL", "DELETE", "TRUNCATE", "PERSIST", "MEMORY");
+    private static final List<String> SYNCHRONOUS_MODES = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final List<String> TEMP_STORES = Arrays.asList("DEFAULT", "FILE", "MEMORY");
+
+    private static ScheduledExecutorService maintenance;
+
+    private SqliteProfile() {
+    }
+
+    /**
+     * Apply the configured pragmas to a freshly opened SQLite connection
+     */
+    public static void apply(Connection connection) {
+        String journalMode = choice("journal_mode", "WAL", JOURNAL_MODES);
+        String synchronous = choice("synchronous", "NORMAL", SYNCHRONOUS_MODES);
+        String tempStore = choice("temp_store", "MEMORY", TEMP_STORES);
+        long mmapSize = number("mmap_size", 256L * 1024 * 1024);
+        long cacheSize = number("cache_size", -16000);  // negative = KiB, so 16 MB
+        long busyTimeout = number("busy_timeout", 5000);
+
+        try (Statement stmt = connection.createStatement()) {
+            // busy_timeout first so the journal mode switch waits out other readers
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeout);
+            stmt.execute("PRAGMA foreign_keys = ON");
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = " + journalMode)) {
+                if (rs.next() && !journalMode.equalsIgnoreCase(rs.getString(1))) {
+                    System.err.println("Warning: SQLite kept journal_mode " + rs.getString(1) +
+                                     " (requested " + journalMode + ")");
+                }
+            }
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+            System.out.println("  SQLite profile: journal_mode=" + journalMode + ", synchronous=" + synchronous +
+                             ", mmap_size=" + mmapSize + ", cache_size=" + cacheSize);
+        } catch (SQLException e) {
+            System.err.println("Error applying SQLite settings: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start the periodic checkpoint/optimize task (once per process)
+     */
+    public static synchronized void startMaintenance() {
+        long minutes = number("maintenance_minutes", 30);
+        if (maintenance != null || minutes <= 0) {
+            return;
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sqlite-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(() -> runMaintenance(false), minutes, minutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Checkpoint the WAL into the database file and refresh query planner statistics.
+     * A passive checkpoint never blocks a sale; on shutdown (truncate = true) the WAL
+     * is also emptied so the next start doesn't replay it.
+     */
+    public static void runMaintenance(boolean truncate) {
+        if (!DatabaseConfig.isSqlite()) {
+            return;
+        }
+        try (Connection connection = DriverManager.getConnection(DatabaseConfig.getSqliteUrl());
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + number("busy_timeout", 5000));
+            try (ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + (truncate ? "TRUNCATE" : "PASSIVE") + ")")) {
+                if (rs.next() && rs.getInt(1) != 0) {
+                    System.err.println("Warning: SQLite checkpoint was blocked by a writer; retrying next run");
+                }
+            }
+            stmt.execute("PRAGMA optimize");
+        } catch (SQLException e) {
+            System.err.println("Error running SQLite maintenance: " + e.getMessage());
+        }
+    }
+
+    private static String choice(String name, String defaultValue, List<String> allowed) {
+        String value = DatabaseConfig.getSqliteSetting(name, defaultValue).trim().toUpperCase(Locale.ROOT);
+        if (!allowed.contains(value)) {
+            System.err.println("Warning: invalid db.sqlite." + name + " '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+
+    private static long number(String name, long defaultValue) {
+        String value = DatabaseConfig.getSqliteSetting(name, String.valueOf(defaultValue)).trim();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: invalid db.sqlite." + name + " '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
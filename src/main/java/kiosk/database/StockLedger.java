@@ -0,0 +1,453 @@
+package kiosk.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import kiosk.model.StockMovement;
+
+/**
+ * Append-only stock ledger.
+ *
+ * Every stock change (sale, restock, waste, count correction) is a movement in
+ * inventory_stock_history, and inventory.stock_quantity is the ledger's
+ * projection: each batch of movements moves it by their deltas in the same
+ * transaction. Movements are queued in memory and written by a background
+ * thread every db.stock.flush_millis, so recording a sale never waits on the
+ * database. Delta updates commute, so stations can't overwrite each other's
+ * stock changes.
+ *
+ * Current stock is served from a cache: the quantity last read from inventory
+ * plus the movements still queued or being written. Every InventoryDAO read
+ * refreshes it. The monitor only guards these in-memory structures; database
+ * reads and the batch write happen outside it, and flushLock keeps one flush
+ * at a time.
+ *
+ * Every db.stock.snapshot_hours each item's quantity is saved in stock_snapshots
+ * with the newest ledger ID, so stock at an earlier time replays only the
+ * movements after the nearest snapshot (StockMovementDAO.getStockAsOf).
+ * Snapshots use a connection of their own to the active database: ledger IDs
+ * differ between MySQL and the SQLite fallback, so each database snapshots its
+ * own ledger, and the snapshot never joins a transaction on the shared connection.
+ */
+public class StockLedger {
+    private static StockLedger instance;
+    private static final long CACHE_MS = 10000;
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    private static final String INSERT_MOVEMENT =
+        "INSERT INTO inventory_stock_history (item_name, old_quantity, new_quantity, change_amount, " +
+        "change_type, notes, changed_by, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String APPLY_MOVEMENTS =
+        "UPDATE inventory SET stock_quantity = stock_quantity + ? WHERE name = ?";
+
+    private final List<StockMovement> pending = new ArrayList<>();
+    private final Map<String, Integer> pendingChange = new HashMap<>();
+    private final List<StockMovement> inFlight = new ArrayList<>();
+    private final Map<String, Integer> inFlightChange = new HashMap<>();
+    private final Map<String, Integer> stored = new HashMap<>();
+    private final Map<String, Long> storedAt = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    private final Object flushLock = new Object();
+    private long flushes;
+
+    private StockLedger() {
+    }
+
+    public static synchronized StockLedger getInstance() {
+        if (instance == null) {
+            instance = new StockLedger();
+        }
+        return instance;
+    }
+
+    /**
+     * Start writing queued movements and taking snapshots in the background
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-ledger");
+            t.setDaemon(true);
+            return t;
+        });
+        long flushMillis = DatabaseConfig.getStockFlushMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+
+        long snapshotMillis = DatabaseConfig.getStockSnapshotHours() * 3600000L;
+        scheduler.scheduleWithFixedDelay(this::takeSnapshot, untilNextSnapshot(snapshotMillis),
+                                         snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a movement of change units; false if there is no such item
+     */
+    public boolean record(String itemName, int change, StockMovement.Type type, String notes) {
+        if (getStock(itemName) == null) {
+            return false;
+        }
+        synchronized (this) {
+            Integer current = cachedStock(itemName);
+            if (current == null) {
+                return false; // forgotten meanwhile
+            }
+            queue(itemName, current, change, type, notes);
+        }
+        return true;
+    }
+
+    /**
+     * Queue the movement that brings an item to the given quantity (a restock when it
+     * goes up, an adjustment when it goes down); false if there is no such item
+     */
+    public boolean adjustTo(String itemName, int quantity, String notes) {
+        // compare against the stored quantity as it is now, not as cached
+        synchronized (this) {
+            storedAt.remove(itemName);
+        }
+        if (getStock(itemName) == null) {
+            return false;
+        }
+        synchronized (this) {
+            Integer current = cachedStock(itemName);
+            if (current == null) {
+                return false;
+            }
+            int change = quantity - current;
+            queue(itemName, current, change, change > 0 ? StockMovement.Type.RESTOCK : StockMovement.Type.ADJUSTMENT,
+                  notes);
+        }
+        return true;
+    }
+
+    /**
+     * Call with the monitor held
+     */
+    private void queue(String itemName, int current, int change, StockMovement.Type type, String notes) {
+        if (change != 0) {
+            pending.add(new StockMovement(itemName, type, current, change, notes, null));
+            pendingChange.merge(itemName, change, Integer::sum);
+        }
+    }
+
+    /**
+     * Current stock of an item including queued movements, null if there is no such item.
+     * The database is read outside the monitor; a read that a flush overtook is
+     * repeated, since it can't tell whether it saw that batch.
+     */
+    public Integer getStock(String itemName) {
+        for (int attempt = 1; ; attempt++) {
+            long flushesBefore;
+            synchronized (this) {
+                Long loadedAt = storedAt.get(itemName);
+                if (loadedAt != null && System.currentTimeMillis() - loadedAt <= CACHE_MS) {
+                    return cachedStock(itemName);
+                }
+                flushesBefore = flushes;
+            }
+
+            Integer quantity;
+            try {
+                quantity = loadStoredQuantity(itemName);
+            } catch (SQLException e) {
+                System.err.println("Error reading stock: " + e.getMessage());
+                synchronized (this) {
+                    return cachedStock(itemName);
+                }
+            }
+
+            synchronized (this) {
+                if (quantity == null) {
+                    return null;
+                }
+                if (flushes == flushesBefore || attempt == MAX_READ_ATTEMPTS) {
+                    return project(itemName, quantity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache an item's stored stock_quantity as just read, and return its current
+     * stock with the queued and in-flight movements applied
+     */
+    public synchronized int project(String itemName, int storedQuantity) {
+        stored.put(itemName, storedQuantity);
+        storedAt.put(itemName, System.currentTimeMillis());
+        return cachedStock(itemName);
+    }
+
+    /**
+     * Cached stored quantity plus the movements not yet folded into it; null if not
+     * cached. Call with the monitor held.
+     */
+    private Integer cachedStock(String itemName) {
+        Integer quantity = stored.get(itemName);
+        if (quantity == null) {
+            return null;
+        }
+        return quantity + inFlightChange.getOrDefault(itemName, 0) + pendingChange.getOrDefault(itemName, 0);
+    }
+
+    /**
+     * Drop an item's queued movements and cached stock (the item is being deleted)
+     */
+    public synchronized void forget(String itemName) {
+        pending.removeIf(movement -> movement.getItemName().equals(itemName));
+        pendingChange.remove(itemName);
+        inFlight.removeIf(movement -> movement.getItemName().equals(itemName));
+        inFlightChange.remove(itemName);
+        stored.remove(itemName);
+        storedAt.remove(itemName);
+    }
+
+    /**
+     * Drop every queued movement and cached stock (inventory is being cleared)
+     */
+    public synchronized void clear() {
+        pending.clear();
+        pendingChange.clear();
+        inFlight.clear();
+        inFlightChange.clear();
+        stored.clear();
+        storedAt.clear();
+    }
+
+    private Integer loadStoredQuantity(String itemName) throws SQLException {
+        Connection conn = DatabaseConnection.getInstance().getConnection();
+        if (conn == null) {
+            throw new SQLException("No database connection available");
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT stock_quantity FROM inventory WHERE name = ?")) {
+            pstmt.setString(1, itemName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Append the queued movements to the ledger and apply their net change per item
+     * to inventory, in one transaction. The batch is taken off the queue under the
+     * monitor and written outside it, so recording never waits on the database;
+     * until it is committed it counts as in flight. If the connection fails the batch
+     * goes back to the front of the queue for the next run. Any other error is
+     * down to the movements themselves, so they are retried one per transaction and
+     * those that still fail are logged and dropped rather than blocking the queue.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Connection conn = DatabaseConnection.getInstance().getConnection();
+            if (conn == null) {
+                return;
+            }
+            List<StockMovement> batch;
+            Map<String, Integer> changes;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                changes = new HashMap<>(pendingChange);
+                inFlight.addAll(pending);
+                pendingChange.forEach((itemName, change) -> inFlightChange.merge(itemName, change, Integer::sum));
+                pending.clear();
+                pendingChange.clear();
+            }
+
+            Map<String, Integer> committed = new HashMap<>();
+            List<StockMovement> retry = new ArrayList<>();
+            try {
+                conn.setAutoCommit(false);
+                try {
+                    write(conn, batch, changes);
+                    committed = changes;
+                } catch (SQLException e) {
+                    rollback(conn);
+                    if (FailoverConnection.isConnectionFailure(e)) {
+                        System.err.println("Error writing stock movements: " + e.getMessage());
+                        retry = batch;
+                    } else {
+                        System.err.println("Error writing stock movements, retrying one at a time: " + e.getMessage());
+                        retry = writeEach(conn, batch, committed);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Error writing stock movements: " + e.getMessage());
+                retry = batch;
+            }
+
+            // fold what was committed into the cache while this thread still owns the
+            // connection, so no read on it sees a movement both stored and in flight
+            synchronized (this) {
+                committed.forEach((itemName, change) ->
+                    stored.computeIfPresent(itemName, (name, quantity) -> quantity + change));
+                List<StockMovement> requeue = new ArrayList<>();
+                for (StockMovement movement : retry) {
+                    if (inFlight.contains(movement)) {  // not forgotten meanwhile
+                        requeue.add(movement);
+                        pendingChange.merge(movement.getItemName(), movement.getChangeAmount(), Integer::sum);
+                    }
+                }
+                pending.addAll(0, requeue);
+                inFlight.clear();
+                inFlightChange.clear();
+                if (!committed.isEmpty()) {
+                    flushes++;
+                }
+            }
+            try {
+                // always: it also hands the shared connection back to other threads
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Error ending stock movement transaction: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write each movement in a transaction of its own, adding the committed ones to
+     * committed. Returns the movements to queue again: those from the first
+     * connection failure on.
+     */
+    private List<StockMovement> writeEach(Connection conn, List<StockMovement> batch, Map<String, Integer> committed) {
+        for (int i = 0; i < batch.size(); i++) {
+            StockMovement movement = batch.get(i);
+            Map<String, Integer> change = new HashMap<>();
+            change.put(movement.getItemName(), movement.getChangeAmount());
+            try {
+                write(conn, List.of(movement), change);
+                committed.merge(movement.getItemName(), movement.getChangeAmount(), Integer::sum);
+            } catch (SQLException e) {
+                rollback(conn);
+                if (FailoverConnection.isConnectionFailure(e)) {
+                    return new ArrayList<>(batch.subList(i, batch.size()));
+                }
+                System.err.println("Error writing stock movement, dropped (" + movement.getType() + " " +
+                                 movement.getChangeAmount() + " of " + movement.getItemName() + "): " + e.getMessage());
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Insert movements and apply their net changes, then commit. The caller has
+     * switched auto-commit off.
+     */
+    private void write(Connection conn, List<StockMovement> movements, Map<String, Integer> changes)
+            throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_MOVEMENT);
+             PreparedStatement apply = conn.prepareStatement(APPLY_MOVEMENTS)) {
+            for (StockMovement movement : movements) {
+                insert.setString(1, movement.getItemName());
+                insert.setInt(2, movement.getOldQuantity());
+                insert.setInt(3, movement.getNewQuantity());
+                insert.setInt(4, movement.getChangeAmount());
+                insert.setString(5, movement.getType().toString());
+                insert.setString(6, movement.getNotes());
+                insert.setString(7, movement.getChangedBy());
+                insert.setTimestamp(8, Timestamp.valueOf(movement.getChangedAt()));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+
+            boolean applied = false;
+            for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                if (change.getValue() != 0) {
+                    apply.setInt(1, change.getValue());
+                    apply.setString(2, change.getKey());
+                    apply.addBatch();
+                    applied = true;
+                }
+            }
+            if (applied) {
+                apply.executeBatch();
+            }
+        }
+        conn.commit();
+    }
+
+    private static void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back stock movements: " + e.getMessage());
+        }
+    }
+
+    private void takeSnapshot() {
+        flush();
+        try (Connection conn = DatabaseConnection.getInstance().openDedicated()) {
+            snapshot(conn);
+        } catch (SQLException e) {
+            System.err.println("Error taking stock snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Save every item's stock_quantity with the newest ledger ID. One statement, so
+     * the quantities and the ID are read together. Also run by migration V10 to
+     * give existing stock a starting point.
+     */
+    static void snapshot(Connection conn) throws SQLException {
+        String sql = "INSERT INTO stock_snapshots (item_name, quantity, last_movement_id, taken_at) " +
+                    "SELECT name, stock_quantity, " +
+                    "(SELECT COALESCE(MAX(id), 0) FROM inventory_stock_history), ? FROM inventory";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Delay until the next snapshot is due, counting from the latest one so that
+     * restarts neither skip nor repeat snapshots
+     */
+    private long untilNextSnapshot(long snapshotMillis) {
+        try (Connection conn = DatabaseConnection.getInstance().openDedicated();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(taken_at) FROM stock_snapshots")) {
+            Timestamp latest = rs.next() ? rs.getTimestamp(1) : null;
+            if (latest == null) {
+                return 0;
+            }
+            return Math.max(0, latest.getTime() + snapshotMillis - System.currentTimeMillis());
+        } catch (SQLException e) {
+            System.err.println("Error reading stock snapshots: " + e.getMessage());
+            return snapshotMillis;
+        }
+    }
+
+    /**
+     * Stop the background jobs (letting a running flush finish) and write what is still queued
+     */
+    public void close() {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            stopping = scheduler;
+            scheduler = null;
+        }
+        if (stopping != null) {
+            stopping.shutdown();
+            try {
+                stopping.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
@@ -0,0 +1,340 @@
+package kiosk.database;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ordered log of the writes made on SQLite while MySQL is unreachable.
+ * Each captured statement is stored with its bind values in sync_outbox, in the
+ * same local transaction as the write itself. When MySQL is back, drain()
+ * replays the log in id order; the statements of one local transaction share an
+ * idempotency key and are applied in one MySQL transaction together with a
+ * sync_applied row for that key, so a replay that is interrupted and retried
+ * never applies a transaction twice.
+ */
+public class WriteOutbox {
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * One captured statement
+     */
+    private static class Entry {
+        final String sql;
+        final Map<Integer, Object> parameters;
+
+        Entry(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * Whether a statement changes data and has to reach MySQL (DDL and PRAGMAs don't)
+     */
+    static boolean isWrite(String sql) {
+        String verb = verb(sql);
+        return verb.equals("INSERT") || verb.equals("UPDATE") || verb.equals("DELETE") || verb.equals("REPLACE");
+    }
+
+    private static String verb(String sql) {
+        String verb = sql.trim();
+        int end = 0;
+        while (end < verb.length() && Character.isLetter(verb.charAt(end))) {
+            end++;
+        }
+        return verb.substring(0, end).toUpperCase();
+    }
+
+    /**
+     * Append a statement on the SQLite connection that ran it (joining its transaction, if any)
+     */
+    void record(Connection sqlite, String idempotencyKey, String sql, Map<Integer, Object> parameters)
+            throws SQLException {
+        String insert = "INSERT INTO sync_outbox (idempotency_key, statement_sql, parameters) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = sqlite.prepareStatement(insert)) {
+            pstmt.setString(1, idempotencyKey);
+            pstmt.setString(2, SqlDialect.freezeNow(sql, LocalDateTime.now()));
+            pstmt.setString(3, encode(parameters));
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Number of statements still waiting for MySQL
+     */
+    int pending(Connection sqlite) {
+        String sql = "SELECT COUNT(*) FROM sync_outbox WHERE status = 'PENDING'";
+        try (Statement stmt = sqlite.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting outbox entries: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Replay pending transactions to MySQL in order, BATCH_SIZE statements at a time.
+     * A transaction MySQL rejects (e.g. a duplicate key) is marked FAILED and skipped.
+     * @return false if MySQL became unreachable before the outbox was empty
+     */
+    boolean drain(Connection sqlite, Connection mysql) {
+        int applied = 0;
+        int failed = 0;
+        while (true) {
+            List<String> keys = new ArrayList<>();
+            Map<String, List<Entry>> transactions = new HashMap<>();
+            try {
+                loadBatch(sqlite, keys, transactions);
+            } catch (SQLException e) {
+                System.err.println("Error reading outbox: " + e.getMessage());
+                return false;
+            }
+            if (keys.isEmpty()) {
+                break;
+            }
+
+            for (String key : keys) {
+                try {
+                    apply(mysql, key, transactions.get(key));
+                    applied++;
+                } catch (SQLException e) {
+                    if (FailoverConnection.isConnectionFailure(e)) {
+                        System.err.println("MySQL lost while replaying outbox: " + e.getMessage());
+                        return false;
+                    }
+                    failed++;
+                    System.err.println("Error replaying outbox transaction " + key + ": " + e.getMessage());
+                    if (!finish(sqlite, key, e.getMessage())) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (!finish(sqlite, key, null)) {
+                    return false;
+                }
+            }
+        }
+
+        if (applied > 0 || failed > 0) {
+            System.out.println("✓ Outbox replayed to MySQL: " + applied + " transaction(s)" +
+                             (failed > 0 ? ", " + failed + " rejected (kept in sync_outbox as FAILED)" : ""));
+        }
+        return true;
+    }
+
+    /**
+     * Next BATCH_SIZE pending statements grouped by transaction, plus the rest of a
+     * transaction cut off by the limit so no transaction is replayed in halves
+     */
+    private void loadBatch(Connection sqlite, List<String> keys, Map<String, List<Entry>> transactions)
+            throws SQLException {
+        String sql = "SELECT idempotency_key, statement_sql, parameters FROM sync_outbox " +
+                    "WHERE status = 'PENDING' AND idempotency_key IN (" +
+                    "  SELECT idempotency_key FROM sync_outbox WHERE status = 'PENDING' ORDER BY id LIMIT ?) " +
+                    "ORDER BY id";
+
+        try (PreparedStatement pstmt = sqlite.prepareStatement(sql)) {
+            pstmt.setInt(1, BATCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String key = rs.getString("idempotency_key");
+                    List<Entry> entries = transactions.get(key);
+                    if (entries == null) {
+                        entries = new ArrayList<>();
+                        transactions.put(key, entries);
+                        keys.add(key);
+                    }
+                    entries.add(new Entry(rs.getString("statement_sql"), decode(rs.getString("parameters"))));
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply one local transaction on MySQL, unless its key shows it was applied before.
+     * Consecutive statements with the same SQL (e.g. the items of a sale) go out as
+     * one JDBC batch, which rewriteBatchedStatements turns into a multi-row insert.
+     * Only statements that changed rows on SQLite are logged, so an UPDATE that
+     * matches nothing here means MySQL's row moved on (another version or status,
+     * or the row is missing): the whole transaction is rejected rather than
+     * recorded as applied.
+     */
+    private void apply(Connection mysql, String key, List<Entry> entries) throws SQLException {
+        boolean autoCommit = mysql.getAutoCommit();
+        try {
+            mysql.setAutoCommit(false);
+            if (!alreadyApplied(mysql, key)) {
+                int start = 0;
+                while (start < entries.size()) {
+                    String sql = entries.get(start).sql;
+                    int end = start + 1;
+                    while (end < entries.size() && entries.get(end).sql.equals(sql)) {
+                        end++;
+                    }
+                    applyRun(mysql, sql, entries.subList(start, end));
+                    start = end;
+                }
+                try (PreparedStatement pstmt = mysql.prepareStatement(
+                        "INSERT INTO sync_applied (idempotency_key, statement_count) VALUES (?, ?)")) {
+                    pstmt.setString(1, key);
+                    pstmt.setInt(2, entries.size());
+                    pstmt.executeUpdate();
+                }
+            }
+            mysql.commit();
+        } catch (SQLException e) {
+            try {
+                mysql.rollback();
+            } catch (SQLException ex) {
+                // connection is gone; the caller sees the original failure
+            }
+            throw e;
+        } finally {
+            try {
+                mysql.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                // same as above
+            }
+        }
+    }
+
+    /**
+     * Run consecutive entries that share one SQL text as a single batch
+     */
+    private void applyRun(Connection mysql, String sql, List<Entry> run) throws SQLException {
+        try (PreparedStatement pstmt = mysql.prepareStatement(sql)) {
+            for (Entry entry : run) {
+                for (Map.Entry<Integer, Object> parameter : entry.parameters.entrySet()) {
+                    pstmt.setObject(parameter.getKey(), parameter.getValue());
+                }
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+            if (verb(sql).equals("UPDATE")) {
+                for (int count : counts) {
+                    if (count == 0) {
+                        throw new SQLException("Update matched no rows on MySQL (changed there first): " + sql);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean alreadyApplied(Connection mysql, String key) throws SQLException {
+        try (PreparedStatement pstmt = mysql.prepareStatement(
+                "SELECT 1 FROM sync_applied WHERE idempotency_key = ?")) {
+            pstmt.setString(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Remove an applied transaction from the outbox, or mark a rejected one FAILED
+     */
+    private boolean finish(Connection sqlite, String key, String error) {
+        String sql = error == null
+            ? "DELETE FROM sync_outbox WHERE idempotency_key = ?"
+            : "UPDATE sync_outbox SET status = 'FAILED', last_error = ? WHERE idempotency_key = ?";
+
+        try (PreparedStatement pstmt = sqlite.prepareStatement(sql)) {
+            int index = 1;
+            if (error != null) {
+                pstmt.setString(index++, error);
+            }
+            pstmt.setString(index, key);
+            pstmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error updating outbox: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Bind values as one line per parameter: index, a type tag, then the value
+     * (strings with backslash and newline escaped)
+     */
+    static String encode(Map<Integer, Object> parameters) {
+        StringBuilder encoded = new StringBuilder();
+        for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+            Object value = parameter.getValue();
+            encoded.append(parameter.getKey()).append(':');
+            if (value == null) {
+                encoded.append('N');
+            } else if (value instanceof Timestamp) {
+                encoded.append('T').append(value);
+            } else if (value instanceof Date) {
+                encoded.append('A').append(value);
+            } else if (value instanceof Time) {
+                encoded.append('H').append(value);
+            } else if (value instanceof BigDecimal) {
+                encoded.append('D').append(((BigDecimal) value).toPlainString());
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                encoded.append('L').append(value);
+            } else if (value instanceof Double || value instanceof Float) {
+                encoded.append('F').append(value);
+            } else if (value instanceof Boolean) {
+                encoded.append('B').append(value);
+            } else {
+                encoded.append('S').append(value.toString().replace("\\", "\\\\").replace("\n", "\\n"));
+            }
+            encoded.append('\n');
+        }
+        return encoded.toString();
+    }
+
+    static Map<Integer, Object> decode(String encoded) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return parameters;
+        }
+        for (String line : encoded.split("\n")) {
+            int colon = line.indexOf(':');
+            int index = Integer.parseInt(line.substring(0, colon));
+            char type = line.charAt(colon + 1);
+            String value = line.substring(colon + 2);
+            switch (type) {
+                case 'N': parameters.put(index, null); break;
+                case 'T': parameters.put(index, Timestamp.valueOf(value)); break;
+                case 'A': parameters.put(index, Date.valueOf(value)); break;
+                case 'H': parameters.put(index, Time.valueOf(value)); break;
+                case 'D': parameters.put(index, new BigDecimal(value)); break;
+                case 'L': parameters.put(index, Long.parseLong(value)); break;
+                case 'F': parameters.put(index, Double.parseDouble(value)); break;
+                case 'B': parameters.put(index, Boolean.parseBoolean(value)); break;
+                default: parameters.put(index, unescape(value)); break;
+            }
+        }
+        return parameters;
+    }
+
+    private static String unescape(String value) {
+        StringBuilder text = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+                text.append(c == 'n' ? '\n' : c);
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package kiosk.database.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import kiosk.util.Money;
+
+/**
+ * Columns present in a (possibly projected) result set.
+ * Extractors read through this so the same mapping code works for SELECT *
+ * and for narrow projections; columns that were not selected keep their
+ * default value instead of failing.
+ */
+final class ColumnSet {
+    /**
+     * Every column is present (SELECT *)
+     */
+    static final ColumnSet ALL = new ColumnSet(null);
+
+    private final Set<String> columns;
+
+    private ColumnSet(Set<String> columns) {
+        this.columns = columns;
+    }
+
+    static ColumnSet of(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        Set<String> columns = new HashSet<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columns.add(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+        }
+        return new ColumnSet(columns);
+    }
+
+    /**
+     * Builds a select list from requested column names. Every name must be a key of
+     * allowed (column name to SQL expression); the required columns are always included.
+     * An empty request selects all allowed columns.
+     */
+    static String selectList(Map<String, String> allowed, Collection<String> required, String... requested) {
+        Set<String> names = new LinkedHashSet<>(required);
+        if (requested == null || requested.length == 0) {
+            names.addAll(allowed.keySet());
+        } else {
+            for (String column : requested) {
+                names.add(column.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        StringBuilder select = new StringBuilder();
+        for (String name : names) {
+            String expression = allowed.get(name);
+            if (expression == null) {
+                throw new IllegalArgumentException("Unknown column: " + name);
+            }
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            select.append(expression.equals(name) ? name : expression + " AS " + name);
+        }
+        return select.toString();
+    }
+
+    boolean has(String column) {
+        return columns == null || columns.contains(column);
+    }
+
+    String getString(ResultSet rs, String column) throws SQLException {
+        return has(column) ? rs.getString(column) : null;
+    }
+
+    int getInt(ResultSet rs, String column) throws SQLException {
+        return has(column) ? rs.getInt(column) : 0;
+    }
+
+    double getDouble(ResultSet rs, String column) throws SQLException {
+        return has(column) ? rs.getDouble(column) : 0;
+    }
+
+    long getMoney(ResultSet rs, String column) throws SQLException {
+        return has(column) ? Money.read(rs, column) : 0;
+    }
+
+    boolean getBoolean(ResultSet rs, String column) throws SQLException {
+        return has(column) && rs.getBoolean(column);
+    }
+
+    Timestamp getTimestamp(ResultSet rs, String column) throws SQLException {
+        return has(column) ? rs.getTimestamp(column) : null;
+    }
+
+    java.sql.Date getDate(ResultSet rs, String column) throws SQLException {
+        return has(column) ? rs.getDate(column) : null;
+    }
+
+    <T> T getObject(ResultSet rs, String column, Class<T> type) throws SQLException {
+        return has(column) ? rs.getObject(column, type) : null;
+    }
+}
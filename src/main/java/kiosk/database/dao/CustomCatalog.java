@@ -0,0 +1,364 @@
+package kiosk.database.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kiosk.model.AddonCategory;
+import kiosk.model.AddonCategory.SelectionType;
+import kiosk.model.CustomProduct;
+import kiosk.model.OrderAddOn;
+import kiosk.model.OrderAddOn.PriceType;
+
+/**
+ * Immutable snapshot of the custom-order catalog: base products, add-on
+ * categories, add-ons and the product to add-on category compatibility map.
+ * Loaded in four bulk queries and replaced as a whole when the catalog is
+ * edited, so readers never see a half-updated catalog. Each snapshot keeps the
+ * change stamp of the tables it was read from (see {@link #readStamp}).
+ *
+ * Lists and the objects in them are shared by every reader and must be
+ * treated as read-only; {@link #newOrderAddon(String)} hands out a copy for
+ * adding to an order.
+ */
+public final class CustomCatalog {
+    private static final Comparator<OrderAddOn> ADDON_ORDER =
+        Comparator.comparing(OrderAddOn::isPremium).reversed()
+                  .thenComparing(OrderAddOn::getAddonName, Comparator.nullsFirst(String::compareTo));
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version = VERSIONS.incrementAndGet();
+    private String stamp = "";
+    private final List<CustomProduct> activeProducts;
+    private final Map<String, CustomProduct> productsByCode;
+    private final Map<String, List<CustomProduct>> productsByCategory;
+    private final List<AddonCategory> addonCategories;
+    private final List<OrderAddOn> activeAddons;
+    private final Set<String> activeAddonCodes;
+    private final Map<String, OrderAddOn> addonsByCode;
+    private final Map<Integer, OrderAddOn> addonsById;
+    private final Map<String, List<OrderAddOn>> addonsByCategory;
+    private final Map<String, List<AddonCategory>> compatibleCategories;
+
+    private CustomCatalog(List<CustomProduct> products, List<AddonCategory> categories,
+                          List<OrderAddOn> addons, List<OrderAddOn> activeAddons,
+                          Map<String, List<AddonCategory>> compatibility) {
+        Map<String, CustomProduct> byCode = new HashMap<>();
+        Map<String, List<CustomProduct>> byCategory = new HashMap<>();
+        List<CustomProduct> active = new ArrayList<>();
+        for (CustomProduct product : products) {
+            byCode.put(product.getProductCode(), product);
+            if (product.isActive()) {
+                active.add(product);
+                byCategory.computeIfAbsent(product.getCategoryCode(), k -> new ArrayList<>()).add(product);
+            }
+        }
+        byCategory.values().forEach(list -> list.sort(
+            Comparator.comparing(CustomProduct::getProductName, Comparator.nullsFirst(String::compareTo))));
+
+        Map<String, OrderAddOn> addonByCode = new HashMap<>();
+        Map<Integer, OrderAddOn> addonById = new HashMap<>();
+        Map<String, List<OrderAddOn>> addonByCategory = new HashMap<>();
+        Set<String> activeCodes = new HashSet<>();
+        for (OrderAddOn addon : addons) {
+            addonByCode.put(addon.getAddonCode(), addon);
+            addonById.put(addon.getId(), addon);
+        }
+        for (OrderAddOn addon : activeAddons) {
+            addonByCategory.computeIfAbsent(addon.getCategoryCode(), k -> new ArrayList<>()).add(addon);
+            activeCodes.add(addon.getAddonCode());
+        }
+        addonByCategory.values().forEach(list -> list.sort(ADDON_ORDER));
+        List<OrderAddOn> activeSorted = new ArrayList<>(activeAddons);
+        activeSorted.sort(Comparator.comparing(OrderAddOn::getCategoryCode)
+            .thenComparing(OrderAddOn::getAddonName, Comparator.nullsFirst(String::compareTo)));
+
+        this.activeProducts = Collections.unmodifiableList(active);
+        this.productsByCode = byCode;
+        this.productsByCategory = freeze(byCategory);
+        this.addonCategories = Collections.unmodifiableList(categories);
+        this.activeAddons = Collections.unmodifiableList(activeSorted);
+        this.activeAddonCodes = activeCodes;
+        this.addonsByCode = addonByCode;
+        this.addonsById = addonById;
+        this.addonsByCategory = freeze(addonByCategory);
+        this.compatibleCategories = freeze(compatibility);
+    }
+
+    /**
+     * Read the whole catalog from the database
+     */
+    static CustomCatalog load(Connection connection) throws SQLException {
+        // Read first: a change made while loading leaves the stamp behind and is picked up next check
+        String stamp = readStamp(connection);
+        List<CustomProduct> products = new ArrayList<>();
+        List<AddonCategory> categories = new ArrayList<>();
+        List<OrderAddOn> addons = new ArrayList<>();
+        List<OrderAddOn> activeAddons = new ArrayList<>();
+        Map<String, List<AddonCategory>> compatibility = new HashMap<>();
+
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT bp.*, cat.category_name " +
+                    "FROM custom_order_base_products bp " +
+                    "JOIN custom_order_categories cat ON bp.category_code = cat.category_code " +
+                    "ORDER BY cat.display_order, bp.product_name")) {
+                while (rs.next()) {
+                    products.add(CustomProductDAO.extractProductFromResultSet(rs));
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM addon_categories ORDER BY display_order")) {
+                while (rs.next()) {
+                    categories.add(extractCategoryFromResultSet(rs, rs.getBoolean("is_required"),
+                                                                rs.getInt("display_order")));
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT a.*, ac.category_name " +
+                    "FROM addons a " +
+                    "JOIN addon_categories ac ON a.category_code = ac.category_code")) {
+                while (rs.next()) {
+                    OrderAddOn addon = extractAddonFromResultSet(rs);
+                    addons.add(addon);
+                    if (rs.getBoolean("is_active")) {
+                        activeAddons.add(addon);
+                    }
+                }
+            }
+
+            // Per-product settings (required, display order) come from the compatibility row
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT ac.*, pac.product_code, pac.is_required AS pac_required, " +
+                    "pac.display_order AS pac_display_order " +
+                    "FROM addon_categories ac " +
+                    "JOIN product_addon_compatibility pac ON ac.category_code = pac.addon_category_code " +
+                    "ORDER BY pac.product_code, pac.display_order, ac.category_name")) {
+                while (rs.next()) {
+                    compatibility.computeIfAbsent(rs.getString("product_code"), k -> new ArrayList<>())
+                        .add(extractCategoryFromResultSet(rs, rs.getBoolean("pac_required"),
+                                                          rs.getInt("pac_display_order")));
+                }
+            }
+        }
+
+        CustomCatalog catalog = new CustomCatalog(products, categories, addons, activeAddons, compatibility);
+        catalog.stamp = stamp;
+        return catalog;
+    }
+
+    /**
+     * Change stamp of the catalog tables: latest updated_at and row count of the
+     * products and add-ons, and row counts of the add-on categories and the
+     * compatibility map (which have no updated_at). Any insert, update or delete
+     * changes it.
+     */
+    static String readStamp(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT (SELECT MAX(updated_at) FROM custom_order_base_products), " +
+                 "(SELECT COUNT(*) FROM custom_order_base_products), " +
+                 "(SELECT MAX(updated_at) FROM addons), " +
+                 "(SELECT COUNT(*) FROM addons), " +
+                 "(SELECT COUNT(*) FROM addon_categories), " +
+                 "(SELECT COUNT(*) FROM product_addon_compatibility)")) {
+            StringBuilder stamp = new StringBuilder();
+            if (rs.next()) {
+                for (int i = 1; i <= 6; i++) {
+                    stamp.append(rs.getString(i)).append('|');
+                }
+            }
+            return stamp.toString();
+        }
+    }
+
+    /**
+     * Empty catalog, used when the database cannot be read
+     */
+    static CustomCatalog empty() {
+        return new CustomCatalog(Collections.emptyList(), Collections.emptyList(),
+                                 Collections.emptyList(), Collections.emptyList(), Collections.emptyMap());
+    }
+
+    /**
+     * Change stamp of the tables when this snapshot was read
+     */
+    String getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Increases with every snapshot, so caches derived from a catalog can tell when it was replaced
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Every product, active or not
+     */
+    public Collection<CustomProduct> getAllProducts() {
+        return Collections.unmodifiableCollection(productsByCode.values());
+    }
+
+    /**
+     * Active products, by category display order then name
+     */
+    public List<CustomProduct> getActiveProducts() {
+        return activeProducts;
+    }
+
+    /**
+     * Active products in a category, by name
+     */
+    public List<CustomProduct> getProductsByCategory(String categoryCode) {
+        return productsByCategory.getOrDefault(categoryCode, Collections.emptyList());
+    }
+
+    /**
+     * Product by code, active or not
+     */
+    public CustomProduct getProduct(String productCode) {
+        return productsByCode.get(productCode);
+    }
+
+    /**
+     * All add-on categories, by display order
+     */
+    public List<AddonCategory> getAddonCategories() {
+        return addonCategories;
+    }
+
+    /**
+     * Add-on categories offered for a product, with the product's required flag and order
+     */
+    public List<AddonCategory> getCompatibleCategories(String productCode) {
+        return compatibleCategories.getOrDefault(productCode, Collections.emptyList());
+    }
+
+    /**
+     * All active add-ons, by category code then name
+     */
+    public List<OrderAddOn> getActiveAddons() {
+        return activeAddons;
+    }
+
+    /**
+     * Active add-ons in a category, premium first then by name
+     */
+    public List<OrderAddOn> getAddonsByCategory(String categoryCode) {
+        return addonsByCategory.getOrDefault(categoryCode, Collections.emptyList());
+    }
+
+    /**
+     * Active add-ons for every category compatible with a product
+     */
+    public Map<String, List<OrderAddOn>> getProductAddons(String productCode) {
+        Map<String, List<OrderAddOn>> result = new LinkedHashMap<>();
+        for (AddonCategory category : getCompatibleCategories(productCode)) {
+            result.put(category.getCategoryCode(), getAddonsByCategory(category.getCategoryCode()));
+        }
+        return result;
+    }
+
+    /**
+     * Every add-on, active or not
+     */
+    public Collection<OrderAddOn> getAllAddons() {
+        return Collections.unmodifiableCollection(addonsByCode.values());
+    }
+
+    /**
+     * Add-on by code, active or not
+     */
+    public OrderAddOn getAddon(String addonCode) {
+        return addonsByCode.get(addonCode);
+    }
+
+    public OrderAddOn getAddonById(int addonId) {
+        return addonsById.get(addonId);
+    }
+
+    public boolean isAddonActive(String addonCode) {
+        return activeAddonCodes.contains(addonCode);
+    }
+
+    /**
+     * Fresh copy of an add-on that can be priced and attached to an order, or null
+     */
+    public OrderAddOn newOrderAddon(String addonCode) {
+        OrderAddOn source = addonsByCode.get(addonCode);
+        if (source == null) {
+            return null;
+        }
+        OrderAddOn addon = new OrderAddOn();
+        addon.setId(source.getId());
+        addon.setAddonCode(source.getAddonCode());
+        addon.setAddonName(source.getAddonName());
+        addon.setCategoryCode(source.getCategoryCode());
+        addon.setCategoryName(source.getCategoryName());
+        addon.setDescription(source.getDescription());
+        addon.setPriceModifier(source.getPriceModifier());
+        addon.setPriceType(source.getPriceType());
+        addon.setPremium(source.isPremium());
+        return addon;
+    }
+
+    private static AddonCategory extractCategoryFromResultSet(ResultSet rs, boolean required, int displayOrder)
+            throws SQLException {
+        AddonCategory category = new AddonCategory();
+        category.setId(rs.getInt("id"));
+        category.setCategoryCode(rs.getString("category_code"));
+        category.setCategoryName(rs.getString("category_name"));
+        category.setDescription(rs.getString("description"));
+
+        String selectionType = rs.getString("selection_type");
+        if (selectionType != null) {
+            category.setSelectionType(SelectionType.valueOf(selectionType));
+        }
+
+        category.setMaxSelections(rs.getInt("max_selections"));
+        category.setRequired(required);
+        category.setDisplayOrder(displayOrder);
+        return category;
+    }
+
+    private static OrderAddOn extractAddonFromResultSet(ResultSet rs) throws SQLException {
+        OrderAddOn addon = new OrderAddOn();
+        addon.setId(rs.getInt("id"));
+        addon.setAddonCode(rs.getString("addon_code"));
+        addon.setAddonName(rs.getString("addon_name"));
+        addon.setCategoryCode(rs.getString("category_code"));
+        addon.setCategoryName(rs.getString("category_name"));
+        addon.setDescription(rs.getString("description"));
+        addon.setPriceModifier(rs.getDouble("price_modifier"));
+
+        String priceType = rs.getString("price_type");
+        if (priceType != null) {
+            addon.setPriceType(PriceType.valueOf(priceType));
+        }
+
+        addon.setPremium(rs.getBoolean("is_premium"));
+        return addon;
+    }
+
+    private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> map) {
+        Map<K, List<V>> frozen = new HashMap<>();
+        map.forEach((key, list) -> frozen.put(key, Collections.unmodifiableList(list)));
+        return frozen;
+    }
+}
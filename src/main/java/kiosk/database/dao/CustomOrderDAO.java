@@ -1,20 +1,98 @@
 package kiosk.database.dao;
 
 import java.sql.*;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import kiosk.database.DatabaseConnection;
+import kiosk.database.PickupSlotIndex;
+import kiosk.database.SqlDialect;
 import kiosk.model.CustomOrder;
 import kiosk.model.CustomOrder.*;
 import kiosk.model.OrderAddOn;
+import kiosk.model.OrderEvent;
+import kiosk.model.OrderSummary;
+import kiosk.util.Money;
 
 /**
  * Data Access Object for Custom Orders
  */
 public class CustomOrderDAO {
+    // Columns a listing may project (name -> expression); id and created_at are always selected
+    private static final Map<String, String> LISTING_COLUMNS = new LinkedHashMap<>();
+    static {
+        for (String column : new String[] {"id", "order_number", "customer_id", "product_code", "order_type",
+                "servings", "message_on_item", "special_instructions", "base_price", "addons_total", "subtotal",
+                "discount_amount", "tax_amount", "delivery_fee", "total_amount", "deposit_required",
+                "deposit_paid", "deposit_payment_method", "balance_due", "payment_status", "fulfillment_type",
+                "pickup_datetime", "delivery_address_id", "delivery_datetime", "order_status", "admin_notes",
+                "cancellation_reason", "assigned_baker", "assigned_decorator", "created_at", "confirmed_at",
+                "version"}) {
+            LISTING_COLUMNS.put(column, "co." + column);
+        }
+        LISTING_COLUMNS.put("product_name", "bp.product_name");
+    }
+    
+    // Narrow select behind the order list views
+    private static final String SUMMARY_SELECT = "SELECT co.id, co.order_number, co.customer_id, bp.product_name, " +
+                    "co.servings, co.total_amount, co.deposit_paid, co.balance_due, co.order_status, " +
+                    "co.fulfillment_type, co.pickup_datetime, co.created_at " +
+                    "FROM custom_orders co " +
+                    "JOIN custom_order_base_products bp ON co.product_code = bp.product_code";
+    
+    // Full order rows with product and customer names
+    private static final String ORDER_SELECT = "SELECT co.*, bp.product_name, " +
+                    "{concat(c.first_name, ' ', c.last_name)} as customer_name, " +
+                    "c.phone as customer_phone " +
+                    "FROM custom_orders co " +
+                    "JOIN custom_order_base_products bp ON co.product_code = bp.product_code " +
+                    "JOIN customers c ON co.customer_id = c.customer_id ";
+    private static final SqlDialect.Template ALL_ORDERS = SqlDialect.template(
+            ORDER_SELECT + "ORDER BY co.created_at DESC");
+    private static final SqlDialect.Template ORDERS_BY_STATUS = SqlDialect.template(
+            ORDER_SELECT + "WHERE co.order_status = ? ORDER BY co.pickup_datetime ASC");
+    private static final SqlDialect.Template UPCOMING_ORDERS = SqlDialect.template(
+            ORDER_SELECT + "WHERE co.pickup_datetime BETWEEN ? AND ? " +
+            "AND co.order_status IN ('CONFIRMED', 'IN_PRODUCTION', 'READY') " +
+            "ORDER BY co.pickup_datetime ASC");
+    private static final SqlDialect.Template ADMIN_NOTES_UPDATE = SqlDialect.template(
+            "UPDATE custom_orders SET admin_notes = ?, updated_at = {now} WHERE order_number = ?");
+    
+    // update(order) writes only the columns changed since the order was read;
+    // order_status, payment_status and assigned_baker are left to OrderLifecycle,
+    // which logs an event for each change
+    private static final PartialUpdate<CustomOrder> ORDER_UPDATE = new PartialUpdate<CustomOrder>(
+            "custom_orders", "version = version + 1, updated_at = {now}", "order_number = ? AND version = ?")
+        .column("customer_id", (pstmt, i, order) -> pstmt.setString(i, order.getCustomerId()))
+        .column("product_code", (pstmt, i, order) -> pstmt.setString(i, order.getProductCode()))
+        .column("order_type", (pstmt, i, order) -> pstmt.setString(i, order.getOrderType()))
+        .column("servings", (pstmt, i, order) -> pstmt.setInt(i, order.getServings()))
+        .column("message_on_item", (pstmt, i, order) -> pstmt.setString(i, order.getMessageOnItem()))
+        .column("special_instructions", (pstmt, i, order) -> pstmt.setString(i, order.getSpecialInstructions()))
+        .column("base_price", (pstmt, i, order) -> Money.bind(pstmt, i, order.getBasePriceCents()))
+        .column("addons_total", (pstmt, i, order) -> Money.bind(pstmt, i, order.getAddonsTotalCents()))
+        .column("subtotal", (pstmt, i, order) -> Money.bind(pstmt, i, order.getSubtotalCents()))
+        .column("discount_amount", (pstmt, i, order) -> Money.bind(pstmt, i, order.getDiscountAmountCents()))
+        .column("tax_amount", (pstmt, i, order) -> Money.bind(pstmt, i, order.getTaxAmountCents()))
+        .column("delivery_fee", (pstmt, i, order) -> Money.bind(pstmt, i, order.getDeliveryFeeCents()))
+        .column("total_amount", (pstmt, i, order) -> Money.bind(pstmt, i, order.getTotalAmountCents()))
+        .column("deposit_required", (pstmt, i, order) -> Money.bind(pstmt, i, order.getDepositRequiredCents()))
+        .column("fulfillment_type", (pstmt, i, order) -> pstmt.setString(i, order.getFulfillmentType().toString()))
+        .column("pickup_datetime", (pstmt, i, order) -> pstmt.setTimestamp(i, timestamp(order.getPickupDatetime())))
+        .column("delivery_address_id", (pstmt, i, order) -> pstmt.setObject(i, order.getDeliveryAddressId()))
+        .column("delivery_datetime", (pstmt, i, order) -> pstmt.setTimestamp(i, timestamp(order.getDeliveryDatetime())))
+        .column("balance_due", (pstmt, i, order) -> Money.bind(pstmt, i, order.getBalanceDueCents()))
+        .column("admin_notes", (pstmt, i, order) -> pstmt.setString(i, order.getAdminNotes()))
+        .column("assigned_decorator", (pstmt, i, order) -> pstmt.setString(i, order.getAssignedDecorator()));
+    
     private Connection connection;
     
     public CustomOrderDAO() {
@@ -22,26 +100,10 @@ public class CustomOrderDAO {
     }
     
     /**
-     * Generate unique order number
+     * Generate unique order number (unique across stations, see RecordIds)
      */
     private String generateOrderNumber() {
-        String datePart = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String sql = "SELECT COUNT(*) FROM custom_orders WHERE order_number LIKE ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "CO-" + datePart + "%");
-            ResultSet rs = pstmt.executeQuery();
-            
-            int count = 0;
-            if (rs.next()) {
-                count = rs.getInt(1);
-            }
-            
-            return String.format("CO-%s-%04d", datePart, count + 1);
-        } catch (SQLException e) {
-            System.err.println("Error generating order number: " + e.getMessage());
-            return "CO-" + datePart + "-0001";
-        }
+        return RecordIds.next("CO");
     }
     
     /**
@@ -70,14 +132,14 @@ public class CustomOrderDAO {
                 pstmt.setInt(5, order.getServings());
                 pstmt.setString(6, order.getMessageOnItem());
                 pstmt.setString(7, order.getSpecialInstructions());
-                pstmt.setDouble(8, order.getBasePrice());
-                pstmt.setDouble(9, order.getAddonsTotal());
-                pstmt.setDouble(10, order.getSubtotal());
-                pstmt.setDouble(11, order.getDiscountAmount());
-                pstmt.setDouble(12, order.getTaxAmount());
-                pstmt.setDouble(13, order.getDeliveryFee());
-                pstmt.setDouble(14, order.getTotalAmount());
-                pstmt.setDouble(15, order.getDepositRequired());
+                Money.bind(pstmt, 8, order.getBasePriceCents());
+                Money.bind(pstmt, 9, order.getAddonsTotalCents());
+                Money.bind(pstmt, 10, order.getSubtotalCents());
+                Money.bind(pstmt, 11, order.getDiscountAmountCents());
+                Money.bind(pstmt, 12, order.getTaxAmountCents());
+                Money.bind(pstmt, 13, order.getDeliveryFeeCents());
+                Money.bind(pstmt, 14, order.getTotalAmountCents());
+                Money.bind(pstmt, 15, order.getDepositRequiredCents());
                 pstmt.setString(16, order.getPaymentStatus().toString());
                 pstmt.setString(17, order.getFulfillmentType().toString());
                 pstmt.setTimestamp(18, Timestamp.valueOf(order.getPickupDatetime()));
@@ -85,7 +147,7 @@ public class CustomOrderDAO {
                 pstmt.setTimestamp(20, order.getDeliveryDatetime() != null ? 
                                   Timestamp.valueOf(order.getDeliveryDatetime()) : null);
                 pstmt.setString(21, order.getOrderStatus().toString());
-                pstmt.setDouble(22, order.getBalanceDue());
+                Money.bind(pstmt, 22, order.getBalanceDueCents());
                 
                 int rowsAffected = pstmt.executeUpdate();
                 
@@ -97,13 +159,30 @@ public class CustomOrderDAO {
                 }
             }
             
+            // The slot index only knows this station; enforce capacity against every station's orders
+            PickupSlotIndex slots = PickupSlotIndex.getInstance();
+            if (slots.isLoaded() && !slots.fitsStored(connection, order.getOrderType(), order.getPickupDatetime(), 0)) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                System.err.println("Order not saved: pickup slot " + order.getPickupDatetime() + " is fully booked");
+                return false;
+            }
+            
             // Insert add-ons
             if (order.getAddons() != null && !order.getAddons().isEmpty()) {
                 insertAddons(orderNumber, order.getAddons());
             }
             
+            // Start the order's lifecycle log
+            List<OrderEvent> events = Collections.singletonList(new OrderEvent(
+                orderNumber, OrderEvent.Type.CREATED, null, order.getOrderStatus(), null, order.getCustomerId()));
+            new OrderEventDAO().append(events);
+            
             connection.commit();
             connection.setAutoCommit(true);
+            order.getChangeTracker().reset();
+            OrderStatisticsCache.getInstance().orderInserted(order);
+            OrderLifecycle.getInstance().publish(events);
             return true;
             
         } catch (SQLException e) {
@@ -133,7 +212,7 @@ public class CustomOrderDAO {
                 pstmt.setString(3, addon.getCategoryCode());
                 pstmt.setInt(4, addon.getQuantity());
                 pstmt.setDouble(5, addon.getPriceModifier());
-                pstmt.setDouble(6, addon.getTotalAddonPrice());
+                Money.bind(pstmt, 6, addon.getTotalAddonPriceCents());
                 pstmt.addBatch();
             }
             pstmt.executeBatch();
@@ -141,43 +220,27 @@ public class CustomOrderDAO {
     }
     
     /**
-     * Update order status
+     * Update order status (only if the transition is allowed, see OrderLifecycle)
      */
     public boolean updateStatus(String orderNumber, OrderStatus newStatus) {
-        String sql = "UPDATE custom_orders SET order_status = ?, updated_at = NOW() WHERE order_number = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, newStatus.toString());
-            pstmt.setString(2, orderNumber);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error updating order status: " + e.getMessage());
-            return false;
-        }
+        return !OrderLifecycle.getInstance()
+            .changeStatus(Collections.singletonList(orderNumber), newStatus, null, null)
+            .updated.isEmpty();
+    }
+    
+    /**
+     * Move several orders to a new status in one transaction, skipping and reporting
+     * any that may not make the transition (see OrderLifecycle)
+     */
+    public BulkStatusResult updateStatuses(List<String> orderNumbers, OrderStatus newStatus) {
+        return OrderLifecycle.getInstance().changeStatus(orderNumbers, newStatus, null, null);
     }
     
     /**
      * Update payment status
      */
     public boolean updatePaymentStatus(String orderNumber, PaymentStatus newStatus, double depositPaid) {
-        String sql = "UPDATE custom_orders SET payment_status = ?, deposit_paid = ?, " +
-                    "balance_due = total_amount - ?, deposit_paid_at = NOW(), updated_at = NOW() " +
-                    "WHERE order_number = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, newStatus.toString());
-            pstmt.setDouble(2, depositPaid);
-            pstmt.setDouble(3, depositPaid);
-            pstmt.setString(4, orderNumber);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error updating payment status: " + e.getMessage());
-            return false;
-        }
+        return OrderLifecycle.getInstance().recordPayment(orderNumber, newStatus, Money.ofPesos(depositPaid), null);
     }
     
     /**
@@ -236,15 +299,9 @@ public class CustomOrderDAO {
      */
     public List<CustomOrder> getAllOrders() {
         List<CustomOrder> orders = new ArrayList<>();
-        String sql = "SELECT co.*, bp.product_name, " +
-                    "CONCAT(c.first_name, ' ', c.last_name) as customer_name " +
-                    "FROM custom_orders co " +
-                    "JOIN custom_order_base_products bp ON co.product_code = bp.product_code " +
-                    "JOIN customers c ON co.customer_id = c.customer_id " +
-                    "ORDER BY co.created_at DESC";
         
         try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
+            ResultSet rs = stmt.executeQuery(ALL_ORDERS.sql());
             
             while (rs.next()) {
                 CustomOrder order = extractOrderFromResultSet(rs);
@@ -259,21 +316,150 @@ public class CustomOrderDAO {
         return orders;
     }
     
+    /**
+     * List orders newest first, one page at a time (keyset pagination).
+     * Pass null as the cursor for the first page, then the previous page's next cursor.
+     * With no columns given the full order including add-ons is loaded; with a
+     * projection only those columns are read and add-ons are skipped.
+     */
+    public KeysetPage<CustomOrder> listOrders(KeysetCursor after, int pageSize, String... columns) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        
+        KeysetPage<CustomOrder> page = KeysetPage.empty();
+        String sql = "SELECT " + ColumnSet.selectList(LISTING_COLUMNS, Arrays.asList("id", "created_at"), columns) +
+                    " FROM custom_orders co " +
+                    "JOIN custom_order_base_products bp ON co.product_code = bp.product_code" +
+                    (after != null ? " WHERE " + KeysetCursor.seekCondition("co.") : "") +
+                    " ORDER BY co.created_at DESC, co.id DESC LIMIT ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = after != null ? after.bind(pstmt, 1) : 1;
+            // One extra row tells whether another page exists
+            pstmt.setInt(index, pageSize + 1);
+            
+            ResultSet rs = pstmt.executeQuery();
+            ColumnSet selected = ColumnSet.of(rs);
+            page = KeysetPage.read(rs, pageSize, row -> extractOrderFromResultSet(row, selected));
+        } catch (SQLException e) {
+            System.err.println("Error listing orders: " + e.getMessage());
+        }
+        
+        if (columns == null || columns.length == 0) {
+            List<String> orderNumbers = new ArrayList<>();
+            for (CustomOrder order : page.getItems()) {
+                orderNumbers.add(order.getOrderNumber());
+            }
+            Map<String, List<OrderAddOn>> addons = getOrderAddons(orderNumbers);
+            for (CustomOrder order : page.getItems()) {
+                order.setAddons(addons.getOrDefault(order.getOrderNumber(), new ArrayList<>()));
+            }
+        }
+        
+        return page;
+    }
+    
+    /**
+     * Order summaries newest first, one page at a time
+     */
+    public KeysetPage<OrderSummary> listOrderSummaries(KeysetCursor after, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        
+        String sql = SUMMARY_SELECT +
+                    (after != null ? " WHERE " + KeysetCursor.seekCondition("co.") : "") +
+                    " ORDER BY co.created_at DESC, co.id DESC LIMIT ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = after != null ? after.bind(pstmt, 1) : 1;
+            pstmt.setInt(index, pageSize + 1);
+            
+            ResultSet rs = pstmt.executeQuery();
+            return KeysetPage.read(rs, pageSize, this::extractSummaryFromResultSet);
+        } catch (SQLException e) {
+            System.err.println("Error listing order summaries: " + e.getMessage());
+        }
+        
+        return KeysetPage.empty();
+    }
+    
+    /**
+     * Orders needing attention, by pickup time: pending confirmation, ready for
+     * pickup, and confirmed or in production with the pickup time already past
+     */
+    public List<OrderSummary> findAlertOrders(LocalDateTime now) {
+        List<OrderSummary> orders = new ArrayList<>();
+        String sql = SUMMARY_SELECT + " WHERE co.order_status IN ('PENDING', 'READY') " +
+                    "OR (co.order_status IN ('CONFIRMED', 'IN_PRODUCTION') AND co.pickup_datetime < ?) " +
+                    "ORDER BY co.pickup_datetime";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(now));
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                orders.add(extractSummaryFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding order alerts: " + e.getMessage());
+        }
+        
+        return orders;
+    }
+    
+    /**
+     * Order summaries for a customer, newest first; status may be null for all orders
+     */
+    public List<OrderSummary> findOrderSummariesByCustomer(String customerId, String status) {
+        List<OrderSummary> orders = new ArrayList<>();
+        String sql = SUMMARY_SELECT + " WHERE co.customer_id = ?" +
+                    (status != null ? " AND co.order_status = ?" : "") +
+                    " ORDER BY co.created_at DESC";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, customerId);
+            if (status != null) {
+                pstmt.setString(2, status);
+            }
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                orders.add(extractSummaryFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding customer order summaries: " + e.getMessage());
+        }
+        
+        return orders;
+    }
+    
+    /**
+     * Total number of orders
+     */
+    public int countOrders() {
+        String sql = "SELECT COUNT(*) FROM custom_orders";
+        
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting orders: " + e.getMessage());
+        }
+        
+        return 0;
+    }
+    
     /**
      * Get orders by status
      */
     public List<CustomOrder> findByStatus(OrderStatus status) {
         List<CustomOrder> orders = new ArrayList<>();
-        String sql = "SELECT co.*, bp.product_name, " +
-                    "CONCAT(c.first_name, ' ', c.last_name) as customer_name, " +
-                    "c.phone as customer_phone " +
-                    "FROM custom_orders co " +
-                    "JOIN custom_order_base_products bp ON co.product_code = bp.product_code " +
-                    "JOIN customers c ON co.customer_id = c.customer_id " +
-                    "WHERE co.order_status = ? " +
-                    "ORDER BY co.pickup_datetime ASC";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = connection.prepareStatement(ORDERS_BY_STATUS.sql())) {
             pstmt.setString(1, status.toString());
             ResultSet rs = pstmt.executeQuery();
             
@@ -295,18 +481,12 @@ public class CustomOrderDAO {
      */
     public List<CustomOrder> getUpcomingOrders() {
         List<CustomOrder> orders = new ArrayList<>();
-        String sql = "SELECT co.*, bp.product_name, " +
-                    "CONCAT(c.first_name, ' ', c.last_name) as customer_name, " +
-                    "c.phone as customer_phone " +
-                    "FROM custom_orders co " +
-                    "JOIN custom_order_base_products bp ON co.product_code = bp.product_code " +
-                    "JOIN customers c ON co.customer_id = c.customer_id " +
-                    "WHERE co.pickup_datetime BETWEEN NOW() AND DATE_ADD(NOW(), INTERVAL 7 DAY) " +
-                    "AND co.order_status IN ('CONFIRMED', 'IN_PRODUCTION', 'READY') " +
-                    "ORDER BY co.pickup_datetime ASC";
+        LocalDateTime now = LocalDateTime.now();
         
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
+        try (PreparedStatement pstmt = connection.prepareStatement(UPCOMING_ORDERS.sql())) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(now));
+            pstmt.setTimestamp(2, Timestamp.valueOf(now.plusDays(7)));
+            ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 CustomOrder order = extractOrderFromResultSet(rs);
@@ -337,17 +517,7 @@ public class CustomOrderDAO {
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                OrderAddOn addon = new OrderAddOn();
-                addon.setId(rs.getInt("id"));
-                addon.setAddonCode(rs.getString("addon_code"));
-                addon.setAddonName(rs.getString("addon_name"));
-                addon.setCategoryCode(rs.getString("addon_category"));
-                addon.setCategoryName(rs.getString("category_name"));
-                addon.setQuantity(rs.getInt("quantity"));
-                addon.setPriceModifier(rs.getDouble("price_modifier"));
-                addon.setTotalAddonPrice(rs.getDouble("total_addon_price"));
-                addon.setDescription(rs.getString("description"));
-                addons.add(addon);
+                addons.add(extractAddonFromResultSet(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting order addons: " + e.getMessage());
@@ -357,12 +527,56 @@ public class CustomOrderDAO {
     }
     
     /**
-     * Update order with admin notes
+     * Add-ons for several orders in one query, keyed by order number
      */
-    public boolean updateAdminNotes(String orderNumber, String notes) {
-        String sql = "UPDATE custom_orders SET admin_notes = ?, updated_at = NOW() WHERE order_number = ?";
+    private Map<String, List<OrderAddOn>> getOrderAddons(List<String> orderNumbers) {
+        Map<String, List<OrderAddOn>> addons = new HashMap<>();
+        if (orderNumbers.isEmpty()) {
+            return addons;
+        }
+        String sql = "SELECT oa.*, a.addon_name, a.description, ac.category_name " +
+                    "FROM custom_order_addons oa " +
+                    "JOIN addons a ON oa.addon_code = a.addon_code " +
+                    "JOIN addon_categories ac ON oa.addon_category = ac.category_code " +
+                    "WHERE oa.order_number IN (" +
+                    String.join(", ", Collections.nCopies(orderNumbers.size(), "?")) + ")";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < orderNumbers.size(); i++) {
+                pstmt.setString(i + 1, orderNumbers.get(i));
+            }
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                addons.computeIfAbsent(rs.getString("order_number"), k -> new ArrayList<>())
+                      .add(extractAddonFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting order addons: " + e.getMessage());
+        }
+        
+        return addons;
+    }
+    
+    private OrderAddOn extractAddonFromResultSet(ResultSet rs) throws SQLException {
+        OrderAddOn addon = new OrderAddOn();
+        addon.setId(rs.getInt("id"));
+        addon.setAddonCode(rs.getString("addon_code"));
+        addon.setAddonName(rs.getString("addon_name"));
+        addon.setCategoryCode(rs.getString("addon_category"));
+        addon.setCategoryName(rs.getString("category_name"));
+        addon.setQuantity(rs.getInt("quantity"));
+        addon.setPriceModifier(rs.getDouble("price_modifier"));
+        addon.setTotalAddonPriceCents(Money.read(rs, "total_addon_price"));
+        addon.setDescription(rs.getString("description"));
+        return addon;
+    }
+    
+    /**
+     * Update order with admin notes
+     */
+    public boolean updateAdminNotes(String orderNumber, String notes) {
+        try (PreparedStatement pstmt = connection.prepareStatement(ADMIN_NOTES_UPDATE.sql())) {
             pstmt.setString(1, notes);
             pstmt.setString(2, orderNumber);
             
@@ -378,83 +592,79 @@ public class CustomOrderDAO {
      * Assign baker to order
      */
     public boolean assignBaker(String orderNumber, String bakerName) {
-        String sql = "UPDATE custom_orders SET assigned_baker = ?, updated_at = NOW() WHERE order_number = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, bakerName);
-            pstmt.setString(2, orderNumber);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error assigning baker: " + e.getMessage());
-            return false;
-        }
+        return OrderLifecycle.getInstance().assignBaker(orderNumber, bakerName, null);
     }
     
     /**
      * Cancel order
      */
     public boolean cancelOrder(String orderNumber, String reason, String cancelledBy) {
-        String sql = "UPDATE custom_orders SET order_status = 'CANCELLED', " +
-                    "cancellation_reason = ?, cancelled_by = ?, cancelled_at = NOW(), updated_at = NOW() " +
-                    "WHERE order_number = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, reason);
-            pstmt.setString(2, cancelledBy);
-            pstmt.setString(3, orderNumber);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error cancelling order: " + e.getMessage());
-            return false;
-        }
+        return !cancelOrders(Collections.singletonList(orderNumber), reason, cancelledBy).updated.isEmpty();
     }
     
     /**
-     * Update entire order (comprehensive update)
+     * Cancel several orders in one transaction, reporting the ones that could not be cancelled
+     */
+    public BulkStatusResult cancelOrders(List<String> orderNumbers, String reason, String cancelledBy) {
+        return OrderLifecycle.getInstance().changeStatus(orderNumbers, OrderStatus.CANCELLED, reason, cancelledBy);
+    }
+    
+    /**
+     * Update entire order (fails if it was changed elsewhere since it was read).
+     * Status, payment and baker changes are not written here: use OrderLifecycle
+     * (updateStatuses, updatePaymentStatus, assignBaker) so they are logged. An
+     * order carrying such changes is rejected (FAILED) rather than half-written.
      */
     public boolean update(CustomOrder order) {
-        String sql = "UPDATE custom_orders SET customer_id = ?, product_code = ?, order_type = ?, " +
-                    "servings = ?, message_on_item = ?, special_instructions = ?, base_price = ?, " +
-                    "addons_total = ?, subtotal = ?, discount_amount = ?, tax_amount = ?, " +
-                    "delivery_fee = ?, total_amount = ?, deposit_required = ?, payment_status = ?, " +
-                    "fulfillment_type = ?, pickup_datetime = ?, delivery_address_id = ?, " +
-                    "delivery_datetime = ?, order_status = ?, balance_due = ?, updated_at = NOW() " +
-                    "WHERE order_number = ?";
+        return update(order, null) == VersionedUpdate.Result.UPDATED;
+    }
+    
+    /**
+     * Update entire order, resolving conflicting edits with merge (null reports them)
+     */
+    public VersionedUpdate.Result update(CustomOrder order, VersionedUpdate.Merge<CustomOrder> merge) {
+        return VersionedUpdate.withRetry(order, this::updateIfCurrent,
+                                         stale -> findByOrderNumber(stale.getOrderNumber()), merge);
+    }
+    
+    /**
+     * Compare-and-set update on the order's version
+     */
+    private VersionedUpdate.Result updateIfCurrent(CustomOrder order) {
+        Set<String> notWritten = ORDER_UPDATE.unregistered(order.getChangeTracker());
+        if (!notWritten.isEmpty()) {
+            System.err.println("Error updating order " + order.getOrderNumber() + ": " + notWritten +
+                             " must be changed through OrderLifecycle");
+            return VersionedUpdate.Result.FAILED;
+        }
+        BitSet changed = ORDER_UPDATE.changed(order.getChangeTracker());
+        if (changed.isEmpty()) {
+            return VersionedUpdate.Result.UPDATED; // nothing to write
+        }
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, order.getCustomerId());
-            pstmt.setString(2, order.getProductCode());
-            pstmt.setString(3, order.getOrderType());
-            pstmt.setInt(4, order.getServings());
-            pstmt.setString(5, order.getMessageOnItem());
-            pstmt.setString(6, order.getSpecialInstructions());
-            pstmt.setDouble(7, order.getBasePrice());
-            pstmt.setDouble(8, order.getAddonsTotal());
-            pstmt.setDouble(9, order.getSubtotal());
-            pstmt.setDouble(10, order.getDiscountAmount());
-            pstmt.setDouble(11, order.getTaxAmount());
-            pstmt.setDouble(12, order.getDeliveryFee());
-            pstmt.setDouble(13, order.getTotalAmount());
-            pstmt.setDouble(14, order.getDepositRequired());
-            pstmt.setString(15, order.getPaymentStatus().toString());
-            pstmt.setString(16, order.getFulfillmentType().toString());
-            pstmt.setTimestamp(17, Timestamp.valueOf(order.getPickupDatetime()));
-            pstmt.setObject(18, order.getDeliveryAddressId());
-            pstmt.setTimestamp(19, order.getDeliveryDatetime() != null ? 
-                              Timestamp.valueOf(order.getDeliveryDatetime()) : null);
-            pstmt.setString(20, order.getOrderStatus().toString());
-            pstmt.setDouble(21, order.getBalanceDue());
-            pstmt.setString(22, order.getOrderNumber());
+        try (PreparedStatement pstmt = connection.prepareStatement(ORDER_UPDATE.sql(changed))) {
+            int index = ORDER_UPDATE.bind(pstmt, changed, order);
+            pstmt.setString(index++, order.getOrderNumber());
+            pstmt.setInt(index, order.getVersion());
             
             int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            VersionedUpdate.Result result = VersionedUpdate.afterUpdate(connection, rowsAffected,
+                                                                        "custom_orders", "order_number", order.getOrderNumber());
+            if (result == VersionedUpdate.Result.UPDATED) {
+                order.setVersion(order.getVersion() + 1);
+                order.getChangeTracker().reset();
+                OrderStatisticsCache.getInstance().orderUpdated(order);
+                if (order.getOrderStatus() == OrderStatus.CANCELLED) {
+                    PickupSlotIndex.getInstance().release(order.getOrderNumber());
+                } else {
+                    PickupSlotIndex.getInstance().rebook(order.getOrderNumber(), order.getOrderType(),
+                                                         order.getAssignedBaker(), order.getPickupDatetime());
+                }
+            }
+            return result;
         } catch (SQLException e) {
             System.err.println("Error updating order: " + e.getMessage());
-            return false;
+            return VersionedUpdate.Result.FAILED;
         }
     }
     
@@ -481,6 +691,10 @@ public class CustomOrderDAO {
                 
                 connection.commit();
                 connection.setAutoCommit(true);
+                if (rowsAffected > 0) {
+                    OrderStatisticsCache.getInstance().orderDeleted(orderNumber);
+                    PickupSlotIndex.getInstance().release(orderNumber);
+                }
                 return rowsAffected > 0;
             }
             
@@ -496,114 +710,162 @@ public class CustomOrderDAO {
         }
     }
     
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+    
     /**
      * Extract CustomOrder from ResultSet
      */
     private CustomOrder extractOrderFromResultSet(ResultSet rs) throws SQLException {
+        return extractOrderFromResultSet(rs, ColumnSet.ALL);
+    }
+    
+    /**
+     * Extract CustomOrder from a result set holding only the given columns
+     */
+    private CustomOrder extractOrderFromResultSet(ResultSet rs, ColumnSet columns) throws SQLException {
         CustomOrder order = new CustomOrder();
-        order.setId(rs.getInt("id"));
-        order.setOrderNumber(rs.getString("order_number"));
-        order.setCustomerId(rs.getString("customer_id"));
-        order.setProductCode(rs.getString("product_code"));
-        order.setProductName(rs.getString("product_name"));
-        order.setOrderType(rs.getString("order_type"));
-        order.setServings(rs.getInt("servings"));
-        order.setMessageOnItem(rs.getString("message_on_item"));
-        order.setSpecialInstructions(rs.getString("special_instructions"));
-        order.setBasePrice(rs.getDouble("base_price"));
-        order.setAddonsTotal(rs.getDouble("addons_total"));
-        order.setSubtotal(rs.getDouble("subtotal"));
-        order.setDiscountAmount(rs.getDouble("discount_amount"));
-        order.setTaxAmount(rs.getDouble("tax_amount"));
-        order.setDeliveryFee(rs.getDouble("delivery_fee"));
-        order.setTotalAmount(rs.getDouble("total_amount"));
-        order.setDepositRequired(rs.getDouble("deposit_required"));
-        order.setDepositPaid(rs.getDouble("deposit_paid"));
-        order.setDepositPaymentMethod(rs.getString("deposit_payment_method"));
-        order.setBalanceDue(rs.getDouble("balance_due"));
-        
-        String paymentStatus = rs.getString("payment_status");
+        order.setId(columns.getInt(rs, "id"));
+        order.setOrderNumber(columns.getString(rs, "order_number"));
+        order.setCustomerId(columns.getString(rs, "customer_id"));
+        order.setProductCode(columns.getString(rs, "product_code"));
+        order.setProductName(columns.getString(rs, "product_name"));
+        order.setOrderType(columns.getString(rs, "order_type"));
+        order.setServings(columns.getInt(rs, "servings"));
+        order.setMessageOnItem(columns.getString(rs, "message_on_item"));
+        order.setSpecialInstructions(columns.getString(rs, "special_instructions"));
+        order.setBasePriceCents(columns.getMoney(rs, "base_price"));
+        order.setAddonsTotalCents(columns.getMoney(rs, "addons_total"));
+        order.setSubtotalCents(columns.getMoney(rs, "subtotal"));
+        order.setDiscountAmountCents(columns.getMoney(rs, "discount_amount"));
+        order.setTaxAmountCents(columns.getMoney(rs, "tax_amount"));
+        order.setDeliveryFeeCents(columns.getMoney(rs, "delivery_fee"));
+        order.setTotalAmountCents(columns.getMoney(rs, "total_amount"));
+        order.setDepositRequiredCents(columns.getMoney(rs, "deposit_required"));
+        order.setDepositPaidCents(columns.getMoney(rs, "deposit_paid"));
+        order.setDepositPaymentMethod(columns.getString(rs, "deposit_payment_method"));
+        order.setBalanceDueCents(columns.getMoney(rs, "balance_due"));
+        
+        String paymentStatus = columns.getString(rs, "payment_status");
         if (paymentStatus != null) {
             order.setPaymentStatus(PaymentStatus.valueOf(paymentStatus));
         }
         
-        String fulfillmentType = rs.getString("fulfillment_type");
+        String fulfillmentType = columns.getString(rs, "fulfillment_type");
         if (fulfillmentType != null) {
             order.setFulfillmentType(FulfillmentType.valueOf(fulfillmentType));
         }
         
-        Timestamp pickupDt = rs.getTimestamp("pickup_datetime");
+        Timestamp pickupDt = columns.getTimestamp(rs, "pickup_datetime");
         if (pickupDt != null) {
             order.setPickupDatetime(pickupDt.toLocalDateTime());
         }
         
-        order.setDeliveryAddressId(rs.getObject("delivery_address_id", Integer.class));
+        order.setDeliveryAddressId(columns.getObject(rs, "delivery_address_id", Integer.class));
         
-        Timestamp deliveryDt = rs.getTimestamp("delivery_datetime");
+        Timestamp deliveryDt = columns.getTimestamp(rs, "delivery_datetime");
         if (deliveryDt != null) {
             order.setDeliveryDatetime(deliveryDt.toLocalDateTime());
         }
         
-        String orderStatus = rs.getString("order_status");
+        String orderStatus = columns.getString(rs, "order_status");
         if (orderStatus != null) {
             order.setOrderStatus(OrderStatus.valueOf(orderStatus));
         }
         
-        order.setAdminNotes(rs.getString("admin_notes"));
-        order.setCancellationReason(rs.getString("cancellation_reason"));
-        order.setAssignedBaker(rs.getString("assigned_baker"));
-        order.setAssignedDecorator(rs.getString("assigned_decorator"));
+        order.setAdminNotes(columns.getString(rs, "admin_notes"));
+        order.setCancellationReason(columns.getString(rs, "cancellation_reason"));
+        order.setAssignedBaker(columns.getString(rs, "assigned_baker"));
+        order.setAssignedDecorator(columns.getString(rs, "assigned_decorator"));
+        order.setVersion(columns.getInt(rs, "version"));
         
-        Timestamp createdAt = rs.getTimestamp("created_at");
+        Timestamp createdAt = columns.getTimestamp(rs, "created_at");
         if (createdAt != null) {
             order.setCreatedAt(createdAt.toLocalDateTime());
         }
         
-        Timestamp confirmedAt = rs.getTimestamp("confirmed_at");
+        Timestamp confirmedAt = columns.getTimestamp(rs, "confirmed_at");
         if (confirmedAt != null) {
             order.setConfirmedAt(confirmedAt.toLocalDateTime());
         }
         
+        order.getChangeTracker().reset();
         return order;
     }
     
+    private OrderSummary extractSummaryFromResultSet(ResultSet rs) throws SQLException {
+        String status = rs.getString("order_status");
+        String fulfillment = rs.getString("fulfillment_type");
+        Timestamp pickup = rs.getTimestamp("pickup_datetime");
+        
+        return new OrderSummary(
+            rs.getInt("id"),
+            rs.getString("order_number"),
+            rs.getString("customer_id"),
+            rs.getString("product_name"),
+            rs.getInt("servings"),
+            Money.read(rs, "total_amount"),
+            Money.read(rs, "deposit_paid"),
+            Money.read(rs, "balance_due"),
+            status != null ? OrderStatus.valueOf(status) : null,
+            fulfillment != null ? FulfillmentType.valueOf(fulfillment) : null,
+            pickup != null ? pickup.toLocalDateTime() : null
+        );
+    }
+    
     /**
-     * Get order statistics for dashboard
+     * Get order statistics for dashboard (maintained in memory, see OrderStatisticsCache).
+     * Rebuilds read the primary: the counters are then moved by events, so a
+     * lagging replica's totals would stay wrong until the next rebuild.
      */
     public OrderStatistics getStatistics() {
-        OrderStatistics stats = new OrderStatistics();
-        String sql = "SELECT " +
-                    "COUNT(*) as total_orders, " +
-                    "SUM(CASE WHEN order_status = 'PENDING' THEN 1 ELSE 0 END) as pending, " +
-                    "SUM(CASE WHEN order_status = 'CONFIRMED' THEN 1 ELSE 0 END) as confirmed, " +
-                    "SUM(CASE WHEN order_status = 'IN_PRODUCTION' THEN 1 ELSE 0 END) as in_production, " +
-                    "SUM(CASE WHEN order_status = 'READY' THEN 1 ELSE 0 END) as ready, " +
-                    "SUM(CASE WHEN order_status = 'COMPLETED' THEN 1 ELSE 0 END) as completed, " +
-                    "SUM(total_amount) as total_revenue, " +
-                    "SUM(deposit_paid) as total_deposits, " +
-                    "SUM(balance_due) as total_balance_due " +
-                    "FROM custom_orders " +
-                    "WHERE order_status != 'CANCELLED'";
-        
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
-            
-            if (rs.next()) {
-                stats.totalOrders = rs.getInt("total_orders");
-                stats.pendingOrders = rs.getInt("pending");
-                stats.confirmedOrders = rs.getInt("confirmed");
-                stats.inProductionOrders = rs.getInt("in_production");
-                stats.readyOrders = rs.getInt("ready");
-                stats.completedOrders = rs.getInt("completed");
-                stats.totalRevenue = rs.getDouble("total_revenue");
-                stats.totalDeposits = rs.getDouble("total_deposits");
-                stats.totalBalanceDue = rs.getDouble("total_balance_due");
-            }
+        return OrderStatisticsCache.getInstance().snapshot(connection);
+    }
+    
+    /**
+     * Rebuild the dashboard statistics from the orders table
+     */
+    public void reconcileStatistics() {
+        OrderStatisticsCache.getInstance().reconcile(connection);
+    }
+    
+    /**
+     * Whether the stored orders of every station leave room for one more order
+     * of a category at the given time (false if it can't be checked)
+     */
+    public boolean hasPickupCapacity(String category, LocalDateTime time) {
+        PickupSlotIndex slots = getPickupSlots();
+        try {
+            return slots != null && slots.fitsStored(connection, category, time, 1);
         } catch (SQLException e) {
-            System.err.println("Error getting order statistics: " + e.getMessage());
+            System.err.println("Error checking pickup capacity: " + e.getMessage());
+            return false;
         }
-        
-        return stats;
+    }
+    
+    /**
+     * Pickup slot bookings, loaded on first use; null if they could not be loaded
+     */
+    public PickupSlotIndex getPickupSlots() {
+        PickupSlotIndex index = PickupSlotIndex.getInstance();
+        if (!index.isLoaded()) {
+            try {
+                index.load(connection);
+            } catch (SQLException e) {
+                System.err.println("Error loading pickup slot index: " + e.getMessage());
+                return null;
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Outcome of a bulk status change
+     */
+    public static class BulkStatusResult {
+        public final List<String> updated = new ArrayList<>();
+        public final Map<String, String> rejected = new LinkedHashMap<>(); // order number -> reason
     }
     
     /**
@@ -616,9 +878,10 @@ public class CustomOrderDAO {
         public int inProductionOrders;
         public int readyOrders;
         public int completedOrders;
-        public double totalRevenue;
-        public double totalDeposits;
-        public double totalBalanceDue;
+        // Amounts in centavos
+        public long totalRevenue;
+        public long totalDeposits;
+        public long totalBalanceDue;
     }
 }
 
@@ -2,21 +2,26 @@ package kiosk.database.dao;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import kiosk.database.DatabaseConfig;
 import kiosk.database.DatabaseConnection;
 import kiosk.model.CustomProduct;
 import kiosk.model.OrderAddOn;
-import kiosk.model.OrderAddOn.PriceType;
 import kiosk.model.AddonCategory;
-import kiosk.model.AddonCategory.SelectionType;
 
 /**
  * Data Access Object for Custom Products and Add-ons
+ * Reads are served from an in-memory {@link CustomCatalog} snapshot. Local edits
+ * swap it at once; edits from other stations are noticed by comparing the
+ * tables' change stamp, at most every db.catalog.check_seconds.
  */
 public class CustomProductDAO {
+    // Shared by every DAO instance; replaced whole after admin edits
+    private static volatile CustomCatalog catalog;
+    private static volatile long catalogCheckedAt;
+    
     private Connection connection;
     
     public CustomProductDAO() {
@@ -24,246 +29,106 @@ public class CustomProductDAO {
     }
     
     /**
-     * Get all active custom products
+     * Current catalog snapshot, loaded on first use and reloaded when the
+     * tables' change stamp no longer matches it
      */
-    public List<CustomProduct> getAllProducts() {
-        List<CustomProduct> products = new ArrayList<>();
-        String sql = "SELECT bp.*, cat.category_name " +
-                    "FROM custom_order_base_products bp " +
-                    "JOIN custom_order_categories cat ON bp.category_code = cat.category_code " +
-                    "WHERE bp.is_active = TRUE " +
-                    "ORDER BY cat.display_order, bp.product_name";
-        
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
-            
-            while (rs.next()) {
-                products.add(extractProductFromResultSet(rs));
+    public CustomCatalog getCatalog() {
+        CustomCatalog current = catalog;
+        if (current == null) {
+            return refreshCatalog();
+        }
+        long now = System.currentTimeMillis();
+        if (now - catalogCheckedAt >= DatabaseConfig.getCatalogCheckSeconds() * 1000L) {
+            catalogCheckedAt = now;
+            try {
+                if (!CustomCatalog.readStamp(connection).equals(current.getStamp())) {
+                    current = refreshCatalog();
+                }
+            } catch (SQLException e) {
+                // Keep serving the snapshot we have
+                System.err.println("Error checking custom order catalog: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting all products: " + e.getMessage());
         }
-        
-        return products;
+        return current;
     }
     
     /**
-     * Get products by category
+     * Reload the catalog and swap it in for all readers
      */
-    public List<CustomProduct> getProductsByCategory(String categoryCode) {
-        List<CustomProduct> products = new ArrayList<>();
-        String sql = "SELECT bp.*, cat.category_name " +
-                    "FROM custom_order_base_products bp " +
-                    "JOIN custom_order_categories cat ON bp.category_code = cat.category_code " +
-                    "WHERE bp.category_code = ? AND bp.is_active = TRUE " +
-                    "ORDER BY bp.product_name";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, categoryCode);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                products.add(extractProductFromResultSet(rs));
+    public CustomCatalog refreshCatalog() {
+        synchronized (CustomProductDAO.class) {
+            try {
+                long start = System.currentTimeMillis();
+                CustomCatalog loaded = CustomCatalog.load(connection);
+                catalog = loaded;
+                catalogCheckedAt = System.currentTimeMillis();
+                System.out.println("✓ Custom order catalog loaded: " + loaded.getActiveProducts().size() +
+                                 " products, " + loaded.getActiveAddons().size() + " add-ons (" +
+                                 (System.currentTimeMillis() - start) + " ms)");
+                return loaded;
+            } catch (SQLException e) {
+                // Leave the old snapshot (if any) in place and retry on next use
+                System.err.println("Error loading custom order catalog: " + e.getMessage());
+                CustomCatalog current = catalog;
+                return current != null ? current : CustomCatalog.empty();
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting products by category: " + e.getMessage());
         }
-        
-        return products;
+    }
+    
+    /**
+     * Get all active custom products
+     */
+    public List<CustomProduct> getAllProducts() {
+        return getCatalog().getActiveProducts();
+    }
+    
+    /**
+     * Get products by category
+     */
+    public List<CustomProduct> getProductsByCategory(String categoryCode) {
+        return getCatalog().getProductsByCategory(categoryCode);
     }
     
     /**
      * Get product by code
      */
     public CustomProduct findByProductCode(String productCode) {
-        String sql = "SELECT bp.*, cat.category_name " +
-                    "FROM custom_order_base_products bp " +
-                    "JOIN custom_order_categories cat ON bp.category_code = cat.category_code " +
-                    "WHERE bp.product_code = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, productCode);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return extractProductFromResultSet(rs);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error finding product: " + e.getMessage());
-        }
-        
-        return null;
+        return getCatalog().getProduct(productCode);
     }
     
     /**
      * Get all addon categories
      */
     public List<AddonCategory> getAllAddonCategories() {
-        List<AddonCategory> categories = new ArrayList<>();
-        String sql = "SELECT * FROM addon_categories ORDER BY display_order";
-        
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
-            
-            while (rs.next()) {
-                AddonCategory category = new AddonCategory();
-                category.setId(rs.getInt("id"));
-                category.setCategoryCode(rs.getString("category_code"));
-                category.setCategoryName(rs.getString("category_name"));
-                category.setDescription(rs.getString("description"));
-                
-                String selectionType = rs.getString("selection_type");
-                if (selectionType != null) {
-                    category.setSelectionType(SelectionType.valueOf(selectionType));
-                }
-                
-                category.setMaxSelections(rs.getInt("max_selections"));
-                category.setRequired(rs.getBoolean("is_required"));
-                category.setDisplayOrder(rs.getInt("display_order"));
-                
-                categories.add(category);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting addon categories: " + e.getMessage());
-        }
-        
-        return categories;
+        return getCatalog().getAddonCategories();
     }
     
     /**
      * Get addons by category
      */
     public List<OrderAddOn> getAddonsByCategory(String categoryCode) {
-        List<OrderAddOn> addons = new ArrayList<>();
-        String sql = "SELECT a.*, ac.category_name " +
-                    "FROM addons a " +
-                    "JOIN addon_categories ac ON a.category_code = ac.category_code " +
-                    "WHERE a.category_code = ? AND a.is_active = TRUE " +
-                    "ORDER BY a.is_premium DESC, a.addon_name";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, categoryCode);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                OrderAddOn addon = new OrderAddOn();
-                addon.setId(rs.getInt("id"));
-                addon.setAddonCode(rs.getString("addon_code"));
-                addon.setAddonName(rs.getString("addon_name"));
-                addon.setCategoryCode(rs.getString("category_code"));
-                addon.setCategoryName(rs.getString("category_name"));
-                addon.setDescription(rs.getString("description"));
-                addon.setPriceModifier(rs.getDouble("price_modifier"));
-                
-                String priceType = rs.getString("price_type");
-                if (priceType != null) {
-                    addon.setPriceType(PriceType.valueOf(priceType));
-                }
-                
-                addon.setPremium(rs.getBoolean("is_premium"));
-                
-                addons.add(addon);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting addons by category: " + e.getMessage());
-        }
-        
-        return addons;
+        return getCatalog().getAddonsByCategory(categoryCode);
     }
     
     /**
      * Get compatible addon categories for a product
      */
     public List<AddonCategory> getCompatibleAddonCategories(String productCode) {
-        List<AddonCategory> categories = new ArrayList<>();
-        String sql = "SELECT ac.*, pac.is_required, pac.display_order " +
-                    "FROM addon_categories ac " +
-                    "JOIN product_addon_compatibility pac ON ac.category_code = pac.addon_category_code " +
-                    "WHERE pac.product_code = ? " +
-                    "ORDER BY pac.display_order, ac.category_name";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, productCode);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                AddonCategory category = new AddonCategory();
-                category.setId(rs.getInt("id"));
-                category.setCategoryCode(rs.getString("category_code"));
-                category.setCategoryName(rs.getString("category_name"));
-                category.setDescription(rs.getString("description"));
-                
-                String selectionType = rs.getString("selection_type");
-                if (selectionType != null) {
-                    category.setSelectionType(SelectionType.valueOf(selectionType));
-                }
-                
-                category.setMaxSelections(rs.getInt("max_selections"));
-                category.setRequired(rs.getBoolean("is_required"));
-                category.setDisplayOrder(rs.getInt("display_order"));
-                
-                categories.add(category);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting compatible addon categories: " + e.getMessage());
-        }
-        
-        return categories;
+        return getCatalog().getCompatibleCategories(productCode);
     }
     
     /**
      * Get all addons for a product organized by category
      */
     public Map<String, List<OrderAddOn>> getProductAddons(String productCode) {
-        Map<String, List<OrderAddOn>> addonsByCategory = new HashMap<>();
-        
-        List<AddonCategory> categories = getCompatibleAddonCategories(productCode);
-        
-        for (AddonCategory category : categories) {
-            List<OrderAddOn> addons = getAddonsByCategory(category.getCategoryCode());
-            addonsByCategory.put(category.getCategoryCode(), addons);
-        }
-        
-        return addonsByCategory;
+        return getCatalog().getProductAddons(productCode);
     }
     
     /**
-     * Get addon by code
+     * Get addon by code (a fresh copy that can be added to an order)
      */
     public OrderAddOn findAddonByCode(String addonCode) {
-        String sql = "SELECT a.*, ac.category_name " +
-                    "FROM addons a " +
-                    "JOIN addon_categories ac ON a.category_code = ac.category_code " +
-                    "WHERE a.addon_code = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, addonCode);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                OrderAddOn addon = new OrderAddOn();
-                addon.setId(rs.getInt("id"));
-                addon.setAddonCode(rs.getString("addon_code"));
-                addon.setAddonName(rs.getString("addon_name"));
-                addon.setCategoryCode(rs.getString("category_code"));
-                addon.setCategoryName(rs.getString("category_name"));
-                addon.setDescription(rs.getString("description"));
-                addon.setPriceModifier(rs.getDouble("price_modifier"));
-                
-                String priceType = rs.getString("price_type");
-                if (priceType != null) {
-                    addon.setPriceType(PriceType.valueOf(priceType));
-                }
-                
-                addon.setPremium(rs.getBoolean("is_premium"));
-                
-                return addon;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error finding addon: " + e.getMessage());
-        }
-        
-        return null;
+        return getCatalog().newOrderAddon(addonCode);
     }
     
     /**
@@ -297,7 +162,7 @@ public class CustomProductDAO {
     /**
      * Extract CustomProduct from ResultSet
      */
-    private CustomProduct extractProductFromResultSet(ResultSet rs) throws SQLException {
+    static CustomProduct extractProductFromResultSet(ResultSet rs) throws SQLException {
         CustomProduct product = new CustomProduct();
         product.setId(rs.getInt("id"));
         product.setProductCode(rs.getString("product_code"));
@@ -339,6 +204,9 @@ public class CustomProductDAO {
             pstmt.setBoolean(11, product.isActive());
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                refreshCatalog();
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting product: " + e.getMessage());
@@ -353,8 +221,8 @@ public class CustomProductDAO {
         String sql = "UPDATE custom_order_base_products SET " +
                     "category_code = ?, product_name = ?, description = ?, base_price = ?, " +
                     "price_per_serving = ?, min_servings = ?, max_servings = ?, " +
-                    "preparation_time_hours = ?, image_path = ?, is_active = ? " +
-                    "WHERE product_code = ?";
+                    "preparation_time_hours = ?, image_path = ?, is_active = ?, " +
+                    "updated_at = CURRENT_TIMESTAMP WHERE product_code = ?";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, product.getCategoryCode());
@@ -370,6 +238,9 @@ public class CustomProductDAO {
             pstmt.setString(11, product.getProductCode());
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                refreshCatalog();
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error updating product: " + e.getMessage());
@@ -387,6 +258,9 @@ public class CustomProductDAO {
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, productCode);
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                refreshCatalog();
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error deleting product: " + e.getMessage());
@@ -399,11 +273,15 @@ public class CustomProductDAO {
      * Deactivate product (soft delete - recommended over hard delete)
      */
     public boolean deactivateProduct(String productCode) {
-        String sql = "UPDATE custom_order_base_products SET is_active = FALSE WHERE product_code = ?";
+        String sql = "UPDATE custom_order_base_products SET is_active = FALSE, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE product_code = ?";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, productCode);
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                refreshCatalog();
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error deactivating product: " + e.getMessage());
@@ -416,31 +294,9 @@ public class CustomProductDAO {
      */
     public List<kiosk.model.Addon> getAllAddons() {
         List<kiosk.model.Addon> addons = new ArrayList<>();
-        String sql = "SELECT id, addon_name, category_code, price_modifier, description, is_active " +
-                    "FROM addons " +
-                    "WHERE is_active = 1 " +
-                    "ORDER BY category_code, addon_name";
-        
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
-            
-            while (rs.next()) {
-                kiosk.model.Addon addon = new kiosk.model.Addon();
-                addon.setAddonId(rs.getInt("id"));
-                addon.setAddonName(rs.getString("addon_name"));
-                // For categoryId, we'll need to handle category_code differently
-                // For now, use a placeholder or fetch category_id from addon_categories
-                addon.setCategoryId(0); // Placeholder - category_code is TEXT, not INT
-                addon.setAddonPrice(rs.getDouble("price_modifier"));
-                addon.setDescription(rs.getString("description"));
-                addon.setAvailable(rs.getInt("is_active") == 1);
-                addons.add(addon);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting all addons: " + e.getMessage());
-            e.printStackTrace();
+        for (OrderAddOn addon : getCatalog().getActiveAddons()) {
+            addons.add(toAddon(addon, true));
         }
-        
         return addons;
     }
     
@@ -449,32 +305,15 @@ public class CustomProductDAO {
      */
     public Map<String, List<kiosk.model.Addon>> getAddonsByCategory() {
         Map<String, List<kiosk.model.Addon>> addonsByCategory = new java.util.LinkedHashMap<>();
-        String sql = "SELECT a.id, a.addon_name, a.category_code, a.price_modifier, a.description, " +
-                    "a.is_active, c.category_name " +
-                    "FROM addons a " +
-                    "JOIN addon_categories c ON a.category_code = c.category_code " +
-                    "WHERE a.is_active = 1 " +
-                    "ORDER BY c.display_order, a.addon_name";
+        CustomCatalog catalog = getCatalog();
         
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
-            
-            while (rs.next()) {
-                String categoryName = rs.getString("category_name");
-                
-                kiosk.model.Addon addon = new kiosk.model.Addon();
-                addon.setAddonId(rs.getInt("id"));
-                addon.setAddonName(rs.getString("addon_name"));
-                addon.setCategoryId(0); // category_code is TEXT, not INT
-                addon.setAddonPrice(rs.getDouble("price_modifier"));
-                addon.setDescription(rs.getString("description"));
-                addon.setAvailable(rs.getInt("is_active") == 1);
-                
-                addonsByCategory.computeIfAbsent(categoryName, k -> new ArrayList<>()).add(addon);
+        for (AddonCategory category : catalog.getAddonCategories()) {
+            List<OrderAddOn> addons = new ArrayList<>(catalog.getAddonsByCategory(category.getCategoryCode()));
+            addons.sort(java.util.Comparator.comparing(OrderAddOn::getAddonName));
+            for (OrderAddOn addon : addons) {
+                addonsByCategory.computeIfAbsent(category.getCategoryName(), k -> new ArrayList<>())
+                    .add(toAddon(addon, true));
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting addons by category: " + e.getMessage());
-            e.printStackTrace();
         }
         
         return addonsByCategory;
@@ -484,30 +323,23 @@ public class CustomProductDAO {
      * Find addon by ID
      */
     public kiosk.model.Addon findAddonById(int addonId) {
-        String sql = "SELECT id, addon_name, category_code, price_modifier, description, is_active " +
-                    "FROM addons " +
-                    "WHERE id = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, addonId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                kiosk.model.Addon addon = new kiosk.model.Addon();
-                addon.setAddonId(rs.getInt("id"));
-                addon.setAddonName(rs.getString("addon_name"));
-                addon.setCategoryId(0); // category_code is TEXT, not INT
-                addon.setAddonPrice(rs.getDouble("price_modifier"));
-                addon.setDescription(rs.getString("description"));
-                addon.setAvailable(rs.getInt("is_active") == 1);
-                return addon;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error finding addon by ID: " + e.getMessage());
-            e.printStackTrace();
+        CustomCatalog catalog = getCatalog();
+        OrderAddOn addon = catalog.getAddonById(addonId);
+        if (addon == null) {
+            return null;
         }
-        
-        return null;
+        return toAddon(addon, catalog.isAddonActive(addon.getAddonCode()));
+    }
+    
+    private static kiosk.model.Addon toAddon(OrderAddOn source, boolean available) {
+        kiosk.model.Addon addon = new kiosk.model.Addon();
+        addon.setAddonId(source.getId());
+        addon.setAddonName(source.getAddonName());
+        addon.setCategoryId(0); // category_code is TEXT, not INT
+        addon.setAddonPrice(source.getPriceModifier());
+        addon.setDescription(source.getDescription());
+        addon.setAvailable(available);
+        return addon;
     }
 }
 
@@ -1,19 +1,59 @@
 package kiosk.database.dao;
 
 import java.sql.*;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import kiosk.database.CustomerSearchIndex;
 import kiosk.database.DatabaseConnection;
+import kiosk.database.SqlDialect;
 import kiosk.model.Customer;
 import kiosk.model.Customer.CustomerType;
+import kiosk.model.CustomerSummary;
 
 /**
  * Data Access Object for Customer accounts
  */
 public class CustomerDAO {
+    // Keeps IN (...) lists well under SQLite's bound-parameter limit
+    private static final int FETCH_BATCH_SIZE = 500;
+
+    // Columns a listing may project; id and created_at are always selected for the cursor
+    private static final Map<String, String> LISTING_COLUMNS = new LinkedHashMap<>();
+    static {
+        for (String column : new String[] {"id", "customer_id", "email", "first_name", "last_name", "phone",
+                "date_of_birth", "address_line1", "address_line2", "city", "state_province", "postal_code",
+                "country", "customer_type", "loyalty_points", "total_orders", "total_spent", "is_active",
+                "is_email_verified", "created_at", "last_login", "version"}) {
+            LISTING_COLUMNS.put(column, column);
+        }
+    }
+    
+    private static final SqlDialect.Template LAST_LOGIN_UPDATE = SqlDialect.template(
+            "UPDATE customers SET last_login = {now} WHERE customer_id = ?");
+    
+    // update(customer) writes only the profile columns changed since the customer was read
+    private static final PartialUpdate<Customer> PROFILE_UPDATE = new PartialUpdate<Customer>(
+            "customers", "version = version + 1", "customer_id = ? AND version = ?")
+        .column("email", (pstmt, i, customer) -> pstmt.setString(i, customer.getEmail()))
+        .column("first_name", (pstmt, i, customer) -> pstmt.setString(i, customer.getFirstName()))
+        .column("last_name", (pstmt, i, customer) -> pstmt.setString(i, customer.getLastName()))
+        .column("phone", (pstmt, i, customer) -> pstmt.setString(i, customer.getPhone()))
+        .column("date_of_birth", (pstmt, i, customer) -> pstmt.setDate(i, customer.getDateOfBirth() != null ?
+                                                                      Date.valueOf(customer.getDateOfBirth()) : null))
+        .column("address_line1", (pstmt, i, customer) -> pstmt.setString(i, customer.getAddressLine1()))
+        .column("address_line2", (pstmt, i, customer) -> pstmt.setString(i, customer.getAddressLine2()))
+        .column("city", (pstmt, i, customer) -> pstmt.setString(i, customer.getCity()))
+        .column("state_province", (pstmt, i, customer) -> pstmt.setString(i, customer.getStateProvince()))
+        .column("postal_code", (pstmt, i, customer) -> pstmt.setString(i, customer.getPostalCode()))
+        .column("country", (pstmt, i, customer) -> pstmt.setString(i, customer.getCountry()));
+    
     private Connection connection;
     
     public CustomerDAO() {
@@ -21,26 +61,10 @@ public class CustomerDAO {
     }
     
     /**
-     * Generate unique customer ID
+     * Generate unique customer ID (unique across stations, see RecordIds)
      */
     private String generateCustomerId() {
-        String datePart = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String sql = "SELECT COUNT(*) FROM customers WHERE customer_id LIKE ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, "CUST-" + datePart + "%");
-            ResultSet rs = pstmt.executeQuery();
-            
-            int count = 0;
-            if (rs.next()) {
-                count = rs.getInt(1);
-            }
-            
-            return String.format("CUST-%s-%04d", datePart, count + 1);
-        } catch (SQLException e) {
-            System.err.println("Error generating customer ID: " + e.getMessage());
-            return "CUST-" + datePart + "-0001";
-        }
+        return RecordIds.next("CUST");
     }
     
     /**
@@ -79,6 +103,8 @@ public class CustomerDAO {
                 if (generatedKeys.next()) {
                     customer.setId(generatedKeys.getInt(1));
                 }
+                customer.getChangeTracker().reset();
+                reindex(customer);
                 return true;
             }
             
@@ -121,9 +147,7 @@ public class CustomerDAO {
      * Update last login timestamp
      */
     private void updateLastLogin(String customerId) {
-        String sql = "UPDATE customers SET last_login = NOW() WHERE customer_id = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = connection.prepareStatement(LAST_LOGIN_UPDATE.sql())) {
             pstmt.setString(1, customerId);
             pstmt.executeUpdate();
         } catch (SQLException e) {
@@ -172,33 +196,46 @@ public class CustomerDAO {
     }
     
     /**
-     * Update customer information
+     * Update customer information (fails if it was changed elsewhere since it was read)
      */
     public boolean update(Customer customer) {
-        String sql = "UPDATE customers SET email = ?, first_name = ?, last_name = ?, phone = ?, " +
-                    "date_of_birth = ?, address_line1 = ?, address_line2 = ?, city = ?, " +
-                    "state_province = ?, postal_code = ?, country = ? WHERE customer_id = ?";
+        return update(customer, null) == VersionedUpdate.Result.UPDATED;
+    }
+    
+    /**
+     * Update customer information, resolving conflicting edits with merge (null reports them)
+     */
+    public VersionedUpdate.Result update(Customer customer, VersionedUpdate.Merge<Customer> merge) {
+        return VersionedUpdate.withRetry(customer, this::updateIfCurrent,
+                                         stale -> findByCustomerId(stale.getCustomerId()), merge);
+    }
+    
+    /**
+     * Compare-and-set update on the customer's version
+     */
+    private VersionedUpdate.Result updateIfCurrent(Customer customer) {
+        BitSet changed = PROFILE_UPDATE.changed(customer.getChangeTracker());
+        if (changed.isEmpty()) {
+            return VersionedUpdate.Result.UPDATED; // nothing to write
+        }
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, customer.getEmail());
-            pstmt.setString(2, customer.getFirstName());
-            pstmt.setString(3, customer.getLastName());
-            pstmt.setString(4, customer.getPhone());
-            pstmt.setDate(5, customer.getDateOfBirth() != null ? 
-                         Date.valueOf(customer.getDateOfBirth()) : null);
-            pstmt.setString(6, customer.getAddressLine1());
-            pstmt.setString(7, customer.getAddressLine2());
-            pstmt.setString(8, customer.getCity());
-            pstmt.setString(9, customer.getStateProvince());
-            pstmt.setString(10, customer.getPostalCode());
-            pstmt.setString(11, customer.getCountry());
-            pstmt.setString(12, customer.getCustomerId());
+        try (PreparedStatement pstmt = connection.prepareStatement(PROFILE_UPDATE.sql(changed))) {
+            int index = PROFILE_UPDATE.bind(pstmt, changed, customer);
+            pstmt.setString(index++, customer.getCustomerId());
+            pstmt.setInt(index, customer.getVersion());
             
             int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            VersionedUpdate.Result result = VersionedUpdate.afterUpdate(connection, rowsAffected,
+                                                                        "customers", "customer_id", customer.getCustomerId());
+            if (result == VersionedUpdate.Result.UPDATED) {
+                customer.setVersion(customer.getVersion() + 1);
+                customer.getChangeTracker().reset();
+                reindex(customer);
+            }
+            return result;
         } catch (SQLException e) {
             System.err.println("Error updating customer: " + e.getMessage());
-            return false;
+            return VersionedUpdate.Result.FAILED;
         }
     }
     
@@ -221,32 +258,176 @@ public class CustomerDAO {
     }
     
     /**
-     * Get all customers (for admin panel)
+     * List customers newest first, one page at a time (keyset pagination).
+     * Pass null as the cursor for the first page, then the previous page's next cursor.
+     * Optional columns limit what is selected; by default every column except the
+     * password hash is read.
      */
-    public List<Customer> getAllCustomers() {
-        List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers ORDER BY created_at DESC";
+    public KeysetPage<Customer> listCustomers(KeysetCursor after, int pageSize, String... columns) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        
+        KeysetPage<Customer> page = KeysetPage.empty();
+        String sql = "SELECT " + ColumnSet.selectList(LISTING_COLUMNS, Arrays.asList("id", "created_at"), columns) +
+                    " FROM customers" +
+                    (after != null ? " WHERE " + KeysetCursor.seekCondition("") : "") +
+                    " ORDER BY created_at DESC, id DESC LIMIT ?";
         
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = after != null ? after.bind(pstmt, 1) : 1;
+            // One extra row tells whether another page exists
+            pstmt.setInt(index, pageSize + 1);
             
-            while (rs.next()) {
-                customers.add(extractCustomerFromResultSet(rs));
-            }
+            ResultSet rs = pstmt.executeQuery();
+            ColumnSet selected = ColumnSet.of(rs);
+            page = KeysetPage.read(rs, pageSize, row -> extractCustomerFromResultSet(row, selected));
         } catch (SQLException e) {
-            System.err.println("Error getting all customers: " + e.getMessage());
+            System.err.println("Error listing customers: " + e.getMessage());
         }
         
-        return customers;
+        return page;
+    }
+    
+    /**
+     * Customer summaries newest first, one page at a time
+     */
+    public KeysetPage<CustomerSummary> listCustomerSummaries(KeysetCursor after, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        
+        String sql = "SELECT id, customer_id, first_name, last_name, email, phone, customer_type, " +
+                    "total_orders, total_spent, is_active, created_at FROM customers" +
+                    (after != null ? " WHERE " + KeysetCursor.seekCondition("") : "") +
+                    " ORDER BY created_at DESC, id DESC LIMIT ?";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int index = after != null ? after.bind(pstmt, 1) : 1;
+            pstmt.setInt(index, pageSize + 1);
+            
+            ResultSet rs = pstmt.executeQuery();
+            return KeysetPage.read(rs, pageSize, row -> {
+                String type = row.getString("customer_type");
+                return new CustomerSummary(
+                    row.getString("customer_id"),
+                    row.getString("first_name"),
+                    row.getString("last_name"),
+                    row.getString("email"),
+                    row.getString("phone"),
+                    type != null ? CustomerType.valueOf(type) : null,
+                    row.getInt("total_orders"),
+                    row.getDouble("total_spent"),
+                    row.getBoolean("is_active")
+                );
+            });
+        } catch (SQLException e) {
+            System.err.println("Error listing customer summaries: " + e.getMessage());
+        }
+        
+        return KeysetPage.empty();
     }
     
     /**
-     * Search customers by name or email
+     * Search customers by name, email or phone (all matches, best first)
      */
     public List<Customer> searchCustomers(String searchTerm) {
+        return searchCustomers(searchTerm, 0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Search customers by name, email or phone, one page at a time (best match first)
+     */
+    public List<Customer> searchCustomers(String searchTerm, int offset, int limit) {
+        CustomerSearchIndex index = searchIndex();
+        if (index == null) {
+            List<Customer> all = scanCustomers(searchTerm);
+            int from = Math.min(Math.max(offset, 0), all.size());
+            int to = (int) Math.min((long) from + Math.max(limit, 0), all.size());
+            return new ArrayList<>(all.subList(from, to));
+        }
+        return findByCustomerIds(index.search(searchTerm, offset, limit).getCustomerIds());
+    }
+    
+    /**
+     * Total number of customers matching a search
+     */
+    public int countSearchResults(String searchTerm) {
+        CustomerSearchIndex index = searchIndex();
+        if (index == null) {
+            return scanCustomers(searchTerm).size();
+        }
+        return index.search(searchTerm, 0, 0).getTotalMatches();
+    }
+    
+    /**
+     * Search index, loaded on first use and caught up with other stations before
+     * each search; null if it could not be built
+     */
+    private CustomerSearchIndex searchIndex() {
+        CustomerSearchIndex index = CustomerSearchIndex.getInstance();
+        try {
+            index.refresh(connection);
+        } catch (SQLException e) {
+            System.err.println("Error loading customer search index: " + e.getMessage());
+            return index.isLoaded() ? index : null;
+        }
+        return index;
+    }
+    
+    private void reindex(Customer customer) {
+        CustomerSearchIndex index = CustomerSearchIndex.getInstance();
+        if (index.isLoaded()) {
+            index.index(customer);
+        }
+    }
+    
+    /**
+     * Load customers by customer ID, preserving the order of the IDs
+     */
+    private List<Customer> findByCustomerIds(List<String> customerIds) {
+        if (customerIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Map<String, Customer> found = new HashMap<>();
+        for (int start = 0; start < customerIds.size(); start += FETCH_BATCH_SIZE) {
+            List<String> batch = customerIds.subList(start, Math.min(start + FETCH_BATCH_SIZE, customerIds.size()));
+            String sql = "SELECT * FROM customers WHERE customer_id IN (" +
+                        String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+            
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    pstmt.setString(i + 1, batch.get(i));
+                }
+                ResultSet rs = pstmt.executeQuery();
+                
+                while (rs.next()) {
+                    Customer customer = extractCustomerFromResultSet(rs);
+                    found.put(customer.getCustomerId(), customer);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error loading customers: " + e.getMessage());
+            }
+        }
+        
+        List<Customer> customers = new ArrayList<>(customerIds.size());
+        for (String customerId : customerIds) {
+            Customer customer = found.get(customerId);
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+    
+    /**
+     * Unindexed LIKE scan, used only when the search index cannot be loaded
+     */
+    private List<Customer> scanCustomers(String searchTerm) {
         List<Customer> customers = new ArrayList<>();
         String sql = "SELECT * FROM customers WHERE " +
-                    "first_name LIKE ? OR last_name LIKE ? OR email LIKE ? " +
+                    "first_name LIKE ? OR last_name LIKE ? OR email LIKE ? OR phone LIKE ? " +
                     "ORDER BY created_at DESC";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -254,6 +435,7 @@ public class CustomerDAO {
             pstmt.setString(1, pattern);
             pstmt.setString(2, pattern);
             pstmt.setString(3, pattern);
+            pstmt.setString(4, pattern);
             
             ResultSet rs = pstmt.executeQuery();
             
@@ -309,6 +491,9 @@ public class CustomerDAO {
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, customerId);
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CustomerSearchIndex.getInstance().remove(customerId);
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error deleting customer: " + e.getMessage());
@@ -320,48 +505,57 @@ public class CustomerDAO {
      * Extract Customer object from ResultSet
      */
     private Customer extractCustomerFromResultSet(ResultSet rs) throws SQLException {
+        return extractCustomerFromResultSet(rs, ColumnSet.ALL);
+    }
+    
+    /**
+     * Extract Customer from a result set holding only the given columns
+     */
+    private Customer extractCustomerFromResultSet(ResultSet rs, ColumnSet columns) throws SQLException {
         Customer customer = new Customer();
-        customer.setId(rs.getInt("id"));
-        customer.setCustomerId(rs.getString("customer_id"));
-        customer.setEmail(rs.getString("email"));
-        customer.setPasswordHash(rs.getString("password_hash"));
-        customer.setFirstName(rs.getString("first_name"));
-        customer.setLastName(rs.getString("last_name"));
-        customer.setPhone(rs.getString("phone"));
+        customer.setId(columns.getInt(rs, "id"));
+        customer.setCustomerId(columns.getString(rs, "customer_id"));
+        customer.setEmail(columns.getString(rs, "email"));
+        customer.setPasswordHash(columns.getString(rs, "password_hash"));
+        customer.setFirstName(columns.getString(rs, "first_name"));
+        customer.setLastName(columns.getString(rs, "last_name"));
+        customer.setPhone(columns.getString(rs, "phone"));
         
-        Date dob = rs.getDate("date_of_birth");
+        Date dob = columns.getDate(rs, "date_of_birth");
         if (dob != null) {
             customer.setDateOfBirth(dob.toLocalDate());
         }
         
-        customer.setAddressLine1(rs.getString("address_line1"));
-        customer.setAddressLine2(rs.getString("address_line2"));
-        customer.setCity(rs.getString("city"));
-        customer.setStateProvince(rs.getString("state_province"));
-        customer.setPostalCode(rs.getString("postal_code"));
-        customer.setCountry(rs.getString("country"));
+        customer.setAddressLine1(columns.getString(rs, "address_line1"));
+        customer.setAddressLine2(columns.getString(rs, "address_line2"));
+        customer.setCity(columns.getString(rs, "city"));
+        customer.setStateProvince(columns.getString(rs, "state_province"));
+        customer.setPostalCode(columns.getString(rs, "postal_code"));
+        customer.setCountry(columns.getString(rs, "country"));
         
-        String typeStr = rs.getString("customer_type");
+        String typeStr = columns.getString(rs, "customer_type");
         if (typeStr != null) {
             customer.setCustomerType(CustomerType.valueOf(typeStr));
         }
         
-        customer.setLoyaltyPoints(rs.getInt("loyalty_points"));
-        customer.setTotalOrders(rs.getInt("total_orders"));
-        customer.setTotalSpent(rs.getDouble("total_spent"));
-        customer.setActive(rs.getBoolean("is_active"));
-        customer.setEmailVerified(rs.getBoolean("is_email_verified"));
+        customer.setLoyaltyPoints(columns.getInt(rs, "loyalty_points"));
+        customer.setTotalOrders(columns.getInt(rs, "total_orders"));
+        customer.setTotalSpent(columns.getDouble(rs, "total_spent"));
+        customer.setActive(columns.getBoolean(rs, "is_active"));
+        customer.setEmailVerified(columns.getBoolean(rs, "is_email_verified"));
+        customer.setVersion(columns.getInt(rs, "version"));
         
-        Timestamp createdAt = rs.getTimestamp("created_at");
+        Timestamp createdAt = columns.getTimestamp(rs, "created_at");
         if (createdAt != null) {
             customer.setCreatedAt(createdAt.toLocalDateTime());
         }
         
-        Timestamp lastLogin = rs.getTimestamp("last_login");
+        Timestamp lastLogin = columns.getTimestamp(rs, "last_login");
         if (lastLogin != null) {
             customer.setLastLogin(lastLogin.toLocalDateTime());
         }
         
+        customer.getChangeTracker().reset();
         return customer;
     }
     
@@ -1,12 +1,15 @@
 package kiosk.database.dao;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 import kiosk.database.DatabaseConnection;
 import kiosk.database.SqlDialect;
+import kiosk.database.StockLedger;
 import kiosk.model.InventoryItem;
+import kiosk.model.StockMovement;
 
 /**
  * Data Access Object for Inventory Items
@@ -31,6 +34,7 @@ public class InventoryDAO {
                     "expiration_date DATE, " +
                     "barcode VARCHAR(50) UNIQUE, " +
                     "supplier VARCHAR(255), " +
+                    "version " + SqlDialect.integer() + " NOT NULL DEFAULT 0, " +
                     SqlDialect.createdAtColumn() + ", " +
                     SqlDialect.updatedAtColumn() +
                     ")";
@@ -45,7 +49,7 @@ public class InventoryDAO {
     }
     
     /**
-     * Insert a new inventory item
+     * Insert a new inventory item; its stock is recorded in the ledger as the opening restock
      */
     public boolean insert(InventoryItem item) {
         String sql = "INSERT INTO inventory (name, category, price, stock_quantity, " +
@@ -55,13 +59,17 @@ public class InventoryDAO {
             pstmt.setString(1, item.getName());
             pstmt.setString(2, item.getCategory());
             pstmt.setDouble(3, item.getPrice());
-            pstmt.setInt(4, item.getStockQuantity());
+            pstmt.setInt(4, 0);
             pstmt.setDate(5, item.getExpirationDate() != null ? 
                          Date.valueOf(item.getExpirationDate()) : null);
             pstmt.setString(6, item.getBarcode());
             pstmt.setString(7, item.getSupplier());
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                StockLedger.getInstance().record(item.getName(), item.getStockQuantity(),
+                                                 StockMovement.Type.RESTOCK, "Opening stock");
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting inventory item: " + e.getMessage());
@@ -70,35 +78,72 @@ public class InventoryDAO {
     }
     
     /**
-     * Update an existing inventory item
+     * Update an existing inventory item (fails if another station changed it since it was read)
      */
     public boolean update(InventoryItem item) {
-        String sql = "UPDATE inventory SET category = ?, price = ?, stock_quantity = ?, " +
-                    "expiration_date = ?, barcode = ?, supplier = ? WHERE name = ?";
+        return update(item, null) == VersionedUpdate.Result.UPDATED;
+    }
+    
+    /**
+     * Update an existing inventory item, resolving conflicting edits with merge (null reports them)
+     */
+    public VersionedUpdate.Result update(InventoryItem item, VersionedUpdate.Merge<InventoryItem> merge) {
+        return VersionedUpdate.withRetry(item, this::updateIfCurrent, stale -> getByName(stale.getName()), merge);
+    }
+    
+    /**
+     * Compare-and-set update on the item's version. Stock is not written here: the
+     * change since the item was read goes to the ledger, so sales made meanwhile
+     * on other stations are kept (an item built from scratch sets its stock outright).
+     */
+    private VersionedUpdate.Result updateIfCurrent(InventoryItem item) {
+        String sql = "UPDATE inventory SET category = ?, price = ?, " +
+                    "expiration_date = ?, barcode = ?, supplier = ?, version = version + 1 " +
+                    "WHERE name = ? AND version = ?";
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, item.getCategory());
             pstmt.setDouble(2, item.getPrice());
-            pstmt.setInt(3, item.getStockQuantity());
-            pstmt.setDate(4, item.getExpirationDate() != null ? 
+            pstmt.setDate(3, item.getExpirationDate() != null ? 
                          Date.valueOf(item.getExpirationDate()) : null);
-            pstmt.setString(5, item.getBarcode());
-            pstmt.setString(6, item.getSupplier());
-            pstmt.setString(7, item.getName());
+            pstmt.setString(4, item.getBarcode());
+            pstmt.setString(5, item.getSupplier());
+            pstmt.setString(6, item.getName());
+            pstmt.setInt(7, item.getVersion());
             
             int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            VersionedUpdate.Result result = VersionedUpdate.afterUpdate(connection, rowsAffected,
+                                                                        "inventory", "name", item.getName());
+            if (result == VersionedUpdate.Result.UPDATED) {
+                item.setVersion(item.getVersion() + 1);
+                recordStockEdit(item);
+            }
+            return result;
         } catch (SQLException e) {
             System.err.println("Error updating inventory item: " + e.getMessage());
-            return false;
+            return VersionedUpdate.Result.FAILED;
         }
     }
     
+    private void recordStockEdit(InventoryItem item) {
+        StockLedger ledger = StockLedger.getInstance();
+        Integer loaded = item.getLoadedStockQuantity();
+        if (loaded == null) {
+            ledger.adjustTo(item.getName(), item.getStockQuantity(), "Stock set");
+        } else if (item.getStockQuantity() != loaded) {
+            int change = item.getStockQuantity() - loaded;
+            ledger.record(item.getName(), change,
+                          change > 0 ? StockMovement.Type.RESTOCK : StockMovement.Type.ADJUSTMENT, "Stock edited");
+        }
+        item.setLoadedStockQuantity(item.getStockQuantity());
+    }
+    
     /**
      * Delete an inventory item by name
      */
     public boolean delete(String name) {
         String sql = "DELETE FROM inventory WHERE name = ?";
+        StockLedger.getInstance().forget(name);
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, name);
@@ -193,10 +238,12 @@ public class InventoryDAO {
      */
     public List<InventoryItem> getExpiringSoon(int daysWarning) {
         List<InventoryItem> items = new ArrayList<>();
-        String sql = "SELECT * FROM inventory WHERE expiration_date BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL ? DAY) ORDER BY expiration_date";
+        String sql = "SELECT * FROM inventory WHERE expiration_date BETWEEN ? AND ? ORDER BY expiration_date";
+        LocalDate today = LocalDate.now();
         
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, daysWarning);
+            pstmt.setDate(1, Date.valueOf(today));
+            pstmt.setDate(2, Date.valueOf(today.plusDays(daysWarning)));
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
@@ -213,10 +260,11 @@ public class InventoryDAO {
      */
     public List<InventoryItem> getExpired() {
         List<InventoryItem> items = new ArrayList<>();
-        String sql = "SELECT * FROM inventory WHERE expiration_date < CURDATE() ORDER BY expiration_date";
+        String sql = "SELECT * FROM inventory WHERE expiration_date < ? ORDER BY expiration_date";
         
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setDate(1, Date.valueOf(LocalDate.now()));
+            ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 items.add(extractItemFromResultSet(rs));
@@ -228,21 +276,10 @@ public class InventoryDAO {
     }
     
     /**
-     * Update stock quantity for an item
+     * Set the stock quantity for an item (recorded in the ledger as a restock or adjustment)
      */
     public boolean updateStock(String name, int quantity) {
-        String sql = "UPDATE inventory SET stock_quantity = ? WHERE name = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, quantity);
-            pstmt.setString(2, name);
-            
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error updating stock: " + e.getMessage());
-            return false;
-        }
+        return StockLedger.getInstance().adjustTo(name, quantity, "Stock set");
     }
     
     /**
@@ -252,12 +289,13 @@ public class InventoryDAO {
         String name = rs.getString("name");
         String category = rs.getString("category");
         double price = rs.getDouble("price");
-        int stockQuantity = rs.getInt("stock_quantity");
+        // stored quantity plus this station's movements not yet written
+        int stockQuantity = StockLedger.getInstance().project(name, rs.getInt("stock_quantity"));
         Date expirationDate = rs.getDate("expiration_date");
         String barcode = rs.getString("barcode");
         String supplier = rs.getString("supplier");
         
-        return new InventoryItem(
+        InventoryItem item = new InventoryItem(
             name,
             category,
             price,
@@ -266,6 +304,9 @@ public class InventoryDAO {
             barcode,
             supplier
         );
+        item.setVersion(rs.getInt("version"));
+        item.setLoadedStockQuantity(stockQuantity);
+        return item;
     }
     
     /**
@@ -273,6 +314,7 @@ public class InventoryDAO {
      */
     public boolean deleteAll() {
         String sql = "DELETE FROM inventory";
+        StockLedger.getInstance().clear();
         
         try (Statement stmt = connection.createStatement()) {
             stmt.executeUpdate(sql);
@@ -0,0 +1,80 @@
+package kiosk.database.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Position in a listing ordered by (created_at DESC, id DESC).
+ * The next page is everything strictly after this row, so a cursor stays valid
+ * while new rows are inserted at the head of the list.
+ */
+public final class KeysetCursor {
+    /**
+     * Seek predicate for the next page; bind created_at, created_at, id
+     */
+    static final String SEEK_CONDITION = "(%1$screated_at < ? OR (%1$screated_at = ? AND %1$sid < ?))";
+
+    private final String createdAt;
+    private final int id;
+
+    public KeysetCursor(String createdAt, int id) {
+        if (createdAt == null) {
+            throw new IllegalArgumentException("created_at is required for a keyset cursor");
+        }
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Cursor pointing at the current row of a result set
+     */
+    static KeysetCursor of(ResultSet rs) throws SQLException {
+        return new KeysetCursor(rs.getString("created_at"), rs.getInt("id"));
+    }
+
+    /**
+     * Seek predicate for a table alias ("" or e.g. "co.")
+     */
+    static String seekCondition(String alias) {
+        return String.format(SEEK_CONDITION, alias);
+    }
+
+    /**
+     * Bind the seek predicate parameters starting at index; returns the next free index
+     */
+    int bind(PreparedStatement pstmt, int index) throws SQLException {
+        pstmt.setString(index++, createdAt);
+        pstmt.setString(index++, createdAt);
+        pstmt.setInt(index++, id);
+        return index;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Opaque string form, e.g. for keeping the position in a UI
+     */
+    public String encode() {
+        return id + "@" + createdAt;
+    }
+
+    public static KeysetCursor decode(String token) {
+        int at = token.indexOf('@');
+        if (at <= 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        return new KeysetCursor(token.substring(at + 1), Integer.parseInt(token.substring(0, at)));
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,65 @@
+package kiosk.database.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing
+ */
+public final class KeysetPage<T> {
+
+    /**
+     * Maps the current row of a result set
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private final List<T> items;
+    private final KeysetCursor nextCursor;
+
+    KeysetPage(List<T> items, KeysetCursor nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Reads up to pageSize rows from a query that was limited to pageSize + 1;
+     * the extra row only signals that another page exists
+     */
+    static <T> KeysetPage<T> read(ResultSet rs, int pageSize, RowMapper<T> mapper) throws SQLException {
+        List<T> items = new ArrayList<>();
+        KeysetCursor last = null;
+        while (rs.next()) {
+            if (items.size() == pageSize) {
+                return new KeysetPage<>(items, last);
+            }
+            items.add(mapper.map(rs));
+            last = KeysetCursor.of(rs);
+        }
+        return new KeysetPage<>(items, null);
+    }
+
+    static <T> KeysetPage<T> empty() {
+        return new KeysetPage<>(new ArrayList<>(), null);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Cursor for the following page, or null if this is the last page
+     */
+    public KeysetCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,164 @@
+package kiosk.database.dao;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiosk.database.DatabaseConnection;
+import kiosk.model.CustomOrder.OrderStatus;
+import kiosk.model.OrderEvent;
+import kiosk.model.OrderEvent.Type;
+import kiosk.util.Money;
+
+/**
+ * Data Access Object for the custom order event log.
+ * Events are only ever appended; append() joins the caller's transaction so an
+ * event is stored together with the order change it describes.
+ */
+public class OrderEventDAO {
+    private Connection connection;
+
+    public OrderEventDAO() {
+        this.connection = DatabaseConnection.getInstance().getConnection();
+    }
+
+    /**
+     * Append events as one batch on the shared connection (the caller owns the transaction)
+     */
+    public void append(List<OrderEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO custom_order_events (order_number, event_type, from_status, to_status, " +
+                    "detail, amount, actor, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (OrderEvent event : events) {
+                pstmt.setString(1, event.getOrderNumber());
+                pstmt.setString(2, event.getType().toString());
+                pstmt.setString(3, event.getFromStatus() != null ? event.getFromStatus().toString() : null);
+                pstmt.setString(4, event.getToStatus() != null ? event.getToStatus().toString() : null);
+                pstmt.setString(5, event.getDetail());
+                if (event.getType() == Type.DEPOSIT_PAID) {
+                    Money.bind(pstmt, 6, event.getAmountCents());
+                } else {
+                    pstmt.setNull(6, Types.DECIMAL);
+                }
+                pstmt.setString(7, event.getActor());
+                pstmt.setTimestamp(8, Timestamp.valueOf(event.getCreatedAt()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Full history of one order, oldest first
+     */
+    public List<OrderEvent> findByOrderNumber(String orderNumber) {
+        List<OrderEvent> events = new ArrayList<>();
+        String sql = "SELECT * FROM custom_order_events WHERE order_number = ? ORDER BY id";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, orderNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(extractEventFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading order history: " + e.getMessage());
+        }
+
+        return events;
+    }
+
+    /**
+     * Events logged after the given ID (by any station), oldest first
+     */
+    public List<OrderEvent> findAfter(long afterId, int limit) {
+        List<OrderEvent> events = new ArrayList<>();
+        String sql = "SELECT * FROM custom_order_events WHERE id > ? ORDER BY id LIMIT ?";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setLong(1, afterId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(extractEventFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading order events: " + e.getMessage());
+        }
+
+        return events;
+    }
+
+    /**
+     * ID of the newest event, 0 if the log is empty
+     */
+    public long getLatestId() {
+        String sql = "SELECT MAX(id) FROM custom_order_events";
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading order events: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Current status of every order, projected from the last status-setting event in the log
+     */
+    public Map<String, OrderStatus> projectStatuses() {
+        Map<String, OrderStatus> statuses = new HashMap<>();
+        String sql = "SELECT e.order_number, e.to_status FROM custom_order_events e " +
+                    "JOIN (SELECT order_number, MAX(id) AS last_id FROM custom_order_events " +
+                    "      WHERE to_status IS NOT NULL GROUP BY order_number) latest " +
+                    "ON e.id = latest.last_id";
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                statuses.put(rs.getString("order_number"), OrderStatus.valueOf(rs.getString("to_status")));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error projecting order statuses: " + e.getMessage());
+        }
+
+        return statuses;
+    }
+
+    private OrderEvent extractEventFromResultSet(ResultSet rs) throws SQLException {
+        OrderEvent event = new OrderEvent();
+        event.setId(rs.getLong("id"));
+        event.setOrderNumber(rs.getString("order_number"));
+        event.setType(Type.valueOf(rs.getString("event_type")));
+
+        String from = rs.getString("from_status");
+        if (from != null) {
+            event.setFromStatus(OrderStatus.valueOf(from));
+        }
+        String to = rs.getString("to_status");
+        if (to != null) {
+            event.setToStatus(OrderStatus.valueOf(to));
+        }
+
+        event.setDetail(rs.getString("detail"));
+        event.setAmountCents(Money.read(rs, "amount"));
+        event.setActor(rs.getString("actor"));
+
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            event.setCreatedAt(createdAt.toLocalDateTime());
+        }
+        return event;
+    }
+}
@@ -0,0 +1,67 @@
+package kiosk.database.dao;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import kiosk.database.DatabaseConfig;
+import kiosk.database.DatabaseConnection;
+import kiosk.database.PickupSlotIndex;
+import kiosk.model.OrderEvent;
+
+/**
+ * Background follower of the custom order event log for the in-memory caches.
+ * Every db.orders.event_poll_seconds it reads the events logged since the last
+ * poll (by any station) and passes them to OrderStatisticsCache and
+ * PickupSlotIndex, so dashboard counters and slot bookings follow orders changed
+ * elsewhere whether or not an admin screen is open. Started with the database
+ * layer; it follows the log from its end at start-up, since both caches are
+ * built from the tables on first use.
+ */
+public class OrderEventFollower {
+    private static final int BATCH_SIZE = 500;
+
+    private static ScheduledExecutorService scheduler;
+    private static long lastEventId;
+
+    private OrderEventFollower() {
+    }
+
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        lastEventId = new OrderEventDAO().getLatestId();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-event-follower");
+            t.setDaemon(true);
+            return t;
+        });
+        int seconds = DatabaseConfig.getOrderEventPollSeconds();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                System.err.println("Error following order events: " + e.getMessage());
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Apply every event logged since the last poll, a batch at a time
+     */
+    private static void poll() {
+        OrderEventDAO dao = new OrderEventDAO();
+        List<OrderEvent> events;
+        do {
+            events = dao.findAfter(lastEventId, BATCH_SIZE);
+            if (events.isEmpty()) {
+                return;
+            }
+            OrderStatisticsCache.getInstance().applyLogged(events);
+            PickupSlotIndex.getInstance().applyLogged(DatabaseConnection.getInstance().getConnection(), events);
+            lastEventId = events.get(events.size() - 1).getId();
+        } while (events.size() == BATCH_SIZE);
+    }
+}
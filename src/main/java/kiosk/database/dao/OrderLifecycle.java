@@ -0,0 +1,306 @@
+package kiosk.database.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import kiosk.database.DatabaseConnection;
+import kiosk.database.SqlDialect;
+import kiosk.database.dao.CustomOrderDAO.BulkStatusResult;
+import kiosk.model.CustomOrder.OrderStatus;
+import kiosk.model.CustomOrder.PaymentStatus;
+import kiosk.model.OrderEvent;
+import kiosk.model.OrderEvent.Type;
+import kiosk.util.Money;
+
+/**
+ * State machine for the custom order lifecycle.
+ * Every status move, cancellation, deposit and baker assignment goes through
+ * here: status moves are checked with OrderStatus.canMoveTo, and the orders row
+ * and its custom_order_events entry are written in one transaction (batched for
+ * bulk moves). order_status on the row is the projection of the log's latest
+ * status event. Once committed, events are passed to the listeners subscribed
+ * in this process; other stations' changes reach the caches through
+ * OrderEventFollower, which polls OrderEventDAO.findAfter.
+ */
+public class OrderLifecycle {
+    private static final int FETCH_BATCH_SIZE = 500;
+    
+    // Status update per target status (each sets its own timestamp columns)
+    private static final Map<OrderStatus, SqlDialect.Template> STATUS_UPDATES = new EnumMap<>(OrderStatus.class);
+    private static final SqlDialect.Template PAYMENT_UPDATE = SqlDialect.template(
+            "UPDATE custom_orders SET payment_status = ?, deposit_paid = ?, " +
+            "balance_due = total_amount - ?, deposit_paid_at = {now}, version = version + 1, " +
+            "updated_at = {now} WHERE order_number = ?");
+    private static final SqlDialect.Template BAKER_UPDATE = SqlDialect.template(
+            "UPDATE custom_orders SET assigned_baker = ?, version = version + 1, updated_at = {now} " +
+            "WHERE order_number = ?");
+    
+    static {
+        for (OrderStatus status : OrderStatus.values()) {
+            StringBuilder sql = new StringBuilder(
+                "UPDATE custom_orders SET order_status = ?, version = version + 1, updated_at = {now}");
+            if (status == OrderStatus.CONFIRMED) {
+                sql.append(", confirmed_at = {now}");
+            } else if (status == OrderStatus.COMPLETED) {
+                sql.append(", completed_at = {now}");
+            } else if (status == OrderStatus.CANCELLED) {
+                sql.append(", cancellation_reason = ?, cancelled_by = ?, cancelled_at = {now}");
+            }
+            sql.append(" WHERE order_number = ? AND order_status = ?");
+            STATUS_UPDATES.put(status, SqlDialect.template(sql.toString()));
+        }
+    }
+
+    private static OrderLifecycle instance;
+
+    /**
+     * Receives lifecycle events after they are committed
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onOrderEvent(OrderEvent event);
+    }
+
+    @FunctionalInterface
+    private interface Work<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private OrderLifecycle() {
+    }
+
+    public static synchronized OrderLifecycle getInstance() {
+        if (instance == null) {
+            instance = new OrderLifecycle();
+        }
+        return instance;
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Move orders to a new status. Orders that may not make the transition, or whose
+     * status another station changed meanwhile, are left alone and reported.
+     * reason is stored as the cancellation reason when moving to CANCELLED.
+     */
+    public BulkStatusResult changeStatus(List<String> orderNumbers, OrderStatus newStatus, String reason, String actor) {
+        BulkStatusResult result = new BulkStatusResult();
+        if (orderNumbers.isEmpty()) {
+            return result;
+        }
+
+        String sql = STATUS_UPDATES.get(newStatus).sql();
+
+        List<OrderEvent> events = inTransaction("Error updating order statuses", connection -> {
+            Map<String, OrderStatus> current = findStatuses(connection, orderNumbers);
+            List<OrderEvent> pending = new ArrayList<>();
+
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (String orderNumber : orderNumbers) {
+                    OrderStatus status = current.get(orderNumber);
+                    if (status == null) {
+                        result.rejected.put(orderNumber, "not found");
+                    } else if (!status.canMoveTo(newStatus)) {
+                        result.rejected.put(orderNumber, "cannot go from " + status + " to " + newStatus);
+                    } else {
+                        int index = 1;
+                        pstmt.setString(index++, newStatus.toString());
+                        if (newStatus == OrderStatus.CANCELLED) {
+                            pstmt.setString(index++, reason);
+                            pstmt.setString(index++, actor);
+                        }
+                        pstmt.setString(index++, orderNumber);
+                        pstmt.setString(index, status.toString());
+                        pstmt.addBatch();
+                        pending.add(new OrderEvent(orderNumber, Type.STATUS_CHANGED, status, newStatus, reason, actor));
+                    }
+                }
+
+                int[] counts = pending.isEmpty() ? new int[0] : pstmt.executeBatch();
+                List<OrderEvent> applied = new ArrayList<>();
+                for (int i = 0; i < pending.size(); i++) {
+                    if (counts[i] == 0) {
+                        result.rejected.put(pending.get(i).getOrderNumber(), "changed on another station");
+                    } else {
+                        applied.add(pending.get(i));
+                    }
+                }
+                new OrderEventDAO().append(applied);
+                return applied;
+            }
+        });
+
+        if (events == null) {
+            for (String orderNumber : orderNumbers) {
+                result.rejected.putIfAbsent(orderNumber, "database error");
+            }
+            return result;
+        }
+        for (OrderEvent event : events) {
+            result.updated.add(event.getOrderNumber());
+        }
+        publish(events);
+        return result;
+    }
+
+    /**
+     * Record a deposit or full payment; the balance becomes total minus the amount paid
+     */
+    public boolean recordPayment(String orderNumber, PaymentStatus paymentStatus, long paidCents, String actor) {
+        OrderEvent event = new OrderEvent(orderNumber, Type.DEPOSIT_PAID, null, null, paymentStatus.toString(), actor);
+        event.setAmountCents(paidCents);
+        return writeOne("Error updating payment status", PAYMENT_UPDATE.sql(), event, pstmt -> {
+            pstmt.setString(1, paymentStatus.toString());
+            Money.bind(pstmt, 2, paidCents);
+            Money.bind(pstmt, 3, paidCents);
+            pstmt.setString(4, orderNumber);
+        });
+    }
+
+    /**
+     * Assign (or with null, unassign) the baker for an order
+     */
+    public boolean assignBaker(String orderNumber, String bakerName, String actor) {
+        OrderEvent event = new OrderEvent(orderNumber, Type.BAKER_ASSIGNED, null, null, bakerName, actor);
+        return writeOne("Error assigning baker", BAKER_UPDATE.sql(), event, pstmt -> {
+            pstmt.setString(1, bakerName);
+            pstmt.setString(2, orderNumber);
+        });
+    }
+
+    /**
+     * Full history of an order, oldest first
+     */
+    public List<OrderEvent> history(String orderNumber) {
+        return new OrderEventDAO().findByOrderNumber(orderNumber);
+    }
+
+    /**
+     * Status of an order replayed from its history; null if the log has no status for it
+     */
+    public OrderStatus replay(String orderNumber) {
+        OrderStatus status = null;
+        for (OrderEvent event : history(orderNumber)) {
+            if (!event.changesStatus()) {
+                continue;
+            }
+            if (status != null && !status.canMoveTo(event.getToStatus())) {
+                System.err.println("Warning: " + orderNumber + " history has illegal move " + status +
+                                 " -> " + event.getToStatus() + " (event " + event.getId() + ")");
+            }
+            status = event.getToStatus();
+        }
+        return status;
+    }
+
+    /**
+     * Pass committed events to every listener; one failing listener doesn't stop the others
+     */
+    void publish(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            for (Listener listener : listeners) {
+                try {
+                    listener.onOrderEvent(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Error in order event listener: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * Single-row update plus its event in one transaction
+     */
+    private boolean writeOne(String errorMessage, String sql, OrderEvent event, Binder binder) {
+        Boolean updated = inTransaction(errorMessage, connection -> {
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                binder.bind(pstmt);
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            new OrderEventDAO().append(Collections.singletonList(event));
+            return true;
+        });
+
+        if (updated == null || !updated) {
+            return false;
+        }
+        publish(Collections.singletonList(event));
+        return true;
+    }
+
+    /**
+     * Run work in a transaction on the shared connection; null if it failed and was rolled back
+     */
+    private <T> T inTransaction(String errorMessage, Work<T> work) {
+        Connection connection = DatabaseConnection.getInstance().getConnection();
+        try {
+            connection.setAutoCommit(false);
+            T result = work.run(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            System.err.println(errorMessage + ": " + e.getMessage());
+            return null;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Current status of each order that exists, keyed by order number
+     */
+    private static Map<String, OrderStatus> findStatuses(Connection connection, List<String> orderNumbers)
+            throws SQLException {
+        Map<String, OrderStatus> statuses = new HashMap<>();
+        for (int start = 0; start < orderNumbers.size(); start += FETCH_BATCH_SIZE) {
+            List<String> batch = orderNumbers.subList(start, Math.min(start + FETCH_BATCH_SIZE, orderNumbers.size()));
+            String sql = "SELECT order_number, order_status FROM custom_orders WHERE order_number IN (" +
+                        String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    pstmt.setString(i + 1, batch.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        statuses.put(rs.getString("order_number"), OrderStatus.valueOf(rs.getString("order_status")));
+                    }
+                }
+            }
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,260 @@
+package kiosk.database.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiosk.database.dao.CustomOrderDAO.OrderStatistics;
+import kiosk.model.CustomOrder;
+import kiosk.model.CustomOrder.OrderStatus;
+import kiosk.model.OrderEvent;
+import kiosk.util.Money;
+
+/**
+ * Dashboard statistics for custom orders, kept in memory and updated by
+ * CustomOrderDAO as orders are inserted, moved between statuses, paid and
+ * cancelled. Each order's last known contribution is remembered so an event
+ * moves exactly that order's amounts between counters.
+ *
+ * Status changes and deposits arrive as OrderLifecycle events, and changes
+ * made at other stations as the same events read back from the order event
+ * log by OrderEventFollower (applyLogged). Events carry absolute statuses and deposits, so seeing
+ * a local event again in the log is harmless.
+ * The custom_orders table is only scanned to (re)build the counters: on first
+ * use, when reconcile() is called, when the log mentions an order not seen yet,
+ * and lazily once RECONCILE_INTERVAL_MS has passed. Callers pass the primary
+ * connection so a rebuild never reads a lagging replica.
+ */
+public class OrderStatisticsCache {
+    private static final long RECONCILE_INTERVAL_MS = 15 * 60 * 1000;
+
+    private static OrderStatisticsCache instance;
+
+    /**
+     * What one order adds to the statistics
+     */
+    private static class Contribution {
+        final OrderStatus status;
+        final long total;
+        final long deposit;
+        final long balance;
+
+        Contribution(OrderStatus status, long total, long deposit, long balance) {
+            this.status = status;
+            this.total = total;
+            this.deposit = deposit;
+            this.balance = balance;
+        }
+
+        boolean counted() {
+            return status != OrderStatus.CANCELLED;
+        }
+    }
+
+    private final Map<String, Contribution> orders = new HashMap<>();
+    private final Map<OrderStatus, Integer> statusCounts = new EnumMap<>(OrderStatus.class);
+    private int totalOrders;
+    private long totalRevenue;
+    private long totalDeposits;
+    private long totalBalanceDue;
+    private boolean loaded;
+    private long lastReconciled;
+
+    private OrderStatisticsCache() {
+        OrderLifecycle.getInstance().subscribe(this::onOrderEvent);
+    }
+
+    public static synchronized OrderStatisticsCache getInstance() {
+        if (instance == null) {
+            instance = new OrderStatisticsCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Current statistics; rebuilt from the table first if never loaded or due for reconciliation
+     */
+    public synchronized OrderStatistics snapshot(Connection connection) {
+        if (!loaded || System.currentTimeMillis() - lastReconciled > RECONCILE_INTERVAL_MS) {
+            reconcile(connection);
+        }
+        OrderStatistics stats = new OrderStatistics();
+        stats.totalOrders = totalOrders;
+        stats.pendingOrders = count(OrderStatus.PENDING);
+        stats.confirmedOrders = count(OrderStatus.CONFIRMED);
+        stats.inProductionOrders = count(OrderStatus.IN_PRODUCTION);
+        stats.readyOrders = count(OrderStatus.READY);
+        stats.completedOrders = count(OrderStatus.COMPLETED);
+        stats.totalRevenue = totalRevenue;
+        stats.totalDeposits = totalDeposits;
+        stats.totalBalanceDue = totalBalanceDue;
+        return stats;
+    }
+
+    /**
+     * Rebuild every counter from custom_orders, logging any drift from the in-memory values
+     */
+    public synchronized void reconcile(Connection connection) {
+        Map<String, Contribution> fresh = new HashMap<>();
+        String sql = "SELECT order_number, order_status, total_amount, deposit_paid, balance_due " +
+                    "FROM custom_orders";
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                fresh.put(rs.getString("order_number"), new Contribution(
+                    parseStatus(rs.getString("order_status")),
+                    Money.read(rs, "total_amount"),
+                    Money.read(rs, "deposit_paid"),
+                    Money.read(rs, "balance_due")));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reconciling order statistics: " + e.getMessage());
+            return;
+        }
+
+        int previousOrders = totalOrders;
+        long previousRevenue = totalRevenue;
+        orders.clear();
+        statusCounts.clear();
+        totalOrders = 0;
+        totalRevenue = 0;
+        totalDeposits = 0;
+        totalBalanceDue = 0;
+        for (Map.Entry<String, Contribution> entry : fresh.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+
+        if (loaded && (previousOrders != totalOrders || previousRevenue != totalRevenue)) {
+            System.err.println("Warning: order statistics drifted (" + previousOrders + " orders, " +
+                             Money.format(previousRevenue) + " -> " + totalOrders + " orders, " +
+                             Money.format(totalRevenue) + "); corrected");
+        }
+        loaded = true;
+        lastReconciled = System.currentTimeMillis();
+    }
+
+    /**
+     * A new order was saved
+     */
+    public synchronized void orderInserted(CustomOrder order) {
+        if (loaded) {
+            put(order.getOrderNumber(), new Contribution(order.getOrderStatus(), order.getTotalAmountCents(),
+                                                         order.getDepositPaidCents(), order.getBalanceDueCents()));
+        }
+    }
+
+    /**
+     * An order was rewritten as a whole
+     */
+    public synchronized void orderUpdated(CustomOrder order) {
+        orderInserted(order);
+    }
+
+    /**
+     * Events read from the order event log, oldest first, including those
+     * written by other stations
+     */
+    public synchronized void applyLogged(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            if (event.getType() == OrderEvent.Type.CREATED && !orders.containsKey(event.getOrderNumber())) {
+                // amounts aren't in the event; pick the order up on the next rebuild
+                unknownOrder();
+            } else {
+                onOrderEvent(event);
+            }
+        }
+    }
+
+    private synchronized void onOrderEvent(OrderEvent event) {
+        switch (event.getType()) {
+            case STATUS_CHANGED:
+                statusChanged(event.getOrderNumber(), event.getToStatus());
+                break;
+            case DEPOSIT_PAID:
+                depositPaid(event.getOrderNumber(), event.getAmountCents());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * An order moved to a new status (including CANCELLED)
+     */
+    private void statusChanged(String orderNumber, OrderStatus status) {
+        Contribution old = orders.get(orderNumber);
+        if (old != null) {
+            put(orderNumber, new Contribution(status, old.total, old.deposit, old.balance));
+        } else {
+            unknownOrder();
+        }
+    }
+
+    /**
+     * A deposit was recorded; the balance becomes total minus deposit
+     */
+    private void depositPaid(String orderNumber, long depositCents) {
+        Contribution old = orders.get(orderNumber);
+        if (old != null) {
+            put(orderNumber, new Contribution(old.status, old.total, depositCents, old.total - depositCents));
+        } else {
+            unknownOrder();
+        }
+    }
+
+    public synchronized void orderDeleted(String orderNumber) {
+        Contribution old = orders.remove(orderNumber);
+        if (old != null) {
+            apply(old, -1);
+        }
+    }
+
+    /**
+     * Replace an order's contribution with a new one
+     */
+    private void put(String orderNumber, Contribution contribution) {
+        Contribution old = orders.put(orderNumber, contribution);
+        if (old != null) {
+            apply(old, -1);
+        }
+        apply(contribution, 1);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (!contribution.counted()) {
+            return;
+        }
+        totalOrders += sign;
+        statusCounts.merge(contribution.status, sign, Integer::sum);
+        totalRevenue += sign * contribution.total;
+        totalDeposits += sign * contribution.deposit;
+        totalBalanceDue += sign * contribution.balance;
+    }
+
+    /**
+     * An event for an order we haven't seen (written elsewhere); rebuild on next read
+     */
+    private void unknownOrder() {
+        if (loaded) {
+            lastReconciled = 0;
+        }
+    }
+
+    private int count(OrderStatus status) {
+        return statusCounts.getOrDefault(status, 0);
+    }
+
+    private static OrderStatus parseStatus(String status) {
+        try {
+            return status != null ? OrderStatus.valueOf(status) : OrderStatus.PENDING;
+        } catch (IllegalArgumentException e) {
+            return OrderStatus.PENDING;
+        }
+    }
+}
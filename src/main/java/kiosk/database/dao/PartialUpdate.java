@@ -0,0 +1,100 @@
+package kiosk.database.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import kiosk.database.SqlDialect;
+import kiosk.model.ChangeTracker;
+
+/**
+ * UPDATE statement for one table that sets only a record's changed columns.
+ * Columns are registered once with a binder; the SQL for each combination of
+ * changed columns is built on first use and cached, so an edit that touches
+ * one field sends a one-column UPDATE. alwaysSet may use SqlDialect tokens.
+ */
+final class PartialUpdate<T> {
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement pstmt, int index, T record) throws SQLException;
+    }
+
+    private final String table;
+    private final String alwaysSet;
+    private final String where;
+    private final List<String> columns = new ArrayList<>();
+    private final List<Binder<T>> binders = new ArrayList<>();
+    private final Map<BitSet, SqlDialect.Template> statements = new ConcurrentHashMap<>();
+
+    /**
+     * @param alwaysSet assignments added to every statement (e.g. the version bump)
+     * @param where condition whose parameters the caller binds after the column values
+     */
+    PartialUpdate(String table, String alwaysSet, String where) {
+        this.table = table;
+        this.alwaysSet = alwaysSet;
+        this.where = where;
+    }
+
+    PartialUpdate<T> column(String name, Binder<T> binder) {
+        columns.add(name);
+        binders.add(binder);
+        return this;
+    }
+
+    /**
+     * Registered columns the tracker reports as changed; all of them for an untracked record
+     */
+    BitSet changed(ChangeTracker tracker) {
+        BitSet set = new BitSet(columns.size());
+        if (!tracker.isTracking()) {
+            set.set(0, columns.size());
+            return set;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (tracker.getChangedColumns().contains(columns.get(i))) {
+                set.set(i);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Columns the tracker reports as changed that this statement does not write
+     */
+    Set<String> unregistered(ChangeTracker tracker) {
+        Set<String> others = new HashSet<>();
+        if (tracker.isTracking()) {
+            others.addAll(tracker.getChangedColumns());
+            others.removeAll(columns);
+        }
+        return others;
+    }
+
+    String sql(BitSet changed) {
+        return statements.computeIfAbsent(changed, set -> {
+            StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                sql.append(columns.get(i)).append(" = ?, ");
+            }
+            return SqlDialect.template(sql.append(alwaysSet).append(" WHERE ").append(where).toString());
+        }).sql();
+    }
+
+    /**
+     * Bind the changed column values; returns the index of the first WHERE parameter
+     */
+    int bind(PreparedStatement pstmt, BitSet changed, T record) throws SQLException {
+        int index = 1;
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            binders.get(i).bind(pstmt, index++, record);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,116 @@
+package kiosk.database.dao;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiosk.database.DatabaseConnection;
+import kiosk.model.Promotion;
+import kiosk.model.Promotion.PromoType;
+import kiosk.model.Promotion.Scope;
+import kiosk.util.Money;
+
+/**
+ * Data Access Object for promotions and their redemptions
+ */
+public class PromotionDAO {
+    private Connection connection;
+
+    public PromotionDAO() {
+        this.connection = DatabaseConnection.getInstance().getConnection();
+    }
+
+    /**
+     * All promotions flagged active; the time window is checked when evaluating
+     */
+    public List<Promotion> getActivePromotions() {
+        List<Promotion> promotions = new ArrayList<>();
+        String sql = "SELECT * FROM promotions WHERE is_active = 1 ORDER BY id";
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                promotions.add(extractPromotionFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading promotions: " + e.getMessage());
+        }
+
+        return promotions;
+    }
+
+    /**
+     * Number of times a customer has redeemed each promotion, keyed by promotion ID
+     */
+    public Map<Integer, Integer> getRedemptionCounts(String customerId) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        String sql = "SELECT promotion_id, COUNT(*) AS uses FROM promotion_redemptions " +
+                    "WHERE customer_id = ? GROUP BY promotion_id";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, customerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getInt("promotion_id"), rs.getInt("uses"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading promotion redemptions: " + e.getMessage());
+        }
+
+        return counts;
+    }
+
+    /**
+     * Record the promotions applied to a completed sale
+     */
+    public boolean insertRedemptions(String transactionId, String customerId, Map<Promotion, Long> discounts) {
+        String sql = "INSERT INTO promotion_redemptions (promotion_id, customer_id, transaction_id, " +
+                    "discount_amount) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (Map.Entry<Promotion, Long> entry : discounts.entrySet()) {
+                pstmt.setInt(1, entry.getKey().getId());
+                pstmt.setString(2, customerId);
+                pstmt.setString(3, transactionId);
+                Money.bind(pstmt, 4, entry.getValue());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error recording promotion redemptions: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Promotion extractPromotionFromResultSet(ResultSet rs) throws SQLException {
+        Promotion promotion = new Promotion();
+        promotion.setId(rs.getInt("id"));
+        promotion.setPromoCode(rs.getString("promo_code"));
+        promotion.setPromoName(rs.getString("promo_name"));
+        promotion.setPromoType(PromoType.valueOf(rs.getString("promo_type")));
+        promotion.setScope(Scope.valueOf(rs.getString("scope")));
+        promotion.setScopeValue(rs.getString("scope_value"));
+        promotion.setDiscountValueCents(Money.read(rs, "discount_value"));
+        promotion.setBuyQuantity(Math.max(1, rs.getInt("buy_quantity")));
+        promotion.setGetQuantity(Math.max(1, rs.getInt("get_quantity")));
+        promotion.setMinSubtotalCents(Money.read(rs, "min_subtotal"));
+
+        Timestamp startsAt = rs.getTimestamp("starts_at");
+        if (startsAt != null) {
+            promotion.setStartsAt(startsAt.toLocalDateTime());
+        }
+        Timestamp endsAt = rs.getTimestamp("ends_at");
+        if (endsAt != null) {
+            promotion.setEndsAt(endsAt.toLocalDateTime());
+        }
+
+        int limit = rs.getInt("per_customer_limit");
+        promotion.setPerCustomerLimit(rs.wasNull() ? null : limit);
+        promotion.setActive(rs.getBoolean("is_active"));
+        return promotion;
+    }
+}
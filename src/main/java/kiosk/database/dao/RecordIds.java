@@ -0,0 +1,26 @@
+package kiosk.database.dao;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.UUID;
+
+import kiosk.database.DatabaseConfig;
+
+/**
+ * Business IDs for records created at a station, e.g. CO-20250114-KIOSK2-3F9A1C07.
+ * The date and station keep them readable; the random part makes them unique
+ * without reading the database, so stations working from their own replica (or
+ * from SQLite while failed over) never hand out an ID another station used.
+ */
+final class RecordIds {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private RecordIds() {
+    }
+
+    static String next(String prefix) {
+        String random = UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase(Locale.ROOT);
+        return prefix + "-" + LocalDate.now().format(DATE) + "-" + DatabaseConfig.getStationId() + "-" + random;
+    }
+}
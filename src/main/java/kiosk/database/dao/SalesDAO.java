@@ -1,18 +1,33 @@
 package kiosk.database.dao;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 
 import kiosk.database.DatabaseConnection;
 import kiosk.database.DatabaseConfig;
+import kiosk.database.ReadRouter;
+import kiosk.database.SalesArchive;
 import kiosk.database.SqlDialect;
 import kiosk.model.CartItem;
 import kiosk.model.SaleTransaction;
+import kiosk.model.SalesSummary;
+import kiosk.model.TransactionHeader;
+import kiosk.util.Money;
 
 /**
  * Data Access Object for Sales Transactions
+ * Report queries (date ranges, totals, counts) run on the reporting replica when
+ * one is configured and fresh; see {@link ReadRouter}
+ * Months older than the hot window live in per-month archive tables (see
+ * {@link SalesArchive}); date-range queries only include the archived months
+ * they overlap, and all-time figures come from the archive summaries.
  */
 public class SalesDAO {
     private Connection connection;
@@ -21,6 +36,55 @@ public class SalesDAO {
         this.connection = DatabaseConnection.getInstance().getConnection();
     }
     
+    /**
+     * Sales on a connection of the caller's own instead of the shared one (SqliteBenchmark)
+     */
+    public SalesDAO(Connection connection) {
+        this.connection = connection;
+    }
+    
+    /**
+     * Lease on the reporting connection; close it when the query is done
+     */
+    private static Connection reportingConnection() {
+        return ReadRouter.getInstance().getReportingConnection();
+    }
+    
+    /**
+     * Source of sales_transactions rows between two dates: the live table, plus the
+     * archive tables of the archived months the range overlaps. Callers add an alias.
+     */
+    private static String transactionsSource(LocalDateTime startDate, LocalDateTime endDate) {
+        NavigableSet<YearMonth> months = SalesArchive.getArchivedMonths()
+            .subSet(YearMonth.from(startDate), true, YearMonth.from(endDate), true);
+        if (months.isEmpty()) {
+            return "sales_transactions";
+        }
+        StringBuilder source = new StringBuilder("(SELECT ").append(SalesArchive.TRANSACTION_COLUMNS).append(" FROM sales_transactions");
+        for (YearMonth month : months) {
+            source.append(" UNION ALL SELECT ").append(SalesArchive.TRANSACTION_COLUMNS)
+                  .append(" FROM ").append(SalesArchive.transactionsTable(month));
+        }
+        return source.append(')').toString();
+    }
+    
+    /**
+     * Source of sales_items rows for transactions between two dates (see transactionsSource)
+     */
+    private static String itemsSource(LocalDateTime startDate, LocalDateTime endDate) {
+        NavigableSet<YearMonth> months = SalesArchive.getArchivedMonths()
+            .subSet(YearMonth.from(startDate), true, YearMonth.from(endDate), true);
+        if (months.isEmpty()) {
+            return "sales_items";
+        }
+        StringBuilder source = new StringBuilder("(SELECT ").append(SalesArchive.ITEM_COLUMNS).append(" FROM sales_items");
+        for (YearMonth month : months) {
+            source.append(" UNION ALL SELECT ").append(SalesArchive.ITEM_COLUMNS)
+                  .append(" FROM ").append(SalesArchive.itemsTable(month));
+        }
+        return source.append(')').toString();
+    }
+    
     /**
      * Create sales tables if not exist
      */
@@ -70,6 +134,9 @@ public class SalesDAO {
      * Insert a new sale transaction with items
      */
     public boolean insert(SaleTransaction transaction) {
+        // sales_transactions no longer has a unique transaction_id once partitioned; the registry does
+        String idSql = "INSERT INTO sales_transaction_ids (transaction_id) VALUES (?)";
+        
         String salesSql = "INSERT INTO sales_transactions (transaction_id, transaction_date, " +
                          "subtotal, discount_amount, total, discount_applied) VALUES (?, ?, ?, ?, ?, ?)";
         
@@ -79,13 +146,19 @@ public class SalesDAO {
         try {
             connection.setAutoCommit(false);
             
+            // Claim the ID; a duplicate fails here and rolls the sale back
+            try (PreparedStatement pstmt = connection.prepareStatement(idSql)) {
+                pstmt.setString(1, transaction.getTransactionId());
+                pstmt.executeUpdate();
+            }
+            
             // Insert transaction
             try (PreparedStatement pstmt = connection.prepareStatement(salesSql)) {
                 pstmt.setString(1, transaction.getTransactionId());
                 pstmt.setTimestamp(2, Timestamp.valueOf(transaction.getTransactionDate()));
-                pstmt.setDouble(3, transaction.getSubtotal());
-                pstmt.setDouble(4, transaction.getDiscountAmount());
-                pstmt.setDouble(5, transaction.getTotal());
+                Money.bind(pstmt, 3, transaction.getSubtotalCents());
+                Money.bind(pstmt, 4, transaction.getDiscountAmountCents());
+                Money.bind(pstmt, 5, transaction.getTotalCents());
                 // SQLite uses 0/1 for boolean, MySQL uses true/false
                 if (DatabaseConfig.isSqlite()) {
                     pstmt.setInt(6, transaction.isDiscountApplied() ? 1 : 0);
@@ -100,9 +173,9 @@ public class SalesDAO {
                 for (CartItem item : transaction.getItems()) {
                     pstmt.setString(1, transaction.getTransactionId());
                     pstmt.setString(2, item.getItemName());
-                    pstmt.setDouble(3, item.getPrice());
+                    Money.bind(pstmt, 3, item.getPriceCents());
                     pstmt.setInt(4, item.getQuantity());
-                    pstmt.setDouble(5, item.getSubtotal());
+                    Money.bind(pstmt, 5, item.getSubtotalCents());
                     pstmt.addBatch();
                 }
                 pstmt.executeBatch();
@@ -125,17 +198,19 @@ public class SalesDAO {
     }
     
     /**
-     * Get all transactions
+     * Get all transactions, archived months included (reads every sale ever made;
+     * reports should use getAllTimeSummary() or a date range instead)
      */
     public List<SaleTransaction> getAll() {
         List<SaleTransaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM sales_transactions ORDER BY transaction_date DESC";
+        String sql = "SELECT * FROM sales_history ORDER BY transaction_date DESC";
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection reporting = reportingConnection();
+             Statement stmt = reporting.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                SaleTransaction transaction = extractTransactionFromResultSet(rs);
+                SaleTransaction transaction = extractTransactionFromResultSet(reporting, rs);
                 if (transaction != null) {
                     transactions.add(transaction);
                 }
@@ -147,20 +222,22 @@ public class SalesDAO {
     }
     
     /**
-     * Get transaction by ID
+     * Get transaction by ID (live tables first, then the archive)
      */
     public SaleTransaction getById(String transactionId) {
-        String sql = "SELECT * FROM sales_transactions WHERE transaction_id = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, transactionId);
-            ResultSet rs = pstmt.executeQuery();
+        for (String table : new String[] {"sales_transactions", "sales_history"}) {
+            String sql = "SELECT * FROM " + table + " WHERE transaction_id = ?";
             
-            if (rs.next()) {
-                return extractTransactionFromResultSet(rs);
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, transactionId);
+                ResultSet rs = pstmt.executeQuery();
+                
+                if (rs.next()) {
+                    return extractTransactionFromResultSet(connection, rs);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error getting transaction by ID: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting transaction by ID: " + e.getMessage());
         }
         return null;
     }
@@ -170,15 +247,17 @@ public class SalesDAO {
      */
     public List<SaleTransaction> getByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         List<SaleTransaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM sales_transactions WHERE transaction_date BETWEEN ? AND ? ORDER BY transaction_date DESC";
+        String sql = "SELECT * FROM " + transactionsSource(startDate, endDate) + " st " +
+                    "WHERE transaction_date BETWEEN ? AND ? ORDER BY transaction_date DESC";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection reporting = reportingConnection();
+             PreparedStatement pstmt = reporting.prepareStatement(sql)) {
             pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
             pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                SaleTransaction transaction = extractTransactionFromResultSet(rs);
+                SaleTransaction transaction = extractTransactionFromResultSet(reporting, rs);
                 if (transaction != null) {
                     transactions.add(transaction);
                 }
@@ -190,22 +269,155 @@ public class SalesDAO {
     }
     
     /**
-     * Get items for a specific transaction
+     * Transaction headers with item counts for a date range, newest first.
+     * One grouped query instead of loading every line item per transaction.
+     */
+    public List<TransactionHeader> getHeadersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        List<TransactionHeader> headers = new ArrayList<>();
+        String sql = "SELECT t.transaction_id, t.transaction_date, t.subtotal, t.discount_amount, t.total, " +
+                    "COALESCE(SUM(i.quantity), 0) AS item_count " +
+                    "FROM " + transactionsSource(startDate, endDate) + " t " +
+                    "LEFT JOIN " + itemsSource(startDate, endDate) + " i ON i.transaction_id = t.transaction_id " +
+                    "WHERE t.transaction_date BETWEEN ? AND ? " +
+                    "GROUP BY t.transaction_id, t.transaction_date, t.subtotal, t.discount_amount, t.total " +
+                    "ORDER BY t.transaction_date DESC";
+        
+        try (Connection reporting = reportingConnection();
+             PreparedStatement pstmt = reporting.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
+            pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
+            ResultSet rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                headers.add(new TransactionHeader(
+                    rs.getString("transaction_id"),
+                    rs.getTimestamp("transaction_date").toLocalDateTime(),
+                    rs.getInt("item_count"),
+                    Money.read(rs, "subtotal"),
+                    Money.read(rs, "discount_amount"),
+                    Money.read(rs, "total")
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting transaction headers: " + e.getMessage());
+        }
+        return headers;
+    }
+    
+    /**
+     * Total of all sales ever recorded, in centavos (live table plus archive summaries)
      */
-    private List<CartItem> getTransactionItems(String transactionId) {
+    public long getAllTimeTotalSalesCents() {
+        String sql = "SELECT (SELECT COALESCE(SUM(total), 0) FROM sales_transactions) + " +
+                    "(SELECT COALESCE(SUM(total), 0) FROM sales_monthly_summary) AS total_sales";
+        
+        try (Connection reporting = reportingConnection();
+             Statement stmt = reporting.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return Money.read(rs, "total_sales");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting all-time sales total: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * Number of sales ever recorded (live table plus archive summaries)
+     */
+    public int getAllTimeTransactionCount() {
+        String sql = "SELECT (SELECT COUNT(*) FROM sales_transactions) + " +
+                    "(SELECT COALESCE(SUM(transaction_count), 0) FROM sales_monthly_summary) AS count";
+        
+        try (Connection reporting = reportingConnection();
+             Statement stmt = reporting.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getInt("count");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting all-time transaction count: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * All-time totals, daily totals and per-item sales: archived months from their
+     * summaries, the live months aggregated from the live tables
+     */
+    public SalesSummary getAllTimeSummary() {
+        long totalCents = 0;
+        int transactionCount = 0;
+        int itemCount = 0;
+        Map<LocalDate, Long> dailyTotals = new HashMap<>();
+        Map<String, Integer> itemQuantities = new HashMap<>();
+        Map<String, Long> itemRevenue = new HashMap<>();
+        
+        try (Connection reporting = reportingConnection();
+             Statement stmt = reporting.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT transaction_count, item_count, total FROM sales_monthly_summary")) {
+                while (rs.next()) {
+                    transactionCount += rs.getInt("transaction_count");
+                    itemCount += rs.getInt("item_count");
+                    totalCents += Money.read(rs, "total");
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT sales_day, total FROM sales_daily_summary")) {
+                while (rs.next()) {
+                    dailyTotals.merge(LocalDate.parse(rs.getString("sales_day").trim()), Money.read(rs, "total"), Long::sum);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT item_name, quantity, revenue FROM sales_item_monthly_summary")) {
+                while (rs.next()) {
+                    itemQuantities.merge(rs.getString("item_name"), rs.getInt("quantity"), Integer::sum);
+                    itemRevenue.merge(rs.getString("item_name"), Money.read(rs, "revenue"), Long::sum);
+                }
+            }
+            
+            try (ResultSet rs = stmt.executeQuery("SELECT transaction_date, total FROM sales_transactions")) {
+                while (rs.next()) {
+                    long total = Money.read(rs, "total");
+                    transactionCount++;
+                    totalCents += total;
+                    dailyTotals.merge(rs.getTimestamp("transaction_date").toLocalDateTime().toLocalDate(), total, Long::sum);
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT item_name, SUM(quantity) AS quantity, SUM(subtotal) AS revenue " +
+                    "FROM sales_items GROUP BY item_name")) {
+                while (rs.next()) {
+                    int quantity = rs.getInt("quantity");
+                    itemCount += quantity;
+                    itemQuantities.merge(rs.getString("item_name"), quantity, Integer::sum);
+                    itemRevenue.merge(rs.getString("item_name"), Money.read(rs, "revenue"), Long::sum);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting all-time sales summary: " + e.getMessage());
+        }
+        return new SalesSummary(totalCents, transactionCount, itemCount, dailyTotals, itemQuantities, itemRevenue);
+    }
+    
+    /**
+     * Get items for a specific transaction (from the archive too if its month is archived)
+     */
+    private List<CartItem> getTransactionItems(Connection conn, String transactionId, LocalDateTime transactionDate) {
         List<CartItem> items = new ArrayList<>();
-        String sql = "SELECT * FROM sales_items WHERE transaction_id = ?";
+        String sql = "SELECT * FROM " + itemsSource(transactionDate, transactionDate) + " si WHERE transaction_id = ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, transactionId);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
                 String itemName = rs.getString("item_name");
-                double price = rs.getDouble("price");
+                long price = Money.read(rs, "price");
                 int quantity = rs.getInt("quantity");
                 
-                items.add(new CartItem(itemName, price, quantity));
+                items.add(CartItem.ofCents(itemName, price, quantity));
             }
         } catch (SQLException e) {
             System.err.println("Error getting transaction items: " + e.getMessage());
@@ -214,17 +426,17 @@ public class SalesDAO {
     }
     
     /**
-     * Extract SaleTransaction from ResultSet
+     * Extract SaleTransaction from ResultSet; items are read from the same database as the row
      */
-    private SaleTransaction extractTransactionFromResultSet(ResultSet rs) throws SQLException {
+    private SaleTransaction extractTransactionFromResultSet(Connection conn, ResultSet rs) throws SQLException {
         String transactionId = rs.getString("transaction_id");
         LocalDateTime transactionDate = rs.getTimestamp("transaction_date").toLocalDateTime();
-        double subtotal = rs.getDouble("subtotal");
-        double discountAmount = rs.getDouble("discount_amount");
-        double total = rs.getDouble("total");
+        long subtotal = Money.read(rs, "subtotal");
+        long discountAmount = Money.read(rs, "discount_amount");
+        long total = Money.read(rs, "total");
         boolean discountApplied = rs.getBoolean("discount_applied");
         
-        List<CartItem> items = getTransactionItems(transactionId);
+        List<CartItem> items = getTransactionItems(conn, transactionId, transactionDate);
         
         return new SaleTransaction(
             transactionId,
@@ -238,32 +450,36 @@ public class SalesDAO {
     }
     
     /**
-     * Get total sales for a date range
+     * Get total sales for a date range, in centavos
      */
-    public double getTotalSales(LocalDateTime startDate, LocalDateTime endDate) {
-        String sql = "SELECT SUM(total) as total_sales FROM sales_transactions WHERE transaction_date BETWEEN ? AND ?";
+    public long getTotalSalesCents(LocalDateTime startDate, LocalDateTime endDate) {
+        String sql = "SELECT SUM(total) as total_sales FROM " + transactionsSource(startDate, endDate) + " st " +
+                    "WHERE transaction_date BETWEEN ? AND ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection reporting = reportingConnection();
+             PreparedStatement pstmt = reporting.prepareStatement(sql)) {
             pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
             pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                return rs.getDouble("total_sales");
+                return Money.read(rs, "total_sales");
             }
         } catch (SQLException e) {
             System.err.println("Error getting total sales: " + e.getMessage());
         }
-        return 0.0;
+        return 0;
     }
     
     /**
      * Get transaction count for a date range
      */
     public int getTransactionCount(LocalDateTime startDate, LocalDateTime endDate) {
-        String sql = "SELECT COUNT(*) as count FROM sales_transactions WHERE transaction_date BETWEEN ? AND ?";
+        String sql = "SELECT COUNT(*) as count FROM " + transactionsSource(startDate, endDate) + " st " +
+                    "WHERE transaction_date BETWEEN ? AND ?";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection reporting = reportingConnection();
+             PreparedStatement pstmt = reporting.prepareStatement(sql)) {
             pstmt.setTimestamp(1, Timestamp.valueOf(startDate));
             pstmt.setTimestamp(2, Timestamp.valueOf(endDate));
             ResultSet rs = pstmt.executeQuery();
@@ -290,9 +506,9 @@ public class SalesDAO {
             // Update main transaction
             try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
                 pstmt.setTimestamp(1, Timestamp.valueOf(transaction.getTransactionDate()));
-                pstmt.setDouble(2, transaction.getSubtotal());
-                pstmt.setDouble(3, transaction.getDiscountAmount());
-                pstmt.setDouble(4, transaction.getTotal());
+                Money.bind(pstmt, 2, transaction.getSubtotalCents());
+                Money.bind(pstmt, 3, transaction.getDiscountAmountCents());
+                Money.bind(pstmt, 4, transaction.getTotalCents());
                 if (DatabaseConfig.isSqlite()) {
                     pstmt.setInt(5, transaction.isDiscountApplied() ? 1 : 0);
                 } else {
@@ -317,9 +533,9 @@ public class SalesDAO {
                         for (CartItem item : transaction.getItems()) {
                             itemsPstmt.setString(1, transaction.getTransactionId());
                             itemsPstmt.setString(2, item.getItemName());
-                            itemsPstmt.setDouble(3, item.getPrice());
+                            Money.bind(itemsPstmt, 3, item.getPriceCents());
                             itemsPstmt.setInt(4, item.getQuantity());
-                            itemsPstmt.setDouble(5, item.getSubtotal());
+                            Money.bind(itemsPstmt, 5, item.getSubtotalCents());
                             itemsPstmt.addBatch();
                         }
                         itemsPstmt.executeBatch();
@@ -366,6 +582,14 @@ public class SalesDAO {
                 pstmt.setString(1, transactionId);
                 int rowsAffected = pstmt.executeUpdate();
                 
+                if (rowsAffected > 0) {
+                    try (PreparedStatement idPstmt = connection.prepareStatement(
+                            "DELETE FROM sales_transaction_ids WHERE transaction_id = ?")) {
+                        idPstmt.setString(1, transactionId);
+                        idPstmt.executeUpdate();
+                    }
+                }
+                
                 connection.commit();
                 connection.setAutoCommit(true);
                 return rowsAffected > 0;
@@ -384,13 +608,14 @@ public class SalesDAO {
     }
     
     /**
-     * Delete all sales data (use with caution)
+     * Delete all sales data, archive included (use with caution)
      */
     public boolean deleteAll() {
-        String sql = "DELETE FROM sales_transactions";
-        
         try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(sql);
+            // partitioned MySQL tables have no foreign key to cascade from
+            stmt.executeUpdate("DELETE FROM sales_items");
+            stmt.executeUpdate("DELETE FROM sales_transactions");
+            SalesArchive.clear(connection);
             return true;
         } catch (SQLException e) {
             System.err.println("Error clearing sales data: " + e.getMessage());
@@ -0,0 +1,89 @@
+package kiosk.database.dao;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import kiosk.database.ReadRouter;
+import kiosk.model.StockMovement;
+
+/**
+ * Reporting queries over the stock ledger (inventory_stock_history and
+ * stock_snapshots). Movements are written by StockLedger; ones still queued
+ * there are not visible here yet.
+ */
+public class StockMovementDAO {
+
+    /**
+     * Stock of an item at the given time: the nearest earlier snapshot plus the
+     * movements logged after it up to that time
+     */
+    public int getStockAsOf(String itemName, LocalDateTime time) {
+        String snapshotSql = "SELECT quantity, last_movement_id FROM stock_snapshots " +
+                            "WHERE item_name = ? AND taken_at <= ? ORDER BY taken_at DESC, id DESC LIMIT 1";
+        String replaySql = "SELECT COALESCE(SUM(change_amount), 0) FROM inventory_stock_history " +
+                          "WHERE item_name = ? AND id > ? AND changed_at <= ?";
+        Timestamp at = Timestamp.valueOf(time);
+
+        try (Connection reporting = ReadRouter.getInstance().getReportingConnection()) {
+            // no snapshot yet: replay the ledger from the start
+            int quantity = 0;
+            long afterId = 0;
+            try (PreparedStatement pstmt = reporting.prepareStatement(snapshotSql)) {
+                pstmt.setString(1, itemName);
+                pstmt.setTimestamp(2, at);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        quantity = rs.getInt("quantity");
+                        afterId = rs.getLong("last_movement_id");
+                    }
+                }
+            }
+
+            try (PreparedStatement pstmt = reporting.prepareStatement(replaySql)) {
+                pstmt.setString(1, itemName);
+                pstmt.setLong(2, afterId);
+                pstmt.setTimestamp(3, at);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        quantity += rs.getInt(1);
+                    }
+                }
+            }
+            return quantity;
+        } catch (SQLException e) {
+            System.err.println("Error reading stock history: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Units lost per item in [start, end): waste (expired, damaged) and downward
+     * count adjustments, by movement type, items with the largest loss first
+     */
+    public Map<String, Map<StockMovement.Type, Integer>> getShrinkage(LocalDateTime start, LocalDateTime end) {
+        Map<String, Map<StockMovement.Type, Integer>> shrinkage = new LinkedHashMap<>();
+        String sql = "SELECT item_name, change_type, SUM(-change_amount) AS lost FROM inventory_stock_history " +
+                    "WHERE changed_at >= ? AND changed_at < ? AND change_amount < 0 " +
+                    "AND change_type IN ('EXPIRED', 'DAMAGED', 'ADJUSTMENT') " +
+                    "GROUP BY item_name, change_type " +
+                    "ORDER BY SUM(SUM(-change_amount)) OVER (PARTITION BY item_name) DESC, item_name";
+
+        try (Connection reporting = ReadRouter.getInstance().getReportingConnection();
+             PreparedStatement pstmt = reporting.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(start));
+            pstmt.setTimestamp(2, Timestamp.valueOf(end));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    shrinkage.computeIfAbsent(rs.getString("item_name"), name -> new EnumMap<>(StockMovement.Type.class))
+                             .put(StockMovement.Type.valueOf(rs.getString("change_type")), rs.getInt("lost"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading stock shrinkage: " + e.getMessage());
+        }
+        return shrinkage;
+    }
+}
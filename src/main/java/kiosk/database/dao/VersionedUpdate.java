@@ -0,0 +1,98 @@
+package kiosk.database.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import kiosk.model.Versioned;
+
+/**
+ * Compare-and-set updates for versioned rows (inventory, custom_orders, customers).
+ * An update only succeeds if the row's version is still the one the record was
+ * read with, so two admin stations editing the same row can't silently
+ * overwrite each other and no row locks are held while someone is editing.
+ * On a conflict the caller's Merge decides what to write instead.
+ */
+public final class VersionedUpdate {
+    static final int MAX_ATTEMPTS = 3;
+
+    public enum Result {
+        UPDATED,    // written, record now holds the new version
+        CONFLICT,   // someone else changed the row first
+        NOT_FOUND,  // row no longer exists
+        FAILED      // database error
+    }
+
+    /**
+     * Resolves a conflict between local edits and the row as it is now
+     */
+    @FunctionalInterface
+    public interface Merge<T> {
+        /**
+         * Returns the record to write in place of mine, or null to give up and report the conflict
+         */
+        T merge(T mine, T current);
+
+        /**
+         * Keep the local edits, overwriting whatever the other station wrote
+         */
+        static <T> Merge<T> keepMine() {
+            return (mine, current) -> mine;
+        }
+    }
+
+    @FunctionalInterface
+    interface Write<T> {
+        Result write(T record);
+    }
+
+    @FunctionalInterface
+    interface Reload<T> {
+        T reload(T record);
+    }
+
+    private VersionedUpdate() {
+    }
+
+    /**
+     * Write a record, merging and retrying on conflict up to MAX_ATTEMPTS times
+     */
+    static <T extends Versioned> Result withRetry(T record, Write<T> write, Reload<T> reload, Merge<T> merge) {
+        T pending = record;
+        for (int attempt = 1; ; attempt++) {
+            Result result = write.write(pending);
+            if (result != Result.CONFLICT || merge == null || attempt >= MAX_ATTEMPTS) {
+                return result;
+            }
+
+            T current = reload.reload(pending);
+            if (current == null) {
+                return Result.NOT_FOUND;
+            }
+            T merged = merge.merge(pending, current);
+            if (merged == null) {
+                return Result.CONFLICT;
+            }
+            merged.setVersion(current.getVersion());
+            pending = merged;
+        }
+    }
+
+    /**
+     * Result of an UPDATE ... WHERE key = ? AND version = ? that touched the given number of rows
+     */
+    static Result afterUpdate(Connection connection, int rowsAffected, String table, String keyColumn, String key)
+            throws SQLException {
+        if (rowsAffected > 0) {
+            return Result.UPDATED;
+        }
+        String sql = "SELECT 1 FROM " + table + " WHERE " + keyColumn + " = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Result.CONFLICT : Result.NOT_FOUND;
+            }
+        }
+    }
+}
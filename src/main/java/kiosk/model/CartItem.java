@@ -2,22 +2,35 @@ package kiosk.model;
 
 import java.io.Serializable;
 
+import kiosk.util.Money;
+
 /**
  * Model class representing an item in the shopping cart
  */
 public class CartItem implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     
     private String itemName;
-    private double price;
+    private long priceCents;
     private int quantity;
     
     public CartItem(String itemName, double price, int quantity) {
+        this(itemName, Money.ofPesos(price), quantity);
+    }
+    
+    private CartItem(String itemName, long priceCents, int quantity) {
         this.itemName = itemName;
-        this.price = price;
+        this.priceCents = priceCents;
         this.quantity = quantity;
     }
     
+    /**
+     * Item with a unit price in centavos
+     */
+    public static CartItem ofCents(String itemName, long priceCents, int quantity) {
+        return new CartItem(itemName, priceCents, quantity);
+    }
+    
     public String getItemName() {
         return itemName;
     }
@@ -27,11 +40,15 @@ public class CartItem implements Serializable {
     }
     
     public double getPrice() {
-        return price;
+        return Money.toPesos(priceCents);
     }
     
     public void setPrice(double price) {
-        this.price = price;
+        this.priceCents = Money.ofPesos(price);
+    }
+    
+    public long getPriceCents() {
+        return priceCents;
     }
     
     public int getQuantity() {
@@ -43,7 +60,11 @@ public class CartItem implements Serializable {
     }
     
     public double getSubtotal() {
-        return price * quantity;
+        return Money.toPesos(getSubtotalCents());
+    }
+    
+    public long getSubtotalCents() {
+        return Money.times(priceCents, quantity);
     }
     
     public void incrementQuantity() {
@@ -59,7 +80,7 @@ public class CartItem implements Serializable {
     @Override
     public String toString() {
         return String.format("CartItem{name='%s', price=%.2f, qty=%d, subtotal=%.2f}",
-                itemName, price, quantity, getSubtotal());
+                itemName, getPrice(), quantity, getSubtotal());
     }
 }
 
@@ -0,0 +1,50 @@
+package kiosk.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Records which columns of a model have been changed since it was loaded
+ * from (or last written to) its row, so a DAO can update only those.
+ * Until reset() is first called the record is untracked and every column
+ * counts as changed.
+ */
+public class ChangeTracker {
+    private final Set<String> changed = new HashSet<>();
+    private boolean tracking;
+
+    /**
+     * Setter helper: marks the column if the value actually differs and returns the new value
+     */
+    public <V> V set(String column, V oldValue, V newValue) {
+        if (tracking && !Objects.equals(oldValue, newValue)) {
+            changed.add(column);
+        }
+        return newValue;
+    }
+
+    /**
+     * Whether the record mirrors a row; if not, getChangedColumns() is meaningless
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    public boolean hasChanges() {
+        return !tracking || !changed.isEmpty();
+    }
+
+    public Set<String> getChangedColumns() {
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * The record now matches its row
+     */
+    public void reset() {
+        changed.clear();
+        tracking = true;
+    }
+}
@@ -4,10 +4,12 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import kiosk.util.Money;
+
 /**
  * Custom Order model for customer special orders
  */
-public class CustomOrder {
+public class CustomOrder implements Versioned {
     private int id;
     private String orderNumber;
     private String customerId;
@@ -20,21 +22,21 @@ public class CustomOrder {
     private String messageOnItem;
     private String specialInstructions;
     
-    // Pricing
-    private double basePrice;
-    private double addonsTotal;
-    private double subtotal;
-    private double discountAmount;
-    private double taxAmount;
-    private double deliveryFee;
-    private double totalAmount;
-    
-    // Deposit and payment
-    private double depositRequired;
-    private double depositPaid;
+    // Pricing (centavos)
+    private long basePrice;
+    private long addonsTotal;
+    private long subtotal;
+    private long discountAmount;
+    private long taxAmount;
+    private long deliveryFee;
+    private long totalAmount;
+    
+    // Deposit and payment (amounts in centavos)
+    private long depositRequired;
+    private long depositPaid;
     private String depositPaymentMethod;
     private LocalDateTime depositPaidAt;
-    private double balanceDue;
+    private long balanceDue;
     private PaymentStatus paymentStatus;
     
     // Delivery/Pickup
@@ -64,6 +66,10 @@ public class CustomOrder {
     private List<OrderAddOn> addons;
     private List<String> attachments;
     
+    // Row version for optimistic locking, and columns changed since load
+    private int version;
+    private final ChangeTracker changes = new ChangeTracker();
+    
     public enum PaymentStatus {
         PENDING, DEPOSIT_PAID, FULLY_PAID, REFUNDED
     }
@@ -73,7 +79,25 @@ public class CustomOrder {
     }
     
     public enum OrderStatus {
-        PENDING, CONFIRMED, IN_PRODUCTION, READY, COMPLETED, CANCELLED
+        PENDING, CONFIRMED, IN_PRODUCTION, READY, COMPLETED, CANCELLED;
+        
+        /**
+         * Whether an order in this status may move to the given one
+         */
+        public boolean canMoveTo(OrderStatus next) {
+            switch (this) {
+                case PENDING:
+                    return next == CONFIRMED || next == CANCELLED;
+                case CONFIRMED:
+                    return next == IN_PRODUCTION || next == CANCELLED;
+                case IN_PRODUCTION:
+                    return next == READY || next == COMPLETED || next == CANCELLED;
+                case READY:
+                    return next == COMPLETED || next == CANCELLED;
+                default:
+                    return false; // COMPLETED and CANCELLED are final
+            }
+        }
     }
     
     // Constructors
@@ -101,6 +125,23 @@ public class CustomOrder {
         this.id = id;
     }
     
+    @Override
+    public int getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
+    /**
+     * Columns changed since the order was loaded or saved
+     */
+    public ChangeTracker getChangeTracker() {
+        return changes;
+    }
+    
     public String getOrderNumber() {
         return orderNumber;
     }
@@ -114,7 +155,7 @@ public class CustomOrder {
     }
     
     public void setCustomerId(String customerId) {
-        this.customerId = customerId;
+        this.customerId = changes.set("customer_id", this.customerId, customerId);
     }
     
     public String getProductCode() {
@@ -122,7 +163,7 @@ public class CustomOrder {
     }
     
     public void setProductCode(String productCode) {
-        this.productCode = productCode;
+        this.productCode = changes.set("product_code", this.productCode, productCode);
     }
     
     public String getProductName() {
@@ -138,7 +179,7 @@ public class CustomOrder {
     }
     
     public void setOrderType(String orderType) {
-        this.orderType = orderType;
+        this.orderType = changes.set("order_type", this.orderType, orderType);
     }
     
     public int getServings() {
@@ -146,7 +187,7 @@ public class CustomOrder {
     }
     
     public void setServings(int servings) {
-        this.servings = servings;
+        this.servings = changes.set("servings", this.servings, servings);
     }
     
     public String getMessageOnItem() {
@@ -154,7 +195,7 @@ public class CustomOrder {
     }
     
     public void setMessageOnItem(String messageOnItem) {
-        this.messageOnItem = messageOnItem;
+        this.messageOnItem = changes.set("message_on_item", this.messageOnItem, messageOnItem);
     }
     
     public String getSpecialInstructions() {
@@ -162,79 +203,151 @@ public class CustomOrder {
     }
     
     public void setSpecialInstructions(String specialInstructions) {
-        this.specialInstructions = specialInstructions;
+        this.specialInstructions = changes.set("special_instructions", this.specialInstructions, specialInstructions);
     }
     
     public double getBasePrice() {
-        return basePrice;
+        return Money.toPesos(basePrice);
     }
     
     public void setBasePrice(double basePrice) {
-        this.basePrice = basePrice;
+        this.basePrice = changes.set("base_price", this.basePrice, Money.ofPesos(basePrice));
+    }
+    
+    public long getBasePriceCents() {
+        return basePrice;
+    }
+    
+    public void setBasePriceCents(long basePrice) {
+        this.basePrice = changes.set("base_price", this.basePrice, basePrice);
     }
     
     public double getAddonsTotal() {
-        return addonsTotal;
+        return Money.toPesos(addonsTotal);
     }
     
     public void setAddonsTotal(double addonsTotal) {
-        this.addonsTotal = addonsTotal;
+        this.addonsTotal = changes.set("addons_total", this.addonsTotal, Money.ofPesos(addonsTotal));
+    }
+    
+    public long getAddonsTotalCents() {
+        return addonsTotal;
+    }
+    
+    public void setAddonsTotalCents(long addonsTotal) {
+        this.addonsTotal = changes.set("addons_total", this.addonsTotal, addonsTotal);
     }
     
     public double getSubtotal() {
-        return subtotal;
+        return Money.toPesos(subtotal);
     }
     
     public void setSubtotal(double subtotal) {
-        this.subtotal = subtotal;
+        this.subtotal = changes.set("subtotal", this.subtotal, Money.ofPesos(subtotal));
+    }
+    
+    public long getSubtotalCents() {
+        return subtotal;
+    }
+    
+    public void setSubtotalCents(long subtotal) {
+        this.subtotal = changes.set("subtotal", this.subtotal, subtotal);
     }
     
     public double getDiscountAmount() {
-        return discountAmount;
+        return Money.toPesos(discountAmount);
     }
     
     public void setDiscountAmount(double discountAmount) {
-        this.discountAmount = discountAmount;
+        this.discountAmount = changes.set("discount_amount", this.discountAmount, Money.ofPesos(discountAmount));
+    }
+    
+    public long getDiscountAmountCents() {
+        return discountAmount;
+    }
+    
+    public void setDiscountAmountCents(long discountAmount) {
+        this.discountAmount = changes.set("discount_amount", this.discountAmount, discountAmount);
     }
     
     public double getTaxAmount() {
-        return taxAmount;
+        return Money.toPesos(taxAmount);
     }
     
     public void setTaxAmount(double taxAmount) {
-        this.taxAmount = taxAmount;
+        this.taxAmount = changes.set("tax_amount", this.taxAmount, Money.ofPesos(taxAmount));
+    }
+    
+    public long getTaxAmountCents() {
+        return taxAmount;
+    }
+    
+    public void setTaxAmountCents(long taxAmount) {
+        this.taxAmount = changes.set("tax_amount", this.taxAmount, taxAmount);
     }
     
     public double getDeliveryFee() {
-        return deliveryFee;
+        return Money.toPesos(deliveryFee);
     }
     
     public void setDeliveryFee(double deliveryFee) {
-        this.deliveryFee = deliveryFee;
+        this.deliveryFee = changes.set("delivery_fee", this.deliveryFee, Money.ofPesos(deliveryFee));
+    }
+    
+    public long getDeliveryFeeCents() {
+        return deliveryFee;
+    }
+    
+    public void setDeliveryFeeCents(long deliveryFee) {
+        this.deliveryFee = changes.set("delivery_fee", this.deliveryFee, deliveryFee);
     }
     
     public double getTotalAmount() {
-        return totalAmount;
+        return Money.toPesos(totalAmount);
     }
     
     public void setTotalAmount(double totalAmount) {
-        this.totalAmount = totalAmount;
+        this.totalAmount = changes.set("total_amount", this.totalAmount, Money.ofPesos(totalAmount));
+    }
+    
+    public long getTotalAmountCents() {
+        return totalAmount;
+    }
+    
+    public void setTotalAmountCents(long totalAmount) {
+        this.totalAmount = changes.set("total_amount", this.totalAmount, totalAmount);
     }
     
     public double getDepositRequired() {
-        return depositRequired;
+        return Money.toPesos(depositRequired);
     }
     
     public void setDepositRequired(double depositRequired) {
-        this.depositRequired = depositRequired;
+        this.depositRequired = changes.set("deposit_required", this.depositRequired, Money.ofPesos(depositRequired));
+    }
+    
+    public long getDepositRequiredCents() {
+        return depositRequired;
+    }
+    
+    public void setDepositRequiredCents(long depositRequired) {
+        this.depositRequired = changes.set("deposit_required", this.depositRequired, depositRequired);
     }
     
     public double getDepositPaid() {
-        return depositPaid;
+        return Money.toPesos(depositPaid);
     }
     
     public void setDepositPaid(double depositPaid) {
-        this.depositPaid = depositPaid;
+        this.depositPaid = changes.set("deposit_paid", this.depositPaid, Money.ofPesos(depositPaid));
+    }
+    
+    public long getDepositPaidCents() {
+        return depositPaid;
+    }
+    
+    public void setDepositPaidCents(long depositPaid) {
+        this.depositPaid = changes.set("deposit_paid", this.depositPaid, depositPaid);
     }
     
     public String getDepositPaymentMethod() {
@@ -242,7 +355,7 @@ public class CustomOrder {
     }
     
     public void setDepositPaymentMethod(String depositPaymentMethod) {
-        this.depositPaymentMethod = depositPaymentMethod;
+        this.depositPaymentMethod = changes.set("deposit_payment_method", this.depositPaymentMethod, depositPaymentMethod);
     }
     
     public LocalDateTime getDepositPaidAt() {
@@ -250,15 +363,23 @@ public class CustomOrder {
     }
     
     public void setDepositPaidAt(LocalDateTime depositPaidAt) {
-        this.depositPaidAt = depositPaidAt;
+        this.depositPaidAt = changes.set("deposit_paid_at", this.depositPaidAt, depositPaidAt);
     }
     
     public double getBalanceDue() {
-        return balanceDue;
+        return Money.toPesos(balanceDue);
     }
     
     public void setBalanceDue(double balanceDue) {
-        this.balanceDue = balanceDue;
+        this.balanceDue = changes.set("balance_due", this.balanceDue, Money.ofPesos(balanceDue));
+    }
+    
+    public long getBalanceDueCents() {
+        return balanceDue;
+    }
+    
+    public void setBalanceDueCents(long balanceDue) {
+        this.balanceDue = changes.set("balance_due", this.balanceDue, balanceDue);
     }
     
     public PaymentStatus getPaymentStatus() {
@@ -266,7 +387,7 @@ public class CustomOrder {
     }
     
     public void setPaymentStatus(PaymentStatus paymentStatus) {
-        this.paymentStatus = paymentStatus;
+        this.paymentStatus = changes.set("payment_status", this.paymentStatus, paymentStatus);
     }
     
     public FulfillmentType getFulfillmentType() {
@@ -274,7 +395,7 @@ public class CustomOrder {
     }
     
     public void setFulfillmentType(FulfillmentType fulfillmentType) {
-        this.fulfillmentType = fulfillmentType;
+        this.fulfillmentType = changes.set("fulfillment_type", this.fulfillmentType, fulfillmentType);
     }
     
     public LocalDateTime getPickupDatetime() {
@@ -282,7 +403,7 @@ public class CustomOrder {
     }
     
     public void setPickupDatetime(LocalDateTime pickupDatetime) {
-        this.pickupDatetime = pickupDatetime;
+        this.pickupDatetime = changes.set("pickup_datetime", this.pickupDatetime, pickupDatetime);
     }
     
     public Integer getDeliveryAddressId() {
@@ -290,7 +411,7 @@ public class CustomOrder {
     }
     
     public void setDeliveryAddressId(Integer deliveryAddressId) {
-        this.deliveryAddressId = deliveryAddressId;
+        this.deliveryAddressId = changes.set("delivery_address_id", this.deliveryAddressId, deliveryAddressId);
     }
     
     public LocalDateTime getDeliveryDatetime() {
@@ -298,7 +419,7 @@ public class CustomOrder {
     }
     
     public void setDeliveryDatetime(LocalDateTime deliveryDatetime) {
-        this.deliveryDatetime = deliveryDatetime;
+        this.deliveryDatetime = changes.set("delivery_datetime", this.deliveryDatetime, deliveryDatetime);
     }
     
     public OrderStatus getOrderStatus() {
@@ -306,7 +427,7 @@ public class CustomOrder {
     }
     
     public void setOrderStatus(OrderStatus orderStatus) {
-        this.orderStatus = orderStatus;
+        this.orderStatus = changes.set("order_status", this.orderStatus, orderStatus);
     }
     
     public String getAdminNotes() {
@@ -314,7 +435,7 @@ public class CustomOrder {
     }
     
     public void setAdminNotes(String adminNotes) {
-        this.adminNotes = adminNotes;
+        this.adminNotes = changes.set("admin_notes", this.adminNotes, adminNotes);
     }
     
     public String getCancellationReason() {
@@ -322,7 +443,7 @@ public class CustomOrder {
     }
     
     public void setCancellationReason(String cancellationReason) {
-        this.cancellationReason = cancellationReason;
+        this.cancellationReason = changes.set("cancellation_reason", this.cancellationReason, cancellationReason);
     }
     
     public LocalDateTime getCancelledAt() {
@@ -378,7 +499,7 @@ public class CustomOrder {
     }
     
     public void setAssignedBaker(String assignedBaker) {
-        this.assignedBaker = assignedBaker;
+        this.assignedBaker = changes.set("assigned_baker", this.assignedBaker, assignedBaker);
     }
     
     public String getAssignedDecorator() {
@@ -386,7 +507,7 @@ public class CustomOrder {
     }
     
     public void setAssignedDecorator(String assignedDecorator) {
-        this.assignedDecorator = assignedDecorator;
+        this.assignedDecorator = changes.set("assigned_decorator", this.assignedDecorator, assignedDecorator);
     }
     
     public List<OrderAddOn> getAddons() {
@@ -417,9 +538,9 @@ public class CustomOrder {
      * Calculate total amount including all fees and taxes
      */
     public void calculateTotal() {
-        this.subtotal = this.basePrice + this.addonsTotal;
-        this.totalAmount = this.subtotal - this.discountAmount + this.taxAmount + this.deliveryFee;
-        this.balanceDue = this.totalAmount - this.depositPaid;
+        setSubtotalCents(this.basePrice + this.addonsTotal);
+        setTotalAmountCents(this.subtotal - this.discountAmount + this.taxAmount + this.deliveryFee);
+        setBalanceDueCents(this.totalAmount - this.depositPaid);
     }
     
     /**
@@ -451,7 +572,7 @@ public class CustomOrder {
                 ", customerId='" + customerId + '\'' +
                 ", productName='" + productName + '\'' +
                 ", servings=" + servings +
-                ", totalAmount=" + totalAmount +
+                ", totalAmount=" + Money.plain(totalAmount) +
                 ", orderStatus=" + orderStatus +
                 ", pickupDatetime=" + pickupDatetime +
                 '}';
@@ -1,5 +1,7 @@
 package kiosk.model;
 
+import kiosk.util.Money;
+
 /**
  * Base product for custom orders
  */
@@ -145,7 +147,19 @@ public class CustomProduct {
                 String.format("Servings must be between %d and %d", minServings, maxServings)
             );
         }
-        return basePrice + (pricePerServing * servings);
+        return Money.toPesos(calculatePriceCents(servings));
+    }
+    
+    /**
+     * Price for given number of servings, in centavos
+     */
+    public long calculatePriceCents(int servings) {
+        if (servings < minServings || servings > maxServings) {
+            throw new IllegalArgumentException(
+                String.format("Servings must be between %d and %d", minServings, maxServings)
+            );
+        }
+        return Money.ofPesos(basePrice) + Money.times(Money.ofPesos(pricePerServing), servings);
     }
     
     /**
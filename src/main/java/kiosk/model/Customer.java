@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 /**
  * Customer account model
  */
-public class Customer {
+public class Customer implements Versioned {
     private int id;
     private String customerId;
     private String email;
@@ -29,6 +29,8 @@ public class Customer {
     private boolean isEmailVerified;
     private LocalDateTime createdAt;
     private LocalDateTime lastLogin;
+    private int version;
+    private final ChangeTracker changes = new ChangeTracker();
     
     public enum CustomerType {
         REGULAR, VIP, WHOLESALE
@@ -63,6 +65,23 @@ public class Customer {
         this.id = id;
     }
     
+    @Override
+    public int getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
+    /**
+     * Columns changed since the customer was loaded or saved
+     */
+    public ChangeTracker getChangeTracker() {
+        return changes;
+    }
+    
     public String getCustomerId() {
         return customerId;
     }
@@ -76,7 +95,7 @@ public class Customer {
     }
     
     public void setEmail(String email) {
-        this.email = email;
+        this.email = changes.set("email", this.email, email);
     }
     
     public String getPasswordHash() {
@@ -92,7 +111,7 @@ public class Customer {
     }
     
     public void setFirstName(String firstName) {
-        this.firstName = firstName;
+        this.firstName = changes.set("first_name", this.firstName, firstName);
     }
     
     public String getLastName() {
@@ -100,7 +119,7 @@ public class Customer {
     }
     
     public void setLastName(String lastName) {
-        this.lastName = lastName;
+        this.lastName = changes.set("last_name", this.lastName, lastName);
     }
     
     public String getFullName() {
@@ -112,7 +131,7 @@ public class Customer {
     }
     
     public void setPhone(String phone) {
-        this.phone = phone;
+        this.phone = changes.set("phone", this.phone, phone);
     }
     
     public LocalDate getDateOfBirth() {
@@ -120,7 +139,7 @@ public class Customer {
     }
     
     public void setDateOfBirth(LocalDate dateOfBirth) {
-        this.dateOfBirth = dateOfBirth;
+        this.dateOfBirth = changes.set("date_of_birth", this.dateOfBirth, dateOfBirth);
     }
     
     public String getAddressLine1() {
@@ -128,7 +147,7 @@ public class Customer {
     }
     
     public void setAddressLine1(String addressLine1) {
-        this.addressLine1 = addressLine1;
+        this.addressLine1 = changes.set("address_line1", this.addressLine1, addressLine1);
     }
     
     public String getAddressLine2() {
@@ -136,7 +155,7 @@ public class Customer {
     }
     
     public void setAddressLine2(String addressLine2) {
-        this.addressLine2 = addressLine2;
+        this.addressLine2 = changes.set("address_line2", this.addressLine2, addressLine2);
     }
     
     public String getCity() {
@@ -144,7 +163,7 @@ public class Customer {
     }
     
     public void setCity(String city) {
-        this.city = city;
+        this.city = changes.set("city", this.city, city);
     }
     
     public String getStateProvince() {
@@ -152,7 +171,7 @@ public class Customer {
     }
     
     public void setStateProvince(String stateProvince) {
-        this.stateProvince = stateProvince;
+        this.stateProvince = changes.set("state_province", this.stateProvince, stateProvince);
     }
     
     public String getPostalCode() {
@@ -160,7 +179,7 @@ public class Customer {
     }
     
     public void setPostalCode(String postalCode) {
-        this.postalCode = postalCode;
+        this.postalCode = changes.set("postal_code", this.postalCode, postalCode);
     }
     
     public String getCountry() {
@@ -168,7 +187,7 @@ public class Customer {
     }
     
     public void setCountry(String country) {
-        this.country = country;
+        this.country = changes.set("country", this.country, country);
     }
     
     public CustomerType getCustomerType() {
@@ -0,0 +1,22 @@
+package kiosk.model;
+
+import kiosk.model.Customer.CustomerType;
+
+/**
+ * Read-only row for customer list views (no address or credentials)
+ */
+public record CustomerSummary(
+    String customerId,
+    String firstName,
+    String lastName,
+    String email,
+    String phone,
+    CustomerType customerType,
+    int totalOrders,
+    double totalSpent,
+    boolean active
+) {
+    public String fullName() {
+        return firstName + " " + lastName;
+    }
+}
@@ -8,7 +8,7 @@ import java.time.temporal.ChronoUnit;
 /**
  * Model class representing an inventory item with serialization support
  */
-public class InventoryItem implements Serializable {
+public class InventoryItem implements Serializable, Versioned {
     private static final long serialVersionUID = 1L;
     
     private String name;
@@ -18,6 +18,8 @@ public class InventoryItem implements Serializable {
     private LocalDate expirationDate;
     private String barcode;
     private String supplier;
+    private int version;
+    private Integer loadedStockQuantity; // stock when read from the database, null for new items
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
@@ -41,6 +43,8 @@ public class InventoryItem implements Serializable {
         this.expirationDate = other.expirationDate;
         this.barcode = other.barcode;
         this.supplier = other.supplier;
+        this.version = other.version;
+        this.loadedStockQuantity = other.loadedStockQuantity;
     }
     
     // Getters and Setters
@@ -100,6 +104,28 @@ public class InventoryItem implements Serializable {
         this.supplier = supplier;
     }
     
+    @Override
+    public int getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
+    /**
+     * Stock quantity the item had when it was read; an update records the
+     * difference to it as a stock movement
+     */
+    public Integer getLoadedStockQuantity() {
+        return loadedStockQuantity;
+    }
+    
+    public void setLoadedStockQuantity(Integer loadedStockQuantity) {
+        this.loadedStockQuantity = loadedStockQuantity;
+    }
+    
     public String getFormattedExpirationDate() {
         return expirationDate != null ? expirationDate.format(DATE_FORMATTER) : "N/A";
     }
@@ -1,5 +1,9 @@
 package kiosk.model;
 
+import java.math.RoundingMode;
+
+import kiosk.util.Money;
+
 /**
  * Add-on item for custom orders
  */
@@ -12,7 +16,7 @@ public class OrderAddOn {
     private int quantity;
     private double priceModifier;
     private PriceType priceType;
-    private double totalAddonPrice;
+    private long totalAddonPrice; // centavos
     private String description;
     private boolean isPremium;
     
@@ -100,10 +104,18 @@ public class OrderAddOn {
     }
     
     public double getTotalAddonPrice() {
-        return totalAddonPrice;
+        return Money.toPesos(totalAddonPrice);
     }
     
     public void setTotalAddonPrice(double totalAddonPrice) {
+        this.totalAddonPrice = Money.ofPesos(totalAddonPrice);
+    }
+    
+    public long getTotalAddonPriceCents() {
+        return totalAddonPrice;
+    }
+    
+    public void setTotalAddonPriceCents(long totalAddonPrice) {
         this.totalAddonPrice = totalAddonPrice;
     }
     
@@ -127,15 +139,24 @@ public class OrderAddOn {
      * Calculate total addon price based on base amount and servings
      */
     public void calculatePrice(double baseAmount, int servings) {
+        calculatePriceCents(Money.ofPesos(baseAmount), servings);
+    }
+    
+    /**
+     * Calculate total addon price from a base amount in centavos.
+     * Percentage add-ons are rounded half up to the centavo before the quantity is applied.
+     */
+    public void calculatePriceCents(long baseAmount, int servings) {
         switch (priceType) {
             case FLAT:
-                this.totalAddonPrice = priceModifier * quantity;
+                this.totalAddonPrice = Money.times(Money.ofPesos(priceModifier), quantity);
                 break;
             case PERCENTAGE:
-                this.totalAddonPrice = (baseAmount * priceModifier / 100) * quantity;
+                long share = Money.percent(baseAmount, Money.basisPoints(priceModifier), RoundingMode.HALF_UP);
+                this.totalAddonPrice = Money.times(share, quantity);
                 break;
             case PER_SERVING:
-                this.totalAddonPrice = priceModifier * servings * quantity;
+                this.totalAddonPrice = Money.times(Money.ofPesos(priceModifier), (long) servings * quantity);
                 break;
             default:
                 this.totalAddonPrice = 0;
@@ -149,7 +170,7 @@ public class OrderAddOn {
                 ", categoryName='" + categoryName + '\'' +
                 ", quantity=" + quantity +
                 ", priceModifier=" + priceModifier +
-                ", totalAddonPrice=" + totalAddonPrice +
+                ", totalAddonPrice=" + Money.plain(totalAddonPrice) +
                 '}';
     }
 }
@@ -0,0 +1,130 @@
+package kiosk.model;
+
+import java.time.LocalDateTime;
+
+import kiosk.model.CustomOrder.OrderStatus;
+
+/**
+ * One entry in the append-only custom order lifecycle log
+ */
+public class OrderEvent {
+    private long id;
+    private String orderNumber;
+    private Type type;
+    private OrderStatus fromStatus;
+    private OrderStatus toStatus;
+    private String detail;
+    private long amountCents;
+    private String actor;
+    private LocalDateTime createdAt;
+
+    public enum Type {
+        BASELINE,        // status carried over from before the log existed
+        CREATED,
+        STATUS_CHANGED,
+        DEPOSIT_PAID,
+        BAKER_ASSIGNED
+    }
+
+    public OrderEvent() {
+    }
+
+    public OrderEvent(String orderNumber, Type type, OrderStatus fromStatus, OrderStatus toStatus,
+                      String detail, String actor) {
+        this.orderNumber = orderNumber;
+        this.type = type;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.detail = detail;
+        this.actor = actor;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Whether this event sets the order's status
+     */
+    public boolean changesStatus() {
+        return toStatus != null;
+    }
+
+    // Getters and Setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public OrderStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(OrderStatus fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public OrderStatus getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(OrderStatus toStatus) {
+        this.toStatus = toStatus;
+    }
+
+    /**
+     * Cancellation reason, assigned baker or new payment status, depending on the type
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public void setActor(String actor) {
+        this.actor = actor;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return orderNumber + " " + type + (toStatus != null ? " -> " + toStatus : "");
+    }
+}
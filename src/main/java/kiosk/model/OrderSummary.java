@@ -0,0 +1,25 @@
+package kiosk.model;
+
+import java.time.LocalDateTime;
+
+import kiosk.model.CustomOrder.FulfillmentType;
+import kiosk.model.CustomOrder.OrderStatus;
+
+/**
+ * Read-only row for custom order list views (no add-ons, notes or audit fields).
+ * Amounts are in centavos.
+ */
+public record OrderSummary(
+    int id,
+    String orderNumber,
+    String customerId,
+    String productName,
+    int servings,
+    long totalAmount,
+    long depositPaid,
+    long balanceDue,
+    OrderStatus orderStatus,
+    FulfillmentType fulfillmentType,
+    LocalDateTime pickupDatetime
+) {
+}
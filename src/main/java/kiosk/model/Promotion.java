@@ -0,0 +1,191 @@
+package kiosk.model;
+
+import java.time.LocalDateTime;
+
+import kiosk.util.Money;
+
+/**
+ * A discount rule for walk-in cart sales
+ */
+public class Promotion {
+    private int id;
+    private String promoCode;
+    private String promoName;
+    private PromoType promoType;
+    private Scope scope;
+    private String scopeValue;
+    private long discountValueCents;
+    private int buyQuantity;
+    private int getQuantity;
+    private long minSubtotalCents;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+    private Integer perCustomerLimit;
+    private boolean active;
+
+    public enum PromoType {
+        PERCENT_OFF,   // discount_value percent off the scope's subtotal
+        AMOUNT_OFF,    // discount_value pesos off (per unit for ITEM scope, once otherwise)
+        BUY_X_GET_Y    // for every buy+get units, the cheapest get units are discount_value percent off
+    }
+
+    public enum Scope {
+        ORDER,     // whole cart
+        CATEGORY,  // items in the category named by scope_value
+        ITEM       // the item named by scope_value
+    }
+
+    // Constructor
+    public Promotion() {
+        this.promoType = PromoType.PERCENT_OFF;
+        this.scope = Scope.ORDER;
+        this.buyQuantity = 1;
+        this.getQuantity = 1;
+        this.active = true;
+    }
+
+    /**
+     * Promotions without a code apply automatically
+     */
+    public boolean isAutomatic() {
+        return promoCode == null || promoCode.isEmpty();
+    }
+
+    /**
+     * Whether the promotion's time window includes the given moment
+     */
+    public boolean isRunningAt(LocalDateTime time) {
+        return active
+            && (startsAt == null || !time.isBefore(startsAt))
+            && (endsAt == null || time.isBefore(endsAt));
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getPromoCode() {
+        return promoCode;
+    }
+
+    public void setPromoCode(String promoCode) {
+        this.promoCode = promoCode;
+    }
+
+    public String getPromoName() {
+        return promoName;
+    }
+
+    public void setPromoName(String promoName) {
+        this.promoName = promoName;
+    }
+
+    public PromoType getPromoType() {
+        return promoType;
+    }
+
+    public void setPromoType(PromoType promoType) {
+        this.promoType = promoType;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    public String getScopeValue() {
+        return scopeValue;
+    }
+
+    public void setScopeValue(String scopeValue) {
+        this.scopeValue = scopeValue;
+    }
+
+    /**
+     * Percent for PERCENT_OFF and BUY_X_GET_Y, pesos for AMOUNT_OFF
+     */
+    public double getDiscountValue() {
+        return Money.toPesos(discountValueCents);
+    }
+
+    public void setDiscountValue(double discountValue) {
+        this.discountValueCents = Money.ofPesos(discountValue);
+    }
+
+    public long getDiscountValueCents() {
+        return discountValueCents;
+    }
+
+    public void setDiscountValueCents(long discountValueCents) {
+        this.discountValueCents = discountValueCents;
+    }
+
+    public int getBuyQuantity() {
+        return buyQuantity;
+    }
+
+    public void setBuyQuantity(int buyQuantity) {
+        this.buyQuantity = buyQuantity;
+    }
+
+    public int getGetQuantity() {
+        return getQuantity;
+    }
+
+    public void setGetQuantity(int getQuantity) {
+        this.getQuantity = getQuantity;
+    }
+
+    public long getMinSubtotalCents() {
+        return minSubtotalCents;
+    }
+
+    public void setMinSubtotalCents(long minSubtotalCents) {
+        this.minSubtotalCents = minSubtotalCents;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(LocalDateTime endsAt) {
+        this.endsAt = endsAt;
+    }
+
+    public Integer getPerCustomerLimit() {
+        return perCustomerLimit;
+    }
+
+    public void setPerCustomerLimit(Integer perCustomerLimit) {
+        this.perCustomerLimit = perCustomerLimit;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    @Override
+    public String toString() {
+        return promoName != null ? promoName : promoCode;
+    }
+}
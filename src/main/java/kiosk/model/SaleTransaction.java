@@ -5,23 +5,26 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import kiosk.util.Money;
+
 /**
  * Model class representing a completed sale transaction
  */
 public class SaleTransaction implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     
     private String transactionId;
     private LocalDateTime transactionDate;
     private List<CartItem> items;
-    private double subtotal;
-    private double discountAmount;
-    private double total;
+    // Amounts in centavos
+    private long subtotal;
+    private long discountAmount;
+    private long total;
     private boolean discountApplied;
     
     public SaleTransaction(String transactionId, LocalDateTime transactionDate, 
-                          List<CartItem> items, double subtotal, 
-                          double discountAmount, double total, boolean discountApplied) {
+                          List<CartItem> items, long subtotal, 
+                          long discountAmount, long total, boolean discountApplied) {
         this.transactionId = transactionId;
         this.transactionDate = transactionDate;
         this.items = new ArrayList<>(items);
@@ -56,27 +59,39 @@ public class SaleTransaction implements Serializable {
     }
     
     public double getSubtotal() {
-        return subtotal;
+        return Money.toPesos(subtotal);
     }
     
     public void setSubtotal(double subtotal) {
-        this.subtotal = subtotal;
+        this.subtotal = Money.ofPesos(subtotal);
+    }
+    
+    public long getSubtotalCents() {
+        return subtotal;
     }
     
     public double getDiscountAmount() {
-        return discountAmount;
+        return Money.toPesos(discountAmount);
     }
     
     public void setDiscountAmount(double discountAmount) {
-        this.discountAmount = discountAmount;
+        this.discountAmount = Money.ofPesos(discountAmount);
+    }
+    
+    public long getDiscountAmountCents() {
+        return discountAmount;
     }
     
     public double getTotal() {
-        return total;
+        return Money.toPesos(total);
     }
     
     public void setTotal(double total) {
-        this.total = total;
+        this.total = Money.ofPesos(total);
+    }
+    
+    public long getTotalCents() {
+        return total;
     }
     
     public boolean isDiscountApplied() {
@@ -94,7 +109,7 @@ public class SaleTransaction implements Serializable {
     @Override
     public String toString() {
         return String.format("Transaction{id='%s', date=%s, items=%d, total=%.2f}",
-                transactionId, transactionDate, getTotalItemCount(), total);
+                transactionId, transactionDate, getTotalItemCount(), getTotal());
     }
 }
 
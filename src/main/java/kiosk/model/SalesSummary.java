@@ -0,0 +1,18 @@
+package kiosk.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Aggregated sales figures for a period, without the individual transactions.
+ * Amounts are in centavos.
+ */
+public record SalesSummary(
+    long totalCents,
+    int transactionCount,
+    int itemCount,
+    Map<LocalDate, Long> dailyTotals,
+    Map<String, Integer> itemQuantities,
+    Map<String, Long> itemRevenue
+) {
+}
@@ -0,0 +1,121 @@
+package kiosk.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry in the append-only stock ledger (inventory_stock_history)
+ */
+public class StockMovement {
+    private long id;
+    private String itemName;
+    private Type type;
+    private int oldQuantity;
+    private int newQuantity;
+    private int changeAmount;
+    private String notes;
+    private String changedBy;
+    private LocalDateTime changedAt;
+
+    public enum Type {
+        SALE,
+        RESTOCK,
+        ADJUSTMENT,     // stock count corrections
+        EXPIRED,        // waste: past its expiration date
+        DAMAGED;        // waste: damaged or otherwise unsellable
+
+        /**
+         * Whether this movement is stock thrown away rather than sold or corrected
+         */
+        public boolean isWaste() {
+            return this == EXPIRED || this == DAMAGED;
+        }
+    }
+
+    public StockMovement() {
+    }
+
+    public StockMovement(String itemName, Type type, int oldQuantity, int changeAmount,
+                         String notes, String changedBy) {
+        this.itemName = itemName;
+        this.type = type;
+        this.oldQuantity = oldQuantity;
+        this.newQuantity = oldQuantity + changeAmount;
+        this.changeAmount = changeAmount;
+        this.notes = notes;
+        this.changedBy = changedBy;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public int getOldQuantity() {
+        return oldQuantity;
+    }
+
+    public void setOldQuantity(int oldQuantity) {
+        this.oldQuantity = oldQuantity;
+    }
+
+    public int getNewQuantity() {
+        return newQuantity;
+    }
+
+    public void setNewQuantity(int newQuantity) {
+        this.newQuantity = newQuantity;
+    }
+
+    public int getChangeAmount() {
+        return changeAmount;
+    }
+
+    public void setChangeAmount(int changeAmount) {
+        this.changeAmount = changeAmount;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+
+    public String getChangedBy() {
+        return changedBy;
+    }
+
+    public void setChangedBy(String changedBy) {
+        this.changedBy = changedBy;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,17 @@
+package kiosk.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only sale transaction header with its item count, for sales tables
+ * that do not need the individual line items. Amounts are in centavos.
+ */
+public record TransactionHeader(
+    String transactionId,
+    LocalDateTime transactionDate,
+    int itemCount,
+    long subtotal,
+    long discountAmount,
+    long total
+) {
+}
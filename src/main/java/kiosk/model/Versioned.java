@@ -0,0 +1,12 @@
+package kiosk.model;
+
+/**
+ * A record whose row carries a version number for optimistic locking.
+ * The version is read with the row and must still match when the row is
+ * written back; every successful write increments it.
+ */
+public interface Versioned {
+    int getVersion();
+
+    void setVersion(int version);
+}
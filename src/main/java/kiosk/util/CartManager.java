@@ -1,9 +1,11 @@
 package kiosk.util;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import kiosk.controller.CartController;
 import kiosk.model.CartItem;
+import kiosk.model.Promotion;
 
 /**
  * Adapter class for backward compatibility with existing UI code
@@ -130,6 +132,59 @@ public class CartManager {
         return CartController.getInstance().getDiscountAmount();
     }
     
+    /**
+     * Gets the PWD/Senior part of the discount
+     */
+    public static double getSeniorDiscountAmount() {
+        return Money.toPesos(CartController.getInstance().getSeniorDiscountCents());
+    }
+    
+    /**
+     * Gets the promotions part of the discount
+     */
+    public static double getPromotionDiscount() {
+        return Money.toPesos(CartController.getInstance().getPromotionDiscountCents());
+    }
+    
+    /**
+     * Enters a promo code for the cart
+     */
+    public static CartController.PromoResult applyPromoCode(String code) {
+        return CartController.getInstance().applyPromoCode(code);
+    }
+    
+    /**
+     * Attaches the registered customer with this email to the cart
+     */
+    public static boolean attachCustomer(String email) {
+        return CartController.getInstance().attachCustomer(email);
+    }
+    
+    /**
+     * Removes an entered promo code
+     */
+    public static void removePromoCode(String code) {
+        CartController.getInstance().removePromoCode(code);
+    }
+    
+    /**
+     * Gets the promotions discounting the cart with their discount in pesos
+     */
+    public static Map<String, Double> getAppliedPromotions() {
+        Map<String, Double> applied = new LinkedHashMap<>();
+        for (Map.Entry<Promotion, Long> entry : CartController.getInstance().getAppliedPromotions().entrySet()) {
+            applied.merge(entry.getKey().toString(), Money.toPesos(entry.getValue()), Double::sum);
+        }
+        return applied;
+    }
+    
+    /**
+     * Re-checks promotion time windows against the current cart
+     */
+    public static void refreshPromotions() {
+        CartController.getInstance().refreshPromotions();
+    }
+    
     /**
      * Gets the total price after discount
      */
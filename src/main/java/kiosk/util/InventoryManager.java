@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import kiosk.controller.InventoryController;
+import kiosk.database.dao.VersionedUpdate;
 import kiosk.model.InventoryItem;
 
 /**
@@ -36,8 +37,16 @@ public class InventoryManager {
         return InventoryController.getInstance().getItem(itemName);
     }
     
-    public void updateItem(InventoryItem updatedItem) {
-        InventoryController.getInstance().updateItem(updatedItem);
+    public boolean updateItem(InventoryItem updatedItem) {
+        return InventoryController.getInstance().updateItem(updatedItem);
+    }
+    
+    public VersionedUpdate.Result updateItem(InventoryItem updatedItem, VersionedUpdate.Merge<InventoryItem> merge) {
+        return InventoryController.getInstance().updateItem(updatedItem, merge);
+    }
+    
+    public boolean recordSale(String itemName, int quantity) {
+        return InventoryController.getInstance().recordSale(itemName, quantity);
     }
     
     public List<InventoryItem> getExpiredItems() {
@@ -0,0 +1,149 @@
+package kiosk.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Fixed-point peso amounts held as a {@code long} number of centavos.
+ * Amounts are plain longs, so adding and summing them is exact and allocates
+ * nothing; rates are given in basis points (1200 = 12%) and every operation
+ * that can produce a fraction of a centavo takes an explicit rounding mode.
+ * Conversion to and from {@code double} and {@code DECIMAL} happens only at
+ * the edges (legacy getters, JDBC).
+ */
+public final class Money {
+    public static final int CENTS_PER_PESO = 100;
+    public static final int BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * Centavos for a peso amount, rounded half up to the nearest centavo
+     */
+    public static long ofPesos(double pesos) {
+        // Scale through the shortest decimal form so 1.005 stays 1.005, not 1.00499...
+        return BigDecimal.valueOf(pesos).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Peso amount as a double (for display and legacy callers only)
+     */
+    public static double toPesos(long cents) {
+        return cents / (double) CENTS_PER_PESO;
+    }
+
+    /**
+     * Amount times a quantity, failing rather than overflowing
+     */
+    public static long times(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Share of an amount at a rate in basis points, e.g. percent(total, 1200, HALF_UP) for 12% VAT
+     */
+    public static long percent(long cents, long basisPoints, RoundingMode mode) {
+        return divide(Math.multiplyExact(cents, basisPoints), BASIS_POINTS, mode);
+    }
+
+    /**
+     * Rate in basis points for a percentage such as 12.5 (%)
+     */
+    public static long basisPoints(double percent) {
+        return Math.round(percent * (BASIS_POINTS / 100));
+    }
+
+    /**
+     * Integer division with the given rounding mode
+     */
+    public static long divide(long numerator, long denominator, RoundingMode mode) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        // Sign of the exact result: -1 or +1
+        int signum = 1 | (int) ((numerator ^ denominator) >> (Long.SIZE - 1));
+        boolean increment;
+        switch (mode) {
+            case UNNECESSARY:
+                throw new ArithmeticException("Rounding necessary: " + numerator + " / " + denominator);
+            case DOWN:
+                increment = false;
+                break;
+            case UP:
+                increment = true;
+                break;
+            case FLOOR:
+                increment = signum < 0;
+                break;
+            case CEILING:
+                increment = signum > 0;
+                break;
+            case HALF_UP:
+            case HALF_DOWN:
+            case HALF_EVEN:
+                long absRemainder = Math.abs(remainder);
+                long cmp = absRemainder - (Math.abs(denominator) - absRemainder);
+                if (cmp == 0) {
+                    increment = mode == RoundingMode.HALF_UP
+                        || (mode == RoundingMode.HALF_EVEN && (quotient & 1) != 0);
+                } else {
+                    increment = cmp > 0;
+                }
+                break;
+            default:
+                throw new AssertionError(mode);
+        }
+        return increment ? quotient + signum : quotient;
+    }
+
+    /**
+     * Exact DECIMAL(?, 2) value for JDBC
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Centavos for a DECIMAL value, rounded half up
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Read a money column (0 when NULL)
+     */
+    public static long read(ResultSet rs, String column) throws SQLException {
+        return fromDecimal(rs.getBigDecimal(column));
+    }
+
+    /**
+     * Bind a money parameter as an exact decimal
+     */
+    public static void bind(PreparedStatement pstmt, int index, long cents) throws SQLException {
+        pstmt.setBigDecimal(index, toDecimal(cents));
+    }
+
+    /**
+     * Format as pesos with two decimals, e.g. "₱1234.50" or "-₱0.25"
+     */
+    public static String format(long cents) {
+        return (cents < 0 ? "-₱" : "₱") + plain(Math.abs(cents));
+    }
+
+    /**
+     * Two-decimal amount without currency sign, e.g. "1234.50"
+     */
+    public static String plain(long cents) {
+        long abs = Math.abs(cents);
+        long centavos = abs % CENTS_PER_PESO;
+        return (cents < 0 ? "-" : "") + abs / CENTS_PER_PESO + (centavos < 10 ? ".0" : ".") + centavos;
+    }
+}
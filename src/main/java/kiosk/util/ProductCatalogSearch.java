@@ -0,0 +1,62 @@
+package kiosk.util;
+
+import java.util.List;
+
+import kiosk.controller.InventoryController;
+import kiosk.model.InventoryItem;
+
+/**
+ * The kiosk's one product search index, built from the inventory catalog.
+ * Every category page searches it and shows the matches it carries. The index
+ * is built off the EDT (by prewarm() during startup, otherwise by the first
+ * search worker) and rebuilt after the catalog changes.
+ */
+public final class ProductCatalogSearch {
+    private static volatile ProductSearchIndex<InventoryItem> index;
+    private static volatile int version;
+
+    private ProductCatalogSearch() {
+    }
+
+    /**
+     * Build the index ahead of the first search (call off the EDT)
+     */
+    public static void prewarm() {
+        index();
+    }
+
+    /**
+     * Catalog items matching the query, in catalog order (call off the EDT)
+     */
+    public static List<InventoryItem> search(String query) {
+        return index().search(query);
+    }
+
+    /**
+     * Items were added, removed or renamed; rebuild on the next search
+     */
+    public static void invalidate() {
+        version++;
+        index = null;
+    }
+
+    private static ProductSearchIndex<InventoryItem> index() {
+        ProductSearchIndex<InventoryItem> current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (ProductCatalogSearch.class) {
+            if (index != null) {
+                return index;
+            }
+            int builtFor = version;
+            ProductSearchIndex<InventoryItem> built =
+                new ProductSearchIndex<>(InventoryController.getInstance().getAllItems(), InventoryItem::getName);
+            // keep it only if the catalog didn't change while it was read
+            if (builtFor == version) {
+                index = built;
+            }
+            return built;
+        }
+    }
+}
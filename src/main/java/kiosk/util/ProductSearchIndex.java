@@ -0,0 +1,141 @@
+package kiosk.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over a product catalog.
+ * Text is folded (lower case, accents stripped) so "eclair" finds "Éclair".
+ * Every query term must match: terms of three or more characters are looked
+ * up in a trigram index and may match anywhere inside a word, shorter terms
+ * match the start of a word. Results keep catalog order.
+ *
+ * The index is immutable once built, so it can be queried from any thread.
+ */
+public class ProductSearchIndex<T> {
+    private static final int GRAM = 3;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final List<T> items;
+    private final String[] folded;
+    private final Map<String, BitSet> grams = new HashMap<>();
+    private final TreeMap<String, BitSet> words = new TreeMap<>();
+
+    public ProductSearchIndex(Collection<? extends T> items, Function<? super T, String> text) {
+        this.items = new ArrayList<>(items);
+        this.folded = new String[this.items.size()];
+
+        for (int i = 0; i < this.items.size(); i++) {
+            folded[i] = fold(text.apply(this.items.get(i)));
+            for (String word : terms(folded[i])) {
+                words.computeIfAbsent(word, w -> new BitSet()).set(i);
+                for (int g = 0; g + GRAM <= word.length(); g++) {
+                    grams.computeIfAbsent(word.substring(g, g + GRAM), k -> new BitSet()).set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lower-case and strip diacritics
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Items matching every term of the query; a blank query matches everything
+     */
+    public List<T> search(String query) {
+        List<String> queryTerms = terms(fold(query));
+        if (queryTerms.isEmpty()) {
+            return Collections.unmodifiableList(items);
+        }
+
+        BitSet matches = null;
+        for (String term : queryTerms) {
+            BitSet termMatches = term.length() < GRAM ? prefixMatches(term) : gramMatches(term);
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.and(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<T> results = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            if (containsLongTerms(folded[i], queryTerms)) {
+                results.add(items.get(i));
+            }
+        }
+        return results;
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet result = new BitSet();
+        for (BitSet ids : words.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            result.or(ids);
+        }
+        return result;
+    }
+
+    /**
+     * Candidates containing every trigram of the term (may include false positives)
+     */
+    private BitSet gramMatches(String term) {
+        BitSet result = null;
+        for (int g = 0; g + GRAM <= term.length(); g++) {
+            BitSet ids = grams.get(term.substring(g, g + GRAM));
+            if (ids == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) ids.clone();
+            } else {
+                result.and(ids);
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsLongTerms(String text, List<String> queryTerms) {
+        for (String term : queryTerms) {
+            if (term.length() >= GRAM && !text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> terms(String foldedText) {
+        List<String> result = new ArrayList<>();
+        for (String term : SEPARATORS.split(foldedText)) {
+            if (!term.isEmpty()) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+}
@@ -108,8 +108,8 @@ public class SalesReport {
         
         // Calculate metrics
         int totalSales = filteredTransactions.size();
-        double totalRevenue = filteredTransactions.stream()
-                .mapToDouble(kiosk.model.SaleTransaction::getTotal)
+        long totalRevenue = filteredTransactions.stream()
+                .mapToLong(kiosk.model.SaleTransaction::getTotalCents)
                 .sum();
         int totalItems = filteredTransactions.stream()
                 .mapToInt(t -> t.getItems().stream().mapToInt(CartItem::getQuantity).sum())
@@ -120,7 +120,7 @@ public class SalesReport {
         
         // Create metric panels
         summaryPanel.add(createMetricPanel("Total Sales", String.valueOf(totalSales), "receipt.png"));
-        summaryPanel.add(createMetricPanel("Total Revenue", currencyFormat.format(totalRevenue), "money.png"));
+        summaryPanel.add(createMetricPanel("Total Revenue", currencyFormat.format(Money.toPesos(totalRevenue)), "money.png"));
         summaryPanel.add(createMetricPanel("Items Sold", String.valueOf(totalItems), "items.png"));
         summaryPanel.add(createMetricPanel("Discounted Sales", String.valueOf(discountedSales), "discount.png"));
         
@@ -240,23 +240,14 @@ public class SalesReport {
      * Filters transactions based on the selected date range
      */
     private ArrayList<kiosk.model.SaleTransaction> filterTransactionsByDate(Date startDate) {
-        java.util.List<kiosk.model.SaleTransaction> allTransactions = SalesController.getInstance().getAllTransactions();
-        
         if (startDate == null) {
-            return new ArrayList<>(allTransactions);
+            return new ArrayList<>(SalesController.getInstance().getAllTransactions());
         }
         
-        ArrayList<kiosk.model.SaleTransaction> filtered = new ArrayList<>();
-        for (kiosk.model.SaleTransaction transaction : allTransactions) {
-            // Convert LocalDateTime to Date for comparison
-            Date transactionDate = Date.from(transaction.getTransactionDate()
-                .atZone(ZoneId.systemDefault()).toInstant());
-            
-            if (transactionDate.after(startDate) || transactionDate.equals(startDate)) {
-                filtered.add(transaction);
-            }
-        }
-        return filtered;
+        // Let the database select the range so archived months outside it are never read
+        java.time.LocalDateTime start = java.time.LocalDateTime.ofInstant(startDate.toInstant(), ZoneId.systemDefault());
+        return new ArrayList<>(SalesController.getInstance()
+            .getTransactionsByDateRange(start, java.time.LocalDateTime.now()));
     }
     
     /**
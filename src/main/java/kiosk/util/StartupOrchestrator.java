@@ -0,0 +1,228 @@
+package kiosk.util;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs application startup as a dependency graph of phases.
+ * Phases whose dependencies are satisfied run concurrently on a small worker pool
+ * (or on the Swing EDT when they touch the UI), and every phase is timed so the
+ * boot sequence can be profiled from the console.
+ */
+public class StartupOrchestrator {
+
+    /**
+     * Notified after each phase finishes (successfully or not)
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void phaseCompleted(String phase, int completed, int total);
+    }
+
+    /**
+     * A startup step that may throw
+     */
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private enum Status { PENDING, DONE, FAILED, SKIPPED }
+
+    private static class Phase {
+        final String name;
+        final Task task;
+        final List<String> dependsOn;
+        final boolean onEdt;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String threadName = "-";
+        volatile Status status = Status.PENDING;
+        volatile Throwable error;
+
+        Phase(String name, Task task, List<String> dependsOn, boolean onEdt) {
+            this.name = name;
+            this.task = task;
+            this.dependsOn = dependsOn;
+            this.onEdt = onEdt;
+        }
+
+        long durationMillis() {
+            return status == Status.DONE || status == Status.FAILED ? (endNanos - startNanos) / 1_000_000 : 0;
+        }
+    }
+
+    private static final int MAX_WORKERS = 4;
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private long startNanos;
+    private long endNanos;
+
+    /**
+     * Add a phase that runs on a background worker
+     */
+    public StartupOrchestrator addPhase(String name, Task task, String... dependsOn) {
+        return add(new Phase(name, task, Arrays.asList(dependsOn), false));
+    }
+
+    /**
+     * Add a phase that must run on the Swing event dispatch thread
+     */
+    public StartupOrchestrator addEdtPhase(String name, Task task, String... dependsOn) {
+        return add(new Phase(name, task, Arrays.asList(dependsOn), true));
+    }
+
+    private StartupOrchestrator add(Phase phase) {
+        if (phases.containsKey(phase.name)) {
+            throw new IllegalArgumentException("Duplicate startup phase: " + phase.name);
+        }
+        phases.put(phase.name, phase);
+        return this;
+    }
+
+    /**
+     * Run all phases and block until they have finished.
+     * A failed phase causes its dependents to be skipped; independent phases still run.
+     * @return true if every phase completed successfully
+     */
+    public boolean run(ProgressListener listener) {
+        List<Phase> order = topologicalOrder();
+        // Startup phases mostly wait on I/O (database, files), so size by phase count, not cores
+        int workers = Math.max(1, Math.min(order.size(), MAX_WORKERS));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "startup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        AtomicInteger completed = new AtomicInteger();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        startNanos = System.nanoTime();
+
+        for (Phase phase : order) {
+            CompletableFuture<?>[] deps = phase.dependsOn.stream()
+                .map(futures::get)
+                .toArray(CompletableFuture[]::new);
+
+            CompletableFuture<Void> future = CompletableFuture.allOf(deps)
+                .thenRunAsync(() -> execute(phase), phase.onEdt ? SwingUtilities::invokeLater : pool)
+                .whenComplete((v, e) -> {
+                    if (phase.status == Status.PENDING) {
+                        phase.status = Status.SKIPPED;
+                    }
+                    if (listener != null) {
+                        listener.phaseCompleted(phase.name, completed.incrementAndGet(), order.size());
+                    }
+                });
+            futures.put(phase.name, future);
+        }
+
+        boolean success = true;
+        for (CompletableFuture<Void> future : futures.values()) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                success = false;
+            }
+        }
+
+        endNanos = System.nanoTime();
+        pool.shutdown();
+        return success;
+    }
+
+    private void execute(Phase phase) {
+        phase.threadName = Thread.currentThread().getName();
+        phase.startNanos = System.nanoTime();
+        try {
+            phase.task.run();
+            phase.status = Status.DONE;
+        } catch (Exception e) {
+            phase.error = e;
+            phase.status = Status.FAILED;
+            throw new CompletionException(e);
+        } finally {
+            phase.endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Orders phases so each comes after its dependencies; rejects unknown names and cycles
+     */
+    private List<Phase> topologicalOrder() {
+        List<Phase> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Set<String> visiting = new HashSet<>();
+        for (Phase phase : phases.values()) {
+            visit(phase, visited, visiting, order);
+        }
+        return order;
+    }
+
+    private void visit(Phase phase, Set<String> visited, Set<String> visiting, List<Phase> order) {
+        if (visited.contains(phase.name)) {
+            return;
+        }
+        if (!visiting.add(phase.name)) {
+            throw new IllegalStateException("Startup phases form a cycle at: " + phase.name);
+        }
+        for (String dependency : phase.dependsOn) {
+            Phase dep = phases.get(dependency);
+            if (dep == null) {
+                throw new IllegalStateException("Startup phase " + phase.name + " depends on unknown phase " + dependency);
+            }
+            visit(dep, visited, visiting, order);
+        }
+        visiting.remove(phase.name);
+        visited.add(phase.name);
+        order.add(phase);
+    }
+
+    /**
+     * Duration of a finished phase in milliseconds (0 if it never ran)
+     */
+    public long getPhaseMillis(String name) {
+        Phase phase = phases.get(name);
+        return phase == null ? 0 : phase.durationMillis();
+    }
+
+    /**
+     * Wall-clock time of the whole run in milliseconds
+     */
+    public long getTotalMillis() {
+        return (endNanos - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Print per-phase timings: start offset, duration, thread and outcome
+     */
+    public void printTimings() {
+        long serialMillis = 0;
+        System.out.println("=".repeat(60));
+        System.out.println("  Startup timings");
+        System.out.println("=".repeat(60));
+        for (Phase phase : phases.values()) {
+            long offset = phase.status == Status.SKIPPED ? 0 : (phase.startNanos - startNanos) / 1_000_000;
+            serialMillis += phase.durationMillis();
+            System.out.println(String.format("  %-14s +%5d ms  %6d ms  %-22s %s",
+                phase.name, offset, phase.durationMillis(), phase.threadName, phase.status));
+            if (phase.error != null) {
+                System.out.println("      " + phase.error);
+            }
+        }
+        System.out.println(String.format("  Total: %d ms (%d ms if run serially)", getTotalMillis(), serialMillis));
+        System.out.println("=".repeat(60));
+    }
+}
@@ -2,6 +2,7 @@ package kiosk.view;
 
 import java.awt.*;
 import java.awt.print.*;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -13,11 +14,16 @@ import javax.swing.table.*;
 
 import kiosk.controller.CustomOrderController;
 import kiosk.view.admin.CustomOrdersAdminPanel;
+import kiosk.controller.CustomerController;
+import kiosk.view.admin.CustomersAdminPanel;
 import kiosk.controller.SalesController;
+import kiosk.database.dao.VersionedUpdate;
 import kiosk.model.InventoryItem;
 import kiosk.model.SaleTransaction;
+import kiosk.model.TransactionHeader;
 import kiosk.util.HelpRequestManager;
 import kiosk.util.InventoryManager;
+import kiosk.util.Money;
 
 /**
  * Modern Admin Panel with Dashboard and Sales Reports
@@ -156,6 +162,10 @@ public class AdminPanel extends JFrame {
         CustomOrdersAdminPanel customOrdersPanel = new CustomOrdersAdminPanel(new CustomOrderController());
         tabbedPane.addTab("🎂 Custom Orders", customOrdersPanel);
         
+        // Customers Tab
+        CustomersAdminPanel customersPanel = new CustomersAdminPanel(new CustomerController());
+        tabbedPane.addTab("👥 Customers", customersPanel);
+        
         return tabbedPane;
     }
     
@@ -333,15 +343,12 @@ public class AdminPanel extends JFrame {
      */
     private void refreshDashboard() {
         // Today's sales
-        double todaysTotal = salesController.getTodayTotalSales();
-        todaySalesLabel.setText(String.format("₱%.2f", todaysTotal));
+        long todaysTotal = salesController.getTodayTotalSalesCents();
+        todaySalesLabel.setText(Money.format(todaysTotal));
         
         // Total revenue - get all time sales
-        List<SaleTransaction> allSales = salesController.getAllTransactions();
-        double totalRevenue = allSales.stream()
-            .mapToDouble(SaleTransaction::getTotal)
-            .sum();
-        totalRevenueLabel.setText(String.format("₱%.2f", totalRevenue));
+        long totalRevenue = salesController.getAllTimeTotalSalesCents();
+        totalRevenueLabel.setText(Money.format(totalRevenue));
         
         // Low stock count
         int lowStockCount = inventoryManager.getLowStockItems(10).size();
@@ -1308,35 +1315,35 @@ public class AdminPanel extends JFrame {
         // Get transactions for the selected day
         java.time.LocalDateTime startOfDay = date.atStartOfDay();
         java.time.LocalDateTime endOfDay = date.atTime(23, 59, 59);
-        List<SaleTransaction> sales = salesController.getTransactionsByDateRange(startOfDay, endOfDay);
+        List<TransactionHeader> sales = salesController.getTransactionHeadersByDateRange(startOfDay, endOfDay);
         
-        double totalSales = 0;
+        long totalSales = 0;
         int totalItems = 0;
         
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss");
         
-        for (SaleTransaction sale : sales) {
-            totalSales += sale.getTotal();
-            totalItems += sale.getTotalItemCount();
+        for (TransactionHeader sale : sales) {
+            totalSales += sale.total();
+            totalItems += sale.itemCount();
             
-            String time = sale.getTransactionDate().format(timeFormatter);
+            String time = sale.transactionDate().format(timeFormatter);
             tableModel.addRow(new Object[]{
                 time,
-                sale.getTransactionId(),
-                sale.getTotalItemCount(),
-                String.format("₱%.2f", sale.getSubtotal()),
-                String.format("₱%.2f", sale.getDiscountAmount()),
-                String.format("₱%.2f", sale.getTotal())
+                sale.transactionId(),
+                sale.itemCount(),
+                Money.format(sale.subtotal()),
+                Money.format(sale.discountAmount()),
+                Money.format(sale.total())
             });
         }
         
-        double avgTransaction = sales.isEmpty() ? 0 : totalSales / sales.size();
+        long avgTransaction = sales.isEmpty() ? 0 : Money.divide(totalSales, sales.size(), RoundingMode.HALF_UP);
         
         // Update stat cards
-        updateMiniStatCard(totalSalesCard, String.format("₱%.2f", totalSales));
+        updateMiniStatCard(totalSalesCard, Money.format(totalSales));
         updateMiniStatCard(transactionsCard, String.valueOf(sales.size()));
         updateMiniStatCard(itemsSoldCard, String.valueOf(totalItems));
-        updateMiniStatCard(avgTransactionCard, String.format("₱%.2f", avgTransaction));
+        updateMiniStatCard(avgTransactionCard, Money.format(avgTransaction));
     }
     
     /**
@@ -1463,7 +1470,7 @@ public class AdminPanel extends JFrame {
                                     JPanel weekTransactionsCard, JPanel topItemCard) {
         tableModel.setRowCount(0);
         
-        double weekTotal = 0;
+        long weekTotal = 0;
         int weekTransactions = 0;
         Map<String, Integer> itemCounts = new java.util.HashMap<>();
         
@@ -1475,10 +1482,10 @@ public class AdminPanel extends JFrame {
             java.time.LocalDateTime endOfDay = date.atTime(23, 59, 59);
             List<SaleTransaction> daySales = salesController.getTransactionsByDateRange(startOfDay, endOfDay);
             
-            double dayTotal = daySales.stream().mapToDouble(SaleTransaction::getTotal).sum();
+            long dayTotal = daySales.stream().mapToLong(SaleTransaction::getTotalCents).sum();
             int dayTransactions = daySales.size();
             int dayItems = daySales.stream().mapToInt(SaleTransaction::getTotalItemCount).sum();
-            double dayAvg = dayTransactions > 0 ? dayTotal / dayTransactions : 0;
+            long dayAvg = dayTransactions > 0 ? Money.divide(dayTotal, dayTransactions, RoundingMode.HALF_UP) : 0;
             
             weekTotal += dayTotal;
             weekTransactions += dayTransactions;
@@ -1493,14 +1500,14 @@ public class AdminPanel extends JFrame {
             tableModel.addRow(new Object[]{
                 dayNames[i],
                 date.toString(),
-                String.format("₱%.2f", dayTotal),
+                Money.format(dayTotal),
                 dayTransactions,
                 dayItems,
-                String.format("₱%.2f", dayAvg)
+                Money.format(dayAvg)
             });
         }
         
-        double dailyAverage = weekTotal / 7;
+        long dailyAverage = Money.divide(weekTotal, 7, RoundingMode.HALF_UP);
         
         // Find top item
         String topItem = itemCounts.isEmpty() ? "N/A" : 
@@ -1510,8 +1517,8 @@ public class AdminPanel extends JFrame {
                 .orElse("N/A");
         
         // Update stat cards
-        updateMiniStatCard(weekTotalCard, String.format("₱%.2f", weekTotal));
-        updateMiniStatCard(dailyAvgCard, String.format("₱%.2f", dailyAverage));
+        updateMiniStatCard(weekTotalCard, Money.format(weekTotal));
+        updateMiniStatCard(dailyAvgCard, Money.format(dailyAverage));
         updateMiniStatCard(weekTransactionsCard, String.valueOf(weekTransactions));
         updateMiniStatCard(topItemCard, topItem);
     }
@@ -1642,9 +1649,9 @@ public class AdminPanel extends JFrame {
         LocalDate firstDay = LocalDate.of(year, month, 1);
         LocalDate lastDay = firstDay.plusMonths(1).minusDays(1);
         
-        double monthTotal = 0;
+        long monthTotal = 0;
         int monthTransactions = 0;
-        Map<LocalDate, Double> dailyTotals = new java.util.HashMap<>();
+        Map<LocalDate, Long> dailyTotals = new java.util.HashMap<>();
         
         // Calculate weekly breakdown
         LocalDate weekStart = firstDay;
@@ -1656,15 +1663,15 @@ public class AdminPanel extends JFrame {
                 weekEnd = lastDay;
             }
             
-            double weekTotal = 0;
+            long weekTotal = 0;
             int weekTransactions = 0;
             int daysInWeek = (int) (weekEnd.toEpochDay() - weekStart.toEpochDay() + 1);
             
             for (LocalDate date = weekStart; !date.isAfter(weekEnd); date = date.plusDays(1)) {
                 java.time.LocalDateTime startOfDay = date.atStartOfDay();
                 java.time.LocalDateTime endOfDay = date.atTime(23, 59, 59);
-                List<SaleTransaction> daySales = salesController.getTransactionsByDateRange(startOfDay, endOfDay);
-                double dayTotal = daySales.stream().mapToDouble(SaleTransaction::getTotal).sum();
+                List<TransactionHeader> daySales = salesController.getTransactionHeadersByDateRange(startOfDay, endOfDay);
+                long dayTotal = daySales.stream().mapToLong(TransactionHeader::total).sum();
                 weekTotal += dayTotal;
                 weekTransactions += daySales.size();
                 monthTotal += dayTotal;
@@ -1672,14 +1679,14 @@ public class AdminPanel extends JFrame {
                 dailyTotals.put(date, dayTotal);
             }
             
-            double dailyAvg = weekTotal / daysInWeek;
+            long dailyAvg = Money.divide(weekTotal, daysInWeek, RoundingMode.HALF_UP);
             
             tableModel.addRow(new Object[]{
                 "Week " + weekNum,
                 weekStart + " to " + weekEnd,
-                String.format("₱%.2f", weekTotal),
+                Money.format(weekTotal),
                 weekTransactions,
-                String.format("₱%.2f", dailyAvg)
+                Money.format(dailyAvg)
             });
             
             weekStart = weekEnd.plusDays(1);
@@ -1687,7 +1694,7 @@ public class AdminPanel extends JFrame {
         }
         
         int daysInMonth = lastDay.getDayOfMonth();
-        double dailyAverage = monthTotal / daysInMonth;
+        long dailyAverage = Money.divide(monthTotal, daysInMonth, RoundingMode.HALF_UP);
         
         // Find best day
         String bestDay = dailyTotals.isEmpty() ? "N/A" :
@@ -1697,8 +1704,8 @@ public class AdminPanel extends JFrame {
                 .orElse("N/A");
         
         // Update stat cards
-        updateMiniStatCard(monthTotalCard, String.format("₱%.2f", monthTotal));
-        updateMiniStatCard(monthAvgCard, String.format("₱%.2f", dailyAverage));
+        updateMiniStatCard(monthTotalCard, Money.format(monthTotal));
+        updateMiniStatCard(monthAvgCard, Money.format(dailyAverage));
         updateMiniStatCard(monthTransactionsCard, String.valueOf(monthTransactions));
         updateMiniStatCard(topDayCard, bestDay);
     }
@@ -1806,27 +1813,17 @@ public class AdminPanel extends JFrame {
                                      JPanel totalItemsCard, JPanel avgTransactionCard,
                                      JPanel bestDayCard, JPanel topProductCard,
                                      DefaultTableModel topProductsModel) {
-        List<SaleTransaction> allSales = salesController.getAllTransactions();
-        
-        double totalRevenue = allSales.stream().mapToDouble(SaleTransaction::getTotal).sum();
-        int totalTransactions = allSales.size();
-        int totalItems = allSales.stream().mapToInt(SaleTransaction::getTotalItemCount).sum();
-        double avgTransaction = totalTransactions > 0 ? totalRevenue / totalTransactions : 0;
+        // Aggregated in the database (archived months come from their summaries)
+        kiosk.model.SalesSummary summary = salesController.getAllTimeSummary();
         
-        // Find best day
-        Map<LocalDate, Double> dailyTotals = new java.util.HashMap<>();
-        Map<String, Integer> productCounts = new java.util.HashMap<>();
-        Map<String, Double> productRevenue = new java.util.HashMap<>();
+        long totalRevenue = summary.totalCents();
+        int totalTransactions = summary.transactionCount();
+        int totalItems = summary.itemCount();
+        long avgTransaction = totalTransactions > 0 ? Money.divide(totalRevenue, totalTransactions, RoundingMode.HALF_UP) : 0;
         
-        for (SaleTransaction sale : allSales) {
-            LocalDate date = sale.getTransactionDate().toLocalDate();
-            dailyTotals.merge(date, sale.getTotal(), Double::sum);
-            
-            for (kiosk.model.CartItem item : sale.getItems()) {
-                productCounts.merge(item.getItemName(), item.getQuantity(), Integer::sum);
-                productRevenue.merge(item.getItemName(), item.getSubtotal(), Double::sum);
-            }
-        }
+        Map<LocalDate, Long> dailyTotals = summary.dailyTotals();
+        Map<String, Integer> productCounts = summary.itemQuantities();
+        Map<String, Long> productRevenue = summary.itemRevenue();
         
         String bestDay = dailyTotals.isEmpty() ? "N/A" :
             dailyTotals.entrySet().stream()
@@ -1841,10 +1838,10 @@ public class AdminPanel extends JFrame {
                 .orElse("N/A");
         
         // Update stat cards
-        updateMiniStatCard(totalRevenueCard, String.format("₱%.2f", totalRevenue));
+        updateMiniStatCard(totalRevenueCard, Money.format(totalRevenue));
         updateMiniStatCard(totalTransactionsCard, String.valueOf(totalTransactions));
         updateMiniStatCard(totalItemsCard, String.valueOf(totalItems));
-        updateMiniStatCard(avgTransactionCard, String.format("₱%.2f", avgTransaction));
+        updateMiniStatCard(avgTransactionCard, Money.format(avgTransaction));
         updateMiniStatCard(bestDayCard, bestDay);
         updateMiniStatCard(topProductCard, topProduct);
         
@@ -1856,15 +1853,15 @@ public class AdminPanel extends JFrame {
             .forEach(entry -> {
                 String productName = entry.getKey();
                 int unitsSold = entry.getValue();
-                double revenue = productRevenue.getOrDefault(productName, 0.0);
-                double avgPrice = revenue / unitsSold;
+                long revenue = productRevenue.getOrDefault(productName, 0L);
+                long avgPrice = Money.divide(revenue, unitsSold, RoundingMode.HALF_UP);
                 
                 topProductsModel.addRow(new Object[]{
                     topProductsModel.getRowCount() + 1,
                     productName,
                     unitsSold,
-                    String.format("₱%.2f", revenue),
-                    String.format("₱%.2f", avgPrice)
+                    Money.format(revenue),
+                    Money.format(avgPrice)
                 });
             });
     }
@@ -2096,7 +2093,24 @@ public class AdminPanel extends JFrame {
             item.setStockQuantity(stock);
             item.setExpirationDate(expirationDate);
             
-            inventoryManager.updateItem(item);
+            VersionedUpdate.Result result = inventoryManager.updateItem(item, (mine, current) -> {
+                int choice = JOptionPane.showConfirmDialog(dialog,
+                    String.format("%s was changed on another station (now ₱%.2f, stock %d).%n" +
+                                  "Overwrite it with your changes?",
+                                  current.getName(), current.getPrice(), current.getStockQuantity()),
+                    "Item Changed", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                return choice == JOptionPane.YES_OPTION ? mine : null;
+            });
+            
+            if (result != VersionedUpdate.Result.UPDATED) {
+                refreshTableData();
+                String message = result == VersionedUpdate.Result.NOT_FOUND ? "This item was deleted on another station."
+                    : result == VersionedUpdate.Result.CONFLICT ? "Your changes were not saved; the item has been reloaded."
+                    : "Failed to update item.";
+                JOptionPane.showMessageDialog(dialog, message, "Not Saved", JOptionPane.WARNING_MESSAGE);
+                dialog.dispose();
+                return;
+            }
             
             refreshTableData();
             updateAlerts();
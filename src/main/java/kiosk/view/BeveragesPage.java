@@ -2,9 +2,9 @@ package kiosk.view;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.text.DecimalFormat;
 import java.util.*;
 import java.util.List;
+import java.util.function.Predicate;
 import javax.swing.*;
 import javax.swing.border.*;
 
@@ -14,7 +14,8 @@ import kiosk.database.dao.InventoryDAO;
 import kiosk.model.InventoryItem;
 
 public class BeveragesPage extends JPanel implements KioskPage {
-    private JPanel productPanel;
+    private ProductGrid productGrid;
+    private final Map<String, List<ProductGrid.Product>> gridProducts = new HashMap<>();
     private Map<String, List<String>> products;
     private Map<String, List<Double>> prices;
     private InventoryDAO inventoryDAO;
@@ -23,8 +24,10 @@ public class BeveragesPage extends JPanel implements KioskPage {
     private JButton activeButton;
     private JLabel cartCountLabel;
     private JTextField searchBar;
+    private ProductSearchController searchController;
+    // Grid holds every page product, filtered by the current query
+    private boolean searching;
     private String currentCategory = "Beverages & Extras";
-    private final DecimalFormat priceFormat = new DecimalFormat("0.00");
     
     // Modern Bakery Theme Colors
     private final Color PRIMARY_COLOR = BakeryTheme.PRIMARY_COLOR;
@@ -140,26 +143,14 @@ public class BeveragesPage extends JPanel implements KioskPage {
             }
         });
         
-        searchBar.addActionListener(e -> {
-            String query = searchBar.getText().trim().toLowerCase();
-            if (query.isEmpty() || query.equals("search products...")) {
-                showProducts(currentCategory);
-            } else {
-                filterProducts(query);
-            }
-        });
+        searchController = new ProductSearchController(searchBar, "Search products...",
+            this::showSearchResults, () -> showProducts(currentCategory));
+        searchBar.addActionListener(e -> searchController.searchNow());
         
         JButton searchButton = createIconButton("🔍", "Search");
         searchButton.setFont(new Font("SansSerif", Font.BOLD, 20));
         searchButton.setPreferredSize(new Dimension(50, 45));
-        searchButton.addActionListener(e -> {
-            String query = searchBar.getText().trim().toLowerCase();
-            if (query.isEmpty() || query.equals("search products...")) {
-                showProducts(currentCategory);
-            } else {
-                filterProducts(query);
-            }
-        });
+        searchButton.addActionListener(e -> searchController.searchNow());
         
         leftPanel.add(searchBar);
         leftPanel.add(searchButton);
@@ -252,16 +243,31 @@ public class BeveragesPage extends JPanel implements KioskPage {
     }
     
     private JScrollPane createProductScrollPane() {
-        productPanel = new JPanel();
-        productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-        productPanel.setBackground(BACKGROUND_COLOR);
-        
-        JScrollPane scrollPane = new JScrollPane(productPanel);
+        productGrid = new ProductGrid(null, new ProductGrid.CardActionListener() {
+            @Override
+            public void onIncrement(ProductGrid.Product product) {
+                CartManager.addItem(product.getName(), product.getPrice());
+                updateCartCount();
+                // Update all cart counters after any cart change
+                if (parent != null) parent.updateAllCartCounters();
+                showAddToCartFeedback(product.getName());
+            }
+
+            @Override
+            public void onDecrement(ProductGrid.Product product) {
+                CartManager.removeItem(product.getName());
+                updateCartCount();
+                // Update all cart counters after any cart change
+                if (parent != null) parent.updateAllCartCounters();
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(productGrid);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
         scrollPane.setBackground(BACKGROUND_COLOR);
-        
+
         return scrollPane;
     }
     
@@ -300,8 +306,7 @@ public class BeveragesPage extends JPanel implements KioskPage {
     }
 
     private void showProducts(String category) {
-        productPanel.removeAll();
-        
+        searching = false;
         String actualCategory = null;
         for (String key : products.keySet()) {
             if (key.equalsIgnoreCase(category)) {
@@ -309,202 +314,85 @@ public class BeveragesPage extends JPanel implements KioskPage {
                 break;
             }
         }
-        
+
         if (actualCategory == null) {
             JLabel noProductsLabel = new JLabel("No products found for category: " + category);
             noProductsLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
             noProductsLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            productPanel.setLayout(new BorderLayout());
-            productPanel.add(noProductsLabel, BorderLayout.CENTER);
+            productGrid.setEmptyComponent(noProductsLabel);
+            productGrid.setProducts(Collections.emptyList());
         } else {
-            productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-            
-            List<String> items = products.get(actualCategory);
-            List<Double> itemPrices = prices.get(actualCategory);
-            
-            if (items != null && itemPrices != null && items.size() == itemPrices.size()) {
-                for (int i = 0; i < items.size(); i++) {
-                    String itemName = items.get(i);
-                    double itemPrice = itemPrices.get(i);
-                    
-                    JPanel productCard = createProductCard(itemName, itemPrice);
-                    productPanel.add(productCard);
-                }
-            }
+            productGrid.setEmptyComponent(null);
+            productGrid.setProducts(getGridProducts(actualCategory));
         }
-        
-        productPanel.revalidate();
-        productPanel.repaint();
     }
     
-    private void filterProducts(String query) {
-        productPanel.removeAll();
-        
-        int resultCount = 0;
-        
-        for (String category : products.keySet()) {
-            List<String> items = products.get(category);
-            List<Double> itemPrices = prices.get(category);
-            
-            for (int i = 0; i < items.size(); i++) {
-                String itemName = items.get(i);
-                
-                if (itemName.toLowerCase().contains(query)) {
-                    double itemPrice = itemPrices.get(i);
-                    JPanel productCard = createProductCard(itemName, itemPrice);
-                    productPanel.add(productCard);
-                    resultCount++;
-                }
-            }
+    private void showSearchResults(String query, Predicate<ProductGrid.Product> matches) {
+        if (!searching) {
+            productGrid.setProducts(getAllGridProducts());
+            searching = true;
         }
-        
-        if (resultCount == 0) {
-            JPanel noResultsPanel = new JPanel();
-            noResultsPanel.setLayout(new BoxLayout(noResultsPanel, BoxLayout.Y_AXIS));
-            noResultsPanel.setBackground(BACKGROUND_COLOR);
-            noResultsPanel.setBorder(BorderFactory.createEmptyBorder(50, 0, 0, 0));
-            
-            JLabel iconLabel = new JLabel("🔎");
-            iconLabel.setFont(new Font("SansSerif", Font.PLAIN, 48));
-            iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            
-            JLabel messageLabel = new JLabel("No products found for \"" + query + "\"");
-            messageLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
-            messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            
-            JButton clearButton = new JButton("Clear Search");
-            clearButton.setAlignmentX(Component.CENTER_ALIGNMENT);
-            clearButton.addActionListener(e -> {
-                searchBar.setText("Search products...");
-                searchBar.setForeground(Color.GRAY);
-                showProducts(currentCategory);
-            });
-            
-            noResultsPanel.add(iconLabel);
-            noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
-            noResultsPanel.add(messageLabel);
-            noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
-            noResultsPanel.add(clearButton);
-            
-            productPanel.setLayout(new BorderLayout());
-            productPanel.add(noResultsPanel, BorderLayout.CENTER);
-        } else {
-            productPanel.setLayout(new GridLayout(0, 3, 20, 20));
+        // Only displayed when nothing matches
+        productGrid.setEmptyComponent(createNoResultsPanel(query));
+        productGrid.setFilter(matches);
+    }
+
+    private List<ProductGrid.Product> getAllGridProducts() {
+        List<ProductGrid.Product> all = new ArrayList<>();
+        for (String category : products.keySet()) {
+            all.addAll(getGridProducts(category));
         }
-        
-        productPanel.revalidate();
-        productPanel.repaint();
+        return all;
     }
 
-    private JPanel createProductCard(String itemName, double itemPrice) {
-        JPanel card = new JPanel();
-        card.setLayout(new BorderLayout(0, 0));
-        card.setBackground(CARD_COLOR);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(new Color(220, 220, 220), 1, true),
-            BorderFactory.createEmptyBorder(0, 0, 10, 0)
-        ));
-        
-        JPanel imagePanel = new JPanel(new BorderLayout());
-        imagePanel.setBackground(CARD_COLOR);
-        imagePanel.setPreferredSize(new Dimension(150, 150));
-        
-        JLabel imageLabel = new JLabel();
-        imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        
-        JPanel placeholder = new JPanel(new BorderLayout());
-        placeholder.setPreferredSize(new Dimension(120, 120));
-        placeholder.setBackground(new Color(240, 240, 240));
-        placeholder.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-        
-        JLabel placeholderText = new JLabel(itemName.substring(0, 1).toUpperCase());
-        placeholderText.setFont(new Font("SansSerif", Font.BOLD, 48));
-        placeholderText.setForeground(new Color(150, 150, 150));
-        placeholderText.setHorizontalAlignment(SwingConstants.CENTER);
-        
-        placeholder.add(placeholderText, BorderLayout.CENTER);
-        imageLabel.setLayout(new BorderLayout());
-        imageLabel.add(placeholder, BorderLayout.CENTER);
-        
-        imagePanel.add(imageLabel, BorderLayout.CENTER);
-        
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(CARD_COLOR);
-        infoPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 0, 10));
-        
-        JLabel nameLabel = new JLabel(itemName);
-        nameLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        nameLabel.setForeground(TEXT_DARK);
-        
-        JLabel priceLabel = new JLabel("₱" + priceFormat.format(itemPrice));
-        priceLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        priceLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        priceLabel.setForeground(TEXT_DARK);
-        
-        int currentQty = CartManager.getItemQuantity(itemName);
-        
-        JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        controlsPanel.setBackground(CARD_COLOR);
-        
-        JButton decrementBtn = new JButton("-");
-        decrementBtn.setFont(new Font("SansSerif", Font.BOLD, 18));
-        decrementBtn.setFocusPainted(false);
-        decrementBtn.setPreferredSize(new Dimension(45, 40));
-        decrementBtn.setEnabled(currentQty > 0);
-        decrementBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        decrementBtn.setMargin(new Insets(5, 10, 5, 10));
-        
-        JLabel quantityLabel = new JLabel(String.valueOf(currentQty));
-        quantityLabel.setFont(new Font("SansSerif", Font.BOLD, 18));
-        quantityLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        quantityLabel.setPreferredSize(new Dimension(50, 40));
-        quantityLabel.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(Color.LIGHT_GRAY),
-            BorderFactory.createEmptyBorder(5, 0, 5, 0)
-        ));
-        
-        JButton incrementBtn = new JButton("+");
-        incrementBtn.setFont(new Font("SansSerif", Font.BOLD, 18));
-        incrementBtn.setFocusPainted(false);
-        incrementBtn.setPreferredSize(new Dimension(45, 40));
-        incrementBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        incrementBtn.setMargin(new Insets(5, 10, 5, 10));
-        
-        controlsPanel.add(decrementBtn);
-        controlsPanel.add(quantityLabel);
-        controlsPanel.add(incrementBtn);
-        
-        decrementBtn.addActionListener(e -> {
-            CartManager.removeItem(itemName);
-            updateProductCard(card, itemName, itemPrice);
-            updateCartCount();
-            // Update all cart counters after any cart change
-            if (parent != null) parent.updateAllCartCounters();
+    private JPanel createNoResultsPanel(String query) {
+        JPanel noResultsPanel = new JPanel();
+        noResultsPanel.setLayout(new BoxLayout(noResultsPanel, BoxLayout.Y_AXIS));
+        noResultsPanel.setBackground(BACKGROUND_COLOR);
+        noResultsPanel.setBorder(BorderFactory.createEmptyBorder(50, 0, 0, 0));
+        
+        JLabel iconLabel = new JLabel("🔎");
+        iconLabel.setFont(new Font("SansSerif", Font.PLAIN, 48));
+        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        
+        JLabel messageLabel = new JLabel("No products found for \"" + query + "\"");
+        messageLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        
+        JButton clearButton = new JButton("Clear Search");
+        clearButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        clearButton.addActionListener(e -> {
+            searchBar.setText("Search products...");
+            searchBar.setForeground(Color.GRAY);
+            showProducts(currentCategory);
         });
+        
+        noResultsPanel.add(iconLabel);
+        noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        noResultsPanel.add(messageLabel);
+        noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        noResultsPanel.add(clearButton);
+
+        return noResultsPanel;
+    }
 
-        incrementBtn.addActionListener(e -> {
-            CartManager.addItem(itemName, itemPrice);
-            updateProductCard(card, itemName, itemPrice);
-            updateCartCount();
-            // Update all cart counters after any cart change
-            if (parent != null) parent.updateAllCartCounters();
-            showAddToCartFeedback(itemName);
+    /**
+     * Grid models per category, built once from the product maps
+     */
+    private List<ProductGrid.Product> getGridProducts(String category) {
+        return gridProducts.computeIfAbsent(category, key -> {
+            List<ProductGrid.Product> result = new ArrayList<>();
+            List<String> items = products.get(category);
+            List<Double> itemPrices = prices.get(category);
+            if (items != null && itemPrices != null && items.size() == itemPrices.size()) {
+                for (int i = 0; i < items.size(); i++) {
+                    result.add(new ProductGrid.Product(items.get(i), itemPrices.get(i), null));
+                }
+            }
+            return result;
         });
-        
-        infoPanel.add(nameLabel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        infoPanel.add(priceLabel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        infoPanel.add(controlsPanel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        
-        card.add(imagePanel, BorderLayout.NORTH);
-        card.add(infoPanel, BorderLayout.CENTER);
-        
-        return card;
     }
+
     
     private void showAddToCartFeedback(String itemName) {
         JWindow notification = new JWindow(SwingUtilities.getWindowAncestor(this));
@@ -531,26 +419,6 @@ public class BeveragesPage extends JPanel implements KioskPage {
         new javax.swing.Timer(1500, e -> notification.dispose()).start();
     }
 
-    private void updateProductCard(JPanel card, String itemName, double itemPrice) {
-        Container parent = card.getParent();
-        int index = -1;
-        for (int i = 0; i < parent.getComponentCount(); i++) {
-            if (parent.getComponent(i) == card) {
-                index = i;
-                break;
-            }
-        }
-        if (index >= 0) {
-            parent.remove(card);
-            parent.add(createProductCard(itemName, itemPrice), index);
-            parent.revalidate();
-            parent.repaint();
-        }
-        // After updating, also update all cart counters
-        if (parent instanceof BeveragesPage && this.parent != null) {
-            this.parent.updateAllCartCounters();
-        }
-    }
     
     @Override
     public void backToMain() {
@@ -564,6 +432,9 @@ public class BeveragesPage extends JPanel implements KioskPage {
         int count = CartManager.getTotalItems();
         cartCountLabel.setText(String.valueOf(count));
         cartCountLabel.setVisible(count > 0);
+        if (productGrid != null) {
+            productGrid.refreshQuantities();
+        }
     }
 
     private void highlightButton(JButton button) {
@@ -3,9 +3,9 @@ package kiosk.view;
 import java.awt.*;
 import java.awt.event.*;
 import java.net.URL;
-import java.text.DecimalFormat;
 import java.util.*;
 import java.util.List;
+import java.util.function.Predicate;
 import javax.swing.*; // Explicit import for java.util.List
 import javax.swing.border.*;
 
@@ -16,7 +16,8 @@ import kiosk.model.InventoryItem;
 
 public class BreadsPage extends JPanel implements KioskPage {
     private KioskMainPage parent;
-    private JPanel productPanel;
+    private ProductGrid productGrid;
+    private final Map<String, List<ProductGrid.Product>> gridProducts = new HashMap<>();
     private InventoryDAO inventoryDAO;
 
     @Override
@@ -31,8 +32,10 @@ public class BreadsPage extends JPanel implements KioskPage {
     private JButton activeButton;
     private JLabel cartCountLabel;
     private JTextField searchBar;
+    private ProductSearchController searchController;
+    // Grid holds every page product, filtered by the current query
+    private boolean searching;
     private String currentCategory = "Breads & Rolls";
-    private final DecimalFormat priceFormat = new DecimalFormat("0.00");
     
     // Modern Bakery Theme Colors
     private final Color PRIMARY_COLOR = BakeryTheme.PRIMARY_COLOR;
@@ -147,26 +150,14 @@ public class BreadsPage extends JPanel implements KioskPage {
             }
         });
         
-        searchBar.addActionListener(e -> {
-            String query = searchBar.getText().trim().toLowerCase();
-            if (query.isEmpty() || query.equals("search products...")) {
-                showProducts(currentCategory);
-            } else {
-                filterProducts(query);
-            }
-        });
+        searchController = new ProductSearchController(searchBar, "Search products...",
+            this::showSearchResults, () -> showProducts(currentCategory));
+        searchBar.addActionListener(e -> searchController.searchNow());
         
         JButton searchButton = createIconButton("🔍", "Search");
         searchButton.setFont(new Font("SansSerif", Font.BOLD, 20));  // Increased font size
         searchButton.setPreferredSize(new Dimension(50, 45));  // Set specific button size
-        searchButton.addActionListener(e -> {
-            String query = searchBar.getText().trim().toLowerCase();
-            if (query.isEmpty() || query.equals("search products...")) {
-                showProducts(currentCategory);
-            } else {
-                filterProducts(query);
-            }
-        });
+        searchButton.addActionListener(e -> searchController.searchNow());
         
         leftPanel.add(searchBar);
         leftPanel.add(searchButton);
@@ -259,16 +250,31 @@ public class BreadsPage extends JPanel implements KioskPage {
     }
     
     private JScrollPane createProductScrollPane() {
-        productPanel = new JPanel();
-        productPanel.setLayout(new GridLayout(0, 3, 20, 20)); // Changed to 3 columns, variable rows
-        productPanel.setBackground(BACKGROUND_COLOR);
-        
-        JScrollPane scrollPane = new JScrollPane(productPanel);
+        productGrid = new ProductGrid(this::loadImage, new ProductGrid.CardActionListener() {
+            @Override
+            public void onIncrement(ProductGrid.Product product) {
+                CartManager.addItem(product.getName(), product.getPrice());
+                updateCartCount();
+                // Update all cart counters after any cart change
+                if (parent != null) parent.updateAllCartCounters();
+                showAddToCartFeedback(product.getName());
+            }
+
+            @Override
+            public void onDecrement(ProductGrid.Product product) {
+                CartManager.removeItem(product.getName());
+                updateCartCount();
+                // Update all cart counters after any cart change
+                if (parent != null) parent.updateAllCartCounters();
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(productGrid);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        scrollPane.getVerticalScrollBar().setUnitIncrement(16); // Smoother scrolling
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
         scrollPane.setBackground(BACKGROUND_COLOR);
-        
+
         return scrollPane;
     }
     
@@ -307,9 +313,7 @@ public class BreadsPage extends JPanel implements KioskPage {
     }
 
     private void showProducts(String category) {
-        productPanel.removeAll();
-        
-        // Get correct category key from the map
+        searching = false;
         String actualCategory = null;
         for (String key : products.keySet()) {
             if (key.equalsIgnoreCase(category)) {
@@ -317,220 +321,85 @@ public class BreadsPage extends JPanel implements KioskPage {
                 break;
             }
         }
-        
+
         if (actualCategory == null) {
-            // Handle case where category is not found
             JLabel noProductsLabel = new JLabel("No products found for category: " + category);
             noProductsLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
             noProductsLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            productPanel.setLayout(new BorderLayout());
-            productPanel.add(noProductsLabel, BorderLayout.CENTER);
+            productGrid.setEmptyComponent(noProductsLabel);
+            productGrid.setProducts(Collections.emptyList());
         } else {
-            // Reset to grid layout if we're showing products
-            productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-            
-            List<String> items = products.get(actualCategory);
-            List<Double> itemPrices = prices.get(actualCategory);
-            
-            if (items != null && itemPrices != null && items.size() == itemPrices.size()) {
-                for (int i = 0; i < items.size(); i++) {
-                    String itemName = items.get(i);
-                    double itemPrice = itemPrices.get(i);
-                    
-                    JPanel productCard = createProductCard(itemName, itemPrice);
-                    productPanel.add(productCard);
-                }
-            }
+            productGrid.setEmptyComponent(null);
+            productGrid.setProducts(getGridProducts(actualCategory));
         }
-        
-        productPanel.revalidate();
-        productPanel.repaint();
     }
     
-    private void filterProducts(String query) {
-        productPanel.removeAll();
-        
-        int resultCount = 0;
-        
-        // Search through all categories
-        for (String category : products.keySet()) {
-            List<String> items = products.get(category);
-            List<Double> itemPrices = prices.get(category);
-            
-            for (int i = 0; i < items.size(); i++) {
-                String itemName = items.get(i);
-                
-                if (itemName.toLowerCase().contains(query)) {
-                    double itemPrice = itemPrices.get(i);
-                    JPanel productCard = createProductCard(itemName, itemPrice);
-                    productPanel.add(productCard);
-                    resultCount++;
-                }
-            }
+    private void showSearchResults(String query, Predicate<ProductGrid.Product> matches) {
+        if (!searching) {
+            productGrid.setProducts(getAllGridProducts());
+            searching = true;
         }
-        
-        if (resultCount == 0) {
-            // No results found
-            JPanel noResultsPanel = new JPanel();
-            noResultsPanel.setLayout(new BoxLayout(noResultsPanel, BoxLayout.Y_AXIS));
-            noResultsPanel.setBackground(BACKGROUND_COLOR);
-            noResultsPanel.setBorder(BorderFactory.createEmptyBorder(50, 0, 0, 0));
-            
-            JLabel iconLabel = new JLabel("🔎");
-            iconLabel.setFont(new Font("SansSerif", Font.PLAIN, 48));
-            iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            
-            JLabel messageLabel = new JLabel("No products found for \"" + query + "\"");
-            messageLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
-            messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            
-            JButton clearButton = new JButton("Clear Search");
-            clearButton.setAlignmentX(Component.CENTER_ALIGNMENT);
-            clearButton.addActionListener(e -> {
-                searchBar.setText("Search products...");
-                searchBar.setForeground(Color.GRAY);
-                showProducts(currentCategory);
-            });
-            
-            noResultsPanel.add(iconLabel);
-            noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
-            noResultsPanel.add(messageLabel);
-            noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
-            noResultsPanel.add(clearButton);
-            
-            productPanel.setLayout(new BorderLayout());
-            productPanel.add(noResultsPanel, BorderLayout.CENTER);
-        } else {
-            // Ensure we're using the right layout
-            productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-        }
-        
-        productPanel.revalidate();
-        productPanel.repaint();
+        // Only displayed when nothing matches
+        productGrid.setEmptyComponent(createNoResultsPanel(query));
+        productGrid.setFilter(matches);
     }
 
-    private JPanel createProductCard(String itemName, double itemPrice) {
-        JPanel card = new JPanel();
-        card.setLayout(new BorderLayout(0, 0));
-        card.setBackground(CARD_COLOR);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(new Color(220, 220, 220), 1, true),
-            BorderFactory.createEmptyBorder(0, 0, 10, 0)
-        ));
-        
-        // Image Panel
-        JPanel imagePanel = new JPanel(new BorderLayout());
-        imagePanel.setBackground(CARD_COLOR);
-        imagePanel.setPreferredSize(new Dimension(150, 150));
-        
-        JLabel imageLabel = new JLabel();
-        imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        
-        String imageFileName = itemName.toLowerCase().replaceAll("[^a-z0-9]", "") + ".jpg";
-        ImageIcon icon = loadImage(imageFileName);
-        if (icon != null) {
-            imageLabel.setIcon(new ImageIcon(icon.getImage().getScaledInstance(120, 120, Image.SCALE_SMOOTH)));
-        } else {
-            // Create a placeholder with product name
-            JPanel placeholder = new JPanel(new BorderLayout());
-            placeholder.setPreferredSize(new Dimension(120, 120));
-            placeholder.setBackground(new Color(240, 240, 240));
-            placeholder.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-            
-            JLabel placeholderText = new JLabel(itemName.substring(0, 1).toUpperCase());
-            placeholderText.setFont(new Font("SansSerif", Font.BOLD, 48));
-            placeholderText.setForeground(new Color(150, 150, 150));
-            placeholderText.setHorizontalAlignment(SwingConstants.CENTER);
-            
-            placeholder.add(placeholderText, BorderLayout.CENTER);
-            imageLabel.setLayout(new BorderLayout());
-            imageLabel.add(placeholder, BorderLayout.CENTER);
+    private List<ProductGrid.Product> getAllGridProducts() {
+        List<ProductGrid.Product> all = new ArrayList<>();
+        for (String category : products.keySet()) {
+            all.addAll(getGridProducts(category));
         }
-        
-        imagePanel.add(imageLabel, BorderLayout.CENTER);
-        
-        // Info Panel
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(CARD_COLOR);
-        infoPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 0, 10));
-        
-        JLabel nameLabel = new JLabel(itemName);
-        nameLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        nameLabel.setForeground(TEXT_DARK);
-        
-        JLabel priceLabel = new JLabel("₱" + priceFormat.format(itemPrice));
-        priceLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        priceLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        priceLabel.setForeground(TEXT_DARK);
-        
-        // Get the current quantity from cart
-        int currentQty = CartManager.getItemQuantity(itemName);
-        
-        // Controls Panel
-        JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        controlsPanel.setBackground(CARD_COLOR);
-        
-        JButton decrementBtn = new JButton("-");
-        decrementBtn.setFont(new Font("SansSerif", Font.BOLD, 18)); // Larger font
-        decrementBtn.setFocusPainted(false);
-        decrementBtn.setPreferredSize(new Dimension(45, 40)); // Larger button
-        decrementBtn.setEnabled(currentQty > 0);
-        decrementBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        decrementBtn.setMargin(new Insets(5, 10, 5, 10)); // Add more padding
-        
-        JLabel quantityLabel = new JLabel(String.valueOf(currentQty));
-        quantityLabel.setFont(new Font("SansSerif", Font.BOLD, 18)); // Larger font
-        quantityLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        quantityLabel.setPreferredSize(new Dimension(50, 40)); // Larger label
-        quantityLabel.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(Color.LIGHT_GRAY),
-            BorderFactory.createEmptyBorder(5, 0, 5, 0)
-        ));
-        
-        JButton incrementBtn = new JButton("+");
-        incrementBtn.setFont(new Font("SansSerif", Font.BOLD, 18)); // Larger font
-        incrementBtn.setFocusPainted(false);
-        incrementBtn.setPreferredSize(new Dimension(45, 40)); // Larger button
-        incrementBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        incrementBtn.setMargin(new Insets(5, 10, 5, 10)); // Add more padding
-        
-        controlsPanel.add(decrementBtn);
-        controlsPanel.add(quantityLabel);
-        controlsPanel.add(incrementBtn);
-        
-        // Button Actions
-        decrementBtn.addActionListener(e -> {
-            CartManager.removeItem(itemName);
-            updateProductCard(card, itemName, itemPrice);
-            updateCartCount();
-            // Update all cart counters after any cart change
-            if (parent != null) parent.updateAllCartCounters();
+        return all;
+    }
+
+    private JPanel createNoResultsPanel(String query) {
+        JPanel noResultsPanel = new JPanel();
+        noResultsPanel.setLayout(new BoxLayout(noResultsPanel, BoxLayout.Y_AXIS));
+        noResultsPanel.setBackground(BACKGROUND_COLOR);
+        noResultsPanel.setBorder(BorderFactory.createEmptyBorder(50, 0, 0, 0));
+        
+        JLabel iconLabel = new JLabel("🔎");
+        iconLabel.setFont(new Font("SansSerif", Font.PLAIN, 48));
+        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        
+        JLabel messageLabel = new JLabel("No products found for \"" + query + "\"");
+        messageLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        
+        JButton clearButton = new JButton("Clear Search");
+        clearButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        clearButton.addActionListener(e -> {
+            searchBar.setText("Search products...");
+            searchBar.setForeground(Color.GRAY);
+            showProducts(currentCategory);
         });
         
-        incrementBtn.addActionListener(e -> {
-            CartManager.addItem(itemName, itemPrice);
-            updateProductCard(card, itemName, itemPrice);
-            updateCartCount();
-            // Update all cart counters after any cart change
-            if (parent != null) parent.updateAllCartCounters();
-            showAddToCartFeedback(itemName);
+        noResultsPanel.add(iconLabel);
+        noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        noResultsPanel.add(messageLabel);
+        noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        noResultsPanel.add(clearButton);
+
+        return noResultsPanel;
+    }
+
+    /**
+     * Grid models per category, built once from the product maps
+     */
+    private List<ProductGrid.Product> getGridProducts(String category) {
+        return gridProducts.computeIfAbsent(category, key -> {
+            List<ProductGrid.Product> result = new ArrayList<>();
+            List<String> items = products.get(category);
+            List<Double> itemPrices = prices.get(category);
+            if (items != null && itemPrices != null && items.size() == itemPrices.size()) {
+                for (int i = 0; i < items.size(); i++) {
+                    result.add(new ProductGrid.Product(items.get(i), itemPrices.get(i), items.get(i).toLowerCase().replaceAll("[^a-z0-9]", "") + ".jpg"));
+                }
+            }
+            return result;
         });
-        
-        // Assemble the card
-        infoPanel.add(nameLabel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        infoPanel.add(priceLabel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        infoPanel.add(controlsPanel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        
-        card.add(imagePanel, BorderLayout.NORTH);
-        card.add(infoPanel, BorderLayout.CENTER);
-        
-        return card;
     }
+
     
     /**
      * Shows a non-modal, auto-disappearing notification when an item is added to cart
@@ -562,32 +431,15 @@ public class BreadsPage extends JPanel implements KioskPage {
         new javax.swing.Timer(1500, e -> notification.dispose()).start();
     }
 
-    private void updateProductCard(JPanel card, String itemName, double itemPrice) {
-        Container parent = card.getParent();
-        int index = -1;
-        for (int i = 0; i < parent.getComponentCount(); i++) {
-            if (parent.getComponent(i) == card) {
-                index = i;
-                break;
-            }
-        }
-        if (index >= 0) {
-            parent.remove(card);
-            parent.add(createProductCard(itemName, itemPrice), index);
-            parent.revalidate();
-            parent.repaint();
-        }
-        // After updating, also update all cart counters
-        if (parent instanceof BreadsPage && this.parent != null) {
-            this.parent.updateAllCartCounters();
-        }
-    }
 
     @Override
     public void updateCartCount() {
         int count = CartManager.getTotalItems();
         cartCountLabel.setText(String.valueOf(count));
         cartCountLabel.setVisible(count > 0);
+        if (productGrid != null) {
+            productGrid.refreshQuantities();
+        }
     }
 
     private ImageIcon loadImage(String imageName) {
@@ -2,17 +2,18 @@ package kiosk.view;
 
 import java.awt.*;
 import java.net.URL;
-import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import javax.swing.*;
 import javax.swing.border.*;
 
-import kiosk.model.InventoryItem;
+import kiosk.controller.CartController;
+import kiosk.model.Promotion;
 import kiosk.util.CartManager;
 import kiosk.util.HelpRequestManager;
 import kiosk.util.InventoryManager;
+import kiosk.util.Money;
 
 import java.awt.image.BufferedImage;
 
@@ -46,21 +47,12 @@ public class CartPage extends JPanel implements KioskPage {
     private JTextField promoCodeField;
     private boolean isDiscountApplied = false;
     private boolean isPromoApplied = false;
-    private double promoDiscountPercent = 0.0;
     private String appliedPromoCode = "";
     private JDialog verificationDialog;
     private KioskMainPage parent;
     private JLabel cartCountLabel;
     private JLabel itemCountLabel;
     private JLabel savingsLabel;
-    
-    // Promo codes (in production, this would be from a database)
-    private final Map<String, Double> PROMO_CODES = new HashMap<String, Double>() {{
-        put("SWEET10", 0.10);    // 10% off
-        put("BAKERY15", 0.15);   // 15% off
-        put("TASTY5", 0.05);     // 5% off
-        put("PASTRY20", 0.20);   // 20% off
-    }};
 
     public CartPage(KioskMainPage parent) {
         this.parent = parent;
@@ -224,7 +216,6 @@ public class CartPage extends JPanel implements KioskPage {
         // Reset discount states
         isDiscountApplied = false;
         isPromoApplied = false;
-        promoDiscountPercent = 0.0;
         appliedPromoCode = "";
         
         // Reset promo code field if it exists
@@ -346,7 +337,8 @@ public class CartPage extends JPanel implements KioskPage {
         priceTagLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
         priceTagLabel.setForeground(TEXT_LIGHT);
         
-        JLabel priceLabel = new JLabel("₱" + new DecimalFormat("0.00").format(price));
+        long priceCents = Money.ofPesos(price);
+        JLabel priceLabel = new JLabel(Money.format(priceCents));
         priceLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
         priceLabel.setForeground(BakeryTheme.TEXT_DARK);
         
@@ -362,7 +354,7 @@ public class CartPage extends JPanel implements KioskPage {
         subtotalTagLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
         subtotalTagLabel.setForeground(TEXT_LIGHT);
         
-        JLabel subtotalLabel = new JLabel("₱" + new DecimalFormat("0.00").format(price * quantity));
+        JLabel subtotalLabel = new JLabel(Money.format(Money.times(priceCents, quantity)));
         subtotalLabel.setFont(new Font("Segoe UI", Font.BOLD, 20));
         subtotalLabel.setForeground(BakeryTheme.ACCENT_COLOR);
         
@@ -416,7 +408,7 @@ public class CartPage extends JPanel implements KioskPage {
             CartManager.removeItem(itemName);
             int newQty = CartManager.getItemQuantity(itemName);
             quantityLabel.setText(String.valueOf(newQty));
-            subtotalLabel.setText("₱" + new DecimalFormat("0.00").format(price * newQty));
+            subtotalLabel.setText(Money.format(Money.times(priceCents, newQty)));
             decrementBtn.setEnabled(newQty > 0);
             updateCartSummary();
             updateCartCount();
@@ -444,7 +436,7 @@ public class CartPage extends JPanel implements KioskPage {
             CartManager.addItem(itemName, price);
             int newQty = CartManager.getItemQuantity(itemName);
             quantityLabel.setText(String.valueOf(newQty));
-            subtotalLabel.setText("₱" + new DecimalFormat("0.00").format(price * newQty));
+            subtotalLabel.setText(Money.format(Money.times(priceCents, newQty)));
             decrementBtn.setEnabled(true);
             updateCartSummary();
             updateCartCount();
@@ -655,16 +647,19 @@ public class CartPage extends JPanel implements KioskPage {
             return;
         }
         
-        if (PROMO_CODES.containsKey(code)) {
-            if (!appliedPromoCode.equals(code)) {
-                promoDiscountPercent = PROMO_CODES.get(code);
+        if (isPromoApplied) {
+            // One code at a time from this field; swap by removing the current one first
+            CartManager.removePromoCode(appliedPromoCode);
+        }
+        
+        switch (CartManager.applyPromoCode(code)) {
+            case APPLIED:
                 appliedPromoCode = code;
                 isPromoApplied = true;
                 updateCartSummary();
                 
                 JOptionPane.showMessageDialog(this,
-                    String.format("Promo code '%s' applied!\n%.0f%% discount on your order.",
-                        code, promoDiscountPercent * 100),
+                    String.format("Promo code '%s' applied!", code),
                     "Promo Applied",
                     JOptionPane.INFORMATION_MESSAGE);
                     
@@ -673,17 +668,48 @@ public class CartPage extends JPanel implements KioskPage {
                 promoBtn.setBackground(REMOVE_COLOR);
                 promoBtn.removeActionListener(promoBtn.getActionListeners()[0]);
                 promoBtn.addActionListener(e -> removePromoCode());
-            } else {
+                break;
+            case ALREADY_APPLIED:
                 JOptionPane.showMessageDialog(this,
                     "This promo code is already applied",
                     "Already Applied",
                     JOptionPane.INFORMATION_MESSAGE);
-            }
-        } else {
-            JOptionPane.showMessageDialog(this,
-                "Invalid promo code. Please try again.",
-                "Invalid Code",
-                JOptionPane.ERROR_MESSAGE);
+                break;
+            case NOT_RUNNING:
+                JOptionPane.showMessageDialog(this,
+                    "This promo code is not valid at this time.",
+                    "Promo Not Available",
+                    JOptionPane.WARNING_MESSAGE);
+                break;
+            case LIMIT_REACHED:
+                JOptionPane.showMessageDialog(this,
+                    "This promo code has reached its usage limit.",
+                    "Promo Not Available",
+                    JOptionPane.WARNING_MESSAGE);
+                break;
+            case CUSTOMER_REQUIRED:
+                // Limited per customer: walk-ins can't use it, so ask who is redeeming
+                String email = JOptionPane.showInputDialog(this,
+                    "This promo is limited per customer.\nEnter the email of your bakeshop account:",
+                    "Customer Account Required",
+                    JOptionPane.QUESTION_MESSAGE);
+                if (email == null || email.trim().isEmpty()) {
+                    break;
+                }
+                if (CartManager.attachCustomer(email)) {
+                    applyPromoCode();
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "No active account was found for that email.",
+                        "Customer Not Found",
+                        JOptionPane.WARNING_MESSAGE);
+                }
+                break;
+            default:
+                JOptionPane.showMessageDialog(this,
+                    "Invalid promo code. Please try again.",
+                    "Invalid Code",
+                    JOptionPane.ERROR_MESSAGE);
         }
     }
     
@@ -691,8 +717,8 @@ public class CartPage extends JPanel implements KioskPage {
      * Removes applied promo code
      */
     private void removePromoCode() {
+        CartManager.removePromoCode(appliedPromoCode);
         isPromoApplied = false;
-        promoDiscountPercent = 0.0;
         appliedPromoCode = "";
         promoCodeField.setText("");
         promoCodeField.setEnabled(true);
@@ -715,35 +741,33 @@ public class CartPage extends JPanel implements KioskPage {
             BorderFactory.createEmptyBorder(10, 15, 10, 15)
         ));
 
-        DecimalFormat df = new DecimalFormat("0.00");
-        double subtotal = CartManager.getTotalPrice();
-        double seniorDiscount = CartManager.getDiscountAmount();
-        double promoDiscount = subtotal * promoDiscountPercent;
-        double totalDiscount = seniorDiscount + promoDiscount;
-        double taxableAmount = subtotal - totalDiscount;
-        double tax = taxableAmount * 0.12; // 12% VAT
-        double total = taxableAmount + tax;
+        CartController cart = CartController.getInstance();
+        long subtotal = cart.getTotalPriceCents();
+        long seniorDiscount = cart.getSeniorDiscountCents();
+        long totalDiscount = cart.getDiscountAmountCents();
+        long tax = cart.getVatCents(); // 12% VAT
+        long total = cart.getTotalCents() + tax;
 
         // Subtotal row
-        costPanel.add(createCostRow("Subtotal:", "₱" + df.format(subtotal), false));
+        costPanel.add(createCostRow("Subtotal:", Money.format(subtotal), false));
         costPanel.add(Box.createRigidArea(new Dimension(0, 6)));
 
-        // Promo discount row (if applied)
-        if (isPromoApplied && promoDiscount > 0) {
-            costPanel.add(createCostRow("Promo Discount (" + appliedPromoCode + "):", 
-                "-₱" + df.format(promoDiscount), true, SUCCESS_COLOR));
+        // One row per promotion in effect (entered codes and automatic promotions)
+        for (Map.Entry<Promotion, Long> promo : cart.getAppliedPromotions().entrySet()) {
+            costPanel.add(createCostRow(promo.getKey() + ":", 
+                Money.format(-promo.getValue()), true, SUCCESS_COLOR));
             costPanel.add(Box.createRigidArea(new Dimension(0, 6)));
         }
 
         // Senior/PWD discount row (if applied)
         if (seniorDiscount > 0) {
             costPanel.add(createCostRow("Senior/PWD Discount (20%):", 
-                "-₱" + df.format(seniorDiscount), true, SUCCESS_COLOR));
+                Money.format(-seniorDiscount), true, SUCCESS_COLOR));
             costPanel.add(Box.createRigidArea(new Dimension(0, 6)));
         }
 
         // Tax row
-        costPanel.add(createCostRow("VAT (12%):", "₱" + df.format(tax), false));
+        costPanel.add(createCostRow("VAT (12%):", Money.format(tax), false));
         costPanel.add(Box.createRigidArea(new Dimension(0, 8)));
 
         // Separator
@@ -755,7 +779,7 @@ public class CartPage extends JPanel implements KioskPage {
 
         // Total savings row (if any discounts)
         if (totalDiscount > 0) {
-            savingsLabel = new JLabel("You're saving ₱" + df.format(totalDiscount) + "!");
+            savingsLabel = new JLabel("You're saving " + Money.format(totalDiscount) + "!");
             savingsLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
             savingsLabel.setForeground(SUCCESS_COLOR);
             savingsLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -764,7 +788,7 @@ public class CartPage extends JPanel implements KioskPage {
         }
 
         // Total row
-        totalLabel = new JLabel("₱" + df.format(total));
+        totalLabel = new JLabel(Money.format(total));
         totalLabel.setFont(new Font("Segoe UI", Font.BOLD, 20));
         totalLabel.setForeground(TEXT_COLOR);
         JPanel totalPanel = createCostRow("Total:", totalLabel.getText(), true);
@@ -841,13 +865,6 @@ public class CartPage extends JPanel implements KioskPage {
     }
 
     private void updateCartSummary() {
-        double subtotal = CartManager.getTotalPrice();
-        double seniorDiscount = CartManager.getDiscountAmount();
-        double promoDiscount = subtotal * promoDiscountPercent;
-        double totalDiscount = seniorDiscount + promoDiscount;
-        double taxableAmount = subtotal - totalDiscount;
-        double tax = taxableAmount * 0.12; // 12% VAT
-
         // Update the summary panel by recreating the cost breakdown
         if (summaryPanel != null) {
             // Remove old cost breakdown panel and recreate it
@@ -1443,14 +1460,14 @@ public class CartPage extends JPanel implements KioskPage {
         if (option == JOptionPane.OK_OPTION) { // Process the purchase
             CartManager.saveReceipt();
 
+            updateInventoryStock();
+
             // Clear the cart after updating inventory
             clearCart();
 
             // Update cart count label to 0 after clearing cart
             updateCartCount();
 
-            updateInventoryStock();
-
             // Also update cart counters in other pages if needed
             if (parent != null) {
                 parent.updateAllCartCounters();
@@ -1473,22 +1490,10 @@ public class CartPage extends JPanel implements KioskPage {
         // Get all items from the cart
         Map<String, Integer> cartItems = CartManager.getCartItems();
 
-        // Update inventory stock for each item
+        // Record a sale movement per item; the ledger writes them in the background
+        // (items not kept in inventory are skipped)
         for (Map.Entry<String, Integer> entry : cartItems.entrySet()) {
-            String itemName = entry.getKey();
-            int quantity = entry.getValue();
-
-            // Get the item from inventory
-            InventoryItem item = InventoryManager.getInstance().getItemByName(itemName);
-
-            if (item != null) {
-                // Reduce stock quantity
-                int currentStock = item.getStockQuantity();
-                item.setStockQuantity(currentStock - quantity);
-
-                // Update the item in inventory
-                InventoryManager.getInstance().updateItem(item);
-            }
+            InventoryManager.getInstance().recordSale(entry.getKey(), entry.getValue());
         }
     }
 
@@ -1778,6 +1783,7 @@ public class CartPage extends JPanel implements KioskPage {
      * Call this when switching to the cart page.
      */
     public void refreshCart() {
+        CartManager.refreshPromotions(); // time-window promotions may have started or ended
         itemsPanel.removeAll();
         populateCartItems();
         itemsPanel.revalidate();
@@ -1,6 +1,12 @@
 package kiosk.view;
 
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
 import javax.swing.*;
 import javax.swing.border.*;
 
@@ -10,11 +16,29 @@ import kiosk.util.HelpRequestManager;
 public class KioskMainPage extends JFrame {
     private CardLayout cardLayout;
     private JPanel contentPanel;
-    private CakesPage cakesPage;
-    private PastriesPage pastriesPage;
-    private BreadsPage breadsPage;
-    private BeveragesPage beveragesPage;
-    private CartPage cartPage;
+    
+    // Pages are built the first time they are shown (or by the background pre-warm)
+    private static final String MAIN_CARD = "main";
+    private static final String CAKES_CARD = "cakes";
+    private static final String PASTRIES_CARD = "pastries";
+    private static final String BREADS_CARD = "breads";
+    private static final String BEVERAGES_CARD = "beverages";
+    private static final String CART_CARD = "cart";
+    private final Map<String, Function<KioskMainPage, JPanel>> pageFactories = new LinkedHashMap<>();
+    private final Map<String, JPanel> pages = new HashMap<>();
+    private final Map<String, Long> pageLastUsed = new HashMap<>();
+    private String currentCard = MAIN_CARD;
+    
+    // Pre-warm starts shortly after the window opens and builds one page per tick
+    private static final int PREWARM_INITIAL_DELAY_MS = 1500;
+    private static final int PREWARM_INTERVAL_MS = 300;
+    // Idle pages are released when the heap is small or under pressure
+    private static final int EVICTION_CHECK_INTERVAL_MS = 60_000;
+    private static final long PAGE_IDLE_EVICT_MS = 5 * 60_000;
+    private static final long LOW_MEMORY_MAX_HEAP_BYTES = 512L * 1024 * 1024;
+    private static final double HIGH_HEAP_USAGE_RATIO = 0.75;
+    private Timer prewarmTimer;
+    private Timer evictionTimer;
     
     // Modern Bakery Theme Colors - imported from BakeryTheme
     private final Color PRIMARY_COLOR = BakeryTheme.PRIMARY_COLOR;
@@ -48,54 +72,155 @@ public class KioskMainPage extends JFrame {
 
         // Create main panel first
         JPanel mainPanel = createMainPanel();
-        contentPanel.add(mainPanel, "main");
-
-        // Initialize all pages with this instance
-        cartPage = new CartPage(this);
-        cakesPage = new CakesPage(this);
-        pastriesPage = new PastriesPage(this);
-        breadsPage = new BreadsPage(this);
-        beveragesPage = new BeveragesPage(this);
+        contentPanel.add(mainPanel, MAIN_CARD);
 
-        // Add pages to card layout
-        contentPanel.add(cakesPage, "cakes");
-        contentPanel.add(pastriesPage, "pastries");
-        contentPanel.add(breadsPage, "breads");
-        contentPanel.add(beveragesPage, "beverages");
-        contentPanel.add(cartPage, "cart");
+        // Register page factories; each page queries inventory and builds its
+        // product cards, so nothing is constructed until it is needed
+        pageFactories.put(CAKES_CARD, CakesPage::new);
+        pageFactories.put(PASTRIES_CARD, PastriesPage::new);
+        pageFactories.put(BREADS_CARD, BreadsPage::new);
+        pageFactories.put(BEVERAGES_CARD, BeveragesPage::new);
+        pageFactories.put(CART_CARD, CartPage::new);
 
         showMainPage();
         
+        // Pre-warm the remaining pages once the main page is on screen
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                startPageLifecycleTimers();
+            }
+        });
+        
         if (showImmediately) {
             setVisible(true);
         }
     }
     
     public void showMainPage() {
-        cardLayout.show(contentPanel, "main");
+        showCard(MAIN_CARD);
     }
 
     public void showCakesPage() {
-        cardLayout.show(contentPanel, "cakes");
+        showCard(CAKES_CARD);
     }
 
     public void showPastriesPage() {
-        cardLayout.show(contentPanel, "pastries");
+        showCard(PASTRIES_CARD);
     }
 
     public void showBreadsPage() {
-        cardLayout.show(contentPanel, "breads");
+        showCard(BREADS_CARD);
     }
 
     public void showBeveragesPage() {
-        cardLayout.show(contentPanel, "beverages");
+        showCard(BEVERAGES_CARD);
     }
 
     public void showCartPage() {
-        cardLayout.show(contentPanel, "cart");
+        CartPage cartPage = (CartPage) ensurePage(CART_CARD);
+        showCard(CART_CARD);
         cartPage.refreshCart(); // Ensure cart is up-to-date when shown
         updateAllCartCounters();
     }
+    
+    /**
+     * Show a card, building its page first if it hasn't been materialized yet
+     */
+    private void showCard(String card) {
+        if (!MAIN_CARD.equals(card)) {
+            ensurePage(card);
+        }
+        currentCard = card;
+        pageLastUsed.put(card, System.currentTimeMillis());
+        cardLayout.show(contentPanel, card);
+    }
+    
+    /**
+     * Returns the page for a card, creating and adding it to the card layout on first use
+     */
+    private JPanel ensurePage(String card) {
+        JPanel page = pages.get(card);
+        if (page == null) {
+            long start = System.currentTimeMillis();
+            page = pageFactories.get(card).apply(this);
+            pages.put(card, page);
+            pageLastUsed.put(card, start);
+            contentPanel.add(page, card);
+            System.out.println("Page '" + card + "' built in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return page;
+    }
+    
+    /**
+     * Start the background pre-warm and the idle-eviction check
+     */
+    private void startPageLifecycleTimers() {
+        if (prewarmTimer == null) {
+            prewarmTimer = new Timer(PREWARM_INTERVAL_MS, e -> prewarmNextPage());
+            prewarmTimer.setInitialDelay(PREWARM_INITIAL_DELAY_MS);
+            prewarmTimer.start();
+        }
+        if (evictionTimer == null) {
+            evictionTimer = new Timer(EVICTION_CHECK_INTERVAL_MS, e -> evictIdlePages());
+            evictionTimer.start();
+        }
+    }
+    
+    /**
+     * Build one missing page per tick so the EDT stays responsive between pages
+     */
+    private void prewarmNextPage() {
+        for (String card : pageFactories.keySet()) {
+            if (!pages.containsKey(card)) {
+                ensurePage(card);
+                return;
+            }
+        }
+        prewarmTimer.stop();
+    }
+    
+    /**
+     * On low-memory hosts, release pages that haven't been shown for a while.
+     * The visible page and the cart page (which holds checkout state) are kept.
+     */
+    private void evictIdlePages() {
+        if (!isLowMemoryHost()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        pages.entrySet().removeIf(entry -> {
+            String card = entry.getKey();
+            if (card.equals(currentCard) || card.equals(CART_CARD)) {
+                return false;
+            }
+            if (now - pageLastUsed.getOrDefault(card, now) < PAGE_IDLE_EVICT_MS) {
+                return false;
+            }
+            contentPanel.remove(entry.getValue());
+            pageLastUsed.remove(card);
+            System.out.println("Page '" + card + "' released after being idle");
+            return true;
+        });
+    }
+    
+    private boolean isLowMemoryHost() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return runtime.maxMemory() <= LOW_MEMORY_MAX_HEAP_BYTES
+            || (double) used / runtime.maxMemory() >= HIGH_HEAP_USAGE_RATIO;
+    }
+    
+    @Override
+    public void dispose() {
+        if (prewarmTimer != null) {
+            prewarmTimer.stop();
+        }
+        if (evictionTimer != null) {
+            evictionTimer.stop();
+        }
+        super.dispose();
+    }
 
     /**
      * Sets up the keyboard shortcut (Ctrl+Shift+A) to open the admin panel
@@ -123,11 +248,10 @@ public class KioskMainPage extends JFrame {
 
     // Call this after checkout or cart update to sync all cart counters
     public void updateAllCartCounters() {
-        cartPage.updateCartCount();
-        if (cakesPage != null) cakesPage.updateCartCount();
-        if (pastriesPage != null) pastriesPage.updateCartCount();
-        if (breadsPage != null) breadsPage.updateCartCount();
-        if (beveragesPage != null) beveragesPage.updateCartCount();
+        // Only materialized pages need updating; new pages read the cart when built
+        for (JPanel page : pages.values()) {
+            ((KioskPage) page).updateCartCount();
+        }
         // If you have a cart count label in main page, update it here as well
         // Example: updateMainCartCount();
     }
@@ -3,9 +3,9 @@ package kiosk.view;
 import java.awt.*;
 import java.awt.event.*;
 import java.net.URL;
-import java.text.DecimalFormat;
 import java.util.*;
 import java.util.List;
+import java.util.function.Predicate;
 import javax.swing.*;
 import javax.swing.border.*;
 
@@ -16,14 +16,17 @@ import kiosk.model.InventoryItem;
 
 public class PastriesPage extends JPanel implements KioskPage {
     private KioskMainPage parent;
-    private JPanel productPanel;
+    private ProductGrid productGrid;
+    private final Map<String, List<ProductGrid.Product>> gridProducts = new HashMap<>();
     private InventoryDAO inventoryDAO;
     private JButton croissantsButton, muffinsButton, donutsButton, tartsButton;
     private JButton activeButton;
     private JLabel cartCountLabel;
     private JTextField searchBar;
+    private ProductSearchController searchController;
+    // Grid holds every page product, filtered by the current query
+    private boolean searching;
     private String currentCategory = "Pastries & Desserts";
-    private final DecimalFormat priceFormat = new DecimalFormat("0.00");
 
     // Modern Bakery Theme Colors
     private final Color PRIMARY_COLOR = BakeryTheme.PRIMARY_COLOR;
@@ -146,26 +149,14 @@ public class PastriesPage extends JPanel implements KioskPage {
             }
         });
 
-        searchBar.addActionListener(e -> {
-            String query = searchBar.getText().trim().toLowerCase();
-            if (query.isEmpty() || query.equals("search products...")) {
-                showProducts(currentCategory);
-            } else {
-                filterProducts(query);
-            }
-        });
+        searchController = new ProductSearchController(searchBar, "Search products...",
+            this::showSearchResults, () -> showProducts(currentCategory));
+        searchBar.addActionListener(e -> searchController.searchNow());
 
         JButton searchButton = createIconButton("🔍", "Search");
         searchButton.setFont(new Font("SansSerif", Font.BOLD, 20));
         searchButton.setPreferredSize(new Dimension(50, 45));
-        searchButton.addActionListener(e -> {
-            String query = searchBar.getText().trim().toLowerCase();
-            if (query.isEmpty() || query.equals("search products...")) {
-                showProducts(currentCategory);
-            } else {
-                filterProducts(query);
-            }
-        });
+        searchButton.addActionListener(e -> searchController.searchNow());
 
         leftPanel.add(searchBar);
         leftPanel.add(searchButton);
@@ -258,11 +249,26 @@ public class PastriesPage extends JPanel implements KioskPage {
     }
 
     private JScrollPane createProductScrollPane() {
-        productPanel = new JPanel();
-        productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-        productPanel.setBackground(BACKGROUND_COLOR);
+        productGrid = new ProductGrid(this::loadImage, new ProductGrid.CardActionListener() {
+            @Override
+            public void onIncrement(ProductGrid.Product product) {
+                CartManager.addItem(product.getName(), product.getPrice());
+                updateCartCount();
+                // Update all cart counters after any cart change
+                if (parent != null) parent.updateAllCartCounters();
+                showAddToCartFeedback(product.getName());
+            }
 
-        JScrollPane scrollPane = new JScrollPane(productPanel);
+            @Override
+            public void onDecrement(ProductGrid.Product product) {
+                CartManager.removeItem(product.getName());
+                updateCartCount();
+                // Update all cart counters after any cart change
+                if (parent != null) parent.updateAllCartCounters();
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(productGrid);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
@@ -306,8 +312,7 @@ public class PastriesPage extends JPanel implements KioskPage {
     }
 
     private void showProducts(String category) {
-        productPanel.removeAll();
-
+        searching = false;
         String actualCategory = null;
         for (String key : products.keySet()) {
             if (key.equalsIgnoreCase(category)) {
@@ -320,211 +325,80 @@ public class PastriesPage extends JPanel implements KioskPage {
             JLabel noProductsLabel = new JLabel("No products found for category: " + category);
             noProductsLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
             noProductsLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            productPanel.setLayout(new BorderLayout());
-            productPanel.add(noProductsLabel, BorderLayout.CENTER);
+            productGrid.setEmptyComponent(noProductsLabel);
+            productGrid.setProducts(Collections.emptyList());
         } else {
-            productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-
-            java.util.List<String> items = products.get(actualCategory);
-            java.util.List<Double> itemPrices = prices.get(actualCategory);
-
-            if (items != null && itemPrices != null && items.size() == itemPrices.size()) {
-                for (int i = 0; i < items.size(); i++) {
-                    String itemName = items.get(i);
-                    double itemPrice = itemPrices.get(i);
-
-                    JPanel productCard = createProductCard(itemName, itemPrice);
-                    productPanel.add(productCard);
-                }
-            }
+            productGrid.setEmptyComponent(null);
+            productGrid.setProducts(getGridProducts(actualCategory));
         }
-
-        productPanel.revalidate();
-        productPanel.repaint();
     }
 
-    private void filterProducts(String query) {
-        productPanel.removeAll();
-
-        int resultCount = 0;
-
-        for (String category : products.keySet()) {
-            java.util.List<String> items = products.get(category);
-            java.util.List<Double> itemPrices = prices.get(category);
-
-            for (int i = 0; i < items.size(); i++) {
-                String itemName = items.get(i);
-
-                if (itemName.toLowerCase().contains(query)) {
-                    double itemPrice = itemPrices.get(i);
-                    JPanel productCard = createProductCard(itemName, itemPrice);
-                    productPanel.add(productCard);
-                    resultCount++;
-                }
-            }
+    private void showSearchResults(String query, Predicate<ProductGrid.Product> matches) {
+        if (!searching) {
+            productGrid.setProducts(getAllGridProducts());
+            searching = true;
         }
-
-        if (resultCount == 0) {
-            JPanel noResultsPanel = new JPanel();
-            noResultsPanel.setLayout(new BoxLayout(noResultsPanel, BoxLayout.Y_AXIS));
-            noResultsPanel.setBackground(BACKGROUND_COLOR);
-            noResultsPanel.setBorder(BorderFactory.createEmptyBorder(50, 0, 0, 0));
-
-            JLabel iconLabel = new JLabel("🔎");
-            iconLabel.setFont(new Font("SansSerif", Font.PLAIN, 48));
-            iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-            JLabel messageLabel = new JLabel("No products found for \"" + query + "\"");
-            messageLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
-            messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-            JButton clearButton = new JButton("Clear Search");
-            clearButton.setAlignmentX(Component.CENTER_ALIGNMENT);
-            clearButton.addActionListener(e -> {
-                searchBar.setText("Search products...");
-                searchBar.setForeground(Color.GRAY);
-                showProducts(currentCategory);
-            });
-
-            noResultsPanel.add(iconLabel);
-            noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
-            noResultsPanel.add(messageLabel);
-            noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
-            noResultsPanel.add(clearButton);
-
-            productPanel.setLayout(new BorderLayout());
-            productPanel.add(noResultsPanel, BorderLayout.CENTER);
-        } else {
-            productPanel.setLayout(new GridLayout(0, 3, 20, 20));
-        }        productPanel.revalidate();
-        productPanel.repaint();
+        // Only displayed when nothing matches
+        productGrid.setEmptyComponent(createNoResultsPanel(query));
+        productGrid.setFilter(matches);
     }
-    
-    private JPanel createProductCard(String itemName, double itemPrice) {
-        JPanel card = new JPanel();
-        card.setLayout(new BorderLayout(0, 0));
-        card.setBackground(CARD_COLOR);
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(BakeryTheme.BORDER_LIGHT, 1, true),
-            BorderFactory.createEmptyBorder(0, 0, 10, 0)
-        ));
-
-        JPanel imagePanel = new JPanel(new BorderLayout());
-        imagePanel.setBackground(CARD_COLOR);
-        imagePanel.setPreferredSize(new Dimension(150, 150));
-
-        JLabel imageLabel = new JLabel();
-        imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
-        // Try to load an image for the product
-        String itemCategory = getCategoryForItem(itemName);
-        String imageFileName = getImageFileName(itemName, itemCategory);
-        ImageIcon icon = loadImage(imageFileName);
-
-        if (icon != null) {
-            // Resize the image to fit nicely in the product card
-            Image img = icon.getImage();
-            Image resizedImg = img.getScaledInstance(120, 120, Image.SCALE_SMOOTH);
-            imageLabel.setIcon(new ImageIcon(resizedImg));
-        } else {
-            // If no image available, use placeholder
-            JPanel placeholder = new JPanel(new BorderLayout());
-            placeholder.setPreferredSize(new Dimension(120, 120));
-            placeholder.setBackground(BakeryTheme.SOFT_CREAM);
-            placeholder.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-
-            JLabel placeholderText = new JLabel(itemName.substring(0, 1).toUpperCase());
-            placeholderText.setFont(new Font("SansSerif", Font.BOLD, 48));
-            placeholderText.setForeground(BakeryTheme.TEXT_LIGHT);
-            placeholderText.setHorizontalAlignment(SwingConstants.CENTER);
-
-            placeholder.add(placeholderText, BorderLayout.CENTER);
-            imageLabel.setLayout(new BorderLayout());
-            imageLabel.add(placeholder, BorderLayout.CENTER);
+    private List<ProductGrid.Product> getAllGridProducts() {
+        List<ProductGrid.Product> all = new ArrayList<>();
+        for (String category : products.keySet()) {
+            all.addAll(getGridProducts(category));
         }
+        return all;
+    }
 
-        imagePanel.add(imageLabel, BorderLayout.CENTER);
-
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(CARD_COLOR);
-        infoPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 0, 10));
-
-        // Center the item name and price
-        JLabel nameLabel = new JLabel(itemName);
-        nameLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        nameLabel.setForeground(TEXT_DARK);
-        nameLabel.setHorizontalAlignment(SwingConstants.CENTER);
-
-        JLabel priceLabel = new JLabel("₱" + priceFormat.format(itemPrice));
-        priceLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        priceLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        priceLabel.setForeground(TEXT_DARK);
-        priceLabel.setHorizontalAlignment(SwingConstants.CENTER);
-
-        // Add to cart controls
-        JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
-        controlsPanel.setBackground(CARD_COLOR);
-        controlsPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        int currentQuantity = CartManager.getItemQuantity(itemName);
-
-        JButton decrementBtn = new JButton("-");
-        decrementBtn.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        decrementBtn.setPreferredSize(new Dimension(40, 35));
-        decrementBtn.setFocusPainted(false);
-        decrementBtn.setBackground(BakeryTheme.BORDER_MEDIUM);
-        decrementBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        decrementBtn.setEnabled(currentQuantity > 0);
-
-        JLabel quantityLabel = new JLabel(String.valueOf(currentQuantity));
-        quantityLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        quantityLabel.setPreferredSize(new Dimension(30, 35));
-        quantityLabel.setHorizontalAlignment(SwingConstants.CENTER);
-
-        JButton incrementBtn = new JButton("+");
-        incrementBtn.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        incrementBtn.setPreferredSize(new Dimension(40, 35));
-        incrementBtn.setFocusPainted(false);
-        incrementBtn.setBackground(ACCENT_COLOR);
-        incrementBtn.setForeground(Color.WHITE);
-        incrementBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
-
-        controlsPanel.add(decrementBtn);
-        controlsPanel.add(quantityLabel);
-        controlsPanel.add(incrementBtn);
-        
-        decrementBtn.addActionListener(e -> {
-            CartManager.removeItem(itemName);
-            updateProductCard(card, itemName, itemPrice);
-            updateCartCount();
-            // Update all cart counters after any cart change
-            if (parent != null) parent.updateAllCartCounters();
-        });
-
-        incrementBtn.addActionListener(e -> {
-            CartManager.addItem(itemName, itemPrice);
-            updateProductCard(card, itemName, itemPrice);
-            updateCartCount();
-            // Update all cart counters after any cart change
-            if (parent != null) parent.updateAllCartCounters();
-            showAddToCartFeedback(itemName);
+    private JPanel createNoResultsPanel(String query) {
+        JPanel noResultsPanel = new JPanel();
+        noResultsPanel.setLayout(new BoxLayout(noResultsPanel, BoxLayout.Y_AXIS));
+        noResultsPanel.setBackground(BACKGROUND_COLOR);
+        noResultsPanel.setBorder(BorderFactory.createEmptyBorder(50, 0, 0, 0));
+
+        JLabel iconLabel = new JLabel("🔎");
+        iconLabel.setFont(new Font("SansSerif", Font.PLAIN, 48));
+        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JLabel messageLabel = new JLabel("No products found for \"" + query + "\"");
+        messageLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        messageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        JButton clearButton = new JButton("Clear Search");
+        clearButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        clearButton.addActionListener(e -> {
+            searchBar.setText("Search products...");
+            searchBar.setForeground(Color.GRAY);
+            showProducts(currentCategory);
         });
 
-        infoPanel.add(Box.createVerticalGlue());
-        infoPanel.add(nameLabel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-        infoPanel.add(priceLabel);
-        infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        infoPanel.add(controlsPanel);
-        infoPanel.add(Box.createVerticalGlue());
+        noResultsPanel.add(iconLabel);
+        noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        noResultsPanel.add(messageLabel);
+        noResultsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        noResultsPanel.add(clearButton);
 
-        card.add(imagePanel, BorderLayout.NORTH);
-        card.add(infoPanel, BorderLayout.CENTER);
+        return noResultsPanel;
+    }
 
-        return card;
+    /**
+     * Grid models per category, built once from the product maps
+     */
+    private List<ProductGrid.Product> getGridProducts(String category) {
+        return gridProducts.computeIfAbsent(category, key -> {
+            List<ProductGrid.Product> result = new ArrayList<>();
+            List<String> items = products.get(category);
+            List<Double> itemPrices = prices.get(category);
+            if (items != null && itemPrices != null && items.size() == itemPrices.size()) {
+                for (int i = 0; i < items.size(); i++) {
+                    result.add(new ProductGrid.Product(items.get(i), itemPrices.get(i), images.get(category).get(i)));
+                }
+            }
+            return result;
+        });
     }
+    
 
     private void showAddToCartFeedback(String itemName) {
         JWindow notification = new JWindow(SwingUtilities.getWindowAncestor(this));
@@ -556,26 +430,6 @@ public class PastriesPage extends JPanel implements KioskPage {
         new javax.swing.Timer(1500, e -> notification.dispose()).start();
     }
 
-    private void updateProductCard(JPanel card, String itemName, double itemPrice) {
-        Container parent = card.getParent();
-        int index = -1;
-        for (int i = 0; i < parent.getComponentCount(); i++) {
-            if (parent.getComponent(i) == card) {
-                index = i;
-                break;
-            }
-        }
-        if (index >= 0) {
-            parent.remove(card);
-            parent.add(createProductCard(itemName, itemPrice), index);
-            parent.revalidate();
-            parent.repaint();
-        }
-        // After updating, also update all cart counters
-        if (parent instanceof PastriesPage && this.parent != null) {
-            this.parent.updateAllCartCounters();
-        }
-    }
 
     @Override
     public void backToMain() {
@@ -591,6 +445,9 @@ public class PastriesPage extends JPanel implements KioskPage {
             cartCountLabel.setText(String.valueOf(count));
             cartCountLabel.setVisible(count > 0);
         }
+        if (productGrid != null) {
+            productGrid.refreshQuantities();
+        }
     }
 
     private void highlightButton(JButton button) {
@@ -763,62 +620,7 @@ public class PastriesPage extends JPanel implements KioskPage {
         helpDialog.setVisible(true);
     }
 
-    private String getCategoryForItem(String itemName) {
-        for (String category : products.keySet()) {
-            java.util.List<String> items = products.get(category);
-            if (items != null && items.contains(itemName)) {
-                return category;
-            }
-        }
-        return null;
-    }
 
-    private String getImageFileName(String itemName, String category) {
-        // Convert the item name to a simple filename (lowercase, no spaces or special chars)
-        String baseFileName = itemName.toLowerCase().replaceAll("[^a-z0-9]", "") + ".png";
-        
-        // Special cases for specific products
-        if (category != null) {
-            switch (category) {
-                case "Cigarettes":
-                    if (itemName.contains("Marlboro")) {
-                        return "marlboro.png";
-                    } else if (itemName.contains("Winston")) {
-                        return "winston.png";
-                    } else if (itemName.contains("Camel")) {
-                        return "camel.png";
-                    } else if (itemName.contains("Lucky Strike")) {
-                        return "luckystrike.png";
-                    } else {
-                        return "cigarette.png"; // Generic cigarette image
-                    }
-                case "Beer & Alcohol":
-                    if (itemName.contains("San Miguel")) {
-                        return "sanmiguel.png";
-                    } else if (itemName.contains("Red Horse")) {
-                        return "redhorse.png";
-                    } else if (itemName.contains("Heineken")) {
-                        return "heineken.png";
-                    } else if (itemName.contains("Corona")) {
-                        return "corona.png";
-                    } else if (itemName.contains("Vodka")) {
-                        return "vodka.png";
-                    } else if (itemName.contains("Whiskey") || itemName.contains("Daniel") || itemName.contains("Walker")) {
-                        return "whiskey.png";
-                    } else if (itemName.contains("Rhum") || itemName.contains("Rum")) {
-                        return "rum.png";
-                    } else if (itemName.contains("Cuervo")) {
-                        return "tequila.png";
-                    } else {
-                        return "alcohol.png"; // Generic alcohol image
-                    }
-                default:
-                    return baseFileName;
-            }
-        }
-        
-        return baseFileName;
-    }
 }
 
 
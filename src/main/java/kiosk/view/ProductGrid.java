@@ -0,0 +1,462 @@
+package kiosk.view;
+
+import java.awt.*;
+import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+
+import kiosk.util.CartManager;
+
+/**
+ * Shared product grid used by the kiosk category pages.
+ * The grid is virtualized: only rows inside the scroll viewport (plus one row of
+ * slack above and below) are bound to a card. Cards are pooled and rebound to
+ * other products instead of being rebuilt, and filtering is applied to the model
+ * so a search never tears down and recreates widgets.
+ */
+public class ProductGrid extends JPanel implements Scrollable {
+
+    /**
+     * A product shown in the grid
+     */
+    public static class Product {
+        private final String name;
+        private final double price;
+        private final String imageFile;
+
+        public Product(String name, double price, String imageFile) {
+            this.name = name;
+            this.price = price;
+            this.imageFile = imageFile;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public String getImageFile() {
+            return imageFile;
+        }
+    }
+
+    /**
+     * Receives the +/- taps from product cards
+     */
+    public interface CardActionListener {
+        void onIncrement(Product product);
+        void onDecrement(Product product);
+    }
+
+    private static final int COLUMNS = 3;
+    private static final int GAP = 20;
+    private static final int IMAGE_SIZE = 120;
+    private static final int SCROLL_UNIT = 16;
+
+    private final Function<String, ImageIcon> imageResolver;
+    private final CardActionListener actionListener;
+    private final DecimalFormat priceFormat = new DecimalFormat("0.00");
+
+    private List<Product> products = Collections.emptyList();
+    private List<Product> shownProducts = Collections.emptyList();
+    private Predicate<Product> filter;
+
+    // Card pool: every card ever created stays a child; unbound cards are hidden
+    private final Deque<ProductCard> freeCards = new ArrayDeque<>();
+    private final Map<Integer, ProductCard> boundCards = new HashMap<>();
+    // Scaled icons by image file (null value = no image available)
+    private final Map<String, ImageIcon> scaledImages = new HashMap<>();
+
+    private JComponent emptyComponent;
+    private int cellHeight = -1;
+    private ChangeListener viewportListener;
+
+    /**
+     * @param imageResolver loads the unscaled image for an image file name (may return null,
+     *                      or be null to always use the letter placeholder)
+     * @param actionListener receives +/- taps
+     */
+    public ProductGrid(Function<String, ImageIcon> imageResolver, CardActionListener actionListener) {
+        this.imageResolver = imageResolver;
+        this.actionListener = actionListener;
+        setLayout(null);
+        setBackground(BakeryTheme.BACKGROUND_COLOR);
+    }
+
+    /**
+     * Replace the product list (clears any filter) and scroll back to the top
+     */
+    public void setProducts(List<Product> products) {
+        this.products = products != null ? new ArrayList<>(products) : Collections.emptyList();
+        this.filter = null;
+        modelChanged();
+    }
+
+    /**
+     * Show only products matching the filter; null shows everything
+     */
+    public void setFilter(Predicate<Product> filter) {
+        this.filter = filter;
+        modelChanged();
+    }
+
+    public List<Product> getProducts() {
+        return Collections.unmodifiableList(products);
+    }
+
+    /**
+     * Component displayed (filling the viewport) when no product is shown
+     */
+    public void setEmptyComponent(JComponent component) {
+        if (emptyComponent != null) {
+            remove(emptyComponent);
+        }
+        emptyComponent = component;
+        if (component != null) {
+            component.setVisible(false);
+            add(component);
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Re-read cart quantities for the cards currently on screen
+     */
+    public void refreshQuantities() {
+        for (ProductCard card : boundCards.values()) {
+            card.updateQuantity();
+        }
+    }
+
+    private void modelChanged() {
+        if (filter == null) {
+            shownProducts = products;
+        } else {
+            List<Product> matches = new ArrayList<>();
+            for (Product product : products) {
+                if (filter.test(product)) {
+                    matches.add(product);
+                }
+            }
+            shownProducts = matches;
+        }
+        releaseAllCards();
+        revalidate();
+        repaint();
+        scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+    }
+
+    private void releaseAllCards() {
+        for (ProductCard card : boundCards.values()) {
+            card.setVisible(false);
+            freeCards.push(card);
+        }
+        boundCards.clear();
+    }
+
+    /**
+     * Take a card from the pool, preferring one still bound to the product so
+     * incremental result updates (e.g. a narrowing search) skip the rebind
+     */
+    private ProductCard acquireCard(Product product) {
+        Iterator<ProductCard> it = freeCards.iterator();
+        while (it.hasNext()) {
+            ProductCard card = it.next();
+            if (card.product == product) {
+                it.remove();
+                return card;
+            }
+        }
+        ProductCard card = freeCards.poll();
+        if (card == null) {
+            card = new ProductCard();
+            add(card);
+        }
+        return card;
+    }
+
+    private int getCellHeight() {
+        if (cellHeight < 0) {
+            ProductCard prototype = acquireCard(null);
+            prototype.bind(new Product("Prototype", 0, null));
+            cellHeight = prototype.getPreferredSize().height;
+            prototype.setVisible(false);
+            freeCards.push(prototype);
+        }
+        return cellHeight;
+    }
+
+    private int rowCount() {
+        return (shownProducts.size() + COLUMNS - 1) / COLUMNS;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport && viewportListener == null) {
+            // Scrolling only changes which rows are bound, so lay out without revalidating ancestors
+            viewportListener = e -> {
+                doLayout();
+                repaint();
+            };
+            ((JViewport) getParent()).addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (getParent() instanceof JViewport && viewportListener != null) {
+            ((JViewport) getParent()).removeChangeListener(viewportListener);
+            viewportListener = null;
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void doLayout() {
+        if (shownProducts.isEmpty()) {
+            releaseAllCards();
+            if (emptyComponent != null) {
+                Rectangle visible = getVisibleRect();
+                int height = Math.max(visible.height, emptyComponent.getPreferredSize().height);
+                emptyComponent.setBounds(0, 0, getWidth(), height);
+                emptyComponent.setVisible(true);
+            }
+            return;
+        }
+        if (emptyComponent != null) {
+            emptyComponent.setVisible(false);
+        }
+
+        int cellWidth = Math.max(1, (getWidth() - GAP * (COLUMNS - 1)) / COLUMNS);
+        int rowHeight = getCellHeight() + GAP;
+        Rectangle visible = getVisibleRect();
+        if (visible.isEmpty()) {
+            visible = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        int firstRow = Math.max(0, visible.y / rowHeight - 1);
+        int lastRow = Math.min(rowCount() - 1, (visible.y + visible.height) / rowHeight + 1);
+        int first = firstRow * COLUMNS;
+        int last = Math.min(shownProducts.size() - 1, (lastRow + 1) * COLUMNS - 1);
+
+        // Return cards that scrolled out of range to the pool
+        Iterator<Map.Entry<Integer, ProductCard>> it = boundCards.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, ProductCard> entry = it.next();
+            if (entry.getKey() < first || entry.getKey() > last) {
+                entry.getValue().setVisible(false);
+                freeCards.push(entry.getValue());
+                it.remove();
+            }
+        }
+
+        for (int i = first; i <= last; i++) {
+            Product product = shownProducts.get(i);
+            ProductCard card = boundCards.get(i);
+            if (card == null) {
+                card = acquireCard(product);
+                boundCards.put(i, card);
+            }
+            if (card.product != product) {
+                card.bind(product);
+            }
+            int row = i / COLUMNS;
+            int col = i % COLUMNS;
+            card.setBounds(col * (cellWidth + GAP), row * rowHeight, cellWidth, getCellHeight());
+            card.setVisible(true);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (shownProducts.isEmpty()) {
+            return emptyComponent != null ? emptyComponent.getPreferredSize() : new Dimension(0, 0);
+        }
+        int rows = rowCount();
+        int width = COLUMNS * (IMAGE_SIZE + 2 * GAP) + (COLUMNS - 1) * GAP;
+        return new Dimension(width, rows * getCellHeight() + (rows - 1) * GAP);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return SCROLL_UNIT;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // Let the empty-state component fill the viewport
+        return shownProducts.isEmpty();
+    }
+
+    private ImageIcon scaledImage(String imageFile) {
+        if (imageFile == null || imageResolver == null) {
+            return null;
+        }
+        if (!scaledImages.containsKey(imageFile)) {
+            ImageIcon icon = imageResolver.apply(imageFile);
+            ImageIcon scaled = null;
+            if (icon != null) {
+                scaled = new ImageIcon(icon.getImage().getScaledInstance(IMAGE_SIZE, IMAGE_SIZE, Image.SCALE_SMOOTH));
+            }
+            scaledImages.put(imageFile, scaled);
+        }
+        return scaledImages.get(imageFile);
+    }
+
+    /**
+     * A reusable product card; components and listeners are created once and rebound
+     */
+    private class ProductCard extends JPanel {
+        private Product product;
+        private final JLabel imageLabel = new JLabel();
+        private final JPanel placeholder = new JPanel(new BorderLayout());
+        private final JLabel placeholderText = new JLabel();
+        private final JLabel nameLabel = new JLabel();
+        private final JLabel priceLabel = new JLabel();
+        private final JLabel quantityLabel = new JLabel("0");
+        private final JButton decrementBtn = new JButton("-");
+        private final JButton incrementBtn = new JButton("+");
+
+        ProductCard() {
+            Color cardColor = BakeryTheme.CARD_COLOR;
+            setLayout(new BorderLayout(0, 0));
+            setBackground(cardColor);
+            setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(220, 220, 220), 1, true),
+                BorderFactory.createEmptyBorder(0, 0, 10, 0)
+            ));
+
+            JPanel imagePanel = new JPanel(new BorderLayout());
+            imagePanel.setBackground(cardColor);
+            imagePanel.setPreferredSize(new Dimension(150, 150));
+
+            imageLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            imageLabel.setLayout(new GridBagLayout());
+
+            placeholder.setPreferredSize(new Dimension(IMAGE_SIZE, IMAGE_SIZE));
+            placeholder.setBackground(new Color(240, 240, 240));
+            placeholder.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
+            placeholderText.setFont(new Font("SansSerif", Font.BOLD, 48));
+            placeholderText.setForeground(new Color(150, 150, 150));
+            placeholderText.setHorizontalAlignment(SwingConstants.CENTER);
+            placeholder.add(placeholderText, BorderLayout.CENTER);
+            imageLabel.add(placeholder);
+
+            imagePanel.add(imageLabel, BorderLayout.CENTER);
+
+            JPanel infoPanel = new JPanel();
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            infoPanel.setBackground(cardColor);
+            infoPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 0, 10));
+
+            nameLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+            nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            nameLabel.setForeground(BakeryTheme.TEXT_DARK);
+
+            priceLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+            priceLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            priceLabel.setForeground(BakeryTheme.TEXT_DARK);
+
+            JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+            controlsPanel.setBackground(cardColor);
+
+            styleControlButton(decrementBtn);
+            styleControlButton(incrementBtn);
+
+            quantityLabel.setFont(new Font("SansSerif", Font.BOLD, 18));
+            quantityLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            quantityLabel.setPreferredSize(new Dimension(50, 40));
+            quantityLabel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.LIGHT_GRAY),
+                BorderFactory.createEmptyBorder(5, 0, 5, 0)
+            ));
+
+            controlsPanel.add(decrementBtn);
+            controlsPanel.add(quantityLabel);
+            controlsPanel.add(incrementBtn);
+
+            // Listeners are installed once and act on whatever product is bound
+            decrementBtn.addActionListener(e -> {
+                if (product != null && actionListener != null) {
+                    actionListener.onDecrement(product);
+                    updateQuantity();
+                }
+            });
+            incrementBtn.addActionListener(e -> {
+                if (product != null && actionListener != null) {
+                    actionListener.onIncrement(product);
+                    updateQuantity();
+                }
+            });
+
+            infoPanel.add(nameLabel);
+            infoPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+            infoPanel.add(priceLabel);
+            infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+            infoPanel.add(controlsPanel);
+            infoPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+
+            add(imagePanel, BorderLayout.NORTH);
+            add(infoPanel, BorderLayout.CENTER);
+        }
+
+        private void styleControlButton(JButton button) {
+            button.setFont(new Font("SansSerif", Font.BOLD, 18));
+            button.setFocusPainted(false);
+            button.setPreferredSize(new Dimension(45, 40));
+            button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+            button.setMargin(new Insets(5, 10, 5, 10));
+        }
+
+        void bind(Product product) {
+            this.product = product;
+            nameLabel.setText(product.getName());
+            priceLabel.setText("₱" + priceFormat.format(product.getPrice()));
+
+            ImageIcon icon = scaledImage(product.getImageFile());
+            imageLabel.setIcon(icon);
+            placeholder.setVisible(icon == null);
+            if (icon == null) {
+                String name = product.getName();
+                placeholderText.setText(name.isEmpty() ? "" : name.substring(0, 1).toUpperCase());
+            }
+            updateQuantity();
+        }
+
+        void updateQuantity() {
+            int quantity = product != null ? CartManager.getItemQuantity(product.getName()) : 0;
+            quantityLabel.setText(String.valueOf(quantity));
+            decrementBtn.setEnabled(quantity > 0);
+        }
+    }
+}
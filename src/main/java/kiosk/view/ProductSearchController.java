@@ -0,0 +1,131 @@
+package kiosk.view;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import kiosk.model.InventoryItem;
+import kiosk.util.ProductCatalogSearch;
+
+/**
+ * Search-as-you-type for a category page.
+ * Keystrokes are debounced, the query runs against the shared catalog index
+ * ({@link ProductCatalogSearch}) on a background worker, and only the latest
+ * query's results reach the page, as a filter over the products it shows.
+ */
+public class ProductSearchController {
+
+    /**
+     * Receives results on the EDT, as a filter for {@link ProductGrid#setFilter}
+     */
+    public interface ResultHandler {
+        void showResults(String query, Predicate<ProductGrid.Product> matches);
+    }
+
+    private static final int DEBOUNCE_MS = 200;
+
+    private final JTextField field;
+    private final String placeholder;
+    private final ResultHandler resultHandler;
+    private final Runnable clearHandler;
+    private final Timer debounceTimer;
+
+    private SwingWorker<List<InventoryItem>, Void> worker;
+    private int generation;
+    private String appliedQuery = "";
+
+    /**
+     * @param field search field to watch
+     * @param placeholder hint text shown in the field when empty (treated as no query)
+     * @param resultHandler shows the matches for a query
+     * @param clearHandler restores the normal listing when the query is cleared
+     */
+    public ProductSearchController(JTextField field, String placeholder,
+                                   ResultHandler resultHandler, Runnable clearHandler) {
+        this.field = field;
+        this.placeholder = placeholder;
+        this.resultHandler = resultHandler;
+        this.clearHandler = clearHandler;
+
+        debounceTimer = new Timer(DEBOUNCE_MS, e -> search(false));
+        debounceTimer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                debounceTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                debounceTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                debounceTimer.restart();
+            }
+        });
+    }
+
+    /**
+     * Run the current query immediately (Enter key or search button)
+     */
+    public void searchNow() {
+        search(true);
+    }
+
+    private void search(boolean force) {
+        debounceTimer.stop();
+        String query = currentQuery();
+        if (!force && query.equalsIgnoreCase(appliedQuery)) {
+            return;
+        }
+        appliedQuery = query;
+
+        if (worker != null) {
+            worker.cancel(false);
+        }
+        int searchGeneration = ++generation;
+
+        if (query.isEmpty()) {
+            clearHandler.run();
+            return;
+        }
+
+        worker = new SwingWorker<>() {
+            @Override
+            protected List<InventoryItem> doInBackground() {
+                return ProductCatalogSearch.search(query);
+            }
+
+            @Override
+            protected void done() {
+                // A newer query was issued while this one ran
+                if (isCancelled() || searchGeneration != generation) {
+                    return;
+                }
+                try {
+                    Set<String> names = new HashSet<>();
+                    for (InventoryItem item : get()) {
+                        names.add(item.getName());
+                    }
+                    resultHandler.showResults(query, product -> names.contains(product.getName()));
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Product search failed: " + e.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private String currentQuery() {
+        String text = field.getText().trim();
+        return text.equals(placeholder) ? "" : text;
+    }
+}
@@ -3,7 +3,12 @@ package kiosk.view.admin;
 import kiosk.controller.CustomOrderController;
 import kiosk.model.CustomOrder;
 import kiosk.model.CustomOrder.*;
+import kiosk.model.OrderEvent;
+import kiosk.model.OrderSummary;
 import kiosk.database.dao.CustomOrderDAO;
+import kiosk.database.dao.KeysetCursor;
+import kiosk.database.dao.KeysetPage;
+import kiosk.util.Money;
 import kiosk.view.BakeryTheme;
 
 import javax.swing.*;
@@ -11,7 +16,10 @@ import javax.swing.table.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Admin Panel for Managing Custom Orders
@@ -26,7 +34,6 @@ public class CustomOrdersAdminPanel extends JPanel {
     private final Color CARD_BG = BakeryTheme.CARD_COLOR;
     
     private CustomOrderController controller;
-    private CustomOrderDAO orderDAO;
     private JTable ordersTable;
     private DefaultTableModel tableModel;
     
@@ -40,12 +47,19 @@ public class CustomOrdersAdminPanel extends JPanel {
     private JLabel alertBadge;
     private JPanel alertsPanel;
     private Timer alertCheckTimer;
-    private int lastOrderCount = 0;
+    private long lastEventId = 0;
+    private long lastAlertUpdate = 0;
     private static final int ALERT_CHECK_INTERVAL = 15000; // 15 seconds
+    private static final long ALERT_REFRESH_INTERVAL = 5 * 60 * 1000; // overdue orders, even when nothing happens
+    private static final int EVENT_BATCH_SIZE = 200;
+    
+    // Orders table is filled a page at a time from order summaries
+    private static final int PAGE_SIZE = 50;
+    private KeysetCursor nextCursor;
+    private JButton loadMoreButton;
     
     public CustomOrdersAdminPanel(CustomOrderController controller) {
         this.controller = controller;
-        this.orderDAO = new CustomOrderDAO();
         setLayout(new BorderLayout(10, 10));
         setBackground(Color.WHITE);
         setBorder(new EmptyBorder(20, 20, 20, 20));
@@ -210,7 +224,7 @@ public class CustomOrdersAdminPanel extends JPanel {
         ordersTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
         ordersTable.getTableHeader().setBackground(PRIMARY_COLOR);
         ordersTable.getTableHeader().setForeground(Color.WHITE);
-        ordersTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        ordersTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         ordersTable.setGridColor(new Color(230, 230, 230));
         
         // Custom renderer for status column
@@ -219,7 +233,19 @@ public class CustomOrdersAdminPanel extends JPanel {
         JScrollPane scrollPane = new JScrollPane(ordersTable);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
         
+        loadMoreButton = new JButton("Load More Orders");
+        loadMoreButton.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        loadMoreButton.setFocusPainted(false);
+        loadMoreButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        loadMoreButton.setEnabled(false);
+        loadMoreButton.addActionListener(e -> loadNextPage());
+        
+        JPanel loadMorePanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        loadMorePanel.setOpaque(false);
+        loadMorePanel.add(loadMoreButton);
+        
         panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(loadMorePanel, BorderLayout.SOUTH);
         
         return panel;
     }
@@ -237,6 +263,9 @@ public class CustomOrdersAdminPanel extends JPanel {
         JButton inProgressButton = createActionButton("👨‍🍳 In Progress", new Color(33, 150, 243));
         inProgressButton.addActionListener(e -> updateStatus(OrderStatus.IN_PRODUCTION));
         
+        JButton readyButton = createActionButton("📦 Mark Ready", WARNING_COLOR);
+        readyButton.addActionListener(e -> updateStatus(OrderStatus.READY));
+        
         JButton completeButton = createActionButton("🎉 Mark Complete", new Color(76, 175, 80));
         completeButton.addActionListener(e -> updateStatus(OrderStatus.COMPLETED));
         
@@ -246,6 +275,7 @@ public class CustomOrdersAdminPanel extends JPanel {
         panel.add(viewButton);
         panel.add(confirmButton);
         panel.add(inProgressButton);
+        panel.add(readyButton);
         panel.add(completeButton);
         panel.add(cancelButton);
         
@@ -275,33 +305,44 @@ public class CustomOrdersAdminPanel extends JPanel {
     }
     
     private void loadData() {
-        // Load statistics
+        loadStatistics();
+        
+        // Load first page of orders
+        tableModel.setRowCount(0);
+        nextCursor = null;
+        loadNextPage();
+    }
+    
+    private void loadStatistics() {
         CustomOrderDAO.OrderStatistics stats = controller.getOrderStatistics();
         totalOrdersLabel.setText(String.valueOf(stats.totalOrders));
         pendingOrdersLabel.setText(String.valueOf(stats.pendingOrders));
         confirmedOrdersLabel.setText(String.valueOf(stats.confirmedOrders));
-        totalRevenueLabel.setText(String.format("₱%.2f", stats.totalRevenue));
-        
-        // Load orders
-        tableModel.setRowCount(0);
-        List<CustomOrder> orders = controller.getAllOrders();
+        totalRevenueLabel.setText(Money.format(stats.totalRevenue));
+    }
+    
+    private void loadNextPage() {
+        KeysetPage<OrderSummary> page = controller.listOrderSummaries(nextCursor, PAGE_SIZE);
         
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm a");
         
-        for (CustomOrder order : orders) {
+        for (OrderSummary order : page.getItems()) {
             Object[] row = {
-                order.getOrderNumber(),
-                order.getCustomerId(),
-                order.getProductName(),
-                order.getServings(),
-                String.format("₱%.2f", order.getTotalAmount()),
-                String.format("₱%.2f", order.getDepositPaid()),
-                String.format("₱%.2f", order.getBalanceDue()),
-                order.getOrderStatus().toString(),
-                order.getPickupDatetime().format(dateFormatter)
+                order.orderNumber(),
+                order.customerId(),
+                order.productName(),
+                order.servings(),
+                Money.format(order.totalAmount()),
+                Money.format(order.depositPaid()),
+                Money.format(order.balanceDue()),
+                order.orderStatus().toString(),
+                order.pickupDatetime().format(dateFormatter)
             };
             tableModel.addRow(row);
         }
+        
+        nextCursor = page.getNextCursor();
+        loadMoreButton.setEnabled(page.hasMore());
     }
     
     private void viewOrderDetails() {
@@ -352,7 +393,7 @@ public class CustomOrdersAdminPanel extends JPanel {
         
         for (kiosk.model.OrderAddOn addon : order.getAddons()) {
             panel.add(createDetailRow("  • " + addon.getCategoryName(), 
-                                     addon.getAddonName() + " (+" + String.format("₱%.2f", addon.getTotalAddonPrice()) + ")"));
+                                     addon.getAddonName() + " (+" + Money.format(addon.getTotalAddonPriceCents()) + ")"));
         }
         
         panel.add(Box.createVerticalStrut(15));
@@ -360,14 +401,14 @@ public class CustomOrdersAdminPanel extends JPanel {
         panel.add(Box.createVerticalStrut(15));
         
         // Pricing
-        panel.add(createDetailRow("Base Price:", String.format("₱%.2f", order.getBasePrice())));
-        panel.add(createDetailRow("Add-ons Total:", String.format("₱%.2f", order.getAddonsTotal())));
-        panel.add(createDetailRow("Subtotal:", String.format("₱%.2f", order.getSubtotal())));
-        panel.add(createDetailRow("Tax (12%):", String.format("₱%.2f", order.getTaxAmount())));
-        panel.add(createDetailRow("Delivery Fee:", String.format("₱%.2f", order.getDeliveryFee())));
-        panel.add(createDetailRow("Total Amount:", String.format("₱%.2f", order.getTotalAmount())));
-        panel.add(createDetailRow("Deposit Paid:", String.format("₱%.2f", order.getDepositPaid())));
-        panel.add(createDetailRow("Balance Due:", String.format("₱%.2f", order.getBalanceDue())));
+        panel.add(createDetailRow("Base Price:", Money.format(order.getBasePriceCents())));
+        panel.add(createDetailRow("Add-ons Total:", Money.format(order.getAddonsTotalCents())));
+        panel.add(createDetailRow("Subtotal:", Money.format(order.getSubtotalCents())));
+        panel.add(createDetailRow("Tax (12%):", Money.format(order.getTaxAmountCents())));
+        panel.add(createDetailRow("Delivery Fee:", Money.format(order.getDeliveryFeeCents())));
+        panel.add(createDetailRow("Total Amount:", Money.format(order.getTotalAmountCents())));
+        panel.add(createDetailRow("Deposit Paid:", Money.format(order.getDepositPaidCents())));
+        panel.add(createDetailRow("Balance Due:", Money.format(order.getBalanceDueCents())));
         
         JScrollPane scrollPane = new JScrollPane(panel);
         dialog.add(scrollPane);
@@ -395,37 +436,81 @@ public class CustomOrdersAdminPanel extends JPanel {
         updateStatus(OrderStatus.CONFIRMED);
     }
     
+    /**
+     * Move every selected order to a new status, updating the rows in place
+     */
     private void updateStatus(OrderStatus newStatus) {
-        int selectedRow = ordersTable.getSelectedRow();
-        if (selectedRow == -1) {
+        int[] selectedRows = ordersTable.getSelectedRows();
+        if (selectedRows.length == 0) {
             JOptionPane.showMessageDialog(this, 
-                "Please select an order", 
+                "Please select one or more orders", 
                 "No Selection", 
                 JOptionPane.WARNING_MESSAGE);
             return;
         }
         
-        String orderNumber = (String) tableModel.getValueAt(selectedRow, 0);
+        Map<String, Integer> rowsByOrder = selectedOrders();
         
-        boolean success = controller.updateOrderStatus(orderNumber, newStatus);
+        CustomOrderDAO.BulkStatusResult result =
+            controller.updateOrderStatuses(new ArrayList<>(rowsByOrder.keySet()), newStatus);
+        showStatusResult(rowsByOrder, newStatus, result);
+    }
+    
+    /**
+     * Orders selected in the table, by order number, with their model rows
+     */
+    private Map<String, Integer> selectedOrders() {
+        Map<String, Integer> rowsByOrder = new LinkedHashMap<>();
+        for (int viewRow : ordersTable.getSelectedRows()) {
+            int row = ordersTable.convertRowIndexToModel(viewRow);
+            rowsByOrder.put((String) tableModel.getValueAt(row, 0), row);
+        }
+        return rowsByOrder;
+    }
+    
+    /**
+     * Show a bulk status change in the rows it updated and report what was rejected
+     */
+    private void showStatusResult(Map<String, Integer> rowsByOrder, OrderStatus newStatus,
+                                  CustomOrderDAO.BulkStatusResult result) {
+        for (String orderNumber : result.updated) {
+            tableModel.setValueAt(newStatus.toString(), rowsByOrder.get(orderNumber), 7);
+        }
+        if (!result.updated.isEmpty()) {
+            loadStatistics();
+            updateAlerts();
+        }
         
-        if (success) {
+        if (result.rejected.isEmpty()) {
             JOptionPane.showMessageDialog(this, 
-                "Order status updated to " + newStatus, 
+                result.updated.size() == 1 ? "Order status updated to " + newStatus
+                                           : result.updated.size() + " orders updated to " + newStatus, 
                 "Success", 
                 JOptionPane.INFORMATION_MESSAGE);
-            loadData();
         } else {
+            StringBuilder message = new StringBuilder();
+            message.append(result.updated.size()).append(" of ").append(rowsByOrder.size())
+                   .append(" orders updated to ").append(newStatus).append(".\n\nNot updated:\n");
+            int shown = 0;
+            for (Map.Entry<String, String> entry : result.rejected.entrySet()) {
+                if (shown++ == 10) {
+                    message.append("  ... and ").append(result.rejected.size() - 10).append(" more\n");
+                    break;
+                }
+                message.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+            }
             JOptionPane.showMessageDialog(this, 
-                "Failed to update order status", 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
+                message.toString(), 
+                result.updated.isEmpty() ? "Error" : "Partially Updated", 
+                result.updated.isEmpty() ? JOptionPane.ERROR_MESSAGE : JOptionPane.WARNING_MESSAGE);
         }
     }
     
+    /**
+     * Cancel every selected order, updating the rows in place
+     */
     private void cancelOrder() {
-        int selectedRow = ordersTable.getSelectedRow();
-        if (selectedRow == -1) {
+        if (ordersTable.getSelectedRowCount() == 0) {
             JOptionPane.showMessageDialog(this, 
                 "Please select an order to cancel", 
                 "No Selection", 
@@ -439,16 +524,10 @@ public class CustomOrdersAdminPanel extends JPanel {
             JOptionPane.QUESTION_MESSAGE);
         
         if (reason != null && !reason.trim().isEmpty()) {
-            String orderNumber = (String) tableModel.getValueAt(selectedRow, 0);
-            boolean success = controller.cancelOrder(orderNumber, reason, "Admin");
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                    "Order cancelled successfully", 
-                    "Success", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                loadData();
-            }
+            Map<String, Integer> rowsByOrder = selectedOrders();
+            CustomOrderDAO.BulkStatusResult result =
+                controller.cancelOrders(new ArrayList<>(rowsByOrder.keySet()), reason, "Admin");
+            showStatusResult(rowsByOrder, OrderStatus.CANCELLED, result);
         }
     }
     
@@ -490,8 +569,8 @@ public class CustomOrdersAdminPanel extends JPanel {
      * Start monitoring for new orders and alerts
      */
     private void startAlertMonitoring() {
-        // Initialize order count
-        lastOrderCount = orderDAO.getAllOrders().size();
+        // Follow the order event log from its current end
+        lastEventId = controller.getLatestOrderEventId();
         
         // Create timer for periodic checks
         alertCheckTimer = new Timer(ALERT_CHECK_INTERVAL, e -> checkForNewOrders());
@@ -502,21 +581,46 @@ public class CustomOrdersAdminPanel extends JPanel {
     }
     
     /**
-     * Check for new orders
+     * Check the order event log for new orders and status changes from any station
      */
     private void checkForNewOrders() {
-        List<CustomOrder> allOrders = orderDAO.getAllOrders();
-        int currentCount = allOrders.size();
+        List<OrderEvent> events = controller.getOrderEventsAfter(lastEventId, EVENT_BATCH_SIZE);
+        int newOrdersCount = 0;
+        boolean statusChanged = false;
+        
+        for (OrderEvent event : events) {
+            lastEventId = event.getId();
+            if (event.getType() == OrderEvent.Type.CREATED) {
+                newOrdersCount++;
+            } else if (event.changesStatus()) {
+                showStatus(event.getOrderNumber(), event.getToStatus());
+                statusChanged = true;
+            }
+        }
         
-        if (currentCount > lastOrderCount) {
+        if (newOrdersCount > 0) {
             // New order(s) detected
-            int newOrdersCount = currentCount - lastOrderCount;
             showNewOrderNotification(newOrdersCount);
             loadData();
+        } else if (statusChanged) {
+            loadStatistics();
         }
         
-        lastOrderCount = currentCount;
-        updateAlerts();
+        if (!events.isEmpty() || System.currentTimeMillis() - lastAlertUpdate > ALERT_REFRESH_INTERVAL) {
+            updateAlerts();
+        }
+    }
+    
+    /**
+     * Update an order's status in the table if it is among the loaded rows
+     */
+    private void showStatus(String orderNumber, OrderStatus status) {
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            if (orderNumber.equals(tableModel.getValueAt(row, 0))) {
+                tableModel.setValueAt(status.toString(), row, 7);
+                return;
+            }
+        }
     }
     
     /**
@@ -544,17 +648,18 @@ public class CustomOrdersAdminPanel extends JPanel {
     private void updateAlerts() {
         if (alertsPanel == null) return;
         
+        lastAlertUpdate = System.currentTimeMillis();
         alertsPanel.removeAll();
         
-        List<CustomOrder> allOrders = orderDAO.getAllOrders();
-        List<CustomOrder> pendingOrders = new java.util.ArrayList<>();
-        List<CustomOrder> overdueOrders = new java.util.ArrayList<>();
-        List<CustomOrder> readyOrders = new java.util.ArrayList<>();
+        // Only pending, ready and overdue orders are read
+        List<OrderSummary> pendingOrders = new ArrayList<>();
+        List<OrderSummary> overdueOrders = new ArrayList<>();
+        List<OrderSummary> readyOrders = new ArrayList<>();
         
         java.time.LocalDateTime now = java.time.LocalDateTime.now();
         
-        for (CustomOrder order : allOrders) {
-            OrderStatus status = order.getOrderStatus();
+        for (OrderSummary order : controller.getAlertOrders()) {
+            OrderStatus status = order.orderStatus();
             
             // Pending orders (need confirmation)
             if (status == OrderStatus.PENDING) {
@@ -562,13 +667,13 @@ public class CustomOrdersAdminPanel extends JPanel {
             }
             
             // Orders ready for pickup/delivery
-            if (status == OrderStatus.READY || status == OrderStatus.COMPLETED) {
+            if (status == OrderStatus.READY) {
                 readyOrders.add(order);
             }
             
             // Overdue orders (pickup time passed but not completed)
-            if (order.getPickupDatetime() != null && 
-                order.getPickupDatetime().isBefore(now) &&
+            if (order.pickupDatetime() != null && 
+                order.pickupDatetime().isBefore(now) &&
                 (status == OrderStatus.PENDING || status == OrderStatus.CONFIRMED || 
                  status == OrderStatus.IN_PRODUCTION)) {
                 overdueOrders.add(order);
@@ -602,7 +707,7 @@ public class CustomOrdersAdminPanel extends JPanel {
                 alertsPanel.add(sectionLabel);
                 alertsPanel.add(Box.createVerticalStrut(10));
                 
-                for (CustomOrder order : pendingOrders) {
+                for (OrderSummary order : pendingOrders) {
                     alertsPanel.add(createAlertCard(order, "Needs confirmation"));
                     alertsPanel.add(Box.createVerticalStrut(8));
                 }
@@ -619,7 +724,7 @@ public class CustomOrdersAdminPanel extends JPanel {
                 alertsPanel.add(sectionLabel);
                 alertsPanel.add(Box.createVerticalStrut(10));
                 
-                for (CustomOrder order : overdueOrders) {
+                for (OrderSummary order : overdueOrders) {
                     alertsPanel.add(createAlertCard(order, "Overdue!"));
                     alertsPanel.add(Box.createVerticalStrut(8));
                 }
@@ -636,7 +741,7 @@ public class CustomOrdersAdminPanel extends JPanel {
                 alertsPanel.add(sectionLabel);
                 alertsPanel.add(Box.createVerticalStrut(10));
                 
-                for (CustomOrder order : readyOrders.subList(0, Math.min(3, readyOrders.size()))) {
+                for (OrderSummary order : readyOrders.subList(0, Math.min(3, readyOrders.size()))) {
                     alertsPanel.add(createAlertCard(order, "Ready"));
                     alertsPanel.add(Box.createVerticalStrut(8));
                 }
@@ -658,7 +763,7 @@ public class CustomOrdersAdminPanel extends JPanel {
     /**
      * Create an alert card for an order
      */
-    private JPanel createAlertCard(CustomOrder order, String alertType) {
+    private JPanel createAlertCard(OrderSummary order, String alertType) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
         card.setAlignmentX(Component.LEFT_ALIGNMENT);
@@ -692,12 +797,12 @@ public class CustomOrdersAdminPanel extends JPanel {
             new EmptyBorder(10, 10, 10, 10)
         ));
         
-        JLabel orderNumLabel = new JLabel("Order: " + order.getOrderNumber());
+        JLabel orderNumLabel = new JLabel("Order: " + order.orderNumber());
         orderNumLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
         orderNumLabel.setForeground(Color.BLACK);
         orderNumLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
         
-        JLabel productLabel = new JLabel(order.getProductName());
+        JLabel productLabel = new JLabel(order.productName());
         productLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         productLabel.setForeground(Color.DARK_GRAY);
         productLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
@@ -717,7 +822,7 @@ public class CustomOrdersAdminPanel extends JPanel {
         card.setCursor(new Cursor(Cursor.HAND_CURSOR));
         card.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseClicked(java.awt.event.MouseEvent evt) {
-                highlightOrderInTable(order.getOrderNumber());
+                highlightOrderInTable(order.orderNumber());
             }
         });
         
@@ -0,0 +1,175 @@
+package kiosk.view.admin;
+
+import kiosk.controller.CustomerController;
+import kiosk.model.Customer;
+import kiosk.model.CustomerSummary;
+import kiosk.database.dao.KeysetCursor;
+import kiosk.database.dao.KeysetPage;
+import kiosk.util.Money;
+import kiosk.view.BakeryTheme;
+
+import javax.swing.*;
+import javax.swing.table.*;
+import javax.swing.border.*;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Admin Panel for browsing registered customers.
+ * The list is read a page at a time (newest first); a search switches it to
+ * ranked matches, also paged.
+ */
+public class CustomersAdminPanel extends JPanel {
+    private final Color PRIMARY_COLOR = BakeryTheme.PRIMARY_COLOR;
+
+    private static final int PAGE_SIZE = 50;
+
+    private CustomerController controller;
+    private DefaultTableModel tableModel;
+    private JTextField searchField;
+    private JButton loadMoreButton;
+    private JLabel countLabel;
+
+    // Listing position: a keyset cursor when browsing, an offset when searching
+    private KeysetCursor nextCursor;
+    private String searchTerm = "";
+    private int searchOffset;
+
+    public CustomersAdminPanel(CustomerController controller) {
+        this.controller = controller;
+        setLayout(new BorderLayout(10, 10));
+        setBackground(Color.WHITE);
+        setBorder(new EmptyBorder(20, 20, 20, 20));
+
+        add(createHeader(), BorderLayout.NORTH);
+        add(createTablePanel(), BorderLayout.CENTER);
+        loadData();
+    }
+
+    private JPanel createHeader() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(PRIMARY_COLOR);
+        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+
+        JLabel titleLabel = new JLabel("👥 Customers");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 28));
+        titleLabel.setForeground(Color.WHITE);
+
+        searchField = new JTextField(20);
+        searchField.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        searchField.addActionListener(e -> loadData());
+
+        JButton searchButton = new JButton("🔍 Search");
+        searchButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        searchButton.setBackground(Color.WHITE);
+        searchButton.setForeground(PRIMARY_COLOR);
+        searchButton.setFocusPainted(false);
+        searchButton.setBorderPainted(false);
+        searchButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        searchButton.addActionListener(e -> loadData());
+
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        searchPanel.setOpaque(false);
+        searchPanel.add(searchField);
+        searchPanel.add(searchButton);
+
+        panel.add(titleLabel, BorderLayout.WEST);
+        panel.add(searchPanel, BorderLayout.EAST);
+
+        return panel;
+    }
+
+    private JPanel createTablePanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setOpaque(false);
+
+        String[] columns = {"Customer ID", "Name", "Email", "Phone", "Type",
+                           "Orders", "Total Spent", "Active"};
+        tableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        JTable customersTable = new JTable(tableModel);
+        customersTable.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        customersTable.setRowHeight(35);
+        customersTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
+        customersTable.getTableHeader().setBackground(PRIMARY_COLOR);
+        customersTable.getTableHeader().setForeground(Color.WHITE);
+        customersTable.setGridColor(new Color(230, 230, 230));
+
+        JScrollPane scrollPane = new JScrollPane(customersTable);
+        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+
+        countLabel = new JLabel(" ");
+        countLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        countLabel.setForeground(Color.GRAY);
+
+        loadMoreButton = new JButton("Load More Customers");
+        loadMoreButton.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        loadMoreButton.setFocusPainted(false);
+        loadMoreButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        loadMoreButton.setEnabled(false);
+        loadMoreButton.addActionListener(e -> loadNextPage());
+
+        JPanel loadMorePanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 5));
+        loadMorePanel.setOpaque(false);
+        loadMorePanel.add(countLabel);
+        loadMorePanel.add(loadMoreButton);
+
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(loadMorePanel, BorderLayout.SOUTH);
+
+        return panel;
+    }
+
+    private void loadData() {
+        searchTerm = searchField.getText().trim();
+        tableModel.setRowCount(0);
+        nextCursor = null;
+        searchOffset = 0;
+        countLabel.setText(searchTerm.isEmpty() ? " "
+            : controller.countSearchResults(searchTerm) + " matching customers");
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (searchTerm.isEmpty()) {
+            KeysetPage<CustomerSummary> page = controller.listCustomerSummaries(nextCursor, PAGE_SIZE);
+            for (CustomerSummary customer : page.getItems()) {
+                tableModel.addRow(new Object[] {
+                    customer.customerId(),
+                    customer.fullName(),
+                    customer.email(),
+                    customer.phone(),
+                    customer.customerType(),
+                    customer.totalOrders(),
+                    Money.format(Money.ofPesos(customer.totalSpent())),
+                    customer.active() ? "Yes" : "No"
+                });
+            }
+            nextCursor = page.getNextCursor();
+            loadMoreButton.setEnabled(page.hasMore());
+            return;
+        }
+
+        // One extra match tells whether another page exists
+        List<Customer> matches = controller.searchCustomers(searchTerm, searchOffset, PAGE_SIZE + 1);
+        for (Customer customer : matches.subList(0, Math.min(PAGE_SIZE, matches.size()))) {
+            tableModel.addRow(new Object[] {
+                customer.getCustomerId(),
+                customer.getFullName(),
+                customer.getEmail(),
+                customer.getPhone(),
+                customer.getCustomerType(),
+                customer.getTotalOrders(),
+                Money.format(Money.ofPesos(customer.getTotalSpent())),
+                customer.isActive() ? "Yes" : "No"
+            });
+        }
+        searchOffset += PAGE_SIZE;
+        loadMoreButton.setEnabled(matches.size() > PAGE_SIZE);
+    }
+}
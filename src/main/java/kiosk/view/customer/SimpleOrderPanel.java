@@ -12,10 +12,14 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 import kiosk.controller.CustomOrderController;
+import kiosk.controller.PricingEngine;
+import kiosk.database.dao.CustomCatalog;
 import kiosk.database.dao.CustomOrderDAO;
 import kiosk.database.dao.CustomProductDAO;
 import kiosk.model.*;
+import kiosk.util.Money;
 import kiosk.view.BakeryTheme;
 
 /**
@@ -58,6 +62,9 @@ public class SimpleOrderPanel extends JPanel {
     private List<CustomProduct> availableProducts;
     private Map<String, OrderAddOn> selectedAddons;
     private CustomProduct selectedProduct;
+    // Quote on screen, adjusted one input at a time
+    private PricingEngine.Quote currentQuote;
+    private long quoteCatalogVersion;
     
     // UI Components
     private JLabel welcomeLabel;
@@ -341,7 +348,7 @@ public class SimpleOrderPanel extends JPanel {
         servingsSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 500, 1));
         servingsSpinner.setFont(REGULAR_FONT);
         ((JSpinner.DefaultEditor) servingsSpinner.getEditor()).getTextField().setColumns(5);
-        servingsSpinner.addChangeListener(e -> updatePriceCalculation());
+        servingsSpinner.addChangeListener(e -> adjustQuote(q -> q.withServings((int) servingsSpinner.getValue())));
         
         servingsRangeLabel = new JLabel("(Min: 10, Max: 500)");
         servingsRangeLabel.setFont(SMALL_FONT);
@@ -414,7 +421,7 @@ public class SimpleOrderPanel extends JPanel {
         fulfillmentComboBox.setFont(REGULAR_FONT);
         fulfillmentComboBox.addActionListener(e -> {
             updateDeliveryField();
-            updatePriceCalculation();
+            adjustQuote(q -> q.withDelivery(isDelivery()));
         });
         gbc.gridx = 1; gbc.gridy = row++;
         gbc.weightx = 1.0;
@@ -793,8 +800,9 @@ public class SimpleOrderPanel extends JPanel {
     }
     
     private void loadAddons() {
-        // Load available add-ons from database
-        List<Addon> addons = productDAO.getAllAddons();
+        // Load available add-ons from the catalog snapshot
+        CustomCatalog catalog = productDAO.getCatalog();
+        List<OrderAddOn> addons = catalog.getActiveAddons();
         
         addonsPanel.removeAll();
         addonCheckboxes.clear();
@@ -805,7 +813,7 @@ public class SimpleOrderPanel extends JPanel {
             noAddonsLabel.setForeground(Color.GRAY);
             addonsPanel.add(noAddonsLabel);
         } else {
-            for (Addon addon : addons) {
+            for (OrderAddOn addon : addons) {
                 JPanel addonItem = new JPanel(new BorderLayout(10, 5));
                 addonItem.setBackground(CARD_BG);
                 addonItem.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
@@ -813,25 +821,21 @@ public class SimpleOrderPanel extends JPanel {
                 JCheckBox checkbox = new JCheckBox();
                 checkbox.setBackground(CARD_BG);
                 
-                // Create OrderAddOn from Addon for storage
-                OrderAddOn orderAddon = new OrderAddOn();
-                orderAddon.setAddonCode(String.valueOf(addon.getAddonId()));
-                orderAddon.setAddonName(addon.getAddonName());
-                orderAddon.setCategoryCode(String.valueOf(addon.getCategoryId()));
-                orderAddon.setPriceModifier(addon.getAddonPrice());
-                orderAddon.setPriceType(OrderAddOn.PriceType.FLAT); // Default to FLAT
-                orderAddon.setDescription(addon.getDescription());
+                // Own copy for storage, keyed by its real add-on code
+                OrderAddOn orderAddon = catalog.newOrderAddon(addon.getAddonCode());
                 
                 checkbox.addActionListener(e -> {
+                    String addonCode = orderAddon.getAddonCode();
                     if (checkbox.isSelected()) {
-                        selectedAddons.put(orderAddon.getAddonCode(), orderAddon);
+                        selectedAddons.put(addonCode, orderAddon);
+                        adjustQuote(q -> q.withAddon(addonCode));
                     } else {
-                        selectedAddons.remove(orderAddon.getAddonCode());
+                        selectedAddons.remove(addonCode);
+                        adjustQuote(q -> q.withoutAddon(addonCode));
                     }
-                    updatePriceCalculation();
                 });
                 
-                addonCheckboxes.put(String.valueOf(addon.getAddonId()), checkbox);
+                addonCheckboxes.put(addon.getAddonCode(), checkbox);
                 
                 JPanel infoPanel = new JPanel(new BorderLayout());
                 infoPanel.setBackground(CARD_BG);
@@ -839,7 +843,17 @@ public class SimpleOrderPanel extends JPanel {
                 JLabel nameLabel = new JLabel(addon.getAddonName());
                 nameLabel.setFont(REGULAR_FONT);
                 
-                String priceText = String.format("₱%.2f", addon.getAddonPrice());
+                String priceText;
+                switch (addon.getPriceType()) {
+                    case PERCENTAGE:
+                        priceText = String.format("+%.0f%%", addon.getPriceModifier());
+                        break;
+                    case PER_SERVING:
+                        priceText = Money.format(Money.ofPesos(addon.getPriceModifier())) + " / serving";
+                        break;
+                    default:
+                        priceText = Money.format(Money.ofPesos(addon.getPriceModifier()));
+                }
                 
                 JLabel priceLabel = new JLabel(priceText);
                 priceLabel.setFont(SMALL_FONT);
@@ -911,63 +925,76 @@ public class SimpleOrderPanel extends JPanel {
     }
     
     private void updateDeliveryField() {
-        boolean isDelivery = "DELIVERY".equals(fulfillmentComboBox.getSelectedItem());
+        boolean isDelivery = isDelivery();
         deliveryAddressField.setEnabled(isDelivery);
         if (!isDelivery) {
             deliveryAddressField.setText("");
         }
     }
     
+    private boolean isDelivery() {
+        return "DELIVERY".equals(fulfillmentComboBox.getSelectedItem());
+    }
+    
+    /**
+     * Price the whole form from scratch (product change, catalog change, clear form)
+     */
     private void updatePriceCalculation() {
         if (selectedProduct == null) {
             return;
         }
         
         try {
-            int servings = (int) servingsSpinner.getValue();
-            double basePrice = selectedProduct.getPricePerServing() * servings;
-            
-            // Calculate add-ons total
-            double addonsTotal = 0.0;
-            for (OrderAddOn addon : selectedAddons.values()) {
-                switch (addon.getPriceType()) {
-                    case FLAT:
-                        addonsTotal += addon.getPriceModifier();
-                        break;
-                    case PERCENTAGE:
-                        addonsTotal += basePrice * addon.getPriceModifier();
-                        break;
-                    case PER_SERVING:
-                        addonsTotal += addon.getPriceModifier() * servings;
-                        break;
-                }
+            // Priced from the compiled catalog, no database access
+            PricingEngine engine = controller.getPricingEngine();
+            PricingEngine.Quote quote = engine
+                .quote(selectedProduct.getProductCode(), (int) servingsSpinner.getValue())
+                .withDelivery(isDelivery());
+            for (String addonCode : selectedAddons.keySet()) {
+                quote = quote.withAddon(addonCode);
             }
-            
-            double subtotal = basePrice + addonsTotal;
-            double tax = subtotal * 0.12; // 12% VAT
-            
-            double deliveryFee = 0.0;
-            if ("DELIVERY".equals(fulfillmentComboBox.getSelectedItem())) {
-                deliveryFee = 200.0;
-            }
-            
-            double total = subtotal + tax + deliveryFee;
-            double deposit = total * 0.5;
-            
-            // Update UI
-            basePriceLabel.setText(String.format("₱%.2f", basePrice));
-            addonsLabel.setText(String.format("₱%.2f", addonsTotal));
-            subtotalLabel.setText(String.format("₱%.2f", subtotal));
-            taxLabel.setText(String.format("₱%.2f", tax));
-            deliveryFeeLabel.setText(String.format("₱%.2f", deliveryFee));
-            totalLabel.setText(String.format("₱%.2f", total));
-            depositLabel.setText(String.format("Required Deposit (50%%): ₱%.2f", deposit));
+            currentQuote = quote;
+            quoteCatalogVersion = engine.getCatalogVersion();
+            showQuote();
             
         } catch (Exception ex) {
             System.err.println("Error calculating price: " + ex.getMessage());
         }
     }
     
+    /**
+     * Apply one change to the quote on screen; reprices from scratch when the
+     * product or the catalog has changed since it was built
+     */
+    private void adjustQuote(UnaryOperator<PricingEngine.Quote> change) {
+        if (selectedProduct == null) {
+            return;
+        }
+        if (currentQuote == null
+                || !currentQuote.getProductCode().equals(selectedProduct.getProductCode())
+                || quoteCatalogVersion != controller.getPricingEngine().getCatalogVersion()) {
+            updatePriceCalculation();
+            return;
+        }
+        
+        try {
+            currentQuote = change.apply(currentQuote);
+            showQuote();
+        } catch (Exception ex) {
+            System.err.println("Error calculating price: " + ex.getMessage());
+        }
+    }
+    
+    private void showQuote() {
+        basePriceLabel.setText(Money.format(currentQuote.getBaseCents()));
+        addonsLabel.setText(Money.format(currentQuote.getAddonsCents()));
+        subtotalLabel.setText(Money.format(currentQuote.getSubtotalCents()));
+        taxLabel.setText(Money.format(currentQuote.getTaxCents()));
+        deliveryFeeLabel.setText(Money.format(currentQuote.getDeliveryFeeCents()));
+        totalLabel.setText(Money.format(currentQuote.getTotalCents()));
+        depositLabel.setText("Required Deposit (50%): " + Money.format(currentQuote.getDepositCents()));
+    }
+    
     /**
      * Get the minimum ready date/time based on product preparation time
      */
@@ -975,7 +1002,11 @@ public class SimpleOrderPanel extends JPanel {
         if (selectedProduct == null) {
             return LocalDateTime.now().plusHours(24); // Default 24 hours
         }
-        return LocalDateTime.now().plusHours(selectedProduct.getPreparationTimeHours());
+        LocalDateTime ready = LocalDateTime.now().plusHours(selectedProduct.getPreparationTimeHours());
+        
+        // Earliest pickup slot that still has room for this product
+        List<LocalDateTime> slots = controller.getAvailablePickupSlots(selectedProduct.getProductCode(), ready, 1);
+        return slots.isEmpty() ? ready : slots.get(0);
     }
     
     /**
@@ -1224,29 +1255,24 @@ public class SimpleOrderPanel extends JPanel {
             return;
         }
         
-        List<CustomOrder> orders = orderDAO.findByCustomerId(customerId);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        
-        // Apply status filter
+        // Status filter is applied in the query
         String selectedFilter = (String) statusFilterCombo.getSelectedItem();
+        String status = "All Orders".equals(selectedFilter) ? null : selectedFilter;
         
-        for (CustomOrder order : orders) {
-            // Filter by status
-            if (!"All Orders".equals(selectedFilter) && 
-                !order.getOrderStatus().toString().equals(selectedFilter)) {
-                continue;
-            }
-            
+        List<OrderSummary> orders = orderDAO.findOrderSummariesByCustomer(customerId, status);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        
+        for (OrderSummary order : orders) {
             ordersTableModel.addRow(new Object[]{
-                order.getOrderNumber(),
-                order.getProductName(),
-                order.getOrderStatus(),
-                order.getFulfillmentType(),
-                order.getPickupDatetime() != null ? 
-                    order.getPickupDatetime().format(formatter) : "N/A",
-                String.format("₱%.2f", order.getTotalAmount()),
-                String.format("₱%.2f", order.getDepositPaid()),
-                String.format("₱%.2f", order.getBalanceDue())
+                order.orderNumber(),
+                order.productName(),
+                order.orderStatus(),
+                order.fulfillmentType(),
+                order.pickupDatetime() != null ? 
+                    order.pickupDatetime().format(formatter) : "N/A",
+                Money.format(order.totalAmount()),
+                Money.format(order.depositPaid()),
+                Money.format(order.balanceDue())
             });
         }
         
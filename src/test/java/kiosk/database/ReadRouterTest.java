@@ -0,0 +1,112 @@
+package kiosk.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ReadRouter between two SQLite files, one playing the primary and one the
+ * reporting replica. Each file names itself in a source table, so a query on a
+ * leased connection shows where it was routed.
+ */
+public class ReadRouterTest {
+    private static final long MAX_LAG_MILLIS = 30000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection primary;
+    private Connection replicaAdmin;
+    private ReadRouter router;
+
+    @Before
+    public void setUp() throws Exception {
+        String primaryUrl = "jdbc:sqlite:" + folder.newFile("primary.db").getPath();
+        String replicaUrl = "jdbc:sqlite:" + folder.newFile("replica.db").getPath();
+        primary = DriverManager.getConnection(primaryUrl);
+        replicaAdmin = DriverManager.getConnection(replicaUrl);
+        createSchema(primary, "primary");
+        createSchema(replicaAdmin, "replica");
+        router = new ReadRouter(replicaUrl, MAX_LAG_MILLIS, () -> primary);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        router.close();
+        primary.close();
+        replicaAdmin.close();
+    }
+
+    @Test
+    public void reportsUseReplicaWhileHeartbeatIsFresh() throws Exception {
+        stampReplica(System.currentTimeMillis());
+        try (Connection conn = router.getReportingConnection()) {
+            assertEquals("replica", source(conn));
+        }
+        assertTrue(router.isUsingReplica());
+    }
+
+    @Test
+    public void reportsFallBackToPrimaryWhenReplicaLags() throws Exception {
+        stampReplica(System.currentTimeMillis() - MAX_LAG_MILLIS - 5000);
+        try (Connection conn = router.getReportingConnection()) {
+            assertEquals("primary", source(conn));
+        }
+        assertFalse(router.isUsingReplica());
+    }
+
+    @Test
+    public void closingLeaseKeepsReplicaConnectionOpen() throws Exception {
+        stampReplica(System.currentTimeMillis());
+        Connection first = router.getReportingConnection();
+        Connection second = router.getReportingConnection();
+        assertEquals("replica", source(first));
+
+        first.close();
+        assertTrue(first.isClosed());
+        assertFalse(second.isClosed());
+        assertEquals("replica", source(second));
+        second.close();
+
+        try (Connection third = router.getReportingConnection()) {
+            assertEquals("replica", source(third));
+        }
+    }
+
+    private static void createSchema(Connection conn, String name) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE replication_heartbeat (id INTEGER PRIMARY KEY, beat_millis INTEGER NOT NULL)");
+            stmt.execute("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, 0)");
+            stmt.execute("CREATE TABLE source (name TEXT)");
+            stmt.execute("INSERT INTO source (name) VALUES ('" + name + "')");
+        }
+    }
+
+    /**
+     * The heartbeat as replicated from the primary
+     */
+    private void stampReplica(long beatMillis) throws SQLException {
+        try (Statement stmt = replicaAdmin.createStatement()) {
+            stmt.executeUpdate("UPDATE replication_heartbeat SET beat_millis = " + beatMillis + " WHERE id = 1");
+        }
+    }
+
+    private static String source(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM source")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package kiosk.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ReplicaSync between two SQLite files: a kiosk's local store and a central
+ * database standing in for MySQL.
+ */
+public class ReplicaSyncTest {
+    private static final String INSERT_MOVEMENT =
+        "INSERT INTO inventory_stock_history (item_name, old_quantity, new_quantity, change_amount, change_type) " +
+        "VALUES (?, ?, ?, ?, ?)";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final WriteOutbox outbox = new WriteOutbox();
+    private Connection local;
+    private Connection central;
+    private ReplicaSync sync;
+
+    @Before
+    public void setUp() throws Exception {
+        File localFile = folder.newFile("local.db");
+        File centralFile = new File(folder.getRoot(), "central.db");
+        local = DriverManager.getConnection("jdbc:sqlite:" + localFile.getPath());
+        new SchemaMigrator(local, DatabaseConfig.DatabaseType.SQLITE, DatabaseInitializer.migrations()).migrate();
+        // same seed rows on both sides, so the first pull changes nothing but the test's rows
+        Files.copy(localFile.toPath(), centralFile.toPath());
+        central = DriverManager.getConnection("jdbc:sqlite:" + centralFile.getPath());
+        sync = new ReplicaSync(outbox, "jdbc:sqlite:" + localFile.getPath(), "jdbc:sqlite:" + centralFile.getPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sync.stop();
+        local.close();
+        central.close();
+    }
+
+    @Test
+    public void pushAppliesEachTransactionOnce() throws Exception {
+        recordSale("push-1");
+        assertTrue(sync.syncOnce());
+        assertEquals(2, count(central, "SELECT COUNT(*) FROM inventory_stock_history WHERE item_name = 'Pandesal'"));
+        assertEquals(1, count(central, "SELECT COUNT(*) FROM sync_applied WHERE idempotency_key = 'push-1'"));
+        assertEquals(0, count(local, "SELECT COUNT(*) FROM sync_outbox"));
+
+        // pushed, but the kiosk stopped before clearing its outbox: the retry must be a no-op
+        recordSale("push-1");
+        assertTrue(sync.syncOnce());
+        assertEquals(2, count(central, "SELECT COUNT(*) FROM inventory_stock_history WHERE item_name = 'Pandesal'"));
+        assertEquals(0, count(local, "SELECT COUNT(*) FROM sync_outbox"));
+    }
+
+    @Test
+    public void pullTakesRowsChangedSinceTheWatermark() throws Exception {
+        execute(central, "INSERT INTO inventory (name, category, price, stock_quantity, updated_at) " +
+                         "VALUES ('Cheese Ensaymada', 'Pastries', 25, 10, '2090-01-01 08:00:00')");
+        assertTrue(sync.syncOnce());
+        assertEquals(25, count(local, "SELECT price FROM inventory WHERE name = 'Cheese Ensaymada'"));
+
+        // stamped before the watermark: not picked up again
+        execute(central, "UPDATE inventory SET price = 30, updated_at = '2089-12-31 00:00:00' " +
+                         "WHERE name = 'Cheese Ensaymada'");
+        assertTrue(sync.syncOnce());
+        assertEquals(25, count(local, "SELECT price FROM inventory WHERE name = 'Cheese Ensaymada'"));
+
+        execute(central, "UPDATE inventory SET price = 35, updated_at = '2090-01-02 08:00:00' " +
+                         "WHERE name = 'Cheese Ensaymada'");
+        assertTrue(sync.syncOnce());
+        assertEquals(35, count(local, "SELECT price FROM inventory WHERE name = 'Cheese Ensaymada'"));
+        assertEquals(1, count(local, "SELECT COUNT(*) FROM replica_state " +
+                                    "WHERE name = 'pull:inventory' AND watermark = '2090-01-02 08:00:00'"));
+    }
+
+    @Test
+    public void pullRemovesRowsDeletedCentrally() throws Exception {
+        execute(central, "INSERT INTO inventory (name, category, price, stock_quantity) " +
+                         "VALUES ('Ube Roll', 'Pastries', 40, 5)");
+        execute(central, "INSERT INTO inventory (name, category, price, stock_quantity) " +
+                         "VALUES ('Spanish Bread', 'Breads & Rolls', 12, 20)");
+        assertTrue(sync.syncOnce());
+        assertEquals(2, count(local, "SELECT COUNT(*) FROM inventory WHERE name IN ('Ube Roll', 'Spanish Bread')"));
+
+        execute(central, "DELETE FROM inventory WHERE name = 'Ube Roll'");
+        assertTrue(sync.syncOnce());
+        assertEquals(0, count(local, "SELECT COUNT(*) FROM inventory WHERE name = 'Ube Roll'"));
+        assertEquals(1, count(local, "SELECT COUNT(*) FROM inventory WHERE name = 'Spanish Bread'"));
+    }
+
+    /**
+     * One local transaction of two stock movements, as captured while offline
+     */
+    private void recordSale(String key) throws SQLException {
+        outbox.record(local, key, INSERT_MOVEMENT, movement(20, 18));
+        outbox.record(local, key, INSERT_MOVEMENT, movement(18, 17));
+    }
+
+    private static Map<Integer, Object> movement(int oldQuantity, int newQuantity) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        parameters.put(1, "Pandesal");
+        parameters.put(2, oldQuantity);
+        parameters.put(3, newQuantity);
+        parameters.put(4, newQuantity - oldQuantity);
+        parameters.put(5, "SALE");
+        return parameters;
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static int count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+}